@@ -17,6 +17,7 @@ import java.io.InputStream;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.phoebus.channelfinder.example.DirectoryGenerator;
 import org.phoebus.channelfinder.example.PopulateService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.ApplicationArguments;
@@ -68,6 +69,9 @@ public class Application  implements ApplicationRunner {
     @Autowired
     PopulateService service;
 
+    @Autowired
+    DirectoryGenerator generator;
+
     public void run(ApplicationArguments args) throws Exception {
         if(args.containsOption("demo-data")) {
             int numberOfCells = args.getOptionValues("demo-data").stream().mapToInt(Integer::valueOf).max().orElse(1);
@@ -80,6 +84,15 @@ public class Application  implements ApplicationRunner {
             service.createDB(numberOfCells);
             service.cleanupDB();
         }
+        if(args.containsOption("synthetic-data")) {
+            int numberOfCells = args.getOptionValues("synthetic-data").stream().mapToInt(Integer::valueOf).max().orElse(1);
+            logger.log(Level.INFO, "Populating the channelfinder service with synthetic data");
+            generator.generate(numberOfCells);
+        }
+        if(args.containsOption("synthetic-cleanup")) {
+            int numberOfCells = args.getOptionValues("synthetic-cleanup").stream().mapToInt(Integer::valueOf).max().orElse(1);
+            generator.cleanup(numberOfCells);
+        }
     }
 
 }
\ No newline at end of file
@@ -1,48 +1,73 @@
 package org.phoebus.channelfinder;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.phoebus.channelfinder.jfr.AuthorizationEvent;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Checks the roles and the ownership of the authenticated user.
+ * <p>
+ * The authorities of the user are collected into a hash set once per request,
+ * and kept as a request attribute, so that the checks of a bulk request do not
+ * rebuild them for each channel.
+ */
 @Service
 public class AuthorizationService {
 
-    public static List<String> admin_groups;
-    public static List<String> channel_groups;
-    public static List<String> property_groups;
-    public static List<String> tag_groups;
+    /** the request attribute holding the authorities of the current request */
+    private static final String AUTHORITIES_ATTRIBUTE = AuthorizationService.class.getName() + ".authorities";
+
+    /** the role names of the owners, owners are few and shared by many channels */
+    private static final Cache<String, String> ownerRoles = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .build();
+
+    public static Set<String> admin_groups;
+    public static Set<String> channel_groups;
+    public static Set<String> property_groups;
+    public static Set<String> tag_groups;
 
     @Value("${admin-groups:cf-admins}")
     void initializeAdminRoles(String groups) {
-        AuthorizationService.admin_groups = Arrays.asList(groups.split(",")).stream().map(g ->
-            "ROLE_" + g.trim().toUpperCase()
-        ).collect(Collectors.toList());
+        AuthorizationService.admin_groups = toRoles(groups);
     }
     @Value("${channel-groups:cf-channels}")
     void initializeChannelModRoles(String groups) {
-        AuthorizationService.channel_groups = Arrays.asList(groups.split(",")).stream().map(g ->
-            "ROLE_" + g.trim().toUpperCase()
-        ).collect(Collectors.toList());
+        AuthorizationService.channel_groups = toRoles(groups);
     }
     @Value("${property-groups:cf-properties}")
     void initializePropertyRoles(String groups) {
-        AuthorizationService.property_groups = Arrays.asList(groups.split(",")).stream().map(g ->
-            "ROLE_" + g.trim().toUpperCase()
-        ).collect(Collectors.toList());
+        AuthorizationService.property_groups = toRoles(groups);
     }
     @Value("${tag-groups:cf-tags}")
     void initializeTagRoles(String groups) {
-        AuthorizationService.tag_groups = Arrays.asList(groups.split(",")).stream().map(g ->
-            "ROLE_" + g.trim().toUpperCase()
-        ).collect(Collectors.toList());
+        AuthorizationService.tag_groups = toRoles(groups);
+    }
+
+    private static Set<String> toRoles(String groups) {
+        return Arrays.stream(groups.split(",")).map(AuthorizationService::toRole)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private static String toRole(String group) {
+        return "ROLE_" + group.trim().toUpperCase();
     }
 
     public enum ROLES {
@@ -51,66 +76,152 @@ public class AuthorizationService {
         CF_PROPERTY(property_groups),
         CF_TAG(tag_groups);
 
-        private final List<String> groups;
+        private final Set<String> groups;
 
-        private ROLES(List<String> groups) {
+        private ROLES(Set<String> groups) {
             this.groups = groups;
         }
     }
 
     public boolean isAuthorizedOwner(Authentication authentication, XmlTag data) {
-        ArrayList<String> auth = new ArrayList<>();
-        Collection<? extends GrantedAuthority> auths = authentication.getAuthorities();
-        for(GrantedAuthority a: auths)
-            auth.add(a.getAuthority());
-        
-        if(!Collections.disjoint(auth,ROLES.CF_ADMIN.groups))
-            return true;
-        if(authentication.getName().equals(data.getOwner()) || auth.contains("ROLE_" + data.getOwner().trim().toUpperCase()))
-            return true;
-        return false;
+        return isAuthorizedOwner(authentication, data.getOwner());
     }
 
     public boolean isAuthorizedOwner(Authentication authentication, XmlProperty data) {
-        ArrayList<String> auth = new ArrayList<>();
-        Collection<? extends GrantedAuthority> auths = authentication.getAuthorities();
-        for(GrantedAuthority a: auths)
-            auth.add(a.getAuthority());
-        
-        if(!Collections.disjoint(auth,ROLES.CF_ADMIN.groups))
-            return true;
-        if(authentication.getName().equals(data.getOwner()) || auth.contains("ROLE_" + data.getOwner().trim().toUpperCase()))
-            return true;
-        return false;
+        return isAuthorizedOwner(authentication, data.getOwner());
     }
 
     public boolean isAuthorizedOwner(Authentication authentication, XmlChannel data) {
-        ArrayList<String> auth = new ArrayList<>();
-        Collection<? extends GrantedAuthority> auths = authentication.getAuthorities();
-        for(GrantedAuthority a: auths)
-            auth.add(a.getAuthority());
-        
-        if(!Collections.disjoint(auth,ROLES.CF_ADMIN.groups))
-            return true;
-        if(authentication.getName().equals(data.getOwner()) || auth.contains("ROLE_" + data.getOwner().trim().toUpperCase()))
-            return true;
-        return false;
+        return isAuthorizedOwner(authentication, data.getOwner());
+    }
+
+    private boolean isAuthorizedOwner(Authentication authentication, String owner) {
+        AuthorizationEvent event = new AuthorizationEvent();
+        event.begin();
+        boolean authorized = isAuthorizedOwner(authorities(authentication), owner);
+        commit(event, authentication, "owner", owner, 1, authorized);
+        return authorized;
+    }
+
+    /**
+     * Check the ownership of all the given channels, tags or properties, each
+     * distinct owner is only checked once
+     *
+     * @param authentication - the authenticated user
+     * @param data - the channels, tags or properties
+     * @param owner - the owner of an element of the data
+     * @return the first element not owned by the user, empty if the user owns them all
+     */
+    public <T> Optional<T> findUnauthorizedOwner(Authentication authentication, Iterable<T> data, Function<T, String> owner) {
+        AuthorizationEvent event = new AuthorizationEvent();
+        event.begin();
+        Authorities authorities = authorities(authentication);
+        if (authorities.admin) {
+            commit(event, authentication, "owners", null, 0, true);
+            return Optional.empty();
+        }
+        Map<String, Boolean> decisions = new HashMap<>();
+        int checked = 0;
+        for (T element : data) {
+            checked++;
+            String elementOwner = owner.apply(element);
+            if (!decisions.computeIfAbsent(elementOwner, o -> isAuthorizedOwner(authorities, o))) {
+                commit(event, authentication, "owners", elementOwner, checked, false);
+                return Optional.of(element);
+            }
+        }
+        commit(event, authentication, "owners", null, checked, true);
+        return Optional.empty();
     }
 
     public boolean isAuthorizedRole(Authentication authentication, ROLES expectedRole) {
-        ArrayList<String> auth = new ArrayList<>();
-        Collection<? extends GrantedAuthority> auths = authentication.getAuthorities();
-        for(GrantedAuthority a: auths)
-            auth.add(a.getAuthority());
+        AuthorizationEvent event = new AuthorizationEvent();
+        event.begin();
+        boolean authorized = isAuthorizedRole(authorities(authentication), expectedRole);
+        commit(event, authentication, "role", expectedRole.name(), 0, authorized);
+        return authorized;
+    }
 
-        if(!Collections.disjoint(auth,ROLES.CF_ADMIN.groups))
+    private static boolean isAuthorizedRole(Authorities authorities, ROLES expectedRole) {
+        if(authorities.admin)
             return true;
-        else if(!Collections.disjoint(auth,ROLES.CF_CHANNEL.groups) && expectedRole != ROLES.CF_ADMIN)
+        else if(authorities.hasAny(ROLES.CF_CHANNEL.groups) && expectedRole != ROLES.CF_ADMIN)
             return true;
-        else if(!Collections.disjoint(auth,ROLES.CF_PROPERTY.groups) && (expectedRole == ROLES.CF_PROPERTY || expectedRole == ROLES.CF_TAG))
+        else if(authorities.hasAny(ROLES.CF_PROPERTY.groups) && (expectedRole == ROLES.CF_PROPERTY || expectedRole == ROLES.CF_TAG))
             return true;
-        else if(!Collections.disjoint(auth,ROLES.CF_TAG.groups) && expectedRole == ROLES.CF_TAG)
+        else if(authorities.hasAny(ROLES.CF_TAG.groups) && expectedRole == ROLES.CF_TAG)
             return true;
         return false;
     }
+
+    private static void commit(AuthorizationEvent event, Authentication authentication, String check, String target,
+                               int checked, boolean authorized) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.user = authentication.getName();
+            event.check = check;
+            event.target = target;
+            event.checked = checked;
+            event.authorized = authorized;
+            event.commit();
+        }
+    }
+
+    private static boolean isAuthorizedOwner(Authorities authorities, String owner) {
+        if(authorities.admin)
+            return true;
+        return authorities.name.equals(owner) || authorities.roles.contains(ownerRole(owner));
+    }
+
+    private static String ownerRole(String owner) {
+        try {
+            return ownerRoles.get(owner, () -> toRole(owner));
+        } catch (ExecutionException e) {
+            return toRole(owner);
+        }
+    }
+
+    /**
+     * @return the authorities of the user, cached for the current request
+     */
+    private static Authorities authorities(Authentication authentication) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null) {
+            return new Authorities(authentication);
+        }
+        Object cached = request.getAttribute(AUTHORITIES_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (cached instanceof Authorities && ((Authorities) cached).authentication == authentication) {
+            return (Authorities) cached;
+        }
+        Authorities authorities = new Authorities(authentication);
+        request.setAttribute(AUTHORITIES_ATTRIBUTE, authorities, RequestAttributes.SCOPE_REQUEST);
+        return authorities;
+    }
+
+    private static class Authorities {
+        private final Authentication authentication;
+        private final String name;
+        private final Set<String> roles;
+        private final boolean admin;
+
+        Authorities(Authentication authentication) {
+            this.authentication = authentication;
+            this.name = authentication.getName();
+            Set<String> roles = new HashSet<>();
+            for (GrantedAuthority authority : authentication.getAuthorities()) {
+                roles.add(authority.getAuthority());
+            }
+            this.roles = roles;
+            this.admin = hasAny(ROLES.CF_ADMIN.groups);
+        }
+
+        boolean hasAny(Set<String> groups) {
+            for (String group : groups) {
+                if (roles.contains(group)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
 }
@@ -8,4 +8,11 @@ public class CFResourceDescriptors {
     static final String PROPERTY_RESOURCE_URI = CF_SERVICE + "/resources/properties";
     static final String CHANNEL_RESOURCE_URI = CF_SERVICE + "/resources/channels";
     static final String SCROLL_RESOURCE_URI = CF_SERVICE + "/resources/scroll";
+    static final String CHANGES_RESOURCE_URI = CF_SERVICE + "/resources/changes";
+    static final String SUBSCRIPTION_RESOURCE_URI = CF_SERVICE + "/resources/subscriptions";
+    static final String LOGIN_RESOURCE_URI = CF_SERVICE + "/resources/login";
+    static final String METRICS_RESOURCE_URI = CF_SERVICE + "/metrics";
+    static final String RECORDING_RESOURCE_URI = CF_SERVICE + "/resources/recording";
+    static final String TRACES_RESOURCE_URI = CF_SERVICE + "/traces";
+    static final String USAGE_RESOURCE_URI = CF_SERVICE + "/resources/usage";
 }
@@ -0,0 +1,95 @@
+package org.phoebus.channelfinder;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.springframework.ldap.core.DirContextOperations;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.ldap.userdetails.LdapAuthoritiesPopulator;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * An {@link LdapAuthoritiesPopulator} keeping the authorities found by another
+ * populator for a limited time, so that the group search is not repeated for
+ * each request of the same user.
+ * <p>
+ * The authorities are keyed by the DN of the user. Changes to the group
+ * membership of a user are seen once the cached entry expires.
+ */
+public class CachingLdapAuthoritiesPopulator implements LdapAuthoritiesPopulator {
+
+    static Logger log = Logger.getLogger(CachingLdapAuthoritiesPopulator.class.getName());
+
+    private final LdapAuthoritiesPopulator populator;
+    private final Cache<String, List<GrantedAuthority>> authorities;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer lookups;
+
+    /**
+     * @param name - the name of the ldap configuration, used as a tag of the metrics
+     * @param populator - the populator searching the groups of the users
+     * @param ttl - the time the authorities of a user are kept, in seconds
+     * @param size - the maximum number of users kept
+     */
+    public CachingLdapAuthoritiesPopulator(String name, LdapAuthoritiesPopulator populator, long ttl, long size) {
+        this.populator = populator;
+        this.authorities = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttl, TimeUnit.SECONDS)
+                .maximumSize(size)
+                .build();
+        this.hits = Counter.builder("cf.ldap.authorities.cache")
+                .description("Authorities found in the cache")
+                .tag("ldap", name).tag("result", "hit")
+                .register(Metrics.globalRegistry);
+        this.misses = Counter.builder("cf.ldap.authorities.cache")
+                .description("Authorities found in the cache")
+                .tag("ldap", name).tag("result", "miss")
+                .register(Metrics.globalRegistry);
+        this.lookups = Timer.builder("cf.ldap.authorities.lookup")
+                .description("Time of the ldap group searches")
+                .tag("ldap", name)
+                .register(Metrics.globalRegistry);
+        log.config(() -> name + " authorities kept for " + ttl + "s, at most " + size + " users");
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getGrantedAuthorities(DirContextOperations userData, String username) {
+        String dn = userData.getDn().toString();
+        List<GrantedAuthority> cached = authorities.getIfPresent(dn);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        try {
+            // concurrent requests of the same user wait for a single search
+            return authorities.get(dn, () -> {
+                misses.increment();
+                return List.copyOf(lookups.record(() -> populator.getGrantedAuthorities(userData, username)));
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to find the authorities of " + dn, e.getCause());
+        }
+    }
+
+    /**
+     * Drop the cached authorities, the next requests search the groups again
+     */
+    public void invalidateAll() {
+        authorities.invalidateAll();
+    }
+}
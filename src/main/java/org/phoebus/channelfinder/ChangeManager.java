@@ -0,0 +1,48 @@
+package org.phoebus.channelfinder;
+
+import static org.phoebus.channelfinder.CFResourceDescriptors.CHANGES_RESOURCE_URI;
+
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@CrossOrigin
+@RestController
+@RequestMapping(CHANGES_RESOURCE_URI)
+@EnableAutoConfiguration
+public class ChangeManager {
+
+    static Logger log = Logger.getLogger(ChangeManager.class.getName());
+
+    @Autowired
+    ChangeRepository changeRepository;
+
+    /**
+     * GET method for retrieving the channels, tags and properties created or
+     * updated, and the tombstones of those deleted, after the given change feed
+     * token.
+     * <p>
+     * Clients should start with <code>since=0</code> (or after a full download)
+     * and pass the returned token to the next request, repeating until no more
+     * changes are returned.
+     * <p>
+     * The changes are only returned once older than <code>changes.safety.lag</code>,
+     * so that a write completing after a later one is not skipped: a client
+     * sees its own writes after that delay.
+     *
+     * @param since - the change feed token returned by the previous request
+     * @param size - the maximum number of changes to return
+     * @return the changes after the token
+     */
+    @GetMapping
+    public XmlChanges changes(@RequestParam(value = "since", defaultValue = "0") long since,
+                              @RequestParam(value = "~size", required = false) Integer size) {
+        return changeRepository.findChangesSince(since, size);
+    }
+}
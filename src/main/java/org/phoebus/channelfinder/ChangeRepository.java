@@ -0,0 +1,179 @@
+package org.phoebus.channelfinder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.FieldSort;
+import co.elastic.clients.elasticsearch._types.SortOptions;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.mapping.FieldType;
+import co.elastic.clients.elasticsearch._types.query_dsl.RangeQuery;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.json.JsonData;
+import org.phoebus.channelfinder.jfr.BulkEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Repository;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * The change feed of the directory.
+ * <p>
+ * Every channel, tag and property document written by the repositories is
+ * stamped with a <code>lastModified</code> token and every deletion leaves a
+ * {@link XmlTombstone}. Consumers can then ask for the entities which changed
+ * after the last token they have seen instead of re-reading the whole
+ * directory.
+ * <p>
+ * Tokens are the wall clock time in microseconds, bumped when necessary so
+ * that the tokens handed out by a service instance are strictly increasing.
+ * A document is stamped before it is written, so a write may become visible
+ * after a later one, and the instances sharing the indices stamp with their
+ * own clocks: the changes are only returned once older than a safety lag,
+ * <code>changes.safety.lag</code>, which must exceed the duration of the
+ * writes and the clock skew between the instances.
+ */
+@Repository
+public class ChangeRepository {
+    static Logger log = Logger.getLogger(ChangeRepository.class.getName());
+
+    @Value("${elasticsearch.channel.index:channelfinder}")
+    private String ES_CHANNEL_INDEX;
+    @Value("${elasticsearch.tag.index:cf_tags}")
+    private String ES_TAG_INDEX;
+    @Value("${elasticsearch.property.index:cf_properties}")
+    private String ES_PROPERTY_INDEX;
+    @Value("${elasticsearch.tombstone.index:cf_tombstones}")
+    private String ES_TOMBSTONE_INDEX;
+
+    @Value("${elasticsearch.query.size:10000}")
+    private int defaultMaxSize;
+
+    @Value("${changes.safety.lag:5000}")
+    private long safetyLag;
+
+    @Autowired
+    @Qualifier("indexClient")
+    ElasticsearchClient client;
+
+    private static final AtomicLong lastStamp = new AtomicLong();
+
+    /**
+     * @return a new change feed token, strictly greater than any token previously returned
+     */
+    public long nextStamp() {
+        return lastStamp.updateAndGet(last -> Math.max(System.currentTimeMillis() * 1000, last + 1));
+    }
+
+    /**
+     * Record the deletion of an entity
+     *
+     * @param type - type of the deleted entity, see {@link XmlTombstone}
+     * @param name - name of the deleted entity
+     * @return the recorded tombstone
+     */
+    public XmlTombstone tombstone(String type, String name) {
+        return tombstoneAll(type, List.of(name)).get(0);
+    }
+
+    /**
+     * Record the deletion of a set of entities of the same type
+     *
+     * @param type - type of the deleted entities, see {@link XmlTombstone}
+     * @param names - names of the deleted entities
+     * @return the recorded tombstones
+     */
+    public List<XmlTombstone> tombstoneAll(String type, Collection<String> names) {
+        List<XmlTombstone> tombstones = new ArrayList<>(names.size());
+        if (names.isEmpty()) {
+            return tombstones;
+        }
+        BulkRequest.Builder br = new BulkRequest.Builder();
+        for (String name : names) {
+            XmlTombstone tombstone = new XmlTombstone(type, name, nextStamp());
+            tombstones.add(tombstone);
+            br.operations(op -> op.index(i -> i.index(ES_TOMBSTONE_INDEX)
+                    .id(tombstone.id())
+                    .document(tombstone)));
+        }
+        try {
+            BulkResponse result = BulkEvent.bulk(client, br.build());
+            // Log errors, if any
+            if (result.errors()) {
+                log.severe("Bulk had errors");
+                for (BulkResponseItem item : result.items()) {
+                    if (item.error() != null) {
+                        log.severe(item.error().reason());
+                    }
+                }
+            }
+        } catch (ElasticsearchException | IOException e) {
+            // the deletion itself succeeded, a missing tombstone only affects incremental consumers
+            log.log(Level.SEVERE, "Failed to record the deletion of " + type + " " + names, e);
+        }
+        return tombstones;
+    }
+
+    /**
+     * Find all the channels, tags, properties and tombstones stamped after the given token
+     * and older than the safety lag.
+     * The changes are returned in token order, at most <code>size</code> of them.
+     *
+     * @param since - the token of the last change already seen by the client, 0 for all
+     * @param size - the maximum number of changes to return
+     * @return the changes after <code>since</code>
+     */
+    public XmlChanges findChangesSince(long since, Integer size) {
+        // the changes stamped within the lag may still be followed by writes stamped before them
+        long horizon = (System.currentTimeMillis() - Math.max(safetyLag, 0)) * 1000;
+        try {
+            SearchRequest request = SearchRequest.of(s -> s
+                    .index(ES_CHANNEL_INDEX, ES_TAG_INDEX, ES_PROPERTY_INDEX, ES_TOMBSTONE_INDEX)
+                    .query(RangeQuery.of(r -> r.field("lastModified").gt(JsonData.of(since)).lte(JsonData.of(horizon)))._toQuery())
+                    .size(size != null ? size : defaultMaxSize)
+                    .sort(SortOptions.of(o -> o.field(FieldSort.of(f -> f.field("lastModified")
+                            .order(SortOrder.Asc)
+                            .unmappedType(FieldType.Long))))));
+            SearchResponse<JsonData> response = client.search(request, JsonData.class);
+
+            XmlChanges changes = new XmlChanges(since);
+            for (Hit<JsonData> hit : response.hits().hits()) {
+                if (ES_CHANNEL_INDEX.equals(hit.index())) {
+                    XmlChannel channel = hit.source().to(XmlChannel.class);
+                    changes.getChannels().add(channel);
+                    changes.setToken(channel.getLastModified());
+                } else if (ES_TAG_INDEX.equals(hit.index())) {
+                    XmlTag tag = hit.source().to(XmlTag.class);
+                    changes.getTags().add(tag);
+                    changes.setToken(tag.getLastModified());
+                } else if (ES_PROPERTY_INDEX.equals(hit.index())) {
+                    XmlProperty property = hit.source().to(XmlProperty.class);
+                    changes.getProperties().add(property);
+                    changes.setToken(property.getLastModified());
+                } else {
+                    XmlTombstone tombstone = hit.source().to(XmlTombstone.class);
+                    changes.getTombstones().add(tombstone);
+                    changes.setToken(tombstone.getLastModified());
+                }
+            }
+            return changes;
+        } catch (ElasticsearchException | IOException e) {
+            log.log(Level.SEVERE, "Failed to find changes since " + since, e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to find changes since " + since, null);
+        }
+    }
+}
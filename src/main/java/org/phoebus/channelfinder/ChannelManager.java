@@ -2,17 +2,18 @@ package org.phoebus.channelfinder;
 
 import static org.phoebus.channelfinder.CFResourceDescriptors.CHANNEL_RESOURCE_URI;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
-import javax.servlet.ServletContext;
-
 import com.google.common.collect.Lists;
 import org.phoebus.channelfinder.AuthorizationService.ROLES;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -38,9 +39,6 @@ public class ChannelManager {
     static Logger channelManagerAudit = Logger.getLogger(ChannelManager.class.getName() + ".audit");
     static Logger log = Logger.getLogger(ChannelManager.class.getName());
 
-    @Autowired
-    private ServletContext servletContext;
-
     @Autowired
     TagRepository tagRepository;
 
@@ -53,6 +51,10 @@ public class ChannelManager {
     @Autowired
     AuthorizationService authorizationService;
 
+    /** ~explain and ~profile, which reveal the elastic queries and load elastic, are disabled by default */
+    @Value("${elasticsearch.explain.enabled:false}")
+    private boolean explainEnabled;
+
     /**
      * GET method for retrieving a collection of Channel instances, based on a
      * multi-parameter query specifying patterns for tags, property values, and
@@ -66,6 +68,41 @@ public class ChannelManager {
         return channelRepository.search(allRequestParams);
     }
 
+    /**
+     * GET method for tuning a channel query, returning the elastic query of the
+     * multi-parameter query with the time it took and its number of hits
+     * instead of the channels. Disabled unless <code>elasticsearch.explain.enabled</code>.
+     *
+     * @param allRequestParams query parameters, with ~explain
+     * @return the elastic query, took and hits
+     */
+    @GetMapping(params = { "~explain", "!~profile" })
+    public Map<String, Object> explain(@RequestParam MultiValueMap<String, String> allRequestParams) {
+        checkExplainEnabled();
+        return channelRepository.explain(allRequestParams, false);
+    }
+
+    /**
+     * GET method for tuning a channel query, returning the elastic query of the
+     * multi-parameter query with the time it took, its number of hits and the
+     * elastic profile of where the time was spent. Disabled unless
+     * <code>elasticsearch.explain.enabled</code>.
+     *
+     * @param allRequestParams query parameters, with ~profile
+     * @return the elastic query, took, hits and profile
+     */
+    @GetMapping(params = "~profile")
+    public Map<String, Object> profile(@RequestParam MultiValueMap<String, String> allRequestParams) {
+        checkExplainEnabled();
+        return channelRepository.explain(allRequestParams, true);
+    }
+
+    private void checkExplainEnabled() {
+        if (!explainEnabled) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "The query explanation is disabled", null);
+        }
+    }
+
     /**
      * GET method for retrieving an instance of Channel identified by
      * <code>channelName</code>.
@@ -146,25 +183,25 @@ public class ChannelManager {
         // check if authorized role
         if(authorizationService.isAuthorizedRole(SecurityContextHolder.getContext().getAuthentication(), ROLES.CF_CHANNEL)) {           
             // check if authorized owner
+            List<XmlChannel> owned = new ArrayList<>();
             for(XmlChannel channel: channels) {
 
                 Optional<XmlChannel> existingChannel = channelRepository.findById(channel.getName());
                 boolean present = existingChannel.isPresent();
                 if(present) {
-                    if(!authorizationService.isAuthorizedOwner(SecurityContextHolder.getContext().getAuthentication(), existingChannel.get())) {
-                        log.log(Level.SEVERE, "User does not have the proper authorization to perform an operation on this channel: " + existingChannel.get().toLog(), new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-                        throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
-                                "User does not have the proper authorization to perform an operation on this channel: " + existingChannel.get(), null);
-                    } 
+                    owned.add(existingChannel.get());
                     channel.setOwner(existingChannel.get().getOwner());
                 } else {
-                    if(!authorizationService.isAuthorizedOwner(SecurityContextHolder.getContext().getAuthentication(), channel)) {
-                        log.log(Level.SEVERE, "User does not have the proper authorization to perform an operation on this channel: " + channel.toLog(), new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-                        throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
-                                "User does not have the proper authorization to perform an operation on this channel: " + channel, null);
-                    }
+                    owned.add(channel);
                 }
             }
+            Optional<XmlChannel> unauthorized = authorizationService.findUnauthorizedOwner(
+                    SecurityContextHolder.getContext().getAuthentication(), owned, XmlChannel::getOwner);
+            if(unauthorized.isPresent()) {
+                log.log(Level.SEVERE, "User does not have the proper authorization to perform an operation on this channel: " + unauthorized.get().toLog(), new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
+                        "User does not have the proper authorization to perform an operation on this channel: " + unauthorized.get(), null);
+            }
 
             // Validate request parameters
             validateChannelRequest(channels);
@@ -207,9 +244,6 @@ public class ChannelManager {
     @PostMapping("/{channelName}")
     public XmlChannel update(@PathVariable("channelName") String channelName, @RequestBody XmlChannel channel) {
         if(authorizationService.isAuthorizedRole(SecurityContextHolder.getContext().getAuthentication(), ROLES.CF_CHANNEL)) {
-            long start = System.currentTimeMillis();
-            channelManagerAudit.info("|" + servletContext.getContextPath() + "|POST|validation : "
-                    + (System.currentTimeMillis() - start));
             // Validate request parameters
             validateChannelRequest(channel);
 
@@ -267,34 +301,29 @@ public class ChannelManager {
     public Iterable<XmlChannel> update(@RequestBody Iterable<XmlChannel> channels) {
         // check if authorized role
         if(authorizationService.isAuthorizedRole(SecurityContextHolder.getContext().getAuthentication(), ROLES.CF_CHANNEL)) {
-            long start = System.currentTimeMillis();
-
+            // check if authorized owner
+            List<XmlChannel> owned = new ArrayList<>();
             for(XmlChannel channel: channels) {                
                 Optional<XmlChannel> existingChannel = channelRepository.findById(channel.getName());
                 boolean present = existingChannel.isPresent();
                 if(present) {
-                    if(!authorizationService.isAuthorizedOwner(SecurityContextHolder.getContext().getAuthentication(), existingChannel.get())) {
-                        log.log(Level.SEVERE, "User does not have the proper authorization to perform an operation on this channel: " + existingChannel.get().toLog(), new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-                        throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
-                                "User does not have the proper authorization to perform an operation on this channel: " + existingChannel.get(), null);
-                    }
+                    owned.add(existingChannel.get());
                     channel.setOwner(existingChannel.get().getOwner());
                 } else {
-                    if(!authorizationService.isAuthorizedOwner(SecurityContextHolder.getContext().getAuthentication(), channel)) {
-                        log.log(Level.SEVERE, "User does not have the proper authorization to perform an operation on this channel: " + channel.toLog(), new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-                        throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
-                                "User does not have the proper authorization to perform an operation on this channel: " + channel, null);
-                    }
+                    owned.add(channel);
                 }
             }
+            Optional<XmlChannel> unauthorized = authorizationService.findUnauthorizedOwner(
+                    SecurityContextHolder.getContext().getAuthentication(), owned, XmlChannel::getOwner);
+            if(unauthorized.isPresent()) {
+                log.log(Level.SEVERE, "User does not have the proper authorization to perform an operation on this channel: " + unauthorized.get().toLog(), new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
+                        "User does not have the proper authorization to perform an operation on this channel: " + unauthorized.get(), null);
+            }
 
             // Validate request parameters
             validateChannelRequest(channels);   
 
-            start = System.currentTimeMillis();
-            channelManagerAudit.info("|" + servletContext.getContextPath() + "|POST|validation : "
-                    + (System.currentTimeMillis() - start));
-
             // reset owners of attached tags/props back to existing owners
             for(XmlChannel channel: channels) {
                 channel.getProperties().forEach(prop -> prop.setOwner(propertyRepository.findById(prop.getName()).get().getOwner()));            
@@ -359,7 +388,8 @@ public class ChannelManager {
      * Checks if
      * 1. the channel name is not null and matches the name in the body
      * 2. the channel owner is not null or empty
-     * 3. all the listed tags/props exist and prop value is not null or empty
+     * 3. the tags/props are listed once
+     * 4. all the listed tags/props exist and prop value is not null or empty
      * 
      * @param channel channel to be validated
      */
@@ -376,7 +406,9 @@ public class ChannelManager {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                     "The channel owner cannot be null or empty " + channel.toString(), null);
         }
-        // 3 
+        // 3
+        validateUniqueNames(channel);
+        // 4 
         List <String> tagNames = channel.getTags().stream().map(XmlTag::getName).collect(Collectors.toList());
         for(String tagName:tagNames) {
             if(!tagRepository.existsById(tagName)) {
@@ -385,7 +417,7 @@ public class ChannelManager {
                         "The tag with the name " + tagName + " does not exist");
             }
         }
-        // 3 
+        // 4 
         List <String> propertyNames = channel.getProperties().stream().map(XmlProperty::getName).collect(Collectors.toList());
         List <String> propertyValues = channel.getProperties().stream().map(XmlProperty::getValue).collect(Collectors.toList());
         for(String propertyName:propertyNames) {
@@ -405,6 +437,20 @@ public class ChannelManager {
 
     }
 
+    /**
+     * Checks that a channel written by a channel or a property request lists
+     * each of its tags and properties once
+     *
+     * @param channel channel to be validated
+     */
+    static void validateUniqueNames(XmlChannel channel) {
+        if (!channel.duplicateNames().isEmpty()) {
+            log.log(Level.SEVERE, "The channel with the name " + channel.getName() + " lists the tags or properties " + channel.duplicateNames() + " more than once", new ResponseStatusException(HttpStatus.BAD_REQUEST));
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "The channel with the name " + channel.getName() + " lists the tags or properties " + channel.duplicateNames() + " more than once");
+        }
+    }
+
     /**
      * Checks if
      * 1. the tag names are not null
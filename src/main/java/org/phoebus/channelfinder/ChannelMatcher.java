@@ -0,0 +1,128 @@
+package org.phoebus.channelfinder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.springframework.util.MultiValueMap;
+
+/**
+ * An in memory evaluation of a channel query, used to check channels against a
+ * query without going back to elastic.
+ * <p>
+ * The query parameters have the same meaning as in
+ * {@link ChannelRepository#search(MultiValueMap)}: ~name and ~tag patterns,
+ * property name/value patterns and their negations. Patterns use the elastic
+ * wildcard syntax, <code>*</code> and <code>?</code>. Pagination and other
+ * parameters starting with ~ are ignored.
+ */
+public class ChannelMatcher {
+
+    private final List<Predicate<XmlChannel>> nameClauses = new ArrayList<>();
+    private final List<Predicate<XmlChannel>> clauses = new ArrayList<>();
+
+    /**
+     * Creates a matcher for the given channel query
+     *
+     * @param searchParameters channel search parameters
+     */
+    public ChannelMatcher(MultiValueMap<String, String> searchParameters) {
+        for (Map.Entry<String, List<String>> parameter : searchParameters.entrySet()) {
+            String key = parameter.getKey().trim();
+            boolean isNot = key.endsWith("!");
+            if (isNot) {
+                key = key.substring(0, key.length() - 1);
+            }
+            switch (key) {
+                case "~name":
+                    for (String value : parameter.getValue()) {
+                        Pattern namePattern = toPattern(value);
+                        nameClauses.add(channel -> namePattern.matcher(channel.getName()).matches());
+                    }
+                    break;
+                case "~tag":
+                    for (String value : parameter.getValue()) {
+                        Pattern tagPattern = toPattern(value);
+                        Predicate<XmlChannel> tagClause = channel -> channel.getTags().stream()
+                                .anyMatch(tag -> tagPattern.matcher(tag.getName()).matches());
+                        clauses.add(isNot ? tagClause.negate() : tagClause);
+                    }
+                    break;
+                default:
+                    if (key.startsWith("~")) {
+                        // pagination, change feed and other search options do not select channels
+                        break;
+                    }
+                    String propertyName = key;
+                    List<Pattern> valuePatterns = new ArrayList<>();
+                    for (String value : parameter.getValue()) {
+                        valuePatterns.add(toPattern(value));
+                    }
+                    // a channel matches if one of its values for the property matches (or fails to match) one of the patterns
+                    clauses.add(channel -> channel.getProperties().stream()
+                            .filter(property -> propertyName.equals(property.getName()) && property.getValue() != null)
+                            .anyMatch(property -> valuePatterns.stream()
+                                    .anyMatch(pattern -> pattern.matcher(property.getValue()).matches() != isNot)));
+                    break;
+            }
+        }
+    }
+
+    /**
+     * @param channel - channel to be checked
+     * @return true if the channel satisfies the query
+     */
+    public boolean matches(XmlChannel channel) {
+        return nameClauses.stream().allMatch(clause -> clause.test(channel))
+                && clauses.stream().allMatch(clause -> clause.test(channel));
+    }
+
+    /**
+     * Check only the name patterns of the query, used for channels whose tags and
+     * properties are no longer known
+     *
+     * @param channelName - name of the channel to be checked
+     * @return true if the channel name satisfies the query
+     */
+    public boolean matchesName(String channelName) {
+        XmlChannel channel = new XmlChannel(channelName);
+        return nameClauses.stream().allMatch(clause -> clause.test(channel));
+    }
+
+    /**
+     * Convert a list of wildcard patterns, separated by | , or ; into a single regular expression
+     *
+     * @param value - the wildcard patterns
+     * @return the equivalent regular expression
+     */
+    static Pattern toPattern(String value) {
+        StringBuilder regex = new StringBuilder();
+        for (String pattern : value.split("[\\|,;]")) {
+            if (regex.length() > 0) {
+                regex.append('|');
+            }
+            String trimmed = pattern.trim();
+            StringBuilder literal = new StringBuilder();
+            for (int i = 0; i < trimmed.length(); i++) {
+                char c = trimmed.charAt(i);
+                if (c == '\\' && i + 1 < trimmed.length()) {
+                    literal.append(trimmed.charAt(++i));
+                } else if (c == '*' || c == '?') {
+                    if (literal.length() > 0) {
+                        regex.append(Pattern.quote(literal.toString()));
+                        literal.setLength(0);
+                    }
+                    regex.append(c == '*' ? ".*" : ".");
+                } else {
+                    literal.append(c);
+                }
+            }
+            if (literal.length() > 0) {
+                regex.append(Pattern.quote(literal.toString()));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+}
@@ -1,22 +1,50 @@
 package org.phoebus.channelfinder;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 import co.elastic.clients.elasticsearch._types.*;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.StringTermsBucket;
 import co.elastic.clients.elasticsearch._types.query_dsl.*;
 import co.elastic.clients.elasticsearch.core.*;
 import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.msearch.MultiSearchResponseItem;
 import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.SourceConfig;
 import co.elastic.clients.json.JsonData;
+import co.elastic.clients.json.JsonpDeserializer;
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.JsonpSerializable;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonParser;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
 import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import org.phoebus.channelfinder.jfr.BulkEvent;
+import org.phoebus.channelfinder.tracing.Span;
+import org.phoebus.channelfinder.tracing.Tracing;
+import org.phoebus.channelfinder.tracing.TracingRestClientTransport;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
@@ -26,6 +54,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.MultiValueMap;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
@@ -35,6 +64,15 @@ import org.springframework.web.server.ResponseStatusException;
 @Configuration
 public class ChannelRepository implements CrudRepository<XmlChannel, String> {
     static Logger log = Logger.getLogger(ChannelRepository.class.getName());
+    static Logger slowQueryLog = Logger.getLogger(ChannelRepository.class.getName() + ".slow");
+
+    /** the header line of each search of a multi search on the channel index */
+    private static final byte[] MSEARCH_HEADER = "{}\n".getBytes(StandardCharsets.UTF_8);
+    /** the facet of the tag names */
+    public static final String TAG_FACET = "~tag";
+    private static final String FACET_PROPERTY = "property";
+    private static final String FACET_VALUES = "values";
+    private static final ContentType NDJSON = ContentType.create("application/x-ndjson");
 
     @Value("${elasticsearch.channel.index:channelfinder}")
     private String ES_CHANNEL_INDEX;
@@ -42,13 +80,36 @@ public class ChannelRepository implements CrudRepository<XmlChannel, String> {
     @Value("${elasticsearch.query.size:10000}")
     private int defaultMaxSize;
 
+    /** searches, counts, facets and scrolls taking longer, in milliseconds, are written to the slow query log, negative to disable */
+    @Value("${elasticsearch.slow.query.threshold:1000}")
+    private long slowQueryThreshold;
+    /** run the slow searches again with profiling, and write the profile to the slow query log */
+    @Value("${elasticsearch.slow.query.profile:false}")
+    private boolean slowQueryProfile;
+
+    /** profiles the slow searches one at a time, the slow searches are not profiled while 10 are pending */
+    private final ThreadPoolExecutor slowQueryProfiler = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(10), runnable -> {
+                Thread thread = new Thread(runnable, "cf-slow-query-profiler");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+
     @Autowired
     @Qualifier("indexClient")
     ElasticsearchClient client;
 
+    @Autowired
+    ChangeRepository changeRepository;
+
+    @Autowired
+    ChannelSubscriptions channelSubscriptions;
+
+    private final ObjectMapper explainMapper = new ObjectMapper();
+
     ObjectMapper objectMapper = new ObjectMapper()
-            .addMixIn(XmlTag.class, XmlTag.OnlyXmlTag.class)
-            .addMixIn(XmlProperty.class, XmlProperty.OnlyXmlProperty.class);
+            .addMixIn(XmlTag.class, XmlTag.EmbeddedXmlTag.class)
+            .addMixIn(XmlProperty.class, XmlProperty.EmbeddedXmlProperty.class);
 
     /**
      * create a new channel using the given XmlChannel
@@ -58,16 +119,23 @@ public class ChannelRepository implements CrudRepository<XmlChannel, String> {
      */
     @SuppressWarnings("unchecked")
     public XmlChannel index(XmlChannel channel) {
+        channel.setLastModified(changeRepository.nextStamp());
         try {
             IndexRequest request = IndexRequest.of(i -> i.index(ES_CHANNEL_INDEX)
                     .id(channel.getName())
                     .document(JsonData.of(channel, new JacksonJsonpMapper(objectMapper)))
                     .refresh(Refresh.True));
             IndexResponse response = client.index(request);
-            // verify the creation of the tag
+            // verify the creation of the channel, the indexed document is the channel itself so there is no need to read it back
             if (response.result().equals(Result.Created) || response.result().equals(Result.Updated)) {
                 log.config("Created channel " + channel);
-                return findById(channel.getName()).get();
+                XmlChannel indexed = indexed(channel);
+                if (response.result().equals(Result.Created)) {
+                    channelSubscriptions.added(List.of(indexed));
+                } else {
+                    channelSubscriptions.updated(List.of(indexed));
+                }
+                return indexed;
             }
         } catch (Exception e) {
             log.log(Level.SEVERE, "Failed to index channel " + channel.toLog(), e);
@@ -76,6 +144,23 @@ public class ChannelRepository implements CrudRepository<XmlChannel, String> {
         return null;
     }
 
+    /**
+     * @param channel - a channel being indexed
+     * @return the channel as indexed, as it is read back: the tags and
+     *         properties without their channels and modification stamps
+     */
+    static XmlChannel indexed(XmlChannel channel) {
+        XmlChannel indexed = new XmlChannel(channel.getName(), channel.getOwner(),
+                channel.getProperties().stream()
+                        .map(property -> new XmlProperty(property.getName(), property.getOwner(), property.getValue()))
+                        .collect(Collectors.toList()),
+                channel.getTags().stream()
+                        .map(tag -> new XmlTag(tag.getName(), tag.getOwner()))
+                        .collect(Collectors.toList()));
+        indexed.setLastModified(channel.getLastModified());
+        return indexed;
+    }
+
     /**
      * create new channels using the given XmlChannels
      *
@@ -86,6 +171,7 @@ public class ChannelRepository implements CrudRepository<XmlChannel, String> {
         BulkRequest.Builder br = new BulkRequest.Builder();
 
         for (XmlChannel channel : channels) {
+            channel.setLastModified(changeRepository.nextStamp());
             br.operations(op -> op
                     .index(idx -> idx
                             .index(ES_CHANNEL_INDEX)
@@ -97,7 +183,7 @@ public class ChannelRepository implements CrudRepository<XmlChannel, String> {
 
         BulkResponse result = null;
         try {
-            result = client.bulk(br.build());
+            result = BulkEvent.bulk(client, br.build());
             // Log errors, if any
             if (result.errors()) {
                 log.severe("Bulk had errors");
@@ -108,6 +194,7 @@ public class ChannelRepository implements CrudRepository<XmlChannel, String> {
                 }
                 // TODO cleanup? or throw exception?
             } else {
+                channelSubscriptions.added(channels);
                 return channels;
             }
         } catch (IOException e) {
@@ -126,15 +213,22 @@ public class ChannelRepository implements CrudRepository<XmlChannel, String> {
      * @return the updated/saved channel
      */
     public XmlChannel save(String channelName, XmlChannel channel) {
+        channel.setLastModified(changeRepository.nextStamp());
         try {
             IndexResponse response = client.index(i -> i.index(ES_CHANNEL_INDEX)
                     .id(channel.getName())
                     .document(JsonData.of(channel, new JacksonJsonpMapper(objectMapper)))
                     .refresh(Refresh.True));
-            // verify the creation of the channel
+            // verify the creation of the channel, the indexed document is the channel itself so there is no need to read it back
             if (response.result().equals(Result.Created) || response.result().equals(Result.Updated)) {
                 log.config("Created channel " + channel);
-                return findById(channel.getName()).get();
+                XmlChannel indexed = indexed(channel);
+                if (response.result().equals(Result.Created)) {
+                    channelSubscriptions.added(List.of(indexed));
+                } else {
+                    channelSubscriptions.updated(List.of(indexed));
+                }
+                return indexed;
             }
         } catch (Exception e) {
             log.log(Level.SEVERE, "Failed to index channel " + channel.toLog(), e);
@@ -168,6 +262,8 @@ public class ChannelRepository implements CrudRepository<XmlChannel, String> {
             Map<String, XmlChannel> existingChannels = findAllById(ids).stream().collect(Collectors.toMap(XmlChannel::getName, c -> c));
 
             BulkRequest.Builder br = new BulkRequest.Builder();
+            List<XmlChannel> updatedChannels = new ArrayList<>();
+            List<XmlChannel> newChannels = new ArrayList<>();
 
             for (XmlChannel channel : channels) {
                 if (existingChannels.containsKey(channel.getName())) {
@@ -177,10 +273,14 @@ public class ChannelRepository implements CrudRepository<XmlChannel, String> {
                         updatedChannel.setOwner(channel.getOwner());
                     updatedChannel.addProperties(channel.getProperties());
                     updatedChannel.addTags(channel.getTags());
+                    updatedChannel.setLastModified(changeRepository.nextStamp());
+                    updatedChannels.add(updatedChannel);
                     br.operations(op -> op.index(i -> i.index(ES_CHANNEL_INDEX)
                             .id(updatedChannel.getName())
                             .document(JsonData.of(updatedChannel, new JacksonJsonpMapper(objectMapper)))));
                 } else {
+                    channel.setLastModified(changeRepository.nextStamp());
+                    newChannels.add(channel);
                     br.operations(op -> op.index(i -> i.index(ES_CHANNEL_INDEX)
                             .id(channel.getName())
                             .document(JsonData.of(channel, new JacksonJsonpMapper(objectMapper)))));
@@ -188,7 +288,7 @@ public class ChannelRepository implements CrudRepository<XmlChannel, String> {
 
             }
             BulkResponse result = null;
-            result = client.bulk(br.refresh(Refresh.True).build());
+            result = BulkEvent.bulk(client, br.refresh(Refresh.True).build());
             // Log errors, if any
             if (result.errors()) {
                 log.severe("Bulk had errors");
@@ -199,6 +299,8 @@ public class ChannelRepository implements CrudRepository<XmlChannel, String> {
                 }
                 // TODO cleanup? or throw exception?
             } else {
+                channelSubscriptions.added(newChannels);
+                channelSubscriptions.updated(updatedChannels);
                 return (Iterable<S>) findAllById(ids);
             }
         } catch (IOException e) {
@@ -331,6 +433,7 @@ public class ChannelRepository implements CrudRepository<XmlChannel, String> {
             // verify the deletion of the channel
             if (response.result().equals(Result.Deleted)) {
                 log.config("Deletes channel " + channelName);
+                channelSubscriptions.removed(List.of(changeRepository.tombstone(XmlTombstone.CHANNEL, channelName)));
             }
         } catch (ElasticsearchException | IOException e) {
             log.log(Level.SEVERE, "Failed to delete channel: " + channelName, e);
@@ -366,14 +469,286 @@ public class ChannelRepository implements CrudRepository<XmlChannel, String> {
      * 
      * The query result is sorted based on the channel name ~size - The number of
      * channels to be returned ~from - The starting index of the channel list
+     * ~since - only channels modified after the given change feed token
      * 
      * @param searchParameters channel search parameters
      * @return matching channels
      */
     public List<XmlChannel> search(MultiValueMap<String, String> searchParameters) {
-        StringBuffer performance = new StringBuffer();
-        long start = System.currentTimeMillis();
+        return search(searchParameters, null);
+    }
+
+    /**
+     * Search for a list of channels based on their name, tags, and/or properties,
+     * retrieving only the given fields of the matching channels.
+     *
+     * @see #search(MultiValueMap)
+     * @param searchParameters channel search parameters
+     * @param sourceIncludes the channel fields to be retrieved, e.g. name or
+     *                       properties.value, null for all
+     * @return matching channels
+     */
+    public List<XmlChannel> search(MultiValueMap<String, String> searchParameters, List<String> sourceIncludes) {
+        try {
+            SearchRequest request = searchRequest(searchParameters, sourceIncludes);
+            long start = System.nanoTime();
+            SearchResponse<XmlChannel> response = client.search(request, XmlChannel.class);
+            if (logSlowQuery("search", searchParameters, start, () -> "took " + response.took() + " ms, "
+                    + (response.hits().total() == null ? response.hits().hits().size() : response.hits().total().value())
+                    + " hits, query " + json(request))) {
+                profileSlowQuery(searchParameters, request);
+            }
+
+            List<Hit<XmlChannel>> hits = response.hits().hits();
+            return hits.stream().map(Hit::source).collect(Collectors.toList());
+        } catch (Exception e) {
+            log.log(Level.SEVERE, "Search failed for: " + searchParameters, e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Search failed for: " + searchParameters + ", CAUSE: " + e.getMessage(), e);
+        }
+
+    }
+
+    /**
+     * Write a channel search, count, facets or scroll to the slow query log if
+     * it took longer than the threshold
+     *
+     * @param operation the kind of the request, e.g. search or count
+     * @param searchParameters the channel search parameters of the request
+     * @param start the {@link System#nanoTime()} the request was sent
+     * @param details the details of the request and of its response
+     * @return true if the request was slow
+     */
+    boolean logSlowQuery(String operation, Object searchParameters, long start, Supplier<String> details) {
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (slowQueryThreshold < 0 || elapsed < slowQueryThreshold) {
+            return false;
+        }
+        Span span = Tracing.current();
+        String trace = span == null ? "" : " trace " + span.getTraceId() + ",";
+        slowQueryLog.warning(() -> "Slow " + operation + "," + trace + " " + elapsed + " ms, " + details.get()
+                + ", parameters " + searchParameters);
+        return true;
+    }
+
+    private void profileSlowQuery(MultiValueMap<String, String> searchParameters, SearchRequest request) {
+        if (slowQueryProfile) {
+            Span span = Tracing.current();
+            String trace = span == null ? "" : " trace " + span.getTraceId() + ",";
+            slowQueryProfiler.execute(() -> {
+                try {
+                    JsonNode profiled = profile(request);
+                    slowQueryLog.warning(() -> "Slow search profile," + trace + " took " + profiled.path("took").asLong()
+                            + " ms, parameters " + searchParameters + ", profile " + profiled.path("profile"));
+                } catch (Exception e) {
+                    slowQueryLog.log(Level.WARNING, "Failed to profile the slow search " + searchParameters, e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Run a search with the elastic profiler, for the tuning of slow searches,
+     * the ~explain and ~profile parameters are ignored
+     *
+     * @param searchParameters channel search parameters
+     * @param profile true to profile the search, false for the query and the
+     *                number of hits only
+     * @return the elastic query, the time the search took, its number of hits
+     *         and, if requested, its profile
+     */
+    public Map<String, Object> explain(MultiValueMap<String, String> searchParameters, boolean profile) {
+        try {
+            SearchRequest request = searchRequest(searchParameters, List.of("name"));
+            Map<String, Object> explanation = new LinkedHashMap<>();
+            explanation.put("query", explainMapper.readTree(json(request)));
+            if (profile) {
+                JsonNode profiled = profile(request);
+                explanation.put("took", profiled.path("took").asLong());
+                explanation.put("hits", profiled.path("hits").path("total").path("value").asLong());
+                explanation.put("profile", profiled.path("profile"));
+            } else {
+                SearchResponse<XmlChannel> response = client.search(request, XmlChannel.class);
+                explanation.put("took", response.took());
+                explanation.put("hits", response.hits().total() == null ? response.hits().hits().size() : response.hits().total().value());
+            }
+            return explanation;
+        } catch (Exception e) {
+            log.log(Level.SEVERE, "Search failed for: " + searchParameters, e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Search failed for: " + searchParameters + ", CAUSE: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Run a search with profiling, the response is read as a tree as the profile
+     * sections vary between elastic versions
+     */
+    private JsonNode profile(SearchRequest request) throws IOException {
+        SearchRequest profiled = SearchRequest.of(s -> s.index(request.index())
+                .query(request.query())
+                .from(request.from())
+                .size(request.size())
+                .sort(request.sort())
+                .searchAfter(request.searchAfter())
+                .source(request.source())
+                .profile(true));
+        Request search = new Request("POST", "/" + ES_CHANNEL_INDEX + "/_search");
+        search.setJsonEntity(json(profiled));
+        Response response = TracingRestClientTransport.perform(((RestClientTransport) client._transport()).restClient(), search);
+        try (InputStream content = response.getEntity().getContent()) {
+            return explainMapper.readTree(content);
+        }
+    }
+
+    private String json(JsonpSerializable value) {
+        if (value == null) {
+            return null;
+        }
+        JsonpMapper mapper = client._transport().jsonpMapper();
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = mapper.jsonProvider().createGenerator(writer)) {
+            value.serialize(generator, mapper);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Search for the channels matching each of the given queries, all the
+     * queries are sent to elastic in a single multi search request.
+     *
+     * @see #search(MultiValueMap, List)
+     * @param queries the channel search parameters of each query
+     * @param sourceIncludes the channel fields to be retrieved, e.g. name or
+     *                       properties.value, null for all
+     * @return the matching channels of each query, in the order of the queries
+     */
+    public List<List<XmlChannel>> searchAll(List<MultiValueMap<String, String>> queries, List<String> sourceIncludes) {
+        if (queries.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            // The multi search body of the client lacks sort, search_after and _source,
+            // so the ndjson request is written from the search requests and sent directly
+            JsonpMapper mapper = client._transport().jsonpMapper();
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            for (MultiValueMap<String, String> searchParameters : queries) {
+                body.write(MSEARCH_HEADER);
+                JsonGenerator generator = mapper.jsonProvider().createGenerator(body);
+                searchRequest(searchParameters, sourceIncludes).serialize(generator, mapper);
+                generator.close();
+                body.write('\n');
+            }
+            Request request = new Request("POST", "/" + ES_CHANNEL_INDEX + "/_msearch");
+            request.setEntity(new ByteArrayEntity(body.toByteArray(), NDJSON));
+            long start = System.nanoTime();
+            Response response = TracingRestClientTransport.perform(((RestClientTransport) client._transport()).restClient(), request);
+
+            MsearchResponse<XmlChannel> result;
+            try (InputStream content = response.getEntity().getContent();
+                 JsonParser parser = mapper.jsonProvider().createParser(content)) {
+                result = MsearchResponse.createMsearchResponseDeserializer(JsonpDeserializer.of(XmlChannel.class))
+                        .deserialize(parser, mapper);
+            }
+
+            List<List<XmlChannel>> channels = new ArrayList<>(queries.size());
+            for (int i = 0; i < result.responses().size(); i++) {
+                MultiSearchResponseItem<XmlChannel> item = result.responses().get(i);
+                if (item.isFailure()) {
+                    throw new IllegalStateException("Search failed for: " + queries.get(i) + ", CAUSE: " + item.failure().error().reason());
+                }
+                channels.add(item.result().hits().hits().stream().map(Hit::source).collect(Collectors.toList()));
+            }
+            logSlowQuery("multi search", queries, start, () -> "took " + result.took() + " ms, " + queries.size() + " searches");
+            return channels;
+        } catch (Exception e) {
+            log.log(Level.SEVERE, "Multi search failed for: " + queries, e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Multi search failed for: " + queries + ", CAUSE: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Count the channels matching the given search parameters, the ~size,
+     * ~from and ~search_after parameters are ignored
+     *
+     * @param searchParameters channel search parameters
+     * @return the number of matching channels
+     */
+    public long count(MultiValueMap<String, String> searchParameters) {
+        try {
+            Query query = searchRequest(searchParameters, null).query();
+            long start = System.nanoTime();
+            long count = client.count(c -> c.index(ES_CHANNEL_INDEX).query(query)).count();
+            logSlowQuery("count", searchParameters, start, () -> count + " hits");
+            return count;
+        } catch (Exception e) {
+            log.log(Level.SEVERE, "Count failed for: " + searchParameters, e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Count failed for: " + searchParameters + ", CAUSE: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Find the distinct values, and their number of channels, of the given
+     * properties of the channels matching the search parameters
+     *
+     * @param searchParameters channel search parameters
+     * @param facets the property names, or {@link #TAG_FACET} for the tag names
+     * @param size the maximum number of values of each facet, the most common
+     *             values are returned
+     * @return the values and their number of channels of each facet, ordered
+     *         by decreasing number of channels
+     */
+    public Map<String, Map<String, Long>> facets(MultiValueMap<String, String> searchParameters, List<String> facets, int size) {
+        try {
+            SearchRequest.Builder searchBuilder = new SearchRequest.Builder();
+            searchBuilder.index(ES_CHANNEL_INDEX)
+                            .query(searchRequest(searchParameters, null).query())
+                            .size(0);
+            for (int i = 0; i < facets.size(); i++) {
+                String facet = facets.get(i);
+                if (TAG_FACET.equals(facet)) {
+                    searchBuilder.aggregations(String.valueOf(i), a -> a.nested(n -> n.path("tags"))
+                            .aggregations(FACET_VALUES, t -> t.terms(terms -> terms.field("tags.name").size(size))));
+                } else {
+                    searchBuilder.aggregations(String.valueOf(i), a -> a.nested(n -> n.path("properties"))
+                            .aggregations(FACET_PROPERTY, f -> f.filter(q -> q.term(t -> t.field("properties.name").value(facet)))
+                                    .aggregations(FACET_VALUES, t -> t.terms(terms -> terms.field("properties.value").size(size)))));
+                }
+            }
+            long start = System.nanoTime();
+            SearchResponse<XmlChannel> response = client.search(searchBuilder.build(), XmlChannel.class);
+            logSlowQuery("facets", searchParameters, start, () -> "took " + response.took() + " ms, facets " + facets);
 
+            Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+            for (int i = 0; i < facets.size(); i++) {
+                Map<String, Aggregate> aggregations = response.aggregations().get(String.valueOf(i)).nested().aggregations();
+                if (!TAG_FACET.equals(facets.get(i))) {
+                    aggregations = aggregations.get(FACET_PROPERTY).filter().aggregations();
+                }
+                Map<String, Long> values = new LinkedHashMap<>();
+                for (StringTermsBucket bucket : aggregations.get(FACET_VALUES).sterms().buckets().array()) {
+                    values.put(bucket.key(), bucket.docCount());
+                }
+                result.put(facets.get(i), values);
+            }
+            return result;
+        } catch (Exception e) {
+            log.log(Level.SEVERE, "Facets " + facets + " failed for: " + searchParameters, e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Facets " + facets + " failed for: " + searchParameters + ", CAUSE: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Build the elastic search request for the given channel search parameters
+     *
+     * @param searchParameters channel search parameters
+     * @param sourceIncludes the channel fields to be retrieved, null for all
+     * @return the search request
+     */
+    SearchRequest searchRequest(MultiValueMap<String, String> searchParameters, List<String> sourceIncludes) {
         BoolQuery.Builder boolQuery = new BoolQuery.Builder();
         Integer size = defaultMaxSize;
         Integer from = 0;
@@ -426,6 +801,17 @@ public class ChannelRepository implements CrudRepository<XmlChannel, String> {
                 case "~search_after":
                     searchAfter = parameter.getValue().stream().findFirst();
                     break;
+                case "~explain":
+                case "~profile":
+                    // handled by the explain search
+                    break;
+                case "~since":
+                    Optional<String> maxSince = parameter.getValue().stream().max(Comparator.comparing(Long::valueOf));
+                    if (maxSince.isPresent()) {
+                        long since = Long.parseLong(maxSince.get());
+                        boolQuery.filter(RangeQuery.of(r -> r.field("lastModified").gt(JsonData.of(since)))._toQuery());
+                    }
+                    break;
                 default:
                     DisMaxQuery.Builder propertyQuery = new DisMaxQuery.Builder();
                     for (String value : parameter.getValue()) {
@@ -448,33 +834,20 @@ public class ChannelRepository implements CrudRepository<XmlChannel, String> {
                     break;
             }
         }
-        performance.append("|prepare: " + (System.currentTimeMillis() - start));
-        start = System.currentTimeMillis();
-
-        try {
-            Integer finalSize = size;
-            Integer finalFrom = from;
-            SearchRequest.Builder searchBuilder = new SearchRequest.Builder();
-            searchBuilder.index(ES_CHANNEL_INDEX)
-                            .query(boolQuery.build()._toQuery())
-                            .from(finalFrom)
-                            .size(finalSize)
-                            .sort(SortOptions.of(o -> o.field(FieldSort.of(f -> f.field("name")))));
-            if(searchAfter.isPresent()) {
-                searchBuilder.searchAfter(searchAfter.get());
-            }
-            SearchResponse<XmlChannel> response = client.search(searchBuilder.build(),
-                                                                XmlChannel.class
-            );
 
-            List<Hit<XmlChannel>> hits = response.hits().hits();
-            return hits.stream().map(Hit::source).collect(Collectors.toList());
-        } catch (Exception e) {
-            log.log(Level.SEVERE, "Search failed for: " + searchParameters, e);
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
-                    "Search failed for: " + searchParameters + ", CAUSE: " + e.getMessage(), e);
+        SearchRequest.Builder searchBuilder = new SearchRequest.Builder();
+        searchBuilder.index(ES_CHANNEL_INDEX)
+                        .query(boolQuery.build()._toQuery())
+                        .from(from)
+                        .size(size)
+                        .sort(SortOptions.of(o -> o.field(FieldSort.of(f -> f.field("name")))));
+        if(searchAfter.isPresent()) {
+            searchBuilder.searchAfter(searchAfter.get());
         }
-
+        if(sourceIncludes != null) {
+            searchBuilder.source(SourceConfig.of(sc -> sc.filter(f -> f.includes(sourceIncludes))));
+        }
+        return searchBuilder.build();
     }
 
     @Override
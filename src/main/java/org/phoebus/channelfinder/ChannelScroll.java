@@ -16,6 +16,7 @@ import co.elastic.clients.elasticsearch._types.query_dsl.*;
 import co.elastic.clients.elasticsearch.core.SearchRequest;
 import co.elastic.clients.elasticsearch.core.SearchResponse;
 import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.json.JsonData;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
@@ -50,6 +51,9 @@ public class ChannelScroll {
     @Qualifier("indexClient")
     ElasticsearchClient client;
 
+    @Autowired
+    ChannelRepository channelRepository;
+
     /**
      * GET method for retrieving a collection of Channel instances, based on a
      * multi-parameter query specifying patterns for tags, property values, and
@@ -137,6 +141,13 @@ public class ChannelScroll {
                         from = Integer.valueOf(maxFrom.get());
                     }
                     break;
+                case "~since":
+                    Optional<String> maxSince = parameter.getValue().stream().max(Comparator.comparing(Long::valueOf));
+                    if (maxSince.isPresent()) {
+                        long since = Long.parseLong(maxSince.get());
+                        boolQuery.filter(RangeQuery.of(r -> r.field("lastModified").gt(JsonData.of(since)))._toQuery());
+                    }
+                    break;
 
                 default:
                     DisMaxQuery.Builder propertyQuery = new DisMaxQuery.Builder();
@@ -173,9 +184,12 @@ public class ChannelScroll {
             if(scrollId != null && !scrollId.isEmpty()) {
                 builder.searchAfter(scrollId);
             }
+            long start = System.nanoTime();
             SearchResponse<XmlChannel> response = client.search(builder.build(),
                     XmlChannel.class
             );
+            channelRepository.logSlowQuery("scroll", searchParameters, start,
+                    () -> "took " + response.took() + " ms, " + response.hits().hits().size() + " hits");
             List<Hit<XmlChannel>> hits = response.hits().hits();
             return new XmlScroll(hits.size() > 0 ? hits.get(hits.size()-1).id() : null, hits.stream().map(Hit::source).collect(Collectors.toList()));
         } catch (Exception e) {
@@ -0,0 +1,325 @@
+package org.phoebus.channelfinder;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes the channel changes made through the {@link ChannelRepository} to the
+ * clients subscribed to a channel query.
+ * <p>
+ * Writers only offer events to the bounded queue of each matching subscriber,
+ * the events are sent from a small pool of dispatch threads so that a slow
+ * client never holds up a write. When the queue of a subscriber overflows its
+ * pending events are dropped and it is sent a single <code>resync</code> event,
+ * telling the client to query the channels again. The subscribers are sent
+ * a comment every <code>subscriptions.heartbeat</code> milliseconds, which
+ * detects the disconnected clients and keeps the idle connections open.
+ * <p>
+ * Services within the channelfinder process can also {@link #watch} a query to
+ * be notified of the changes of the matching channels. The watchers are kept
+ * apart from the subscribers and do not count against
+ * <code>subscriptions.max</code>, their number is bounded by the services.
+ */
+@Service
+public class ChannelSubscriptions {
+    static Logger log = Logger.getLogger(ChannelSubscriptions.class.getName());
+
+    static final String ADD = "add";
+    static final String UPDATE = "update";
+    static final String REMOVE = "remove";
+    static final String RESYNC = "resync";
+
+    @Value("${subscriptions.max:100}")
+    private int maxSubscribers;
+    @Value("${subscriptions.queue.size:1000}")
+    private int queueSize;
+    @Value("${subscriptions.timeout:0}")
+    private long timeout;
+    @Value("${subscriptions.heartbeat:30000}")
+    private long heartbeat;
+
+    private final ExecutorService dispatcher;
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cf-subscriptions-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Set<Subscriber> watchers = ConcurrentHashMap.newKeySet();
+
+    public ChannelSubscriptions(@Value("${subscriptions.threads:2}") int threads) {
+        dispatcher = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "cf-subscriptions");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void scheduleHeartbeats() {
+        if (heartbeat > 0) {
+            heartbeats.scheduleWithFixedDelay(() -> subscribers.forEach(Subscriber::heartbeat),
+                    heartbeat, heartbeat, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Register a new subscriber for the channels matching the given query
+     *
+     * @param searchParameters channel search parameters
+     * @return the emitter on which the events are sent
+     */
+    public SseEmitter subscribe(MultiValueMap<String, String> searchParameters) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Too many subscriptions, the maximum is " + maxSubscribers, null);
+        }
+        // a negative timeout leaves the servlet container default, 0 never times out
+        SseEmitter emitter = timeout < 0 ? new SseEmitter() : new SseEmitter(timeout);
+        EventSubscriber subscriber = new EventSubscriber(new ChannelMatcher(searchParameters), emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        log.config("Subscribed to " + searchParameters);
+        return emitter;
+    }
+
+    /**
+     * Register a listener called on every change of the channels matching the
+     * given query. The listener is called on the thread writing the change and
+     * should only record that the channels need to be queried again.
+     *
+     * @param searchParameters channel search parameters
+     * @param listener - called when a matching channel is created, updated or removed
+     * @return a runnable cancelling the watch
+     */
+    public Runnable watch(MultiValueMap<String, String> searchParameters, Runnable listener) {
+        Subscriber watcher = new Subscriber(new ChannelMatcher(searchParameters)) {
+            @Override
+            void offer(String name, Long id, Object data) {
+                listener.run();
+            }
+        };
+        watchers.add(watcher);
+        return () -> watchers.remove(watcher);
+    }
+
+    /**
+     * @return the number of connected subscribers
+     */
+    public int size() {
+        return subscribers.size();
+    }
+
+    /**
+     * @return the number of watched queries
+     */
+    public int watched() {
+        return watchers.size();
+    }
+
+    private boolean idle() {
+        return subscribers.isEmpty() && watchers.isEmpty();
+    }
+
+    /**
+     * @return the subscribers followed by the watchers
+     */
+    private Iterable<Subscriber> all() {
+        return () -> Stream.concat(subscribers.stream(), watchers.stream()).iterator();
+    }
+
+    /**
+     * Notify the subscribers of newly created channels
+     *
+     * @param channels - the created channels
+     */
+    public void added(Collection<? extends XmlChannel> channels) {
+        if (idle()) {
+            return;
+        }
+        for (XmlChannel channel : channels) {
+            for (Subscriber subscriber : all()) {
+                if (subscriber.matcher.matches(channel)) {
+                    subscriber.offer(ADD, channel.getLastModified(), channel);
+                }
+            }
+        }
+    }
+
+    /**
+     * Notify the subscribers of updated channels. Subscribers to which the
+     * channel no longer matches are sent a remove event, since the previous state
+     * of the channel is not known this is sent whenever the channel name matches.
+     *
+     * @param channels - the updated channels
+     */
+    public void updated(Collection<? extends XmlChannel> channels) {
+        if (idle()) {
+            return;
+        }
+        for (XmlChannel channel : channels) {
+            for (Subscriber subscriber : all()) {
+                if (subscriber.matcher.matches(channel)) {
+                    subscriber.offer(UPDATE, channel.getLastModified(), channel);
+                } else if (subscriber.matcher.matchesName(channel.getName())) {
+                    subscriber.offer(REMOVE, channel.getLastModified(),
+                            new XmlTombstone(XmlTombstone.CHANNEL, channel.getName(), channel.getLastModified()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Notify the subscribers of deleted channels
+     *
+     * @param tombstones - the tombstones of the deleted channels
+     */
+    public void removed(Collection<XmlTombstone> tombstones) {
+        if (idle()) {
+            return;
+        }
+        for (XmlTombstone tombstone : tombstones) {
+            for (Subscriber subscriber : all()) {
+                if (subscriber.matcher.matchesName(tombstone.getName())) {
+                    subscriber.offer(REMOVE, tombstone.getLastModified(), tombstone);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(Subscriber::close);
+        subscribers.clear();
+        watchers.clear();
+        heartbeats.shutdownNow();
+        dispatcher.shutdownNow();
+    }
+
+    private static class Event {
+        private final String name;
+        private final Long id;
+        private final Object data;
+
+        Event(String name, Long id, Object data) {
+            this.name = name;
+            this.id = id;
+            this.data = data;
+        }
+    }
+
+    private abstract static class Subscriber {
+        final ChannelMatcher matcher;
+
+        Subscriber(ChannelMatcher matcher) {
+            this.matcher = matcher;
+        }
+
+        abstract void offer(String name, Long id, Object data);
+
+        void heartbeat() {
+        }
+
+        void close() {
+        }
+    }
+
+    private class EventSubscriber extends Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(queueSize);
+        private final AtomicBoolean resync = new AtomicBoolean();
+        private final AtomicBoolean heartbeat = new AtomicBoolean();
+        private final AtomicBoolean dispatching = new AtomicBoolean();
+
+        EventSubscriber(ChannelMatcher matcher, SseEmitter emitter) {
+            super(matcher);
+            this.emitter = emitter;
+        }
+
+        @Override
+        void close() {
+            emitter.complete();
+        }
+
+        @Override
+        void offer(String name, Long id, Object data) {
+            if (!queue.offer(new Event(name, id, data))) {
+                // slow consumer, drop everything pending and let the client query again
+                queue.clear();
+                resync.set(true);
+            }
+            schedule();
+        }
+
+        @Override
+        void heartbeat() {
+            // sent by the dispatch, which is the only thread writing to the emitter
+            heartbeat.set(true);
+            schedule();
+        }
+
+        private void schedule() {
+            if (dispatching.compareAndSet(false, true)) {
+                dispatcher.execute(this::dispatch);
+            }
+        }
+
+        private void dispatch() {
+            try {
+                if (heartbeat.getAndSet(false)) {
+                    emitter.send(SseEmitter.event().comment(""));
+                }
+                if (resync.getAndSet(false)) {
+                    emitter.send(SseEmitter.event().name(RESYNC).data(RESYNC));
+                }
+                Event event;
+                while ((event = queue.poll()) != null) {
+                    SseEmitter.SseEventBuilder builder = SseEmitter.event().name(event.name)
+                            .data(event.data, MediaType.APPLICATION_JSON);
+                    if (event.id != null) {
+                        builder.id(String.valueOf(event.id));
+                    }
+                    emitter.send(builder);
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.log(Level.FINE, "Dropping disconnected subscriber", e);
+                subscribers.remove(this);
+                queue.clear();
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                dispatching.set(false);
+            }
+            // events offered while the dispatch was finishing
+            if (!queue.isEmpty() || resync.get() || heartbeat.get()) {
+                schedule();
+            }
+        }
+    }
+}
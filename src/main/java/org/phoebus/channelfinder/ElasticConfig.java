@@ -29,6 +29,8 @@ import co.elastic.clients.elasticsearch.indices.ExistsRequest;
 import co.elastic.clients.transport.endpoints.BooleanResponse;
 import org.apache.http.HttpHost;
 import org.elasticsearch.client.RestClient;
+import org.phoebus.channelfinder.jfr.ElasticRequestEvent;
+import org.phoebus.channelfinder.tracing.TracingRestClientTransport;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
@@ -38,7 +40,6 @@ import org.springframework.context.annotation.PropertySource;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.json.jackson.JacksonJsonpMapper;
 import co.elastic.clients.transport.ElasticsearchTransport;
-import co.elastic.clients.transport.rest_client.RestClientTransport;
 
 /**
  * @author Kunal Shroff {@literal <shroffk@bnl.gov>}
@@ -71,6 +72,8 @@ public class ElasticConfig implements ServletContextListener {
     private String ES_PROPERTY_INDEX;
     @Value("${elasticsearch.channel.index:channelfinder}")
     private String ES_CHANNEL_INDEX;
+    @Value("${elasticsearch.tombstone.index:cf_tombstones}")
+    private String ES_TOMBSTONE_INDEX;
     @Value("${elasticsearch.query.size}")
     private String ES_QUERY_SIZE;
 
@@ -78,10 +81,12 @@ public class ElasticConfig implements ServletContextListener {
     public ElasticsearchClient getSearchClient() {
         if (searchClient == null) {
             // Create the low-level client
-            RestClient httpClient = RestClient.builder(new HttpHost(host, port)).build();
+            RestClient httpClient = RestClient.builder(new HttpHost(host, port))
+                    .setHttpClientConfigCallback(ElasticRequestEvent::record)
+                    .build();
 
             // Create the Java API Client with the same low level client
-            ElasticsearchTransport transport = new RestClientTransport(httpClient, new JacksonJsonpMapper());
+            ElasticsearchTransport transport = new TracingRestClientTransport(httpClient, new JacksonJsonpMapper());
 
             searchClient = new ElasticsearchClient(transport);
         }
@@ -96,10 +101,12 @@ public class ElasticConfig implements ServletContextListener {
     public ElasticsearchClient getIndexClient() {
         if (indexClient == null) {
             // Create the low-level client
-            RestClient httpClient = RestClient.builder(new HttpHost(host, port)).build();
+            RestClient httpClient = RestClient.builder(new HttpHost(host, port))
+                    .setHttpClientConfigCallback(ElasticRequestEvent::record)
+                    .build();
 
             // Create the Java API Client with the same low level client
-            ElasticsearchTransport transport = new RestClientTransport(httpClient, new JacksonJsonpMapper());
+            ElasticsearchTransport transport = new TracingRestClientTransport(httpClient, new JacksonJsonpMapper());
             indexClient = new ElasticsearchClient(transport);
         }
         esInitialized.set(!Boolean.parseBoolean(createIndices));
@@ -170,5 +177,19 @@ public class ElasticConfig implements ServletContextListener {
         } catch (IOException e) {
             log.log(Level.WARNING, "Failed to create index " + ES_PROPERTY_INDEX, e);
         }
+
+        // ChannelFinder tombstone Index, records deletions for the change feed
+        try (InputStream is = ElasticConfig.class.getResourceAsStream("/tombstone_mapping.json")) {
+            BooleanResponse exits = client.indices().exists(ExistsRequest.of(e -> e.index(ES_TOMBSTONE_INDEX)));
+            if(!exits.value()) {
+
+                CreateIndexResponse result = client.indices().create(
+                        CreateIndexRequest.of(
+                                c -> c.index(ES_TOMBSTONE_INDEX).withJson(is)));
+                log.info("Created index: " + ES_TOMBSTONE_INDEX + " : acknowledged " + result.acknowledged());
+            }
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Failed to create index " + ES_TOMBSTONE_INDEX, e);
+        }
     }
 }
@@ -0,0 +1,212 @@
+package org.phoebus.channelfinder;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.aopalliance.aop.Advice;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.distribution.PercentileHistogramBuckets;
+import io.micrometer.core.instrument.simple.CountingMode;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Collects the latency and size distributions of the service:
+ * <ul>
+ * <li><code>cf.repository</code> times every call of the repositories, with
+ * <code>cf.repository.bulk</code> the number of elements of the bulk calls and
+ * <code>cf.repository.results</code> the number of elements returned</li>
+ * <li><code>cf.http.requests</code> times every request of the rest endpoints</li>
+ * <li><code>cf.epics.rpc.*</code> times the pvAccess rpc requests</li>
+ * </ul>
+ * The meters are kept in a registry added to the global registry, and exposed
+ * in the Prometheus text format by the {@link MetricsManager}.
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private static final String START_ATTRIBUTE = MetricsConfig.class.getName() + ".start";
+
+    /** the cumulative registry scraped by the {@link MetricsManager} */
+    static final SimpleMeterRegistry registry = new SimpleMeterRegistry(new SimpleConfig() {
+        @Override
+        public String get(String key) {
+            return null;
+        }
+
+        @Override
+        public CountingMode mode() {
+            return CountingMode.CUMULATIVE;
+        }
+    }, Clock.SYSTEM);
+
+    static {
+        registry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!id.getName().startsWith("cf.")) {
+                    return config;
+                } else if (id.getType() == Meter.Type.TIMER) {
+                    return histogram(config, Duration.ofMillis(1).toNanos(), Duration.ofSeconds(60).toNanos());
+                } else if (id.getType() == Meter.Type.DISTRIBUTION_SUMMARY) {
+                    return histogram(config, 1, 1_000_000);
+                }
+                return config;
+            }
+        });
+        Metrics.globalRegistry.add(registry);
+    }
+
+    /**
+     * The simple registry does not publish percentile histograms, the same
+     * buckets are configured as service level objectives instead
+     */
+    private static DistributionStatisticConfig histogram(DistributionStatisticConfig config, double min, double max) {
+        DistributionStatisticConfig histogram = DistributionStatisticConfig.builder()
+                .percentilesHistogram(true)
+                .minimumExpectedValue(min)
+                .maximumExpectedValue(max)
+                .build().merge(config);
+        return DistributionStatisticConfig.builder()
+                .percentilesHistogram(false)
+                .serviceLevelObjectives(PercentileHistogramBuckets.buckets(histogram).stream()
+                        .mapToDouble(Double::doubleValue).toArray())
+                .build().merge(config);
+    }
+
+    /**
+     * Times the calls of the beans annotated with {@link Repository}
+     */
+    @Bean
+    public static BeanPostProcessor repositoryMetrics() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (AnnotationUtils.findAnnotation(bean.getClass(), Repository.class) == null) {
+                    return bean;
+                }
+                String repository = ClassUtils.getUserClass(bean).getSimpleName();
+                return advise(bean, false, (MethodInterceptor) invocation -> {
+                    if (invocation.getMethod().getDeclaringClass() == Object.class) {
+                        return invocation.proceed();
+                    }
+                    String method = invocation.getMethod().getName();
+                    Object[] arguments = invocation.getArguments();
+                    if (arguments.length > 0 && arguments[0] instanceof Collection) {
+                        summary("cf.repository.bulk", "Elements of the bulk repository calls", repository, method)
+                                .record(((Collection<?>) arguments[0]).size());
+                    }
+                    long start = System.nanoTime();
+                    String outcome = "error";
+                    try {
+                        Object result = invocation.proceed();
+                        outcome = "success";
+                        if (result instanceof Collection) {
+                            summary("cf.repository.results", "Elements returned by the repository calls", repository, method)
+                                    .record(((Collection<?>) result).size());
+                        } else if (result instanceof Map) {
+                            summary("cf.repository.results", "Elements returned by the repository calls", repository, method)
+                                    .record(((Map<?, ?>) result).size());
+                        }
+                        return result;
+                    } finally {
+                        Timer.builder("cf.repository")
+                                .description("Time of the repository calls")
+                                .tags("repository", repository, "method", method, "outcome", outcome)
+                                .register(Metrics.globalRegistry)
+                                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Add an advice to the calls of a bean, in the same proxy as the other
+     * advices of the bean
+     *
+     * @param bean - the bean
+     * @param first - true to run the advice before the other advices of the bean
+     * @param advice - the advice
+     * @return the advised bean
+     */
+    static Object advise(Object bean, boolean first, Advice advice) {
+        if (bean instanceof Advised && !((Advised) bean).isFrozen()) {
+            if (first) {
+                ((Advised) bean).addAdvice(0, advice);
+            } else {
+                ((Advised) bean).addAdvice(advice);
+            }
+            return bean;
+        }
+        ProxyFactory proxy = new ProxyFactory(bean);
+        proxy.setProxyTargetClass(true);
+        proxy.addAdvice(advice);
+        return proxy.getProxy(ClassUtils.getUserClass(bean).getClassLoader());
+    }
+
+    private static DistributionSummary summary(String name, String description, String repository, String method) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tags("repository", repository, "method", method)
+                .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * Times the requests of the rest endpoints, tagged with the matched uri pattern
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry interceptors) {
+        interceptors.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                        Exception ex) {
+                Object start = request.getAttribute(START_ATTRIBUTE);
+                // the error page dispatch is part of the time of the failed request
+                if (!(start instanceof Long) || request.getDispatcherType() != DispatcherType.REQUEST) {
+                    return;
+                }
+                Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                Timer.builder("cf.http.requests")
+                        .description("Time of the rest requests")
+                        .tags("method", request.getMethod(),
+                              "uri", uri == null ? "unknown" : uri.toString(),
+                              "status", String.valueOf(response.getStatus()))
+                        .register(Metrics.globalRegistry)
+                        .record(System.nanoTime() - (Long) start, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+}
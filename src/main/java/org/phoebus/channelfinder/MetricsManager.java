@@ -0,0 +1,193 @@
+package org.phoebus.channelfinder;
+
+import static org.phoebus.channelfinder.CFResourceDescriptors.METRICS_RESOURCE_URI;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Statistic;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+
+@CrossOrigin
+@RestController
+@RequestMapping(METRICS_RESOURCE_URI)
+@EnableAutoConfiguration
+public class MetricsManager {
+
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    /**
+     * GET method for scraping the metrics of the service, see {@link MetricsConfig},
+     * by an authenticated user: the scrape configuration sets basic credentials
+     *
+     * @return the metrics in the Prometheus text format
+     */
+    @GetMapping(produces = CONTENT_TYPE)
+    public String scrape() {
+        return scrape(MetricsConfig.registry);
+    }
+
+    /**
+     * Write the meters of a registry in the Prometheus text format, the timers
+     * are in seconds. The maximum of a timer or distribution summary, which a
+     * histogram cannot carry, is written as a separate <code>_max</code> gauge.
+     *
+     * @param registry - the meters
+     * @return the Prometheus text
+     */
+    static String scrape(MeterRegistry registry) {
+        StringBuilder text = new StringBuilder();
+        StringBuilder maxima = new StringBuilder();
+        List<Meter> meters = registry.getMeters().stream()
+                // the histogram gauges derived from the timers are written with the timers
+                .filter(meter -> meter.getId().syntheticAssociation() == null)
+                .sorted(Comparator.comparing((Meter meter) -> meter.getId().getName())
+                        .thenComparing(meter -> meter.getId().getTags().toString()))
+                .collect(Collectors.toList());
+        String last = null;
+        for (Meter meter : meters) {
+            Meter.Id id = meter.getId();
+            String name = name(id);
+            if (!name.equals(last)) {
+                if (id.getDescription() != null) {
+                    text.append("# HELP ").append(name).append(' ').append(escape(id.getDescription(), false)).append('\n');
+                }
+                text.append("# TYPE ").append(name).append(' ').append(type(id.getType())).append('\n');
+                if (meter instanceof Timer || meter instanceof DistributionSummary) {
+                    if (id.getDescription() != null) {
+                        maxima.append("# HELP ").append(name).append("_max ").append(escape(id.getDescription(), false)).append('\n');
+                    }
+                    maxima.append("# TYPE ").append(name).append("_max gauge\n");
+                }
+                last = name;
+            }
+            if (meter instanceof Timer) {
+                HistogramSnapshot snapshot = ((Timer) meter).takeSnapshot();
+                histogram(text, name, id, snapshot, true);
+                sample(maxima, name + "_max", id, null, snapshot.max(TimeUnit.SECONDS));
+            } else if (meter instanceof DistributionSummary) {
+                HistogramSnapshot snapshot = ((DistributionSummary) meter).takeSnapshot();
+                histogram(text, name, id, snapshot, false);
+                sample(maxima, name + "_max", id, null, snapshot.max());
+            } else {
+                for (Measurement measurement : meter.measure()) {
+                    sample(text, name + suffix(id.getType(), measurement.getStatistic()), id, null, measurement.getValue());
+                }
+            }
+        }
+        return text.append(maxima).toString();
+    }
+
+    private static void histogram(StringBuilder text, String name, Meter.Id id, HistogramSnapshot snapshot, boolean seconds) {
+        for (CountAtBucket bucket : snapshot.histogramCounts()) {
+            double le = seconds ? bucket.bucket(TimeUnit.SECONDS) : bucket.bucket();
+            sample(text, name + "_bucket", id, Double.toString(le), bucket.count());
+        }
+        sample(text, name + "_bucket", id, "+Inf", snapshot.count());
+        sample(text, name + "_count", id, null, snapshot.count());
+        sample(text, name + "_sum", id, null, seconds ? snapshot.total(TimeUnit.SECONDS) : snapshot.total());
+    }
+
+    private static void sample(StringBuilder text, String name, Meter.Id id, String le, double value) {
+        text.append(name);
+        List<Tag> tags = id.getTags();
+        if (!tags.isEmpty() || le != null) {
+            text.append('{');
+            String separator = "";
+            for (Tag tag : tags) {
+                text.append(separator).append(sanitize(tag.getKey())).append("=\"").append(escape(tag.getValue(), true)).append('"');
+                separator = ",";
+            }
+            if (le != null) {
+                text.append(separator).append("le=\"").append(le).append('"');
+            }
+            text.append('}');
+        }
+        text.append(' ').append(value(value)).append('\n');
+    }
+
+    /**
+     * @return the name of the family of the meter, the name of its samples for
+     *         the counters
+     */
+    private static String name(Meter.Id id) {
+        String name = sanitize(id.getName());
+        switch (id.getType()) {
+        case TIMER:
+        case LONG_TASK_TIMER:
+            return name + "_seconds";
+        case COUNTER:
+            return name.endsWith("_total") ? name : name + "_total";
+        default:
+            return name;
+        }
+    }
+
+    private static String type(Meter.Type type) {
+        switch (type) {
+        case COUNTER:
+            return "counter";
+        case GAUGE:
+            return "gauge";
+        case TIMER:
+        case DISTRIBUTION_SUMMARY:
+            return "histogram";
+        default:
+            return "untyped";
+        }
+    }
+
+    private static String suffix(Meter.Type type, Statistic statistic) {
+        if (type == Meter.Type.COUNTER) {
+            return "";
+        }
+        switch (statistic) {
+        case COUNT:
+            return "_count";
+        case TOTAL:
+        case TOTAL_TIME:
+            return "_sum";
+        case MAX:
+            return "_max";
+        case ACTIVE_TASKS:
+            return "_active_count";
+        case DURATION:
+            return "_duration_sum";
+        default:
+            return "";
+        }
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^a-zA-Z0-9_:]", "_");
+    }
+
+    private static String escape(String value, boolean quote) {
+        String escaped = value.replace("\\", "\\\\").replace("\n", "\\n");
+        return quote ? escaped.replace("\"", "\\\"") : escaped;
+    }
+
+    private static String value(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        } else if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        return Double.toString(value);
+    }
+}
@@ -0,0 +1,209 @@
+package org.phoebus.channelfinder;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * The tags or the properties of a channel: a list keyed by the names of its
+ * elements, in insertion order. Adding an element replaces the element of the
+ * same name in its position, and the lookups, replacements and removals by
+ * name take constant time. The positional accesses use an array of the
+ * elements rebuilt after each change.
+ * <p>
+ * The names are unique: {@link #set(int, Object)} and
+ * {@link #add(int, Object)} throw an {@link IllegalArgumentException} rather
+ * than replace an element of the same name in another position, and the names
+ * of the initial elements given several times, of which only the last is kept,
+ * are reported by {@link #getDuplicates()}.
+ * <p>
+ * The names of the elements must not be changed while they are in the list.
+ *
+ * @param <T> the type of the elements
+ */
+class NameKeyedList<T> extends AbstractList<T> {
+
+    private final Function<T, String> name;
+    private final Map<String, T> elements = new LinkedHashMap<>();
+    /** the elements by position, null after a change */
+    private Object[] array;
+    /** the names of the initial elements replaced by a later one */
+    private List<String> duplicates = List.of();
+
+    /**
+     * @param name the name of an element
+     * @param elements the initial elements, can be null
+     */
+    NameKeyedList(Function<T, String> name, Collection<? extends T> elements) {
+        this.name = name;
+        if (elements != null) {
+            for (T element : elements) {
+                if (this.elements.put(name.apply(element), element) != null) {
+                    if (duplicates.isEmpty()) {
+                        duplicates = new ArrayList<>();
+                    }
+                    duplicates.add(name.apply(element));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the names given to several of the initial elements, only the
+     *         last of which was kept
+     */
+    List<String> getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * @param name the name of an element
+     * @return the element of that name, null if there is none
+     */
+    T get(String name) {
+        return elements.get(name);
+    }
+
+    /**
+     * Remove the element of the given name
+     *
+     * @param name the name of an element
+     * @return the element removed, null if there was none
+     */
+    T removeName(String name) {
+        T removed = elements.remove(name);
+        if (removed != null) {
+            changed();
+        }
+        return removed;
+    }
+
+    /**
+     * Add the element, or replace the element of the same name in its position
+     */
+    @Override
+    public boolean add(T element) {
+        elements.put(name.apply(element), element);
+        changed();
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (array == null) {
+            array = elements.values().toArray();
+        }
+        Objects.checkIndex(index, array.length);
+        return (T) array[index];
+    }
+
+    @Override
+    public int size() {
+        return elements.size();
+    }
+
+    /**
+     * Replace the element in the given position
+     *
+     * @throws IllegalArgumentException if an element in another position has
+     *             the name of the element
+     */
+    @Override
+    public T set(int index, T element) {
+        T previous = get(index);
+        String elementName = name.apply(element);
+        if (Objects.equals(elementName, name.apply(previous))) {
+            elements.put(elementName, element);
+            changed();
+            return previous;
+        }
+        checkUnique(elementName);
+        List<T> list = new ArrayList<>(elements.values());
+        list.set(index, element);
+        reset(list);
+        return previous;
+    }
+
+    /**
+     * Insert the element in the given position
+     *
+     * @throws IllegalArgumentException if an element has the name of the
+     *             element
+     */
+    @Override
+    public void add(int index, T element) {
+        Objects.checkIndex(index, size() + 1);
+        checkUnique(name.apply(element));
+        List<T> list = new ArrayList<>(elements.values());
+        list.add(index, element);
+        reset(list);
+    }
+
+    private void checkUnique(String elementName) {
+        if (elements.containsKey(elementName)) {
+            throw new IllegalArgumentException("The list already has an element named " + elementName);
+        }
+    }
+
+    @Override
+    public T remove(int index) {
+        T removed = get(index);
+        elements.remove(name.apply(removed));
+        changed();
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        elements.clear();
+        changed();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        Iterator<T> iterator = elements.values().iterator();
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                changed();
+            }
+        };
+    }
+
+    @Override
+    public void sort(Comparator<? super T> comparator) {
+        List<T> list = new ArrayList<>(elements.values());
+        list.sort(comparator);
+        reset(list);
+    }
+
+    private void reset(List<T> list) {
+        elements.clear();
+        list.forEach(this::add);
+        changed();
+    }
+
+    private void changed() {
+        array = null;
+        modCount++;
+    }
+}
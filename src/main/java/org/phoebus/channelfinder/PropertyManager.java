@@ -106,8 +106,6 @@ public class PropertyManager {
     public XmlProperty create(@PathVariable("propertyName") String propertyName, @RequestBody XmlProperty property) {
         // check if authorized role
         if(authorizationService.isAuthorizedRole(SecurityContextHolder.getContext().getAuthentication(), ROLES.CF_PROPERTY)) {
-            long start = System.currentTimeMillis();
-            propertyManagerAudit.info("client initialization: " + (System.currentTimeMillis() - start));
             // Validate request parameters
             validatePropertyRequest(property);
 
@@ -160,29 +158,26 @@ public class PropertyManager {
     public Iterable<XmlProperty> create(@RequestBody Iterable<XmlProperty> properties) {
         // check if authorized role
         if(authorizationService.isAuthorizedRole(SecurityContextHolder.getContext().getAuthentication(), ROLES.CF_PROPERTY)) {
-            long start = System.currentTimeMillis();
-            propertyManagerAudit.info("client initialization: " + (System.currentTimeMillis() - start));
-
             // check if authorized owner
+            List<XmlProperty> owned = new ArrayList<>();
             for(XmlProperty property: properties) {
                 Optional<XmlProperty> existingProperty = propertyRepository.findById(property.getName());
                 boolean present = existingProperty.isPresent();
                 if(present) {
-                    if(!authorizationService.isAuthorizedOwner(SecurityContextHolder.getContext().getAuthentication(), existingProperty.get())) {
-                        log.log(Level.SEVERE, "User does not have the proper authorization to perform an operation on this property: " + existingProperty.get().toLog(), new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-                        throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
-                                "User does not have the proper authorization to perform an operation on this property: " + existingProperty.get(), null);
-                    } 
+                    owned.add(existingProperty.get());
                     property.setOwner(existingProperty.get().getOwner());
                     property.getChannels().forEach(chan -> chan.getProperties().get(0).setOwner(existingProperty.get().getOwner()));
                 } else {
-                    if(!authorizationService.isAuthorizedOwner(SecurityContextHolder.getContext().getAuthentication(), property)) {
-                        log.log(Level.SEVERE, "User does not have the proper authorization to perform an operation on this property: " + property.toLog(), new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-                        throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
-                                "User does not have the proper authorization to perform an operation on this property: " + property, null);
-                    }
+                    owned.add(property);
                 }
             }
+            Optional<XmlProperty> unauthorized = authorizationService.findUnauthorizedOwner(
+                    SecurityContextHolder.getContext().getAuthentication(), owned, XmlProperty::getOwner);
+            if(unauthorized.isPresent()) {
+                log.log(Level.SEVERE, "User does not have the proper authorization to perform an operation on this property: " + unauthorized.get().toLog(), new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
+                        "User does not have the proper authorization to perform an operation on this property: " + unauthorized.get(), null);
+            }
 
             // Validate request parameters
             validatePropertyRequest(properties);
@@ -239,8 +234,6 @@ public class PropertyManager {
     public XmlProperty addSingle(@PathVariable("propertyName") String propertyName, @PathVariable("channelName") String channelName, @RequestBody XmlProperty property) {
         // check if authorized role
         if(authorizationService.isAuthorizedRole(SecurityContextHolder.getContext().getAuthentication(), ROLES.CF_PROPERTY)) {
-            long start = System.currentTimeMillis();
-            propertyManagerAudit.info("client initialization: " + (System.currentTimeMillis() - start));
             // Validate request parameters
             validatePropertyRequest(channelName);
             if(!propertyName.equals(property.getName()) || property.getValue().isEmpty() || property.getValue() == null) {
@@ -294,8 +287,6 @@ public class PropertyManager {
     public XmlProperty update(@PathVariable("propertyName") String propertyName, @RequestBody XmlProperty property) {
         // check if authorized role
         if(authorizationService.isAuthorizedRole(SecurityContextHolder.getContext().getAuthentication(), ROLES.CF_PROPERTY)) {
-            long start = System.currentTimeMillis();
-            propertyManagerAudit.info("client initialization: " + (System.currentTimeMillis() - start));
             // Validate request parameters
             validatePropertyRequest(property);
 
@@ -393,29 +384,26 @@ public class PropertyManager {
     public Iterable<XmlProperty> update(@RequestBody Iterable<XmlProperty> properties) {
         // check if authorized role
         if(authorizationService.isAuthorizedRole(SecurityContextHolder.getContext().getAuthentication(), ROLES.CF_PROPERTY)) {
-            long start = System.currentTimeMillis();
-            propertyManagerAudit.info("client initialization: " + (System.currentTimeMillis() - start));
-
             // check if authorized owner
+            List<XmlProperty> owned = new ArrayList<>();
             for(XmlProperty property: properties) {
                 Optional<XmlProperty> existingProperty = propertyRepository.findById(property.getName());
                 boolean present = existingProperty.isPresent();
                 if(present) {
-                    if(!authorizationService.isAuthorizedOwner(SecurityContextHolder.getContext().getAuthentication(), existingProperty.get())) {
-                        log.log(Level.SEVERE, "User does not have the proper authorization to perform an operation on this property: " + existingProperty.get().toLog(), new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-                        throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
-                                "User does not have the proper authorization to perform an operation on this property: " + existingProperty.get(), null);
-                    }
+                    owned.add(existingProperty.get());
                     property.setOwner(existingProperty.get().getOwner());
                     property.getChannels().forEach(chan -> chan.getProperties().get(0).setOwner(existingProperty.get().getOwner()));
                 } else {
-                    if(!authorizationService.isAuthorizedOwner(SecurityContextHolder.getContext().getAuthentication(), property)) {
-                        log.log(Level.SEVERE, "User does not have the proper authorization to perform an operation on this property: " + property.toLog(), new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-                        throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
-                                "User does not have the proper authorization to perform an operation on this property: " + property, null);
-                    }
+                    owned.add(property);
                 }
             }
+            Optional<XmlProperty> unauthorized = authorizationService.findUnauthorizedOwner(
+                    SecurityContextHolder.getContext().getAuthentication(), owned, XmlProperty::getOwner);
+            if(unauthorized.isPresent()) {
+                log.log(Level.SEVERE, "User does not have the proper authorization to perform an operation on this property: " + unauthorized.get().toLog(), new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
+                        "User does not have the proper authorization to perform an operation on this property: " + unauthorized.get(), null);
+            }
 
             // Validate request parameters
             validatePropertyRequest(properties);
@@ -553,7 +541,7 @@ public class PropertyManager {
      * Checks if
      * 1. the property name is not null and matches the name in the body
      * 2. the property owner is not null or empty
-     * 3. all the listed channels exist and have the property with a non null and non empty value
+     * 3. all the listed channels list their tags/props once, exist and have the property with a non null and non empty value
      * 
      * @param property validate property
      */
@@ -572,6 +560,7 @@ public class PropertyManager {
         }
         // 3
         property.getChannels().stream().forEach((channel) -> {
+            ChannelManager.validateUniqueNames(channel);
             // Check if all the channels exists 
             if(!channelRepository.existsById(channel.getName())) {
                 log.log(Level.SEVERE, "The channel with the name " + channel.getName() + " does not exist", new ResponseStatusException(HttpStatus.BAD_REQUEST));
@@ -17,6 +17,7 @@ import co.elastic.clients.elasticsearch.core.search.Hit;
 import co.elastic.clients.json.JsonData;
 import co.elastic.clients.json.jackson.JacksonJsonpMapper;
 import org.phoebus.channelfinder.XmlProperty.OnlyNameOwnerXmlProperty;
+import org.phoebus.channelfinder.jfr.BulkEvent;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
@@ -49,6 +50,12 @@ public class PropertyRepository implements CrudRepository<XmlProperty, String> {
     @Autowired
     ChannelRepository channelRepository;
 
+    @Autowired
+    ChangeRepository changeRepository;
+
+    @Autowired
+    ChannelSubscriptions channelSubscriptions;
+
     ObjectMapper objectMapper = new ObjectMapper().addMixIn(XmlProperty.class, OnlyNameOwnerXmlProperty.class);
 
     /**
@@ -70,6 +77,8 @@ public class PropertyRepository implements CrudRepository<XmlProperty, String> {
     public List<XmlProperty> indexAll(List<XmlProperty> properties) {
         BulkRequest.Builder br = new BulkRequest.Builder();
         for (XmlProperty property : properties) {
+            property.setLastModified(changeRepository.nextStamp());
+            StringInterner.catalog(property.getName(), property.getOwner());
             br.operations(op -> op
                     .index(idx -> idx
                                     .index(ES_PROPERTY_INDEX)
@@ -79,7 +88,7 @@ public class PropertyRepository implements CrudRepository<XmlProperty, String> {
             );
         }
         try {
-            BulkResponse result  = client.bulk(br.refresh(Refresh.True).build());
+            BulkResponse result  = BulkEvent.bulk(client, br.refresh(Refresh.True).build());
             // Log errors, if any
             if (result.errors()) {
                 log.severe("Bulk had errors");
@@ -109,6 +118,8 @@ public class PropertyRepository implements CrudRepository<XmlProperty, String> {
      */
     @SuppressWarnings("unchecked")
     public <S extends XmlProperty> S save(String propertyName, S property) {
+        property.setLastModified(changeRepository.nextStamp());
+        StringInterner.catalog(property.getName(), property.getOwner());
         try {
             IndexRequest request = IndexRequest.of(i -> i.index(ES_PROPERTY_INDEX)
                     .id(propertyName)
@@ -116,10 +127,12 @@ public class PropertyRepository implements CrudRepository<XmlProperty, String> {
                     .refresh(Refresh.True));
 
             IndexResponse response = client.index(request);
-            // verify the creation of the tag
+            // verify the creation of the property, only the name and owner are persisted so return those rather than reading the property back
             if (response.result().equals(Result.Created) || response.result().equals(Result.Updated)) {
                 log.config("Created property " + property);
-                return (S) findById(propertyName).get();
+                XmlProperty savedProperty = new XmlProperty(property.getName(), property.getOwner());
+                savedProperty.setLastModified(property.getLastModified());
+                return (S) savedProperty;
             }
         } catch (Exception e) {
             log.log(Level.SEVERE, "Failed to index property: " + property.toLog(), e);
@@ -153,13 +166,15 @@ public class PropertyRepository implements CrudRepository<XmlProperty, String> {
         BulkRequest.Builder br = new BulkRequest.Builder();
 
         for (XmlProperty property : properties) {
+            property.setLastModified(changeRepository.nextStamp());
+            StringInterner.catalog(property.getName(), property.getOwner());
             br.operations(op -> op.index(i -> i.index(ES_PROPERTY_INDEX)
                     .id(property.getName())
                     .document(JsonData.of(property, new JacksonJsonpMapper(objectMapper)))));
         }
 
         try {
-            BulkResponse result = client.bulk(br.refresh(Refresh.True).build());
+            BulkResponse result = BulkEvent.bulk(client, br.refresh(Refresh.True).build());
             // Log errors, if any
             if (result.errors()) {
                 log.severe("Bulk had errors");
@@ -304,13 +319,14 @@ public class PropertyRepository implements CrudRepository<XmlProperty, String> {
                 for (XmlChannel channel : channels) {
                     channel.removeProperty(
                             channel.getProperties().stream().filter(prop -> propertyName.equalsIgnoreCase(prop.getName())).findAny().get());
+                    channel.setLastModified(changeRepository.nextStamp());
                     br.operations(op -> op.update(
                             u -> u.index(ES_CHANNEL_INDEX)
                                     .id(channel.getName())
                                     .action(a -> a.doc(channel))));
                 }
                 try {
-                    BulkResponse result = client.bulk(br.build());
+                    BulkResponse result = BulkEvent.bulk(client, br.build());
                     // Log errors, if any
                     if (result.errors()) {
                         log.severe("Bulk had errors");
@@ -320,6 +336,7 @@ public class PropertyRepository implements CrudRepository<XmlProperty, String> {
                             }
                         }
                     } else {
+                        channelSubscriptions.updated(channels);
                     }
                 } catch (IOException e) {
                     log.log(Level.SEVERE, "Failed to delete property " + propertyName, e);
@@ -333,6 +350,7 @@ public class PropertyRepository implements CrudRepository<XmlProperty, String> {
             // verify the deletion of the property
             if (response.result().equals(Result.Deleted)) {
                 log.config("Deletes property " + propertyName);
+                changeRepository.tombstone(XmlTombstone.PROPERTY, propertyName);
             }
 
         } catch (ElasticsearchException | IOException e) {
@@ -0,0 +1,114 @@
+package org.phoebus.channelfinder;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.phoebus.channelfinder.replay.QueryRecorder;
+import org.phoebus.channelfinder.replay.RecordedQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Records the queries of the rest api to a rotating local file, see
+ * {@link QueryRecorder}, to replay them against a test instance. The queries
+ * are recorded by endpoint and parameters, with whether they carried
+ * credentials rather than the credentials or the principal: the GET requests
+ * are not authenticated.
+ */
+@Configuration
+public class QueryRecordingConfig implements WebMvcConfigurer {
+
+    private static final Logger log = Logger.getLogger(QueryRecordingConfig.class.getName());
+
+    private static final String START = QueryRecordingConfig.class.getName() + ".start";
+    private static final String TIMESTAMP = QueryRecordingConfig.class.getName() + ".timestamp";
+
+    @Value("${query.recording.enabled:false}")
+    private boolean enabled;
+    @Value("${query.recording.file:queries/queries.jsonl}")
+    private String file;
+    @Value("${query.recording.max.size:104857600}")
+    private long maxSize;
+    @Value("${query.recording.files:10}")
+    private int files;
+    @Value("${query.recording.capacity:10000}")
+    private int capacity;
+    @Value("${query.recording.methods:GET}")
+    private Set<String> methods;
+
+    private QueryRecorder recorder;
+
+    @PostConstruct
+    void open() throws IOException {
+        if (enabled) {
+            recorder = new QueryRecorder(Paths.get(file), maxSize, files, capacity);
+            log.info("Recording the " + methods + " queries in " + Paths.get(file).toAbsolutePath());
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        if (recorder != null) {
+            recorder.close();
+            if (recorder.getDropped() > 0) {
+                log.log(Level.WARNING, recorder.getDropped() + " queries were not recorded, the recording queue was full");
+            }
+        }
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry interceptors) {
+        if (!enabled) {
+            return;
+        }
+        interceptors.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                if (methods.contains(request.getMethod())) {
+                    request.setAttribute(START, System.nanoTime());
+                    request.setAttribute(TIMESTAMP, System.currentTimeMillis());
+                }
+                return true;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+                Long start = (Long) request.getAttribute(START);
+                if (start == null) {
+                    return;
+                }
+                long micros = (System.nanoTime() - start) / 1000;
+                Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+                Map<String, List<String>> parameters = new LinkedHashMap<>();
+                request.getParameterMap().forEach((name, values) -> parameters.put(name, Arrays.asList(values)));
+                recorder.record(new RecordedQuery((Long) request.getAttribute(TIMESTAMP), request.getMethod(),
+                        (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE),
+                        variables == null ? new LinkedHashMap<>() : new LinkedHashMap<>(variables), parameters,
+                        request.getHeader(HttpHeaders.AUTHORIZATION) != null, response.getStatus(), micros));
+            }
+        }).addPathPatterns("/" + CFResourceDescriptors.CF_SERVICE + "/resources/**")
+                // the streams and the administration of the service are not queries
+                .excludePathPatterns("/" + CFResourceDescriptors.SUBSCRIPTION_RESOURCE_URI + "/**",
+                        "/" + CFResourceDescriptors.LOGIN_RESOURCE_URI + "/**",
+                        "/" + CFResourceDescriptors.RECORDING_RESOURCE_URI + "/**",
+                        "/" + CFResourceDescriptors.USAGE_RESOURCE_URI + "/**");
+    }
+}
@@ -0,0 +1,197 @@
+package org.phoebus.channelfinder;
+
+import static org.phoebus.channelfinder.CFResourceDescriptors.RECORDING_RESOURCE_URI;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.phoebus.channelfinder.AuthorizationService.ROLES;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Starts and dumps JDK Flight Recorder recordings of the running service, with
+ * the events of the <code>org.phoebus.channelfinder.jfr</code> package: the
+ * elastic requests, the bulk requests, the EPICS rpc requests and the
+ * authorization checks.
+ * <p>
+ * Only one recording is kept at a time, bounded in duration and size.
+ */
+@CrossOrigin
+@RestController
+@RequestMapping(RECORDING_RESOURCE_URI)
+@EnableAutoConfiguration
+public class RecordingManager {
+
+    static Logger log = Logger.getLogger(RecordingManager.class.getName());
+
+    @Value("${jfr.recording.max.duration:300}")
+    private long maxDuration;
+    @Value("${jfr.recording.max.size:104857600}")
+    private long maxSize;
+    @Value("${jfr.continuous.enabled:false}")
+    private boolean continuous;
+    @Value("${jfr.continuous.max.age:600}")
+    private long continuousMaxAge;
+
+    @Autowired
+    AuthorizationService authorizationService;
+
+    private Recording recording;
+
+    /**
+     * Start a continuous recording, keeping the last events, when enabled
+     */
+    @PostConstruct
+    synchronized void init() {
+        if (continuous) {
+            try {
+                recording = new Recording(Configuration.getConfiguration("default"));
+                recording.setName("channelfinder-continuous");
+                recording.setMaxAge(Duration.ofSeconds(continuousMaxAge));
+                recording.setMaxSize(maxSize);
+                recording.setToDisk(true);
+                recording.start();
+                log.info("Started a continuous flight recording, keeping the last " + continuousMaxAge + "s");
+            } catch (IOException | ParseException e) {
+                log.log(Level.WARNING, "Failed to start the continuous flight recording", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    /**
+     * POST method starting a recording, ADMIN only
+     *
+     * @param duration - the duration of the recording, in seconds, at most jfr.recording.max.duration
+     * @param settings - the JFR settings, <code>default</code> or <code>profile</code>
+     * @return the state of the recording
+     */
+    @PostMapping
+    public synchronized Map<String, Object> start(@RequestParam(value = "duration", defaultValue = "60") long duration,
+                                                  @RequestParam(value = "settings", defaultValue = "profile") String settings) {
+        checkAdmin();
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "A recording is running, dump or delete it first", null);
+        }
+        close();
+        try {
+            recording = new Recording(Configuration.getConfiguration(settings));
+        } catch (IOException | ParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown recording settings: " + settings, e);
+        }
+        recording.setName("channelfinder");
+        recording.setDuration(Duration.ofSeconds(Math.max(1, Math.min(duration, maxDuration))));
+        recording.setMaxSize(maxSize);
+        recording.setToDisk(true);
+        recording.start();
+        log.info(() -> "Started a flight recording of " + recording.getDuration().getSeconds() + "s with the "
+                + settings + " settings for " + SecurityContextHolder.getContext().getAuthentication().getName());
+        return state(recording);
+    }
+
+    /**
+     * POST method dumping the events recorded so far, ADMIN only. A stopped
+     * recording is deleted once dumped.
+     *
+     * @return the JFR file
+     */
+    @PostMapping("/dump")
+    public synchronized ResponseEntity<StreamingResponseBody> dump() {
+        checkAdmin();
+        if (recording == null || recording.getState() == RecordingState.NEW) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No recording", null);
+        }
+        Path file;
+        try {
+            file = Files.createTempFile("channelfinder-", ".jfr");
+            recording.dump(file);
+        } catch (IOException e) {
+            log.log(Level.SEVERE, "Failed to dump the flight recording", e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to dump the flight recording", e);
+        }
+        if (recording.getState() != RecordingState.RUNNING) {
+            close();
+        }
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                .body(body);
+    }
+
+    /**
+     * DELETE method stopping and deleting the recording, ADMIN only
+     */
+    @DeleteMapping
+    public synchronized void delete() {
+        checkAdmin();
+        if (recording == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No recording", null);
+        }
+        close();
+    }
+
+    private void checkAdmin() {
+        if (!authorizationService.isAuthorizedRole(SecurityContextHolder.getContext().getAuthentication(), ROLES.CF_ADMIN)) {
+            log.log(Level.SEVERE, "User does not have the proper authorization to perform a flight recording",
+                    new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
+                    "User does not have the proper authorization to perform a flight recording", null);
+        }
+    }
+
+    private static Map<String, Object> state(Recording recording) {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("name", recording.getName());
+        state.put("state", recording.getState().name());
+        Instant start = recording.getStartTime();
+        state.put("start", start == null ? null : start.toString());
+        state.put("duration", recording.getDuration() == null ? null : recording.getDuration().getSeconds());
+        state.put("maxSize", recording.getMaxSize());
+        return state;
+    }
+}
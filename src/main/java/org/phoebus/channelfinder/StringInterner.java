@@ -0,0 +1,151 @@
+package org.phoebus.channelfinder;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+
+/**
+ * Canonicalizes the tag and property names, the owners and the common
+ * property values of the deserialized channels, tags and properties, so that a
+ * result of thousands of channels holds a single instance of each rather than
+ * one per channel.
+ * <p>
+ * The canonical strings come from two bounded tables, shared by the request
+ * threads without locking:
+ * <ul>
+ * <li>the catalog, the names and owners of the tags and properties, seeded
+ * when the service starts, see {@link StringInterningConfig}, and with the
+ * tags and properties written since, see {@link #catalog(String, String)}</li>
+ * <li>a direct mapped cache of the other strings: a string replaces the one in
+ * its slot, so the frequent values stay while the rare ones are replaced</li>
+ * </ul>
+ * The strings longer than the maximum length, unlikely to be shared, are not
+ * canonicalized.
+ */
+public class StringInterner {
+
+    private static volatile StringInterner instance = new StringInterner(4096, 10000, 64);
+
+    private final AtomicReferenceArray<String> cache;
+    private final int mask;
+    private final Map<String, String> catalog = new ConcurrentHashMap<>();
+    private final int catalogSize;
+    private final int maxLength;
+
+    /**
+     * @param cacheSize the slots of the cache, rounded up to a power of two
+     * @param catalogSize the strings of the catalog beyond which it is not seeded
+     * @param maxLength the length beyond which the strings are not canonicalized
+     */
+    public StringInterner(int cacheSize, int catalogSize, int maxLength) {
+        int slots = Integer.highestOneBit(Math.max(1, cacheSize - 1)) << 1;
+        this.cache = new AtomicReferenceArray<>(slots);
+        this.mask = slots - 1;
+        this.catalogSize = catalogSize;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * @return the interner of the deserialized channels, tags and properties,
+     *         null if the strings are not canonicalized
+     */
+    public static StringInterner get() {
+        return instance;
+    }
+
+    /**
+     * @param interner the interner of the deserialized channels, tags and
+     *            properties, null to not canonicalize the strings
+     */
+    public static void set(StringInterner interner) {
+        instance = interner;
+    }
+
+    /**
+     * @param value a string
+     * @return the canonical instance of the string
+     */
+    public String intern(String value) {
+        if (value == null || value.length() > maxLength) {
+            return value;
+        }
+        String canonical = catalog.get(value);
+        if (canonical != null) {
+            return canonical;
+        }
+        int hash = value.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        String cached = cache.get(slot);
+        if (value.equals(cached)) {
+            return cached;
+        }
+        cache.lazySet(slot, value);
+        return value;
+    }
+
+    /**
+     * Add a string, a name or an owner of a tag or property, to the catalog
+     *
+     * @param value a string
+     * @return the canonical instance of the string
+     */
+    public String seed(String value) {
+        if (value == null || value.length() > maxLength) {
+            return value;
+        }
+        String canonical = catalog.get(value);
+        if (canonical == null && catalog.size() < catalogSize) {
+            canonical = catalog.putIfAbsent(value, value);
+        }
+        return canonical == null ? value : canonical;
+    }
+
+    /**
+     * Add the name and owner of a tag or property to the catalog of the current
+     * interner, if the strings are canonicalized
+     *
+     * @param name the name of a tag or property
+     * @param owner its owner
+     */
+    public static void catalog(String name, String owner) {
+        StringInterner interner = instance;
+        if (interner != null) {
+            interner.seed(name);
+            interner.seed(owner);
+        }
+    }
+
+    /**
+     * @return the number of strings in the catalog
+     */
+    public int getCatalogSize() {
+        return catalog.size();
+    }
+
+    /**
+     * Deserializes the strings through the current interner, for the fields
+     * annotated with
+     * <code>@JsonDeserialize(using = StringInterner.Deserializer.class)</code>
+     */
+    public static class Deserializer extends StdScalarDeserializer<String> {
+
+        private static final long serialVersionUID = 1L;
+
+        public Deserializer() {
+            super(String.class);
+        }
+
+        @Override
+        public String deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            String value = StringDeserializer.instance.deserialize(p, ctxt);
+            StringInterner interner = instance;
+            return interner == null ? value : interner.intern(value);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.phoebus.channelfinder;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Configures the canonicalization of the strings of the deserialized
+ * channels, tags and properties, see {@link StringInterner}, and seeds its
+ * catalog with the names and owners of the tags and properties once the
+ * service is started. The tags and properties written afterwards are added
+ * by the {@link TagRepository} and the {@link PropertyRepository}.
+ */
+@Configuration
+public class StringInterningConfig {
+
+    private static final Logger log = Logger.getLogger(StringInterningConfig.class.getName());
+
+    @Value("${interning.enabled:true}")
+    private boolean enabled;
+    @Value("${interning.cache.size:4096}")
+    private int cacheSize;
+    @Value("${interning.catalog.size:10000}")
+    private int catalogSize;
+    @Value("${interning.max.length:64}")
+    private int maxLength;
+
+    @Autowired
+    TagRepository tagRepository;
+    @Autowired
+    PropertyRepository propertyRepository;
+
+    @PostConstruct
+    void configure() {
+        StringInterner.set(enabled ? new StringInterner(cacheSize, catalogSize, maxLength) : null);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void seed() {
+        StringInterner interner = StringInterner.get();
+        if (interner == null) {
+            return;
+        }
+        try {
+            tagRepository.findAll().forEach(tag -> StringInterner.catalog(tag.getName(), tag.getOwner()));
+            propertyRepository.findAll().forEach(property -> StringInterner.catalog(property.getName(), property.getOwner()));
+            log.info("Seeded the string interner with " + interner.getCatalogSize() + " tag and property names and owners");
+        } catch (Exception e) {
+            log.log(Level.WARNING, "Failed to seed the string interner with the tags and properties", e);
+        }
+    }
+}
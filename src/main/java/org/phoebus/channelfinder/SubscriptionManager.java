@@ -0,0 +1,47 @@
+package org.phoebus.channelfinder;
+
+import static org.phoebus.channelfinder.CFResourceDescriptors.SUBSCRIPTION_RESOURCE_URI;
+
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.http.MediaType;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@CrossOrigin
+@RestController
+@RequestMapping(SUBSCRIPTION_RESOURCE_URI)
+@EnableAutoConfiguration
+public class SubscriptionManager {
+
+    static Logger log = Logger.getLogger(SubscriptionManager.class.getName());
+
+    @Autowired
+    ChannelSubscriptions channelSubscriptions;
+
+    /**
+     * GET method for subscribing to the changes of the channels matching a
+     * multi-parameter query, with the same parameters as the channel query.
+     * <p>
+     * The response is a stream of server-sent events: <code>add</code> and
+     * <code>update</code> carry the channel, <code>remove</code> the tombstone of
+     * a channel which was deleted or no longer matches the query, and
+     * <code>resync</code> tells the client that events were dropped and it should
+     * query the channels again. The event id is the change feed token of the
+     * change.
+     *
+     * @param allRequestParams query parameters
+     * @return the event stream
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam MultiValueMap<String, String> allRequestParams) {
+        return channelSubscriptions.subscribe(allRequestParams);
+    }
+}
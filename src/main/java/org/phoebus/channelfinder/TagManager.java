@@ -108,8 +108,6 @@ public class TagManager {
     public XmlTag create(@PathVariable("tagName") String tagName, @RequestBody XmlTag tag) {
         // check if authorized role
         if(authorizationService.isAuthorizedRole(SecurityContextHolder.getContext().getAuthentication(), ROLES.CF_TAG)) {
-            long start = System.currentTimeMillis();
-            tagManagerAudit.info("client initialization: " + (System.currentTimeMillis() - start));
             // Validate request parameters
             validateTagRequest(tag);
 
@@ -161,28 +159,25 @@ public class TagManager {
     public Iterable<XmlTag> create(@RequestBody Iterable<XmlTag> tags) {
         // check if authorized role
         if(authorizationService.isAuthorizedRole(SecurityContextHolder.getContext().getAuthentication(), ROLES.CF_TAG)) {
-            long start = System.currentTimeMillis();
-            tagManagerAudit.info("client initialization: " + (System.currentTimeMillis() - start));            
-
             // check if authorized owner
-            for(XmlTag tag: tags) {       
+            List<XmlTag> owned = new ArrayList<>();
+            for(XmlTag tag: tags) {
                 Optional<XmlTag> existingTag = tagRepository.findById(tag.getName());
                 boolean present = existingTag.isPresent();
                 if(present) {
-                    if(!authorizationService.isAuthorizedOwner(SecurityContextHolder.getContext().getAuthentication(), existingTag.get())) {
-                        log.log(Level.SEVERE, "User does not have the proper authorization to perform an operation on this tag: " + existingTag.get().toLog(), new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-                        throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
-                                "User does not have the proper authorization to perform an operation on this tag: " + existingTag, null);
-                    }
+                    owned.add(existingTag.get());
                     tag.setOwner(existingTag.get().getOwner());
                 } else {
-                    if(!authorizationService.isAuthorizedOwner(SecurityContextHolder.getContext().getAuthentication(), tag)) {
-                        log.log(Level.SEVERE, "User does not have the proper authorization to perform an operation on this tag: " + tag.toLog(), new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-                        throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
-                                "User does not have the proper authorization to perform an operation on this tag: " + tag, null);
-                    }
+                    owned.add(tag);
                 }
             }
+            Optional<XmlTag> unauthorized = authorizationService.findUnauthorizedOwner(
+                    SecurityContextHolder.getContext().getAuthentication(), owned, XmlTag::getOwner);
+            if(unauthorized.isPresent()) {
+                log.log(Level.SEVERE, "User does not have the proper authorization to perform an operation on this tag: " + unauthorized.get().toLog(), new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
+                        "User does not have the proper authorization to perform an operation on this tag: " + unauthorized.get(), null);
+            }
 
             // Validate request parameters
             validateTagRequest(tags);
@@ -238,8 +233,6 @@ public class TagManager {
     public XmlTag addSingle(@PathVariable("tagName") String tagName, @PathVariable("channelName") String channelName) {
         // check if authorized role
         if(authorizationService.isAuthorizedRole(SecurityContextHolder.getContext().getAuthentication(), ROLES.CF_TAG)) {
-            long start = System.currentTimeMillis();
-            tagManagerAudit.info("client initialization: " + (System.currentTimeMillis() - start));
             // Validate request parameters
             validateTagWithChannelRequest(channelName);
 
@@ -254,7 +247,8 @@ public class TagManager {
                 } 
                 // add tag to channel
                 XmlChannel channel = channelRepository.findById(channelName).get();
-                channel.addTag(existingTag.get());
+                // a copy of the tag, the returned tag contains the saved channel
+                channel.addTag(new XmlTag(existingTag.get().getName(), existingTag.get().getOwner()));
                 XmlChannel taggedChannel = channelRepository.save(channel);
                 XmlTag addedTag = existingTag.get();
                 addedTag.setChannels(Arrays.asList(taggedChannel));
@@ -287,8 +281,6 @@ public class TagManager {
     public XmlTag update(@PathVariable("tagName") String tagName, @RequestBody XmlTag tag) {
         // check if authorized role
         if(authorizationService.isAuthorizedRole(SecurityContextHolder.getContext().getAuthentication(), ROLES.CF_TAG)) {
-            long start = System.currentTimeMillis();
-            tagManagerAudit.info("client initialization: " + (System.currentTimeMillis() - start));
             // Validate request parameters
             validateTagRequest(tag);
 
@@ -363,28 +355,25 @@ public class TagManager {
     public Iterable<XmlTag> update(@RequestBody Iterable<XmlTag> tags) {
         // check if authorized role
         if(authorizationService.isAuthorizedRole(SecurityContextHolder.getContext().getAuthentication(), ROLES.CF_TAG)) {
-            long start = System.currentTimeMillis();
-            tagManagerAudit.info("client initialization: " + (System.currentTimeMillis() - start));
-
             // check if authorized owner
-            for(XmlTag tag:tags) {
+            List<XmlTag> owned = new ArrayList<>();
+            for(XmlTag tag: tags) {
                 Optional<XmlTag> existingTag = tagRepository.findById(tag.getName());
                 boolean present = existingTag.isPresent();
                 if(present) {
-                    if(!authorizationService.isAuthorizedOwner(SecurityContextHolder.getContext().getAuthentication(), existingTag.get())) {
-                        log.log(Level.SEVERE, "User does not have the proper authorization to perform an operation on this tag: " + existingTag.get().toLog(), new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-                        throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
-                                "User does not have the proper authorization to perform an operation on this tag: " + existingTag.get(), null);
-                    }
+                    owned.add(existingTag.get());
                     tag.setOwner(existingTag.get().getOwner());
                 } else {
-                    if(!authorizationService.isAuthorizedOwner(SecurityContextHolder.getContext().getAuthentication(), tag)) {
-                        log.log(Level.SEVERE, "User does not have the proper authorization to perform an operation on this tag: " + tag.toLog(), new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-                        throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
-                                "User does not have the proper authorization to perform an operation on this tag: " + tag, null);
-                    }
+                    owned.add(tag);
                 }
             }
+            Optional<XmlTag> unauthorized = authorizationService.findUnauthorizedOwner(
+                    SecurityContextHolder.getContext().getAuthentication(), owned, XmlTag::getOwner);
+            if(unauthorized.isPresent()) {
+                log.log(Level.SEVERE, "User does not have the proper authorization to perform an operation on this tag: " + unauthorized.get().toLog(), new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
+                        "User does not have the proper authorization to perform an operation on this tag: " + unauthorized.get(), null);
+            }
 
             // Validate request parameters
             validateTagRequest(tags);
@@ -15,6 +15,7 @@ import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
 import co.elastic.clients.json.JsonData;
 import co.elastic.clients.json.jackson.JacksonJsonpMapper;
 import org.phoebus.channelfinder.XmlTag.OnlyXmlTag;
+import org.phoebus.channelfinder.jfr.BulkEvent;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
@@ -50,6 +51,12 @@ public class TagRepository implements CrudRepository<XmlTag, String> {
     @Autowired
     ChannelRepository channelRepository;
 
+    @Autowired
+    ChangeRepository changeRepository;
+
+    @Autowired
+    ChannelSubscriptions channelSubscriptions;
+
     ObjectMapper objectMapper = new ObjectMapper().addMixIn(XmlTag.class, OnlyXmlTag.class);
 
     /**
@@ -73,6 +80,8 @@ public class TagRepository implements CrudRepository<XmlTag, String> {
 
         BulkRequest.Builder br = new BulkRequest.Builder();
         for (XmlTag tag : tags) {
+            tag.setLastModified(changeRepository.nextStamp());
+            StringInterner.catalog(tag.getName(), tag.getOwner());
             br.operations(op -> op
                     .index(idx -> idx
                             .index(ES_TAG_INDEX)
@@ -80,7 +89,7 @@ public class TagRepository implements CrudRepository<XmlTag, String> {
                             .document(JsonData.of(tag, new JacksonJsonpMapper(objectMapper)))));
         }
         try {
-            BulkResponse result  = client.bulk(br.refresh(Refresh.True).build());
+            BulkResponse result  = BulkEvent.bulk(client, br.refresh(Refresh.True).build());
             // Log errors, if any
             if (result.errors()) {
                 log.severe("Bulk had errors");
@@ -111,16 +120,20 @@ public class TagRepository implements CrudRepository<XmlTag, String> {
      */
     @SuppressWarnings("unchecked")
     public <S extends XmlTag> S save(String tagName, S tag) {
+        tag.setLastModified(changeRepository.nextStamp());
+        StringInterner.catalog(tag.getName(), tag.getOwner());
         try{
             IndexResponse response = client
                     .index(i -> i.index(ES_TAG_INDEX)
                             .id(tagName)
                             .document(JsonData.of(tag, new JacksonJsonpMapper(objectMapper)))
                             .refresh(Refresh.True));
-            // verify the creation of the tag
+            // verify the creation of the tag, only the name and owner are persisted so return those rather than reading the tag back
             if (response.result().equals(Result.Created) || response.result().equals(Result.Updated)) {
                 log.config("Created tag " + tag);
-                return (S) findById(tagName).get();
+                XmlTag savedTag = new XmlTag(tag.getName(), tag.getOwner());
+                savedTag.setLastModified(tag.getLastModified());
+                return (S) savedTag;
             }
         } catch (ElasticsearchException | IOException e) {
             log.log(Level.SEVERE, "Failed to update/save tag:" + tag.toLog(), e);
@@ -148,6 +161,8 @@ public class TagRepository implements CrudRepository<XmlTag, String> {
 
         BulkRequest.Builder br = new BulkRequest.Builder();
         for (XmlTag tag : tags) {
+            tag.setLastModified(changeRepository.nextStamp());
+            StringInterner.catalog(tag.getName(), tag.getOwner());
             br.operations(op -> op
                     .index(idx -> idx
                             .index(ES_TAG_INDEX)
@@ -159,7 +174,7 @@ public class TagRepository implements CrudRepository<XmlTag, String> {
 
         BulkResponse result = null;
         try {
-            result = client.bulk(br.refresh(Refresh.True).build());
+            result = BulkEvent.bulk(client, br.refresh(Refresh.True).build());
             // Log errors, if any
             if (result.errors()) {
                 log.severe("Bulk had errors");
@@ -301,6 +316,7 @@ public class TagRepository implements CrudRepository<XmlTag, String> {
             // verify the deletion of the tag
             if (response.result().equals(Result.Deleted)) {
                 log.config("Deletes tag " + tagName);
+                changeRepository.tombstone(XmlTombstone.TAG, tagName);
             }
             BulkRequest.Builder br = new BulkRequest.Builder().refresh(Refresh.True);
             MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
@@ -319,13 +335,14 @@ public class TagRepository implements CrudRepository<XmlTag, String> {
 //                                                                          .params("remove_tag", JsonData.of(tagName)))))))));
                     // Or
                     channel.removeTag(channel.getTags().stream().filter(tag -> tagName.equalsIgnoreCase(tag.getName())).findAny().get());
+                    channel.setLastModified(changeRepository.nextStamp());
                     br.operations(op -> op.update(
                             u -> u.index(ES_CHANNEL_INDEX)
                                     .id(channel.getName())
                                     .action(a -> a.doc(channel))));
                 }
                 try {
-                    BulkResponse result = client.bulk(br.build());
+                    BulkResponse result = BulkEvent.bulk(client, br.build());
                     // Log errors, if any
                     if (result.errors()) {
                         log.severe("Bulk had errors");
@@ -335,6 +352,7 @@ public class TagRepository implements CrudRepository<XmlTag, String> {
                             }
                         }
                     } else {
+                        channelSubscriptions.updated(channels);
                     }
                 } catch (IOException e) {
                     log.log(Level.SEVERE, "Failed to delete tag " + tagName, e);
@@ -0,0 +1,55 @@
+package org.phoebus.channelfinder;
+
+import static org.phoebus.channelfinder.CFResourceDescriptors.LOGIN_RESOURCE_URI;
+
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@CrossOrigin
+@RestController
+@RequestMapping(LOGIN_RESOURCE_URI)
+@EnableAutoConfiguration
+public class TokenManager {
+
+    static Logger log = Logger.getLogger(TokenManager.class.getName());
+
+    @Value("${auth.token.enabled:false}")
+    private boolean enabled;
+
+    @Autowired
+    TokenService tokenService;
+
+    /**
+     * POST method issuing a token for the user authenticated by the request,
+     * to be sent as a bearer token with the following requests in place of the
+     * user credentials. A request authenticated by a token is refused, so
+     * that a token cannot be renewed indefinitely without the credentials.
+     *
+     * @return the token, its expiry time and the roles it carries
+     */
+    @PostMapping
+    public XmlToken login() {
+        if (!enabled) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Token authentication is disabled", null);
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication instanceof TokenService.TokenAuthentication) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    "A token is only issued to the users authenticated by their credentials", null);
+        }
+        XmlToken token = tokenService.issue(authentication);
+        log.fine(() -> "Issued a token for " + authentication.getName());
+        return token;
+    }
+}
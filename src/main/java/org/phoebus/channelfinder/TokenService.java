@@ -0,0 +1,168 @@
+package org.phoebus.channelfinder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Issues and verifies the short lived tokens which let clients authenticate
+ * their write requests without the cost of a password check or an LDAP lookup
+ * on every request.
+ * <p>
+ * The tokens are HS256 signed JSON web tokens carrying the user name, the
+ * resolved roles of the user and the expiry time. They are verified with the
+ * signature alone, so that a token stays valid until it expires even if the
+ * roles of the user change in the meantime.
+ * <p>
+ * The tokens are only issued to the users authenticated by their credentials,
+ * a token cannot be renewed with itself, see {@link TokenAuthentication}.
+ */
+@Service
+public class TokenService {
+
+    static Logger log = Logger.getLogger(TokenService.class.getName());
+
+    private static final String ALGORITHM = "HmacSHA256";
+    /** the minimum size of the secret, in bytes, the size of the hash, so that the key cannot be guessed */
+    static final int MIN_SECRET_LENGTH = 32;
+    private static final String HEADER = encode("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final SecretKeySpec key;
+    private final long ttl;
+
+    /**
+     * @param secret - the key signing the tokens
+     * @param ttl - the time the tokens are valid, in seconds
+     */
+    public TokenService(String secret, long ttl) {
+        this(true, secret, ttl);
+    }
+
+    /**
+     * @param enabled - whether the token authentication is enabled, it then requires a secret
+     * @param secret - the key signing the tokens, at least 32 bytes, a random key is used when empty and the tokens are disabled
+     * @param ttl - the time the tokens are valid, in seconds
+     */
+    @Autowired
+    public TokenService(@Value("${auth.token.enabled:false}") boolean enabled,
+                        @Value("${auth.token.secret:}") String secret,
+                        @Value("${auth.token.ttl:900}") long ttl) {
+        byte[] keyBytes;
+        if (secret == null || secret.isEmpty()) {
+            if (enabled) {
+                throw new IllegalStateException("auth.token.enabled requires an auth.token.secret");
+            }
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+            if (keyBytes.length < MIN_SECRET_LENGTH) {
+                throw new IllegalStateException("auth.token.secret must be at least " + MIN_SECRET_LENGTH + " bytes long");
+            }
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.ttl = ttl;
+    }
+
+    /**
+     * Issue a token for the authenticated user
+     *
+     * @param authentication - the authenticated user
+     * @return the token
+     */
+    public XmlToken issue(Authentication authentication) {
+        long expires = Instant.now().getEpochSecond() + ttl;
+        List<String> roles = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList());
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", authentication.getName());
+        claims.put("roles", roles);
+        claims.put("exp", expires);
+        try {
+            String content = HEADER + "." + encode(mapper.writeValueAsBytes(claims));
+            return new XmlToken(content + "." + encode(sign(content)), expires, roles);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to issue a token for " + authentication.getName(), e);
+        }
+    }
+
+    /**
+     * Verify a token
+     *
+     * @param token - a token issued by this service
+     * @return the authenticated user with the roles of the token, null if the
+     *         token is invalid or expired
+     */
+    public Authentication verify(String token) {
+        int payload = token.indexOf('.');
+        int signature = token.lastIndexOf('.');
+        if (payload < 0 || signature == payload) {
+            return null;
+        }
+        try {
+            String content = token.substring(0, signature);
+            if (!MessageDigest.isEqual(sign(content), Base64.getUrlDecoder().decode(token.substring(signature + 1)))) {
+                return null;
+            }
+            Map<?, ?> claims = mapper.readValue(Base64.getUrlDecoder().decode(token.substring(payload + 1, signature)), Map.class);
+            if (((Number) claims.get("exp")).longValue() <= Instant.now().getEpochSecond()) {
+                return null;
+            }
+            List<GrantedAuthority> authorities = new ArrayList<>();
+            for (Object role : (List<?>) claims.get("roles")) {
+                authorities.add(new SimpleGrantedAuthority(String.valueOf(role)));
+            }
+            return new TokenAuthentication(claims.get("sub"), authorities);
+        } catch (Exception e) {
+            log.log(Level.FINE, "Invalid token", e);
+            return null;
+        }
+    }
+
+    /**
+     * A user authenticated by a token
+     */
+    public static class TokenAuthentication extends UsernamePasswordAuthenticationToken {
+
+        private static final long serialVersionUID = 1L;
+
+        TokenAuthentication(Object principal, List<GrantedAuthority> authorities) {
+            super(principal, null, authorities);
+        }
+    }
+
+    private byte[] sign(String content) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(ALGORITHM);
+        mac.init(key);
+        return mac.doFinal(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
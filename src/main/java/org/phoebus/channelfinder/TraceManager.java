@@ -0,0 +1,51 @@
+package org.phoebus.channelfinder;
+
+import static org.phoebus.channelfinder.CFResourceDescriptors.TRACES_RESOURCE_URI;
+
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.phoebus.channelfinder.AuthorizationService.ROLES;
+import org.phoebus.channelfinder.tracing.Tracing;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@CrossOrigin
+@RestController
+@RequestMapping(TRACES_RESOURCE_URI)
+@EnableAutoConfiguration
+public class TraceManager {
+
+    static Logger log = Logger.getLogger(TraceManager.class.getName());
+
+    @Autowired
+    AuthorizationService authorizationService;
+
+    /**
+     * GET method for the last spans recorded by the service, see {@link TracingConfig},
+     * ADMIN only since the spans carry the queries and the users of the service
+     *
+     * @param traceId - the id of a trace, all the traces if missing
+     * @return the spans in the OTLP JSON encoding, as sent to an OpenTelemetry collector
+     */
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> traces(@RequestParam(value = "traceId", required = false) String traceId) {
+        if (!authorizationService.isAuthorizedRole(SecurityContextHolder.getContext().getAuthentication(), ROLES.CF_ADMIN)) {
+            log.log(Level.SEVERE, "User does not have the proper authorization to read the traces of the service",
+                    new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
+                    "User does not have the proper authorization to read the traces of the service", null);
+        }
+        return Tracing.toOtlp(Tracing.spans(traceId), "channelfinder");
+    }
+}
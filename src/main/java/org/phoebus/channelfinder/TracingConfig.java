@@ -0,0 +1,140 @@
+package org.phoebus.channelfinder;
+
+import static org.phoebus.channelfinder.CFResourceDescriptors.TRACES_RESOURCE_URI;
+
+import java.io.IOException;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.phoebus.channelfinder.tracing.Span;
+import org.phoebus.channelfinder.tracing.Tracing;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Records the spans of the rest requests, of the repository calls and of the
+ * elastic requests they make, see {@link Tracing}.
+ * <p>
+ * A request carrying a W3C <code>traceparent</code> header continues the trace
+ * of the client. The trace id is sent to elastic as the
+ * <code>X-Opaque-Id</code> of each request.
+ */
+@Configuration
+public class TracingConfig implements WebMvcConfigurer {
+
+    @Value("${tracing.enabled:true}")
+    private boolean enabled;
+    @Value("${tracing.buffer.size:10000}")
+    private int bufferSize;
+
+    @PostConstruct
+    void configure() {
+        Tracing.configure(enabled, bufferSize);
+    }
+
+    /**
+     * Records a server span for each rest request, before the authentication
+     */
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> tracingFilter() {
+        FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(new OncePerRequestFilter() {
+            @Override
+            protected boolean shouldNotFilter(HttpServletRequest request) {
+                return request.getRequestURI().endsWith(TRACES_RESOURCE_URI);
+            }
+
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                    throws ServletException, IOException {
+                try (Span span = Tracing.start(request.getMethod(), Span.Kind.SERVER,
+                        request.getHeader(Tracing.TRACEPARENT_HEADER))) {
+                    span.setAttribute("http.method", request.getMethod())
+                        .setAttribute("http.target", request.getRequestURI());
+                    try {
+                        chain.doFilter(request, response);
+                    } catch (IOException | ServletException | RuntimeException e) {
+                        span.setError(e);
+                        throw e;
+                    } finally {
+                        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                        if (route != null) {
+                            span.setName(request.getMethod() + " " + route).setAttribute("http.route", route);
+                        }
+                        span.setAttribute("http.status_code", (long) response.getStatus());
+                    }
+                }
+            }
+        });
+        registration.setName("tracingFilter");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * Records the user of the server span, the security context is cleared
+     * before the tracing filter completes
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry interceptors) {
+        interceptors.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                Span span = Tracing.current();
+                Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+                if (span != null && authentication != null) {
+                    span.setAttribute("enduser.id", authentication.getName());
+                }
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Records a span for each call of the beans annotated with {@link Repository}
+     */
+    @Bean
+    public static BeanPostProcessor repositoryTracing() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (AnnotationUtils.findAnnotation(bean.getClass(), Repository.class) == null) {
+                    return bean;
+                }
+                String repository = ClassUtils.getUserClass(bean).getSimpleName();
+                return MetricsConfig.advise(bean, true, (MethodInterceptor) invocation -> {
+                    // only the calls made while handling a traced request
+                    if (invocation.getMethod().getDeclaringClass() == Object.class || Tracing.current() == null) {
+                        return invocation.proceed();
+                    }
+                    try (Span span = Tracing.start(repository + "." + invocation.getMethod().getName(), Span.Kind.INTERNAL)) {
+                        try {
+                            return invocation.proceed();
+                        } catch (Throwable e) {
+                            span.setError(e);
+                            throw e;
+                        }
+                    }
+                });
+            }
+        };
+    }
+}
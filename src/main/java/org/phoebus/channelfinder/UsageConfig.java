@@ -0,0 +1,192 @@
+package org.phoebus.channelfinder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collection;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.phoebus.channelfinder.usage.CountingResponse;
+import org.phoebus.channelfinder.usage.UsageAccounting;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Accounts the rest requests by principal and by client address, see
+ * {@link UsageAccounting}: the number of requests and of failed requests, the
+ * channels, tags and properties returned, the bytes of the responses and the
+ * time spent in elastic.
+ * <p>
+ * The GET requests bypass the authentication, their principal is derived from
+ * the Authorization header: the user of a valid bearer token, verified by its
+ * signature. The basic credentials are not checked on these requests, the user
+ * name they claim is accounted apart, as <code>unverified:&lt;name&gt;</code>,
+ * so that a client cannot charge its requests to another user.
+ */
+@Configuration
+public class UsageConfig implements WebMvcConfigurer {
+
+    private static final String BEARER = "Bearer ";
+    private static final String BASIC = "Basic ";
+    static final String UNVERIFIED = "unverified:";
+
+    @Value("${usage.enabled:true}")
+    private boolean enabled;
+    @Value("${usage.capacity:1000}")
+    private int capacity;
+    /** the header holding the client address set by a proxy, e.g. X-Forwarded-For */
+    @Value("${usage.client.header:}")
+    private String clientHeader;
+
+    @Autowired
+    TokenService tokenService;
+
+    @PostConstruct
+    void configure() {
+        UsageAccounting.configure(enabled, capacity);
+    }
+
+    /**
+     * Accounts each rest request, including the ones failing the authentication
+     */
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> usageFilter() {
+        FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                    throws ServletException, IOException {
+                UsageAccounting.begin();
+                CountingResponse counting = new CountingResponse(response);
+                try {
+                    chain.doFilter(request, counting);
+                } finally {
+                    UsageAccounting.end(client(request), response.getStatus(), counting.getBytes());
+                }
+            }
+        });
+        registration.setName("usageFilter");
+        // within the tracing filter
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    private String client(HttpServletRequest request) {
+        if (!clientHeader.isEmpty()) {
+            String forwarded = request.getHeader(clientHeader);
+            if (forwarded != null && !forwarded.isBlank()) {
+                // the first address is the one of the original client
+                return forwarded.split(",")[0].trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    /**
+     * @return the principal of a request which was not authenticated: the user
+     *         of its bearer token, if valid, or the user name claimed by its
+     *         basic credentials prefixed with <code>unverified:</code>, null if
+     *         none
+     */
+    String claimedPrincipal(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null) {
+            return null;
+        }
+        if (header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            Authentication authentication = tokenService.verify(header.substring(BEARER.length()).trim());
+            return authentication == null ? null : authentication.getName();
+        }
+        if (header.regionMatches(true, 0, BASIC, 0, BASIC.length())) {
+            try {
+                String credentials = new String(Base64.getDecoder().decode(header.substring(BASIC.length()).trim()),
+                        StandardCharsets.UTF_8);
+                int separator = credentials.indexOf(':');
+                return separator > 0 ? UNVERIFIED + credentials.substring(0, separator) : null;
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Records the principal of the request, the security context is cleared
+     * before the usage filter completes
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry interceptors) {
+        interceptors.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+                if (authentication != null) {
+                    UsageAccounting.principal(authentication.getName());
+                } else {
+                    String principal = claimedPrincipal(request);
+                    if (principal != null) {
+                        UsageAccounting.principal(principal);
+                    }
+                }
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Counts the channels, tags and properties returned by the rest requests
+     */
+    @ControllerAdvice
+    public static class Rows implements ResponseBodyAdvice<Object> {
+
+        @Override
+        public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+            return true;
+        }
+
+        @Override
+        public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                      Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                      ServerHttpRequest request, ServerHttpResponse response) {
+            UsageAccounting.rows(rows(body));
+            return body;
+        }
+
+        static long rows(Object body) {
+            if (body instanceof Collection) {
+                return ((Collection<?>) body).size();
+            } else if (body instanceof XmlScroll) {
+                return ((XmlScroll) body).getChannels().size();
+            } else if (body instanceof XmlChanges) {
+                XmlChanges changes = (XmlChanges) body;
+                return changes.getChannels().size() + changes.getTags().size()
+                        + changes.getProperties().size() + changes.getTombstones().size();
+            } else if (body instanceof XmlChannel || body instanceof XmlTag || body instanceof XmlProperty) {
+                return 1;
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.phoebus.channelfinder;
+
+import static org.phoebus.channelfinder.CFResourceDescriptors.USAGE_RESOURCE_URI;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.phoebus.channelfinder.AuthorizationService.ROLES;
+import org.phoebus.channelfinder.usage.SpaceSaving;
+import org.phoebus.channelfinder.usage.Usage;
+import org.phoebus.channelfinder.usage.UsageAccounting;
+import org.phoebus.channelfinder.usage.UsageAccounting.Dimension;
+import org.phoebus.channelfinder.usage.UsageAccounting.Metric;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Lists the principals and the clients making the heaviest use of the
+ * service, see {@link UsageConfig}
+ */
+@CrossOrigin
+@RestController
+@RequestMapping(USAGE_RESOURCE_URI)
+@EnableAutoConfiguration
+public class UsageManager {
+
+    static Logger log = Logger.getLogger(UsageManager.class.getName());
+
+    @Autowired
+    AuthorizationService authorizationService;
+
+    /**
+     * GET method for the heaviest users of the service, ADMIN only
+     *
+     * @param by - <code>principal</code> or <code>client</code>
+     * @param metric - <code>requests</code>, <code>errors</code>, <code>rows</code>,
+     *            <code>bytes</code> or <code>elastic</code> time
+     * @param top - the number of principals or clients
+     * @return the usage of the heaviest principals or clients for the metric,
+     *         with the error bound of the estimated metric
+     */
+    @GetMapping
+    public Map<String, Object> top(@RequestParam(value = "by", defaultValue = "principal") String by,
+                                   @RequestParam(value = "metric", defaultValue = "requests") String metric,
+                                   @RequestParam(value = "top", defaultValue = "10") int top) {
+        checkAdmin();
+        Dimension dimension = valueOf(Dimension.class, by);
+        Metric ranking = valueOf(Metric.class, metric);
+        List<Map<String, Object>> users = new ArrayList<>();
+        for (SpaceSaving.Counter<Usage> counter : UsageAccounting.top(dimension, ranking, Math.max(0, top))) {
+            Usage usage = counter.getValue();
+            Map<String, Object> user = new LinkedHashMap<>();
+            user.put(by, counter.getKey());
+            user.put(metric, value(ranking, counter.getCount()));
+            user.put("error", value(ranking, counter.getError()));
+            user.put("requests", usage.getRequests());
+            user.put("errors", usage.getErrors());
+            user.put("rows", usage.getRows());
+            user.put("bytes", usage.getBytes());
+            user.put("elastic", TimeUnit.NANOSECONDS.toMillis(usage.getElasticNanos()));
+            users.add(user);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("total", value(ranking, UsageAccounting.total(dimension, ranking)));
+        result.put("top", users);
+        return result;
+    }
+
+    /**
+     * DELETE method forgetting the usage accounted so far, ADMIN only
+     */
+    @DeleteMapping
+    public void reset() {
+        checkAdmin();
+        UsageAccounting.reset();
+        log.info(() -> "Usage accounting reset by " + SecurityContextHolder.getContext().getAuthentication().getName());
+    }
+
+    /** the elastic time is in milliseconds */
+    private static long value(Metric metric, long value) {
+        return metric == Metric.ELASTIC ? TimeUnit.NANOSECONDS.toMillis(value) : value;
+    }
+
+    private static <E extends Enum<E>> E valueOf(Class<E> type, String name) {
+        try {
+            return Enum.valueOf(type, name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown " + type.getSimpleName().toLowerCase(Locale.ROOT)
+                    + ": " + name, e);
+        }
+    }
+
+    private void checkAdmin() {
+        if (!authorizationService.isAuthorizedRole(SecurityContextHolder.getContext().getAuthentication(), ROLES.CF_ADMIN)) {
+            log.log(Level.SEVERE, "User does not have the proper authorization to read the usage of the service",
+                    new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
+                    "User does not have the proper authorization to read the usage of the service", null);
+        }
+    }
+}
@@ -1,5 +1,10 @@
 package org.phoebus.channelfinder;
 
+import static org.phoebus.channelfinder.CFResourceDescriptors.METRICS_RESOURCE_URI;
+import static org.phoebus.channelfinder.CFResourceDescriptors.TRACES_RESOURCE_URI;
+import static org.phoebus.channelfinder.CFResourceDescriptors.USAGE_RESOURCE_URI;
+
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -13,22 +18,46 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.ldap.DefaultSpringSecurityContextSource;
 import org.springframework.security.ldap.userdetails.DefaultLdapAuthoritiesPopulator;
+import org.springframework.security.ldap.userdetails.LdapAuthoritiesPopulator;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
 
 @Configuration
 public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
 
+    /**
+     * Token authentication, see {@link TokenManager}
+     */
+    @Value("${auth.token.enabled:false}")
+    boolean token_enabled;
+
+    @Autowired
+    TokenService tokenService;
+
     @Override
     protected void configure(HttpSecurity http) throws Exception {
         http.csrf().disable();
         http.sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS);
         http.authorizeRequests().anyRequest().authenticated();
         http.httpBasic();
+        if (token_enabled) {
+            // requests with a valid token skip the password check or ldap lookup of the basic authentication
+            http.addFilterBefore(new TokenAuthenticationFilter(tokenService), BasicAuthenticationFilter.class);
+        }
     }
 
     @Override
     public void configure(WebSecurity web) throws Exception {
-        // Authentication and Authorization is only needed for non search/query operations
-        web.ignoring().antMatchers(HttpMethod.GET, "/**");
+        // Authentication and Authorization is only needed for non search/query operations,
+        // for the usage and the traces of the service which list its users and their queries,
+        // and for its metrics
+        web.ignoring().requestMatchers(new AndRequestMatcher(
+                new AntPathRequestMatcher("/**", HttpMethod.GET.name()),
+                new NegatedRequestMatcher(new AntPathRequestMatcher("/" + USAGE_RESOURCE_URI + "/**")),
+                new NegatedRequestMatcher(new AntPathRequestMatcher("/" + METRICS_RESOURCE_URI + "/**")),
+                new NegatedRequestMatcher(new AntPathRequestMatcher("/" + TRACES_RESOURCE_URI + "/**"))));
     }
 
     /**
@@ -63,6 +92,15 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
     @Value("${embedded_ldap.groups.search.pattern}")
     String embedded_ldap_groups_search_pattern;
 
+    /**
+     * Caching of the authorities found by the LDAP group searches, shared by
+     * the external and embedded LDAP configurations
+     */
+    @Value("${ldap.authorities.cache.ttl:300}")
+    long ldap_authorities_cache_ttl;
+    @Value("${ldap.authorities.cache.size:1000}")
+    long ldap_authorities_cache_size;
+
     /**
      * Demo authorization based on in memory user credentials
      */
@@ -97,7 +135,7 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
 
             auth.ldapAuthentication()
                 .userDnPatterns(ldap_user_dn_pattern)
-                .ldapAuthoritiesPopulator(myAuthPopulator)
+                .ldapAuthoritiesPopulator(cachingPopulator("ldap", myAuthPopulator))
                 .contextSource(contextSource);
         }
 
@@ -113,7 +151,7 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
 
             auth.ldapAuthentication()
                     .userDnPatterns(embedded_ldap_user_dn_pattern)
-                    .ldapAuthoritiesPopulator(myAuthPopulator)
+                    .ldapAuthoritiesPopulator(cachingPopulator("embedded_ldap", myAuthPopulator))
                     .groupSearchBase("ou=Group")
                     .contextSource(contextSource);
 
@@ -144,6 +182,13 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
         }
     }
 
+    private LdapAuthoritiesPopulator cachingPopulator(String name, LdapAuthoritiesPopulator populator) {
+        if (ldap_authorities_cache_ttl <= 0) {
+            return populator;
+        }
+        return new CachingLdapAuthoritiesPopulator(name, populator, ldap_authorities_cache_ttl, ldap_authorities_cache_size);
+    }
+
     @Bean
     public PasswordEncoder encoder() {
         return new BCryptPasswordEncoder();
@@ -0,0 +1,81 @@
+package org.phoebus.channelfinder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+
+/**
+ * The set of channels, tags and properties created, updated or deleted after a
+ * given change feed token.
+ * <p>
+ * The <code>token</code> is the stamp of the last change included in this
+ * response and should be passed as the <code>since</code> parameter of the
+ * next request.
+ */
+@XmlRootElement(name="changes")
+@XmlType (propOrder={"token","channels","tags","properties","tombstones"})
+public class XmlChanges {
+    private long token;
+    private List<XmlChannel> channels = new ArrayList<>();
+    private List<XmlTag> tags = new ArrayList<>();
+    private List<XmlProperty> properties = new ArrayList<>();
+    private List<XmlTombstone> tombstones = new ArrayList<>();
+
+    /**
+     * Creates a new instance of XmlChanges.
+     *
+     */
+    public XmlChanges() {
+    }
+
+    /**
+     * Creates a new instance of XmlChanges.
+     *
+     * @param token - the change feed token to resume from
+     */
+    public XmlChanges(long token) {
+        this.token = token;
+    }
+
+    public long getToken() {
+        return token;
+    }
+
+    public void setToken(long token) {
+        this.token = token;
+    }
+
+    public List<XmlChannel> getChannels() {
+        return channels;
+    }
+
+    public void setChannels(List<XmlChannel> channels) {
+        this.channels = channels;
+    }
+
+    public List<XmlTag> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<XmlTag> tags) {
+        this.tags = tags;
+    }
+
+    public List<XmlProperty> getProperties() {
+        return properties;
+    }
+
+    public void setProperties(List<XmlProperty> properties) {
+        this.properties = properties;
+    }
+
+    public List<XmlTombstone> getTombstones() {
+        return tombstones;
+    }
+
+    public void setTombstones(List<XmlTombstone> tombstones) {
+        this.tombstones = tombstones;
+    }
+}
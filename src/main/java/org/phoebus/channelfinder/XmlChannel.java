@@ -12,11 +12,14 @@ package org.phoebus.channelfinder;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlType;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
 /**
  * Channel object that can be represented as XML/JSON in payload data.
  *
@@ -24,12 +27,15 @@ import javax.xml.bind.annotation.XmlType;
  */
 
 @XmlRootElement(name="channel")
-@XmlType (propOrder={"name","owner","properties","tags"})
+@XmlType (propOrder={"name","owner","properties","tags","lastModified"})
 public class XmlChannel {
     private String name;
+    @JsonDeserialize(using = StringInterner.Deserializer.class)
     private String owner;
-    private List<XmlProperty> properties = new ArrayList<>();
-    private List<XmlTag> tags = new ArrayList<>();
+    private NameKeyedList<XmlProperty> properties = new NameKeyedList<>(XmlProperty::getName, null);
+    private NameKeyedList<XmlTag> tags = new NameKeyedList<>(XmlTag::getName, null);
+    @JsonInclude(Include.NON_NULL)
+    private Long lastModified;
 
     /** Creates a new instance of XmlChannel */
     public XmlChannel() {
@@ -65,8 +71,8 @@ public class XmlChannel {
     public XmlChannel(String name, String owner, List<XmlProperty> properties, List<XmlTag> tags) {
         this.name = name;
         this.owner = owner;
-        this.properties = properties;
-        this.tags = tags;
+        setProperties(properties);
+        setTags(tags);
     }
 
     /**
@@ -105,33 +111,84 @@ public class XmlChannel {
         this.owner = owner;
     }
 
+    /**
+     * Getter for the channel properties, keyed by their names: adding a property
+     * replaces the property of the same name.
+     *
+     * @return properties - channel properties
+     */
     public List<XmlProperty> getProperties() {
         return properties;
     }
 
+    /**
+     * Setter for the channel properties, the last of the properties of the same
+     * name is kept.
+     *
+     * @param properties - channel properties, copied
+     */
     public void setProperties(List<XmlProperty> properties) {
-        this.properties = properties;
+        this.properties = new NameKeyedList<>(XmlProperty::getName, properties);
     }
 
+    /**
+     * Getter for the channel tags, keyed by their names: adding a tag replaces
+     * the tag of the same name.
+     *
+     * @return tags - channel tags
+     */
     public List<XmlTag> getTags() {
         return tags;
     }
 
+    /**
+     * Setter for the channel tags, the last of the tags of the same name is
+     * kept.
+     *
+     * @param tags - channel tags, copied
+     */
     public void setTags(List<XmlTag> tags) {
-        this.tags = tags;
+        this.tags = new NameKeyedList<>(XmlTag::getName, tags);
+    }
+
+    /**
+     * @return the names of the properties and tags given several times to
+     *         {@link #setProperties(List)} and {@link #setTags(List)}, of which
+     *         only the last is kept
+     */
+    List<String> duplicateNames() {
+        if (properties.getDuplicates().isEmpty()) {
+            return tags.getDuplicates();
+        }
+        List<String> names = new ArrayList<>(properties.getDuplicates());
+        names.addAll(tags.getDuplicates());
+        return names;
+    }
+
+    /**
+     * Getter for the modification stamp assigned by the service when the channel was last written.
+     *
+     * @return lastModified - change feed token of the last write, null if never stamped
+     */
+    public Long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Setter for the modification stamp.
+     *
+     * @param lastModified - change feed token of the last write
+     */
+    public void setLastModified(Long lastModified) {
+        this.lastModified = lastModified;
     }
 
     /**
      * Add the given tag to the list of tags associated with this channel
-     * If the tag already exists then it is replaced with <code>tag</code>
+     * If the tag already exists then it is replaced with <code>tag</code>, in its position
      * @param tag the tag to be added to the channel
      */
     public void addTag(XmlTag tag) {
-        // If the tag already exists, then filter it out
-        this.tags = this.tags.stream().filter(t ->
-            !t.getName().equals(tag.getName())
-        ).collect(Collectors.toList());
-        // add the updated version of the tag
         this.tags.add(tag);
     }
 
@@ -140,9 +197,7 @@ public class XmlChannel {
      * @param tag the tag to be removed from channel
      */
     public void removeTag(XmlTag tag) {
-        this.tags = this.tags.stream().filter(t ->
-            !t.getName().equals(tag.getName())
-        ).collect(Collectors.toList());
+        this.tags.removeName(tag.getName());
     }
 
     /**
@@ -155,15 +210,10 @@ public class XmlChannel {
 
     /**
      * Add the given property to the list of properties associated with this channel
-     * If the property already exists then it is replaced with the provided one
+     * If the property already exists then it is replaced with the provided one, in its position
      * @param property the property to be added to the channel
      */
     public void addProperty(XmlProperty property) {
-        // If the property already exists, then filter it out
-        this.properties = this.properties.stream().filter(p ->
-            !p.getName().equals(property.getName())
-        ).collect(Collectors.toList());
-        // add the updated version of the property
         this.properties.add(property);
     }
 
@@ -172,9 +222,7 @@ public class XmlChannel {
      * @param property the property to be removed from the channel
      */
     public void removeProperty(XmlProperty property) {
-        this.properties = this.properties.stream().filter(p ->
-            !p.getName().equals(property.getName())
-        ).collect(Collectors.toList());
+        this.properties.removeName(property.getName());
     }
 
     /**
@@ -17,6 +17,9 @@ import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlType;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 /**
  * Property object that can be represented as JSON in payload data.
@@ -24,12 +27,17 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
  * @author Ralph Lange {@literal <ralph.lange@gmx.de>}
  */
 @XmlRootElement(name="property")
-@XmlType (propOrder={"name","owner","value","channels"})
+@XmlType (propOrder={"name","owner","value","channels","lastModified"})
 public class XmlProperty {
+    @JsonDeserialize(using = StringInterner.Deserializer.class)
     private String name = null;
+    @JsonDeserialize(using = StringInterner.Deserializer.class)
     private String owner = null;
+    @JsonDeserialize(using = StringInterner.Deserializer.class)
     private String value = null;
     private List<XmlChannel> channels = new ArrayList<>();
+    @JsonInclude(Include.NON_NULL)
+    private Long lastModified;
 
     /**
      * Creates a new instance of XmlProperty.
@@ -133,6 +141,24 @@ public class XmlProperty {
         this.channels = channels;
     }
 
+    /**
+     * Getter for the modification stamp assigned by the service when the property was last written.
+     *
+     * @return change feed token of the last write, null if never stamped
+     */
+    public Long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Setter for the modification stamp.
+     *
+     * @param lastModified change feed token of the last write
+     */
+    public void setLastModified(Long lastModified) {
+        this.lastModified = lastModified;
+    }
+
     /**
      * Creates a compact string representation for the log.
      *
@@ -151,7 +177,7 @@ public class XmlProperty {
     public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + ((channels == null) ? 0 : channels.hashCode());
+        // the channels are compared by equals, hashing them would walk every channel of the property
         result = prime * result + ((name == null) ? 0 : name.hashCode());
         result = prime * result + ((owner == null) ? 0 : owner.hashCode());
         result = prime * result + ((value == null) ? 0 : value.hashCode());
@@ -167,11 +193,6 @@ public class XmlProperty {
         if (getClass() != obj.getClass())
             return false;
         XmlProperty other = (XmlProperty) obj;
-        if (channels == null) {
-            if (other.channels != null)
-                return false;
-        } else if (!channels.equals(other.channels))
-            return false;
         if (name == null) {
             if (other.name != null)
                 return false;
@@ -187,6 +208,11 @@ public class XmlProperty {
                 return false;
         } else if (!value.equals(other.value))
             return false;
+        if (channels == null) {
+            if (other.channels != null)
+                return false;
+        } else if (!channels.equals(other.channels))
+            return false;
         return true;
     }
 
@@ -202,6 +228,19 @@ public class XmlProperty {
         private List<XmlChannel> channels;
     }
 
+    /**
+     * A filter to be used with the jackson mapper to ignore the embedded
+     * xmlchannels and the modification stamp when the property is stored inside a
+     * channel document
+     *
+     */
+    public abstract class EmbeddedXmlProperty {
+        @JsonIgnore
+        private List<XmlChannel> channels;
+        @JsonIgnore
+        private Long lastModified;
+    }
+
     /**
      * A filter to be used with the jackson mapper to ignore the embedded
      * xmlchannels and value in the property object
@@ -209,7 +248,7 @@ public class XmlProperty {
      * @author Kunal Shroff
      *
      */
-    abstract class OnlyNameOwnerXmlProperty {
+    public abstract class OnlyNameOwnerXmlProperty {
         @JsonIgnore
         private String value;
         @JsonIgnore
@@ -18,6 +18,9 @@ import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlType;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 /**
  * Tag object that can be represented as XML/JSON in payload data.
@@ -25,11 +28,15 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
  * @author Ralph Lange {@literal <ralph.lange@gmx.de>}
  */
 @XmlRootElement(name="tag")
-@XmlType (propOrder={"name","owner","channels"})
+@XmlType (propOrder={"name","owner","channels","lastModified"})
 public class XmlTag {
+    @JsonDeserialize(using = StringInterner.Deserializer.class)
     private String name = null;
+    @JsonDeserialize(using = StringInterner.Deserializer.class)
     private String owner = null;
     private List<XmlChannel> channels = new ArrayList<>();
+    @JsonInclude(Include.NON_NULL)
+    private Long lastModified;
 
     /**
      * Creates a new instance of XmlTag.
@@ -112,6 +119,24 @@ public class XmlTag {
         this.channels = channels;
     }
 
+    /**
+     * Getter for the modification stamp assigned by the service when the tag was last written.
+     *
+     * @return change feed token of the last write, null if never stamped
+     */
+    public Long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Setter for the modification stamp.
+     *
+     * @param lastModified change feed token of the last write
+     */
+    public void setLastModified(Long lastModified) {
+        this.lastModified = lastModified;
+    }
+
     /**
      * Creates a compact string representation for the log.
      *
@@ -130,7 +155,7 @@ public class XmlTag {
     public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + ((channels == null) ? 0 : channels.hashCode());
+        // the channels are compared by equals, hashing them would walk every channel of the tag
         result = prime * result + ((name == null) ? 0 : name.hashCode());
         result = prime * result + ((owner == null) ? 0 : owner.hashCode());
         return result;
@@ -145,11 +170,6 @@ public class XmlTag {
         if (getClass() != obj.getClass())
             return false;
         XmlTag other = (XmlTag) obj;
-        if (channels == null) {
-            if (other.channels != null)
-                return false;
-        } else if (!channels.equals(other.channels))
-            return false;
         if (name == null) {
             if (other.name != null)
                 return false;
@@ -160,6 +180,11 @@ public class XmlTag {
                 return false;
         } else if (!owner.equals(other.owner))
             return false;
+        if (channels == null) {
+            if (other.channels != null)
+                return false;
+        } else if (!channels.equals(other.channels))
+            return false;
         return true;
     }
 
@@ -170,9 +195,22 @@ public class XmlTag {
      * @author Kunal Shroff
      *
      */
-    abstract class OnlyXmlTag {
+    public abstract class OnlyXmlTag {
+        @JsonIgnore
+        private List<XmlChannel> channels;
+    }
+
+    /**
+     * A filter to be used with the jackson mapper to ignore the embedded
+     * xmlchannels and the modification stamp when the tag is stored inside a
+     * channel document
+     *
+     */
+    public abstract class EmbeddedXmlTag {
         @JsonIgnore
         private List<XmlChannel> channels;
+        @JsonIgnore
+        private Long lastModified;
     }
 
 }
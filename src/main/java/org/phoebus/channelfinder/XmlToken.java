@@ -0,0 +1,63 @@
+package org.phoebus.channelfinder;
+
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+
+/**
+ * An authentication token issued to a user, to be sent as a bearer token with
+ * the following requests.
+ */
+@XmlRootElement(name="token")
+@XmlType (propOrder={"token","expires","roles"})
+public class XmlToken {
+
+    private String token;
+    private long expires;
+    private List<String> roles;
+
+    /**
+     * Creates a new instance of XmlToken.
+     *
+     */
+    public XmlToken() {
+    }
+
+    /**
+     * Creates a new instance of XmlToken.
+     *
+     * @param token - the signed token
+     * @param expires - the expiry time of the token, in seconds since the epoch
+     * @param roles - the roles of the user carried by the token
+     */
+    public XmlToken(String token, long expires, List<String> roles) {
+        this.token = token;
+        this.expires = expires;
+        this.roles = roles;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public long getExpires() {
+        return expires;
+    }
+
+    public void setExpires(long expires) {
+        this.expires = expires;
+    }
+
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    public void setRoles(List<String> roles) {
+        this.roles = roles;
+    }
+}
@@ -0,0 +1,79 @@
+package org.phoebus.channelfinder;
+
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+
+/**
+ * A record of a deleted channel, tag or property which is kept so that the
+ * change feed can report deletions to incremental consumers.
+ */
+@XmlRootElement(name="tombstone")
+@XmlType (propOrder={"type","name","lastModified"})
+public class XmlTombstone {
+
+    public static final String CHANNEL = "channel";
+    public static final String TAG = "tag";
+    public static final String PROPERTY = "property";
+
+    private String type;
+    private String name;
+    private Long lastModified;
+
+    /**
+     * Creates a new instance of XmlTombstone.
+     *
+     */
+    public XmlTombstone() {
+    }
+
+    /**
+     * Creates a new instance of XmlTombstone.
+     *
+     * @param type - type of the deleted entity, one of channel, tag or property
+     * @param name - name of the deleted entity
+     * @param lastModified - change feed token of the deletion
+     */
+    public XmlTombstone(String type, String name, Long lastModified) {
+        this.type = type;
+        this.name = name;
+        this.lastModified = lastModified;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Long getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * The document id of the tombstone, a later deletion of the same entity replaces the earlier one
+     *
+     * @return tombstone id
+     */
+    public String id() {
+        return type + ":" + name;
+    }
+
+    @Override
+    public String toString() {
+        return type + ":" + name + "@" + lastModified;
+    }
+}
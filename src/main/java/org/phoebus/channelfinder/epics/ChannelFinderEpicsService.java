@@ -1,41 +1,59 @@
 package org.phoebus.channelfinder.epics;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
-import org.epics.nt.NTTable;
-import org.epics.nt.NTTableBuilder;
+import org.epics.nt.NTScalar;
 import org.epics.nt.NTURI;
 import org.epics.pvaccess.PVAException;
+import org.epics.pvaccess.client.ChannelProvider;
+import org.epics.pvaccess.client.ChannelProviderRegistry;
+import org.epics.pvaccess.server.impl.remote.ServerContextImpl;
+import org.epics.pvaccess.server.impl.remote.plugins.DefaultBeaconServerDataProvider;
+import org.epics.pvaccess.server.rpc.impl.RPCChannelProvider;
 import org.epics.pvaccess.server.rpc.RPCResponseCallback;
-import org.epics.pvaccess.server.rpc.RPCServer;
 import org.epics.pvaccess.server.rpc.RPCServiceAsync;
 import org.epics.pvdata.factory.StatusFactory;
-import org.epics.pvdata.pv.PVBooleanArray;
+import org.epics.pvdata.pv.Status;
+import org.epics.pvdata.pv.Status.StatusType;
+import org.epics.pvdata.pv.PVLong;
 import org.epics.pvdata.pv.PVString;
 import org.epics.pvdata.pv.PVStringArray;
+import org.epics.pvdata.pv.StringArrayData;
 import org.epics.pvdata.pv.PVStructure;
 import org.epics.pvdata.pv.ScalarType;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import org.phoebus.channelfinder.ChannelRepository;
-import org.phoebus.channelfinder.XmlChannel;
+import org.phoebus.channelfinder.ChannelSubscriptions;
+import org.phoebus.channelfinder.jfr.EpicsRpcEvent;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
 
 /**
  * A pva RPC service for channelfinder
@@ -44,10 +62,48 @@ import org.springframework.util.MultiValueMap;
  * 
  * The client requests a query as a NTURI pvStructure.
  * 
+ * The query arguments are the same as for the channel query with _name, _tag,
+ * _size and _from in place of ~name, ~tag, ~size and ~from. In addition
+ * _columns and _exclude take a comma separated list of property and tag names
+ * to be included in, or excluded from, the result table.
+ * 
+ * Large results are returned in pages of at most _size channels, limited by
+ * epics.rpc.page.size. The result table carries a <code>next</code>
+ * continuation token, to be passed as the _after argument of the request for
+ * the next page, which is empty once the last page has been returned.
+ * 
  * Result:
  * 
  * The service returns the result as an NTTable pvStructure.
  * 
+ * Multiple queries:
+ * 
+ * The cfService:multiquery service takes a <code>queries</code> string array
+ * of URL encoded queries, e.g. _tag=archive&amp;cell=1 , all run with a single
+ * elastic multi search. The result has a <code>results</code> variant union
+ * array holding the NTTable of each query, in the order of the queries.
+ * 
+ * Counts and facets:
+ * 
+ * The cfService:count service takes the same query and returns the number of
+ * matching channels as an NTScalar. The cfService:facets service takes the
+ * same query with a _facets argument, a comma separated list of property
+ * names or _tag for the tag names, and returns an NTTable with a facet, value
+ * and count column holding the most common values of each facet, at most
+ * _size per facet, with their number of matching channels.
+ * 
+ * Execution:
+ * 
+ * Requests are handed off the pvAccess server thread to a bounded pool of
+ * handler threads (or virtual threads), so that a slow query does not block
+ * the other clients. Requests beyond the queue limit are rejected and requests
+ * not completed within the timeout are answered with an error.
+ * 
+ * Standing queries:
+ * 
+ * The same queries can be monitored through the cfService:watch channels, e.g.
+ * cfService:watch?_tag=archive&amp;_columns=cell , see {@link ChannelWatchProvider}.
+ * 
  * @author Kunal Shroff
  *
  */
@@ -57,14 +113,41 @@ public class ChannelFinderEpicsService {
 
     private static Logger log = Logger.getLogger(ChannelFinderEpicsService.class.getCanonicalName());
 
-    private final ExecutorService pool = Executors.newScheduledThreadPool(1);
+    /** runs the blocking pvAccess server loop */
+    private final ExecutorService serverPool = Executors.newSingleThreadExecutor();
     
     public static final String SERVICE_DESC = "cfService:query";
+    public static final String MULTI_QUERY_DESC = "cfService:multiquery";
+    public static final String COUNT_DESC = "cfService:count";
+    public static final String FACETS_DESC = "cfService:facets";
+
+    @Value("${epics.rpc.threads:16}")
+    private int threads;
+    @Value("${epics.rpc.queue.size:1000}")
+    private int queueSize;
+    @Value("${epics.rpc.virtual.threads:false}")
+    private boolean virtualThreads;
+    @Value("${epics.rpc.timeout:30000}")
+    private long timeout;
+    @Value("${epics.rpc.page.size:10000}")
+    private int pageSize;
+    @Value("${epics.rpc.multi.max:100}")
+    private int maxQueries;
+    @Value("${epics.monitor.interval:1000}")
+    private long monitorInterval;
+    @Value("${epics.monitor.max:100}")
+    private int monitorMax;
+    @Value("${epics.monitor.threads:2}")
+    private int monitorThreads;
 
     @Autowired
     ChannelRepository repository;
+    @Autowired
+    ChannelSubscriptions channelSubscriptions;
 
-    RPCServer server;
+    ServerContextImpl server;
+    private RPCChannelProvider rpcProvider;
+    private ChannelWatchProvider watchProvider;
 
     private ChannelFinderServiceImpl service;
 
@@ -72,15 +155,46 @@ public class ChannelFinderEpicsService {
     public void init() {
 
         log.info("Launching the epics rpc channelfinder service: " + SERVICE_DESC);
-        server = new RPCServer();
-
         log.info(SERVICE_DESC + " initializing...");
-        service = new ChannelFinderServiceImpl(repository);
-        server.registerService(SERVICE_DESC, service);
+        service = new ChannelFinderServiceImpl(repository, threads, queueSize, virtualThreads, timeout, pageSize, maxQueries);
+        // the services hand the requests off to their own pool
+        rpcProvider = new RPCChannelProvider(null);
+        rpcProvider.registerService(SERVICE_DESC, service.query());
+        rpcProvider.registerService(MULTI_QUERY_DESC, service.multiQuery());
+        rpcProvider.registerService(COUNT_DESC, service.count());
+        rpcProvider.registerService(FACETS_DESC, service.facets());
+        watchProvider = new ChannelWatchProvider(repository, channelSubscriptions,
+                pageSize, monitorInterval, monitorMax, monitorThreads);
+
+        // a single pva server for the rpc service and the standing query channels
+        server = new ServerContextImpl();
+        server.setBeaconServerStatusProvider(new DefaultBeaconServerDataProvider(server));
+        server.setChannelProviderNames("<all>");
+        try {
+            server.initialize(new ChannelProviderRegistry() {
+                @Override
+                public ChannelProvider getProvider(String providerName) {
+                    return RPCChannelProvider.PROVIDER_NAME.equals(providerName) ? rpcProvider
+                            : ChannelWatchProvider.PROVIDER_NAME.equals(providerName) ? watchProvider : null;
+                }
+
+                @Override
+                public ChannelProvider createProvider(String providerName) {
+                    return getProvider(providerName);
+                }
+
+                @Override
+                public String[] getProviderNames() {
+                    return new String[] { RPCChannelProvider.PROVIDER_NAME, ChannelWatchProvider.PROVIDER_NAME };
+                }
+            });
+        } catch (PVAException e) {
+            throw new IllegalStateException("Failed to initialize the epics channelfinder service", e);
+        }
         server.printInfo();
         log.info(SERVICE_DESC + " is operational.");
 
-        pool.submit(() -> {
+        serverPool.submit(() -> {
             try {
                 server.run(0);
             } catch (PVAException e) {
@@ -96,145 +210,278 @@ public class ChannelFinderEpicsService {
         try {
             service.shutdown();
             server.destroy();
+            rpcProvider.destroy();
+            watchProvider.destroy();
+            serverPool.shutdownNow();
             log.info(SERVICE_DESC + " Shutdown complete.");
         } catch (PVAException e) {
             log.log(Level.SEVERE, "Failed to close service : " + SERVICE_DESC, e);
         }
     }
 
-    private static class ChannelFinderServiceImpl implements RPCServiceAsync {
+    private static class ChannelFinderServiceImpl {
+
+        private final ChannelRepository repository;
 
+        private static final String FACETS = "_facets";
+        private static final String TAG = "_tag";
 
-        private ChannelRepository repository;
+        private final ExecutorService pool;
+        /** bounds the requests accepted but not yet completed, the pool queue is unbounded for virtual threads */
+        private final Semaphore pending;
+        private final AtomicInteger running = new AtomicInteger();
+        private final long timeout;
+        private final int pageSize;
+        private final int maxQueries;
+        private final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, named("cf-epics-rpc-timeout"));
 
-        public ChannelFinderServiceImpl(ChannelRepository repository) {
+        private final Timer queueTimer = Timer.builder("cf.epics.rpc.queue")
+                .description("Time requests wait for a handler thread")
+                .register(Metrics.globalRegistry);
+
+        public ChannelFinderServiceImpl(ChannelRepository repository, int threads, int queueSize, boolean virtualThreads,
+                                        long timeout, int pageSize, int maxQueries) {
             this.repository = repository;
-            log.info("start");
+            this.timeout = timeout;
+            this.pageSize = pageSize;
+            this.maxQueries = maxQueries;
+            timer.setRemoveOnCancelPolicy(true);
+            ExecutorService virtualPool = virtualThreads ? newVirtualThreadPerTaskExecutor() : null;
+            if (virtualPool != null) {
+                pool = virtualPool;
+                pending = new Semaphore(queueSize);
+                log.info("start, using virtual threads, queue size " + queueSize);
+            } else {
+                pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(queueSize), named("cf-epics-rpc"));
+                pending = new Semaphore(threads + queueSize);
+                log.info("start, using " + threads + " threads, queue size " + queueSize);
+            }
+            Gauge.builder("cf.epics.rpc.queue.depth", this, s -> s.waiting())
+                    .description("Requests waiting for a handler thread")
+                    .register(Metrics.globalRegistry);
+            Gauge.builder("cf.epics.rpc.active", running, AtomicInteger::get)
+                    .description("Requests being handled")
+                    .register(Metrics.globalRegistry);
+        }
+
+        /**
+         * @return the cfService:query service, the arguments are the query of an NTURI
+         */
+        RPCServiceAsync query() {
+            return (args, call) -> request(SERVICE_DESC, args, call,
+                    () -> ChannelQuery.of(arguments(args), pageSize).table(repository).getPVStructure());
+        }
+
+        /**
+         * @return the cfService:count service, the arguments are the query of an
+         *         NTURI, the result is an NTScalar with the number of matching channels
+         */
+        RPCServiceAsync count() {
+            return (args, call) -> request(COUNT_DESC, args, call, () -> {
+                long count = repository.count(ChannelQuery.of(arguments(args), pageSize).getSearchParameters());
+                NTScalar result = NTScalar.createBuilder().value(ScalarType.pvLong).create();
+                result.getValue(PVLong.class).put(count);
+                return result.getPVStructure();
+            });
         }
 
-        private final ExecutorService pool = Executors.newScheduledThreadPool(50);
+        /**
+         * @return the cfService:facets service, the arguments are the query of an
+         *         NTURI with a _facets argument listing the property names, or
+         *         _tag for the tag names, the result is an NTTable of the values
+         *         of each facet with their number of channels
+         */
+        RPCServiceAsync facets() {
+            return (args, call) -> request(FACETS_DESC, args, call, () -> {
+                Map<String, String> arguments = arguments(args);
+                String facetNames = arguments.remove(FACETS);
+                if (facetNames == null || facetNames.isBlank()) {
+                    throw new IllegalArgumentException("Missing the " + FACETS + " argument");
+                }
+                List<String> facets = Arrays.stream(facetNames.split("[\\|,;]"))
+                        .map(String::trim)
+                        .filter(name -> !name.isEmpty())
+                        .map(name -> name.equals(TAG) ? ChannelRepository.TAG_FACET : name)
+                        .collect(Collectors.toList());
+                ChannelQuery query = ChannelQuery.of(arguments, pageSize);
+                Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+                repository.facets(query.getSearchParameters(), facets, query.getSize()).forEach((facet, values) ->
+                        result.put(facet.equals(ChannelRepository.TAG_FACET) ? TAG : facet, values));
+                return ChannelTable.facets(result).getPVStructure();
+            });
+        }
+
+        private static Map<String, String> arguments(PVStructure args) {
+            Map<String, String> arguments = new LinkedHashMap<>();
+            NTURI uri = NTURI.wrap(args);
+            for (String parameter : uri.getQueryNames()) {
+                arguments.put(parameter, uri.getQueryField(PVString.class, parameter).get());
+            }
+            return arguments;
+        }
 
-        @Override
-        public void request(PVStructure args, RPCResponseCallback call) {
-            log.fine(args.toString());
-            HandlerQuery query = new HandlerQuery(args, call, repository);
-            query.run();
+        /**
+         * @return the cfService:multiquery service, the arguments are a string
+         *         array of URL encoded queries, the <code>queries</code> field of the
+         *         query of an NTURI or of the request structure
+         */
+        RPCServiceAsync multiQuery() {
+            return (args, call) -> request(MULTI_QUERY_DESC, args, call, () -> {
+                PVStringArray array = args.getSubField(PVStringArray.class, "query.queries");
+                if (array == null) {
+                    array = args.getSubField(PVStringArray.class, "queries");
+                }
+                if (array == null) {
+                    throw new IllegalArgumentException("Missing the queries string array");
+                }
+                StringArrayData data = new StringArrayData();
+                int length = array.get(0, array.getLength(), data);
+                if (length > maxQueries) {
+                    throw new IllegalArgumentException("Too many queries, the maximum is " + maxQueries);
+                }
+                List<ChannelQuery> queries = new ArrayList<>(length);
+                for (int i = 0; i < length; i++) {
+                    queries.add(ChannelQuery.parse(data.data[i], pageSize));
+                }
+                return ChannelTable.results(ChannelQuery.tables(queries, repository));
+            });
+        }
+
+        private void request(String service, PVStructure args, RPCResponseCallback call, Supplier<PVStructure> handler) {
+            log.fine(args::toString);
+            if (!pending.tryAcquire()) {
+                reject(service, call);
+                return;
+            }
+            HandlerQuery query = new HandlerQuery(service, args, call, handler);
+            long queued = System.nanoTime();
+            try {
+                pool.execute(() -> {
+                    queueTimer.record(System.nanoTime() - queued, TimeUnit.NANOSECONDS);
+                    running.incrementAndGet();
+                    try {
+                        // skip the queries which timed out while waiting for a thread
+                        if (!query.isReplied()) {
+                            query.run();
+                        }
+                    } catch (Exception e) {
+                        log.log(Level.SEVERE, "Failed to handle query " + args, e);
+                        query.reply(StatusFactory.getStatusCreate().createStatus(StatusType.ERROR,
+                                "Failed to handle query: " + e.getMessage(), e), null, "error");
+                    } finally {
+                        running.decrementAndGet();
+                        pending.release();
+                    }
+                });
+                if (timeout > 0) {
+                    // the elastic query cannot be aborted, its result is discarded if it completes after the timeout
+                    query.timeoutTask = timer.schedule(() -> query.reply(StatusFactory.getStatusCreate().createStatus(StatusType.ERROR,
+                            "Query timed out after " + timeout + " ms", null), null, "timeout"),
+                            timeout, TimeUnit.MILLISECONDS);
+                    // the query may have been replied before its timeout was assigned
+                    if (query.isReplied()) {
+                        query.timeoutTask.cancel(false);
+                    }
+                }
+            } catch (RejectedExecutionException e) {
+                pending.release();
+                reject(service, call);
+            }
+        }
+
+        private void reject(String service, RPCResponseCallback call) {
+            log.warning(service + " is busy, rejecting request");
+            Metrics.counter("cf.epics.rpc.requests.rejected", "service", service).increment();
+            call.requestDone(StatusFactory.getStatusCreate().createStatus(StatusType.ERROR,
+                    service + " is busy, try again later", null), null);
+        }
+
+        private int waiting() {
+            return pool instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) pool).getQueue().size() : 0;
+        }
+
+        /**
+         * @return an executor starting a virtual thread per task, null if not supported by the running jvm
+         */
+        private static ExecutorService newVirtualThreadPerTaskExecutor() {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.warning("Virtual threads are not supported by this jvm, using a thread pool instead");
+                return null;
+            }
+        }
+
+        private static ThreadFactory named(String name) {
+            AtomicInteger count = new AtomicInteger();
+            return runnable -> {
+                Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
         }
 
         private static class HandlerQuery implements Runnable {
 
-            private final RPCResponseCallback callback;
+            private final String service;
             private final PVStructure args;
-            private final ChannelRepository channelRepository;
-
-            public HandlerQuery(PVStructure args, RPCResponseCallback callback, ChannelRepository channelRepository) {
-                this.callback = callback;
+            private final RPCResponseCallback callback;
+            private final Supplier<PVStructure> handler;
+            private final long start = System.nanoTime();
+            private final EpicsRpcEvent event = new EpicsRpcEvent();
+            private final AtomicBoolean replied = new AtomicBoolean();
+            private volatile ScheduledFuture<?> timeoutTask;
+
+            public HandlerQuery(String service, PVStructure args, RPCResponseCallback callback, Supplier<PVStructure> handler) {
+                this.service = service;
                 this.args = args;
-                this.channelRepository = channelRepository;
+                this.callback = callback;
+                this.handler = handler;
+                event.begin();
             }
 
-            @Override
-            public void run() {
+            boolean isReplied() {
+                return replied.get();
+            }
 
-                final Set<String> filteredColumns = Collections.emptySet();
-
-                MultiValueMap<String, String> searchParameters = new LinkedMultiValueMap<>();
-                NTURI uri = NTURI.wrap(args);
-                String[] query = uri.getQueryNames();
-                for (String parameter : query) {
-                    String value = uri.getQueryField(PVString.class, parameter).get();
-                    if (value != null && !value.isEmpty()) {
-                        switch (parameter) {
-                        case "_name":
-                            searchParameters.put("~name", Arrays.asList(value));
-                            break;
-                        case "_tag":
-                            searchParameters.put("~tag", Arrays.asList(value));
-                            break;
-                        case "_size":
-                            searchParameters.put("~size", Arrays.asList(value));
-                            break;
-                        case "_from":
-                            searchParameters.put("~from", Arrays.asList(value));
-                            break;
-                        default:
-                            searchParameters.put(parameter, Arrays.asList(value));
-                            break;
-                        }
+            /**
+             * Send the response, only the first of the result, an error or the timeout is sent
+             *
+             * @return true if this response was sent
+             */
+            boolean reply(Status status, PVStructure result, String outcome) {
+                if (replied.compareAndSet(false, true)) {
+                    ScheduledFuture<?> task = timeoutTask;
+                    if (task != null) {
+                        task.cancel(false);
                     }
+                    Metrics.timer("cf.epics.rpc.requests", "outcome", outcome)
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.service = service;
+                        event.arguments = args.toString();
+                        event.outcome = outcome;
+                        event.commit();
+                    }
+                    callback.requestDone(status, result);
+                    return true;
                 }
+                return false;
+            }
 
-                List<XmlChannel> result = channelRepository.search(searchParameters);
-
-                final Map<String, List<String>> channelTable = new HashMap<>();
-                final Map<String, List<String>> channelPropertyTable = new HashMap<>();
-                final Map<String, boolean[]> channelTagTable = new HashMap<>();
-                channelTable.put("channelName", Arrays.asList(new String[result.size()]));
-                channelTable.put("owner", Arrays.asList(new String[result.size()]));
-
-                AtomicInteger counter = new AtomicInteger(0);
-
-                result.forEach(ch -> {
-
-                    int index = counter.getAndIncrement();
-
-                    channelTable.get("channelName").set(index, ch.getName());
-                    channelTable.get("owner").set(index, ch.getOwner());
-
-                    if (!filteredColumns.contains("ALL")) {
-                        ch.getTags().stream().filter(tag ->
-                            filteredColumns.isEmpty() || filteredColumns.contains(tag.getName())
-                        ).forEach(t -> {
-                            if (!channelTagTable.containsKey(t.getName())) {
-                                channelTagTable.put(t.getName(), new boolean[result.size()]);
-                            }
-                            channelTagTable.get(t.getName())[index] = true;
-                        });
-
-                        ch.getProperties().stream().filter(prop ->
-                            filteredColumns.isEmpty() || filteredColumns.contains(prop.getName())
-                        ).forEach(prop -> {
-                            if (!channelPropertyTable.containsKey(prop.getName())) {
-                                channelPropertyTable.put(prop.getName(), Arrays.asList(new String[result.size()]));
-                            }
-                            channelPropertyTable.get(prop.getName()).set(index, prop.getValue());
-                        });
-                    }
-                });
-                NTTableBuilder ntTableBuilder = NTTable.createBuilder();
-                channelTable.keySet().forEach(name ->
-                    ntTableBuilder.addColumn(name, ScalarType.pvString)
-                );
-                channelPropertyTable.keySet().forEach(name ->
-                    ntTableBuilder.addColumn(name, ScalarType.pvString)
-                );
-                channelTagTable.keySet().forEach(name ->
-                    ntTableBuilder.addColumn(name, ScalarType.pvBoolean)
-                );
-                NTTable ntTable = ntTableBuilder.create();
-
-                channelTable.entrySet().stream().forEach(col ->
-                    ntTable.getColumn(PVStringArray.class, col.getKey()).put(0, col.getValue().size(),
-                            col.getValue().stream().toArray(String[]::new), 0)
-                );
-
-                channelPropertyTable.entrySet().stream().forEach(col ->
-                    ntTable.getColumn(PVStringArray.class, col.getKey()).put(0, col.getValue().size(),
-                            col.getValue().stream().toArray(String[]::new), 0)
-                );
-
-                channelTagTable.entrySet().stream().forEach(col ->
-                    ntTable.getColumn(PVBooleanArray.class, col.getKey()).put(0, col.getValue().length,
-                            col.getValue(), 0)
-                );
-
-                log.fine(ntTable.toString());
-                this.callback.requestDone(StatusFactory.getStatusCreate().getStatusOK(), ntTable.getPVStructure());
+            @Override
+            public void run() {
+                PVStructure result = handler.get();
+                log.fine(result::toString);
+                reply(StatusFactory.getStatusCreate().getStatusOK(), result, "ok");
             }
         }
     
         public void shutdown() {
             log.info("shutting down service.");
+            timer.shutdownNow();
             pool.shutdown();
             // Disable new tasks from being submitted
             try {
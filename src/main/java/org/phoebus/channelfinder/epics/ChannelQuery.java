@@ -0,0 +1,206 @@
+package org.phoebus.channelfinder.epics;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.epics.nt.NTTable;
+import org.phoebus.channelfinder.ChannelRepository;
+import org.phoebus.channelfinder.XmlChannel;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * A channel query of the epics services, built from the query arguments of a
+ * request.
+ * <p>
+ * The arguments are the same as for the channel query with _name, _tag, _size
+ * and _from in place of ~name, ~tag, ~size and ~from, along with _after for
+ * paging and _columns and _exclude selecting the columns of the result table.
+ */
+class ChannelQuery {
+
+    /** the channel fields needed to build the table, the owners of the tags and properties are never returned */
+    private static final List<String> SOURCE_INCLUDES = List.of("name", "owner", "tags.name", "properties.name", "properties.value");
+
+    private final MultiValueMap<String, String> searchParameters;
+    private final Predicate<String> columns;
+    private final int size;
+
+    private ChannelQuery(MultiValueMap<String, String> searchParameters, Predicate<String> columns, int size) {
+        this.searchParameters = searchParameters;
+        this.columns = columns;
+        this.size = size;
+    }
+
+    /**
+     * Create the query for the given arguments
+     *
+     * @param arguments - the query arguments, empty values are ignored
+     * @param pageSize - the maximum number of channels returned by the query
+     * @return the query
+     */
+    static ChannelQuery of(Map<String, String> arguments, int pageSize) {
+        MultiValueMap<String, String> searchParameters = new LinkedMultiValueMap<>();
+        Set<String> columns = Collections.emptySet();
+        Set<String> excludedColumns = Collections.emptySet();
+        int size = pageSize;
+        boolean after = false;
+
+        for (Map.Entry<String, String> argument : arguments.entrySet()) {
+            String value = argument.getValue();
+            if (value != null && !value.isEmpty()) {
+                switch (argument.getKey()) {
+                case "_name":
+                    searchParameters.put("~name", Arrays.asList(value));
+                    break;
+                case "_tag":
+                    searchParameters.put("~tag", Arrays.asList(value));
+                    break;
+                case "_size":
+                    size = Math.min(Integer.parseInt(value.trim()), pageSize);
+                    break;
+                case "_after":
+                    searchParameters.put("~search_after", Arrays.asList(value));
+                    after = true;
+                    break;
+                case "_from":
+                    searchParameters.put("~from", Arrays.asList(value));
+                    break;
+                case "_columns":
+                    columns = parseColumns(value);
+                    break;
+                case "_exclude":
+                    excludedColumns = parseColumns(value);
+                    break;
+                default:
+                    searchParameters.put(argument.getKey(), Arrays.asList(value));
+                    break;
+                }
+            }
+        }
+
+        searchParameters.put("~size", Arrays.asList(String.valueOf(size)));
+        if (after) {
+            // the pages following the first one are only selected by the continuation token
+            searchParameters.remove("~from");
+        }
+
+        final Set<String> includes = columns;
+        final Set<String> excludes = excludedColumns;
+        return new ChannelQuery(searchParameters,
+                name -> (includes.isEmpty() || includes.contains(name)) && !excludes.contains(name),
+                size);
+    }
+
+    /**
+     * Create the query for the given URL encoded arguments, e.g.
+     * <code>_tag=archive&amp;_columns=cell</code>
+     *
+     * @param query - the URL encoded query arguments
+     * @param pageSize - the maximum number of channels returned by the query
+     * @return the query
+     */
+    static ChannelQuery parse(String query, int pageSize) {
+        Map<String, String> arguments = new LinkedHashMap<>();
+        for (String argument : query.split("&")) {
+            if (argument.isEmpty()) {
+                continue;
+            }
+            int separator = argument.indexOf('=');
+            String key = separator < 0 ? argument : argument.substring(0, separator);
+            String value = separator < 0 ? "" : argument.substring(separator + 1);
+            arguments.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return of(arguments, pageSize);
+    }
+
+    private static Set<String> parseColumns(String value) {
+        return Arrays.stream(value.split("[\\|,;]"))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * @return the channel search parameters of this query
+     */
+    MultiValueMap<String, String> getSearchParameters() {
+        return searchParameters;
+    }
+
+    /**
+     * @return the maximum number of channels returned by this query
+     */
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * @return selects the property and tag columns of the result table
+     */
+    Predicate<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Find the channels matching this query
+     *
+     * @param channelRepository - the repository to be searched
+     * @return the matching channels
+     */
+    List<XmlChannel> search(ChannelRepository channelRepository) {
+        return channelRepository.search(searchParameters, SOURCE_INCLUDES);
+    }
+
+    /**
+     * The continuation token of the result of this query
+     *
+     * @param result - the channels returned by this query
+     * @return the name of the last channel if the result may be followed by more channels, otherwise empty
+     */
+    String next(List<XmlChannel> result) {
+        // a full page may be followed by more channels, continue after the last one
+        return size > 0 && result.size() == size ? result.get(result.size() - 1).getName() : "";
+    }
+
+    /**
+     * Find the channels matching this query and build the result table
+     *
+     * @param channelRepository - the repository to be searched
+     * @return the result table
+     */
+    NTTable table(ChannelRepository channelRepository) {
+        List<XmlChannel> result = search(channelRepository);
+        return ChannelTable.create(result, columns, next(result));
+    }
+
+    /**
+     * Find the channels matching each of the given queries, with a single
+     * elastic multi search, and build their result tables
+     *
+     * @param queries - the queries
+     * @param channelRepository - the repository to be searched
+     * @return the result table of each query, in the order of the queries
+     */
+    static List<NTTable> tables(List<ChannelQuery> queries, ChannelRepository channelRepository) {
+        List<List<XmlChannel>> results = channelRepository.searchAll(
+                queries.stream().map(ChannelQuery::getSearchParameters).collect(Collectors.toList()),
+                SOURCE_INCLUDES);
+        List<NTTable> tables = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            ChannelQuery query = queries.get(i);
+            List<XmlChannel> result = results.get(i);
+            tables.add(ChannelTable.create(result, query.columns, query.next(result)));
+        }
+        return tables;
+    }
+}
@@ -0,0 +1,286 @@
+package org.phoebus.channelfinder.epics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
+
+import org.epics.nt.NTTable;
+import org.epics.nt.NTTableBuilder;
+import org.epics.pvdata.factory.FieldFactory;
+import org.epics.pvdata.factory.PVDataFactory;
+import org.epics.pvdata.pv.PVBooleanArray;
+import org.epics.pvdata.pv.PVLongArray;
+import org.epics.pvdata.pv.PVStringArray;
+import org.epics.pvdata.pv.PVStructure;
+import org.epics.pvdata.pv.PVUnion;
+import org.epics.pvdata.pv.ScalarType;
+import org.epics.pvdata.pv.Structure;
+import org.phoebus.channelfinder.XmlChannel;
+import org.phoebus.channelfinder.XmlProperty;
+import org.phoebus.channelfinder.XmlTag;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Builds the NTTable returned by the channelfinder rpc service.
+ * <p>
+ * The table has a channelName and an owner string column, a string column per
+ * property and a boolean column per tag. The columns are filled in a single
+ * pass over the channels directly into the arrays which are then shared with
+ * the table, and the table structures are cached by their column names since
+ * clients tend to repeat the same queries.
+ * <p>
+ * The table also carries a <code>next</code> string field, the continuation
+ * token for the next page of a paged query.
+ */
+class ChannelTable {
+
+    static final String CHANNEL_NAME = "channelName";
+    static final String OWNER = "owner";
+    static final String NEXT = "next";
+    static final String RESULTS_FIELD = "results";
+    static final String FACET = "facet";
+    static final String VALUE = "value";
+    static final String COUNT = "count";
+
+    /** separates the property columns from the tag columns in the structure keys */
+    private static final String TAG_COLUMNS = "\0";
+
+    private static final Structure RESULTS = FieldFactory.getFieldCreate().createFieldBuilder()
+            .addArray(RESULTS_FIELD, FieldFactory.getFieldCreate().createVariantUnion())
+            .createStructure();
+
+    private static final Structure FACETS = NTTable.createBuilder()
+            .addColumn(FACET, ScalarType.pvString)
+            .addColumn(VALUE, ScalarType.pvString)
+            .addColumn(COUNT, ScalarType.pvLong)
+            .createStructure();
+
+    private static final Cache<List<String>, Structure> structures = CacheBuilder.newBuilder()
+            .maximumSize(100)
+            .build();
+
+    private ChannelTable() {
+    }
+
+    /**
+     * Create the table for the given channels
+     *
+     * @param channels - the channels, one per row
+     * @param columns - selects the property and tag columns of the table
+     * @param next - continuation token for the next page, empty if there are no more channels
+     * @return the table
+     */
+    static NTTable create(List<XmlChannel> channels, Predicate<String> columns, String next) {
+        final Map<String, String[]> properties = new HashMap<>();
+        final Map<String, boolean[]> tags = new HashMap<>();
+        fill(channels, columns, columns, properties, tags);
+
+        String[] propertyNames = properties.keySet().toArray(new String[0]);
+        String[] tagNames = tags.keySet().toArray(new String[0]);
+        Arrays.sort(propertyNames);
+        Arrays.sort(tagNames);
+        return create(channels, propertyNames, properties, tagNames, tags, next);
+    }
+
+    /**
+     * Create the table for the given channels with a fixed set of columns, the
+     * other properties and tags of the channels are left out
+     *
+     * @param channels - the channels, one per row
+     * @param propertyNames - the property columns of the table
+     * @param tagNames - the tag columns of the table
+     * @param next - continuation token for the next page, empty if there are no more channels
+     * @return the table
+     */
+    static NTTable create(List<XmlChannel> channels, String[] propertyNames, String[] tagNames, String next) {
+        final Map<String, String[]> properties = new HashMap<>();
+        final Map<String, boolean[]> tags = new HashMap<>();
+        final Set<String> propertyColumns = Set.of(propertyNames);
+        final Set<String> tagColumns = Set.of(tagNames);
+        fill(channels, propertyColumns::contains, tagColumns::contains, properties, tags);
+
+        for (String propertyName : propertyNames) {
+            properties.computeIfAbsent(propertyName, name -> new String[channels.size()]);
+        }
+        for (String tagName : tagNames) {
+            tags.computeIfAbsent(tagName, name -> new boolean[channels.size()]);
+        }
+        return create(channels, propertyNames, properties, tagNames, tags, next);
+    }
+
+    /**
+     * Create the result of a multi query, a structure with a
+     * <code>results</code> variant union array holding the table of each query
+     *
+     * @param tables - the result table of each query
+     * @return the result structure
+     */
+    static PVStructure results(List<NTTable> tables) {
+        PVStructure results = PVDataFactory.getPVDataCreate().createPVStructure(RESULTS);
+        PVUnion[] values = new PVUnion[tables.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = PVDataFactory.getPVDataCreate().createPVVariantUnion();
+            values[i].set(tables.get(i).getPVStructure());
+        }
+        results.getUnionArrayField(RESULTS_FIELD).put(0, values.length, values, 0);
+        return results;
+    }
+
+    /**
+     * Create the result of a facets query, a table with a facet, value and
+     * count column holding the values of each facet with their number of
+     * channels
+     *
+     * @param facets - the values and their number of channels of each facet
+     * @return the table
+     */
+    static NTTable facets(Map<String, Map<String, Long>> facets) {
+        int size = facets.values().stream().mapToInt(Map::size).sum();
+        String[] names = new String[size];
+        String[] values = new String[size];
+        long[] counts = new long[size];
+        int row = 0;
+        for (Map.Entry<String, Map<String, Long>> facet : facets.entrySet()) {
+            for (Map.Entry<String, Long> value : facet.getValue().entrySet()) {
+                names[row] = facet.getKey();
+                values[row] = value.getKey();
+                counts[row] = value.getValue();
+                row++;
+            }
+        }
+        NTTable table = NTTable.wrapUnsafe(PVDataFactory.getPVDataCreate().createPVStructure(FACETS));
+        table.getLabels().shareData(new String[] { FACET, VALUE, COUNT });
+        table.getColumn(PVStringArray.class, FACET).shareData(names);
+        table.getColumn(PVStringArray.class, VALUE).shareData(values);
+        table.getColumn(PVLongArray.class, COUNT).shareData(counts);
+        return table;
+    }
+
+    /**
+     * @param table - a table created by this class
+     * @return the names of the property columns of the table
+     */
+    static String[] propertyNames(NTTable table) {
+        return columnNames(table, ScalarType.pvString);
+    }
+
+    /**
+     * @param table - a table created by this class
+     * @return the names of the tag columns of the table
+     */
+    static String[] tagNames(NTTable table) {
+        return columnNames(table, ScalarType.pvBoolean);
+    }
+
+    private static String[] columnNames(NTTable table, ScalarType type) {
+        return Arrays.stream(table.getColumnNames())
+                .filter(name -> !CHANNEL_NAME.equals(name) && !OWNER.equals(name))
+                .filter(name -> table.getColumn(name).getScalarArray().getElementType() == type)
+                .toArray(String[]::new);
+    }
+
+    private static void fill(List<XmlChannel> channels,
+                             Predicate<String> propertyColumns,
+                             Predicate<String> tagColumns,
+                             Map<String, String[]> properties,
+                             Map<String, boolean[]> tags) {
+        final int size = channels.size();
+        for (int row = 0; row < size; row++) {
+            XmlChannel channel = channels.get(row);
+            for (XmlProperty property : channel.getProperties()) {
+                String[] column = properties.get(property.getName());
+                if (column == null) {
+                    if (!propertyColumns.test(property.getName())) {
+                        continue;
+                    }
+                    column = new String[size];
+                    properties.put(property.getName(), column);
+                }
+                column[row] = property.getValue();
+            }
+            for (XmlTag tag : channel.getTags()) {
+                boolean[] column = tags.get(tag.getName());
+                if (column == null) {
+                    if (!tagColumns.test(tag.getName())) {
+                        continue;
+                    }
+                    column = new boolean[size];
+                    tags.put(tag.getName(), column);
+                }
+                column[row] = true;
+            }
+        }
+    }
+
+    private static NTTable create(List<XmlChannel> channels,
+                                  String[] propertyNames,
+                                  Map<String, String[]> properties,
+                                  String[] tagNames,
+                                  Map<String, boolean[]> tags,
+                                  String next) {
+        final int size = channels.size();
+        final String[] names = new String[size];
+        final String[] owners = new String[size];
+        for (int row = 0; row < size; row++) {
+            XmlChannel channel = channels.get(row);
+            names[row] = channel.getName();
+            owners[row] = channel.getOwner();
+        }
+
+        String[] labels = new String[2 + propertyNames.length + tagNames.length];
+        labels[0] = CHANNEL_NAME;
+        labels[1] = OWNER;
+        System.arraycopy(propertyNames, 0, labels, 2, propertyNames.length);
+        System.arraycopy(tagNames, 0, labels, 2 + propertyNames.length, tagNames.length);
+
+        NTTable table = NTTable.wrapUnsafe(PVDataFactory.getPVDataCreate()
+                .createPVStructure(structure(propertyNames, tagNames)));
+        table.getLabels().shareData(labels);
+        table.getPVStructure().getStringField(NEXT).put(next);
+        table.getColumn(PVStringArray.class, CHANNEL_NAME).shareData(names);
+        table.getColumn(PVStringArray.class, OWNER).shareData(owners);
+        for (String propertyName : propertyNames) {
+            table.getColumn(PVStringArray.class, propertyName).shareData(properties.get(propertyName));
+        }
+        for (String tagName : tagNames) {
+            table.getColumn(PVBooleanArray.class, tagName).shareData(tags.get(tagName));
+        }
+        return table;
+    }
+
+    /**
+     * @param propertyNames - the property columns of the table
+     * @param tagNames - the tag columns of the table
+     * @return the structure of a table with the given columns
+     */
+    static Structure structure(String[] propertyNames, String[] tagNames) {
+        List<String> key = new ArrayList<>(propertyNames.length + tagNames.length + 1);
+        key.addAll(Arrays.asList(propertyNames));
+        key.add(TAG_COLUMNS);
+        key.addAll(Arrays.asList(tagNames));
+        try {
+            return structures.get(key, () -> {
+                NTTableBuilder builder = NTTable.createBuilder()
+                        .addColumn(CHANNEL_NAME, ScalarType.pvString)
+                        .addColumn(OWNER, ScalarType.pvString);
+                for (String propertyName : propertyNames) {
+                    builder.addColumn(propertyName, ScalarType.pvString);
+                }
+                for (String tagName : tagNames) {
+                    builder.addColumn(tagName, ScalarType.pvBoolean);
+                }
+                return builder.add(NEXT, FieldFactory.getFieldCreate().createScalar(ScalarType.pvString))
+                        .createStructure();
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to create the table structure", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,578 @@
+package org.phoebus.channelfinder.epics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.epics.nt.NTTable;
+import org.epics.pvaccess.client.AccessRights;
+import org.epics.pvaccess.client.Channel;
+import org.epics.pvaccess.client.ChannelArray;
+import org.epics.pvaccess.client.ChannelArrayRequester;
+import org.epics.pvaccess.client.ChannelFind;
+import org.epics.pvaccess.client.ChannelFindRequester;
+import org.epics.pvaccess.client.ChannelGet;
+import org.epics.pvaccess.client.ChannelGetRequester;
+import org.epics.pvaccess.client.ChannelListRequester;
+import org.epics.pvaccess.client.ChannelProcess;
+import org.epics.pvaccess.client.ChannelProcessRequester;
+import org.epics.pvaccess.client.ChannelProvider;
+import org.epics.pvaccess.client.ChannelPut;
+import org.epics.pvaccess.client.ChannelPutGet;
+import org.epics.pvaccess.client.ChannelPutGetRequester;
+import org.epics.pvaccess.client.ChannelPutRequester;
+import org.epics.pvaccess.client.ChannelRPC;
+import org.epics.pvaccess.client.ChannelRPCRequester;
+import org.epics.pvaccess.client.ChannelRequester;
+import org.epics.pvaccess.client.GetFieldRequester;
+import org.epics.pvdata.factory.StatusFactory;
+import org.epics.pvdata.misc.BitSet;
+import org.epics.pvdata.monitor.Monitor;
+import org.epics.pvdata.monitor.MonitorElement;
+import org.epics.pvdata.monitor.MonitorRequester;
+import org.epics.pvdata.pv.MessageType;
+import org.epics.pvdata.pv.PVField;
+import org.epics.pvdata.pv.PVStructure;
+import org.epics.pvdata.pv.Status;
+import org.epics.pvdata.pv.Status.StatusType;
+import org.epics.pvdata.pv.Structure;
+import org.phoebus.channelfinder.ChannelRepository;
+import org.phoebus.channelfinder.ChannelSubscriptions;
+import org.phoebus.channelfinder.XmlChannel;
+
+/**
+ * A pva channel provider serving standing channel queries.
+ * <p>
+ * The channel <code>cfService:watch?_tag=archive&amp;_columns=cell</code> is
+ * created on demand for the query given after the '?', with the same
+ * arguments as a <code>cfService:query</code> request (URL encoded). Its value
+ * is the NTTable of the matching channels; monitors are sent the updated table
+ * whenever matching channels change through the channel repository, the
+ * changes being coalesced over the refresh interval.
+ * <p>
+ * The columns of the table are fixed when the channel is first created, from
+ * the query result or the _columns argument, since the structure of a pva
+ * channel cannot change while it is connected.
+ * <p>
+ * The channels of the same query share it, counting its references: the
+ * first one starts the initial query, without holding the lock of the provider,
+ * and all of them are created once its result is in. The initial queries run on
+ * their own pool, so that a slow one never holds up the refreshes, and no thread
+ * waits for them.
+ */
+class ChannelWatchProvider implements ChannelProvider {
+
+    private static final Logger log = Logger.getLogger(ChannelWatchProvider.class.getName());
+
+    static final String PROVIDER_NAME = "cfWatch";
+    static final String WATCH_PREFIX = "cfService:watch?";
+
+    private static final Status OK = StatusFactory.getStatusCreate().getStatusOK();
+    private static final Status NOT_SUPPORTED = StatusFactory.getStatusCreate()
+            .createStatus(StatusType.ERROR, "Not supported, use get or monitor", null);
+
+    private final ChannelRepository channelRepository;
+    private final ChannelSubscriptions channelSubscriptions;
+    private final int pageSize;
+    private final long interval;
+    private final int maxQueries;
+
+    private final Map<String, WatchedQuery> queries = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor executor;
+    private final ExecutorService queryExecutor;
+
+    private final ChannelFind channelFind = new ChannelFind() {
+        @Override
+        public ChannelProvider getChannelProvider() {
+            return ChannelWatchProvider.this;
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    /**
+     * @param channelRepository - repository queried for the channel tables
+     * @param channelSubscriptions - notifies the changes of the watched channels
+     * @param pageSize - the maximum number of channels in a table
+     * @param interval - the minimum time between two updates of a table, in milliseconds
+     * @param maxQueries - the maximum number of watched queries
+     * @param threads - the threads refreshing the tables, and the threads running the initial queries
+     */
+    ChannelWatchProvider(ChannelRepository channelRepository, ChannelSubscriptions channelSubscriptions,
+                         int pageSize, long interval, int maxQueries, int threads) {
+        this.channelRepository = channelRepository;
+        this.channelSubscriptions = channelSubscriptions;
+        this.pageSize = pageSize;
+        this.interval = interval;
+        this.maxQueries = maxQueries;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            Thread thread = new Thread(runnable, "cf-epics-watch-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+        AtomicInteger queryCount = new AtomicInteger();
+        this.queryExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "cf-epics-watch-query-" + queryCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public String getProviderName() {
+        return PROVIDER_NAME;
+    }
+
+    @Override
+    public ChannelFind channelFind(String channelName, ChannelFindRequester channelFindRequester) {
+        channelFindRequester.channelFindResult(OK, channelFind, channelName.startsWith(WATCH_PREFIX));
+        return channelFind;
+    }
+
+    @Override
+    public ChannelFind channelList(ChannelListRequester channelListRequester) {
+        channelListRequester.channelListResult(OK, channelFind, Set.copyOf(queries.keySet()), true);
+        return channelFind;
+    }
+
+    @Override
+    public Channel createChannel(String channelName, ChannelRequester channelRequester, short priority) {
+        return createChannel(channelName, channelRequester, priority, null);
+    }
+
+    @Override
+    public Channel createChannel(String channelName, ChannelRequester channelRequester, short priority, String address) {
+        if (!channelName.startsWith(WATCH_PREFIX)) {
+            channelRequester.channelCreated(StatusFactory.getStatusCreate()
+                    .createStatus(StatusType.ERROR, "Unknown channel " + channelName, null), null);
+            return null;
+        }
+        WatchedQuery query;
+        try {
+            query = acquire(channelName);
+        } catch (RuntimeException e) {
+            failed(channelName, channelRequester, e);
+            return null;
+        }
+        // the channel is created once the initial query is done, off the pva server thread
+        query.initialization.whenCompleteAsync((result, e) -> {
+            if (e == null) {
+                channelRequester.channelCreated(OK, new WatchChannel(channelName, channelRequester, query));
+            } else {
+                release(query);
+                failed(channelName, channelRequester, e instanceof CompletionException ? e.getCause() : e);
+            }
+        }, queryExecutor);
+        return null;
+    }
+
+    private static void failed(String channelName, ChannelRequester channelRequester, Throwable e) {
+        log.log(Level.WARNING, "Failed to create channel " + channelName, e);
+        channelRequester.channelCreated(StatusFactory.getStatusCreate()
+                .createStatus(StatusType.ERROR, "Failed to create channel " + channelName + ": " + e.getMessage(), e), null);
+    }
+
+    @Override
+    public void destroy() {
+        queries.values().forEach(WatchedQuery::close);
+        queries.clear();
+        executor.shutdownNow();
+        queryExecutor.shutdownNow();
+    }
+
+    /**
+     * @return the query of the channel, with a new reference, its initial
+     *         result may still be pending, see {@link WatchedQuery#initialization}
+     */
+    WatchedQuery acquire(String channelName) {
+        WatchedQuery query;
+        boolean created = false;
+        synchronized (this) {
+            query = queries.get(channelName);
+            if (query == null) {
+                if (queries.size() >= maxQueries) {
+                    throw new IllegalStateException("Too many watched queries, the maximum is " + maxQueries);
+                }
+                query = new WatchedQuery(channelName, ChannelQuery.parse(channelName.substring(WATCH_PREFIX.length()), pageSize));
+                queries.put(channelName, query);
+                created = true;
+            }
+            query.channels.incrementAndGet();
+        }
+        if (created) {
+            queryExecutor.execute(query::initialize);
+        }
+        return query;
+    }
+
+    /**
+     * Release a reference to the query, the last one stops watching it
+     */
+    void release(WatchedQuery query) {
+        synchronized (this) {
+            if (query.channels.decrementAndGet() > 0) {
+                return;
+            }
+            queries.remove(query.name, query);
+        }
+        query.close();
+    }
+
+    /**
+     * @return the names of the watched queries
+     */
+    Set<String> watched() {
+        return Set.copyOf(queries.keySet());
+    }
+
+    /**
+     * A query watched by one or more channels, its table is refreshed when
+     * matching channels changed, at most once per interval
+     */
+    class WatchedQuery {
+        private final String name;
+        private final ChannelQuery query;
+        private final AtomicInteger channels = new AtomicInteger();
+        private final Set<WatchMonitor> monitors = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean changed = new AtomicBoolean();
+        /** completed once the fields below are set by the initial query, or failed with it */
+        private final CompletableFuture<Void> initialization = new CompletableFuture<>();
+        private String[] propertyNames;
+        private String[] tagNames;
+        private Structure structure;
+        private Runnable unwatch;
+        private ScheduledFuture<?> refresh;
+        private volatile PVStructure value;
+        private volatile boolean closed;
+
+        WatchedQuery(String name, ChannelQuery query) {
+            this.name = name;
+            this.query = query;
+        }
+
+        /**
+         * Run the initial query, once for the channel creating the query, a
+         * failure is reported by the {@link #initialization}
+         */
+        private void initialize() {
+            // watch before the initial query so that no change is missed
+            Runnable watch = channelSubscriptions.watch(query.getSearchParameters(), () -> changed.set(true));
+            try {
+                NTTable table = query.table(channelRepository);
+                propertyNames = ChannelTable.propertyNames(table);
+                tagNames = ChannelTable.tagNames(table);
+                structure = table.getPVStructure().getStructure();
+                value = table.getPVStructure();
+                synchronized (this) {
+                    if (closed) {
+                        watch.run();
+                    } else {
+                        unwatch = watch;
+                        refresh = executor.scheduleWithFixedDelay(this::refresh, interval, interval, TimeUnit.MILLISECONDS);
+                    }
+                }
+            } catch (RuntimeException e) {
+                watch.run();
+                synchronized (ChannelWatchProvider.this) {
+                    // the next channel of this query runs it again
+                    queries.remove(name, this);
+                }
+                initialization.completeExceptionally(e);
+                return;
+            }
+            initialization.complete(null);
+            log.config("Watching " + name);
+        }
+
+        private void refresh() {
+            if (!changed.getAndSet(false)) {
+                return;
+            }
+            try {
+                List<XmlChannel> result = query.search(channelRepository);
+                value = ChannelTable.create(result, propertyNames, tagNames, query.next(result)).getPVStructure();
+                monitors.forEach(monitor -> monitor.post(value));
+            } catch (Exception e) {
+                log.log(Level.WARNING, "Failed to refresh " + name, e);
+                // try again on the next interval
+                changed.set(true);
+            }
+        }
+
+        void close() {
+            synchronized (this) {
+                closed = true;
+                if (refresh != null) {
+                    refresh.cancel(false);
+                }
+                if (unwatch != null) {
+                    unwatch.run();
+                }
+            }
+            monitors.forEach(WatchMonitor::unlisten);
+            monitors.clear();
+            log.config("Stopped watching " + name);
+        }
+    }
+
+    private class WatchChannel implements Channel {
+        private final String channelName;
+        private final ChannelRequester channelRequester;
+        private final WatchedQuery query;
+        private final AtomicBoolean destroyed = new AtomicBoolean();
+
+        WatchChannel(String channelName, ChannelRequester channelRequester, WatchedQuery query) {
+            this.channelName = channelName;
+            this.channelRequester = channelRequester;
+            this.query = query;
+        }
+
+        @Override
+        public String getRequesterName() {
+            return channelRequester.getRequesterName();
+        }
+
+        @Override
+        public void message(String message, MessageType messageType) {
+            channelRequester.message(message, messageType);
+        }
+
+        @Override
+        public ChannelProvider getProvider() {
+            return ChannelWatchProvider.this;
+        }
+
+        @Override
+        public String getRemoteAddress() {
+            return "";
+        }
+
+        @Override
+        public ConnectionState getConnectionState() {
+            return destroyed.get() ? ConnectionState.DESTROYED : ConnectionState.CONNECTED;
+        }
+
+        @Override
+        public void destroy() {
+            if (destroyed.compareAndSet(false, true)) {
+                release(query);
+            }
+        }
+
+        @Override
+        public String getChannelName() {
+            return channelName;
+        }
+
+        @Override
+        public ChannelRequester getChannelRequester() {
+            return channelRequester;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return !destroyed.get();
+        }
+
+        @Override
+        public void getField(GetFieldRequester requester, String subField) {
+            requester.getDone(OK, query.structure);
+        }
+
+        @Override
+        public AccessRights getAccessRights(PVField pvField) {
+            return AccessRights.read;
+        }
+
+        @Override
+        public Monitor createMonitor(MonitorRequester monitorRequester, PVStructure pvRequest) {
+            WatchMonitor monitor = new WatchMonitor(monitorRequester, query);
+            monitorRequester.monitorConnect(OK, monitor, query.structure);
+            return monitor;
+        }
+
+        @Override
+        public ChannelGet createChannelGet(ChannelGetRequester channelGetRequester, PVStructure pvRequest) {
+            ChannelGet get = new WatchGet(this, channelGetRequester);
+            channelGetRequester.channelGetConnect(OK, get, query.structure);
+            return get;
+        }
+
+        @Override
+        public ChannelProcess createChannelProcess(ChannelProcessRequester channelProcessRequester, PVStructure pvRequest) {
+            channelProcessRequester.channelProcessConnect(NOT_SUPPORTED, null);
+            return null;
+        }
+
+        @Override
+        public ChannelPut createChannelPut(ChannelPutRequester channelPutRequester, PVStructure pvRequest) {
+            channelPutRequester.channelPutConnect(NOT_SUPPORTED, null, null);
+            return null;
+        }
+
+        @Override
+        public ChannelPutGet createChannelPutGet(ChannelPutGetRequester channelPutGetRequester, PVStructure pvRequest) {
+            channelPutGetRequester.channelPutGetConnect(NOT_SUPPORTED, null, null, null);
+            return null;
+        }
+
+        @Override
+        public ChannelRPC createChannelRPC(ChannelRPCRequester channelRPCRequester, PVStructure pvRequest) {
+            channelRPCRequester.channelRPCConnect(NOT_SUPPORTED, null);
+            return null;
+        }
+
+        @Override
+        public ChannelArray createChannelArray(ChannelArrayRequester channelArrayRequester, PVStructure pvRequest) {
+            channelArrayRequester.channelArrayConnect(NOT_SUPPORTED, null, null);
+            return null;
+        }
+    }
+
+    private static class WatchGet implements ChannelGet {
+        private final WatchChannel channel;
+        private final ChannelGetRequester requester;
+
+        WatchGet(WatchChannel channel, ChannelGetRequester requester) {
+            this.channel = channel;
+            this.requester = requester;
+        }
+
+        @Override
+        public void get() {
+            requester.getDone(OK, this, channel.query.value, allChanged());
+        }
+
+        @Override
+        public Channel getChannel() {
+            return channel;
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public void lastRequest() {
+        }
+
+        @Override
+        public void lock() {
+        }
+
+        @Override
+        public void unlock() {
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+
+    /**
+     * A monitor keeping only the latest table, a client which has not polled
+     * the previous update simply gets the newer one
+     */
+    private static class WatchMonitor implements Monitor {
+        private final MonitorRequester requester;
+        private final WatchedQuery query;
+        private final AtomicReference<MonitorElement> pending = new AtomicReference<>();
+        private volatile boolean started;
+
+        WatchMonitor(MonitorRequester requester, WatchedQuery query) {
+            this.requester = requester;
+            this.query = query;
+        }
+
+        @Override
+        public Status start() {
+            started = true;
+            query.monitors.add(this);
+            post(query.value);
+            return OK;
+        }
+
+        @Override
+        public Status stop() {
+            started = false;
+            query.monitors.remove(this);
+            return OK;
+        }
+
+        @Override
+        public MonitorElement poll() {
+            return pending.getAndSet(null);
+        }
+
+        @Override
+        public void release(MonitorElement monitorElement) {
+        }
+
+        @Override
+        public void destroy() {
+            stop();
+        }
+
+        void post(PVStructure value) {
+            if (started) {
+                pending.set(new WatchElement(value));
+                requester.monitorEvent(this);
+            }
+        }
+
+        void unlisten() {
+            requester.unlisten(this);
+        }
+    }
+
+    private static class WatchElement implements MonitorElement {
+        private final PVStructure value;
+        private final BitSet changed = allChanged();
+        private final BitSet overrun = new BitSet();
+
+        WatchElement(PVStructure value) {
+            this.value = value;
+        }
+
+        @Override
+        public PVStructure getPVStructure() {
+            return value;
+        }
+
+        @Override
+        public BitSet getChangedBitSet() {
+            return changed;
+        }
+
+        @Override
+        public BitSet getOverrunBitSet() {
+            return overrun;
+        }
+    }
+
+    /**
+     * @return a bit set marking the whole structure as changed
+     */
+    private static BitSet allChanged() {
+        BitSet changed = new BitSet();
+        changed.set(0);
+        return changed;
+    }
+}
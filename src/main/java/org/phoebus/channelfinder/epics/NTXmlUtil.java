@@ -3,16 +3,20 @@ package org.phoebus.channelfinder.epics;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import org.epics.nt.NTTable;
 import org.epics.pvdata.pv.BooleanArrayData;
 import org.epics.pvdata.pv.PVBooleanArray;
+import org.epics.pvdata.pv.PVScalarArray;
+import org.epics.pvdata.pv.PVString;
 import org.epics.pvdata.pv.PVStringArray;
 import org.epics.pvdata.pv.PVStructure;
+import org.epics.pvdata.pv.PVUnionArray;
 import org.epics.pvdata.pv.ScalarType;
 import org.epics.pvdata.pv.StringArrayData;
+import org.epics.pvdata.pv.UnionArrayData;
 import org.phoebus.channelfinder.XmlChannel;
 import org.phoebus.channelfinder.XmlProperty;
 import org.phoebus.channelfinder.XmlTag;
@@ -27,62 +31,157 @@ public class NTXmlUtil {
      * @return list of channels
      * @throws Exception failed to convert to NTTable
      */
-    public static synchronized List<XmlChannel> parse(PVStructure result) throws Exception {
-        if (NTTable.isCompatible(result)) {
-            NTTable table = NTTable.wrap(result);
-            List<String> names = Arrays.asList(table.getColumnNames());
-            List<XmlChannel> channels = new ArrayList<>();
-            
-            if(names.contains("channelName")){
-                PVStringArray array = (PVStringArray) table.getColumn("channelName");
-                StringArrayData data = new StringArrayData();
-                int len = array.get(0, array.getLength(), data);
-                Arrays.asList(data.data).forEach(name -> channels.add(new XmlChannel(name)));
+    public static List<XmlChannel> parse(PVStructure result) throws Exception {
+        Columns columns = new Columns(result);
+        List<XmlChannel> channels = new ArrayList<>(columns.rows);
+        for (int row = 0; row < columns.rows; row++) {
+            channels.add(columns.channel(row));
+        }
+        return channels;
+    }
+
+    /**
+     * A helper method to convert the the result of the channelfinder v4 service
+     * to a stream of {@link XmlChannel}, each channel is only created when the
+     * stream reaches its row so that large tables need not be held as channels
+     * 
+     * @param result - NTTable returned by the channelfinder service
+     * @return stream of channels
+     * @throws Exception failed to convert to NTTable
+     */
+    public static Stream<XmlChannel> stream(PVStructure result) throws Exception {
+        Columns columns = new Columns(result);
+        return IntStream.range(0, columns.rows).mapToObj(columns::channel);
+    }
+
+    /**
+     * The columns of a result table, read once without copying the arrays
+     */
+    private static class Columns {
+        private final int rows;
+        private final String[] names;
+        private final String[] owners;
+        private final String[] propertyNames;
+        private final String[][] properties;
+        private final String[] tagNames;
+        private final boolean[][] tags;
+
+        Columns(PVStructure result) throws Exception {
+            if (!NTTable.isCompatible(result)) {
+                throw new Exception(result.toString() + " is not compatible with NTTable");
+            }
+            NTTable table = NTTable.wrapUnsafe(result);
+            String[] columnNames = table.getColumnNames();
+
+            String[] names = null;
+            String[] owners = null;
+            List<String> propertyNames = new ArrayList<>(columnNames.length);
+            List<String[]> properties = new ArrayList<>(columnNames.length);
+            List<String> tagNames = new ArrayList<>(columnNames.length);
+            List<boolean[]> tags = new ArrayList<>(columnNames.length);
+            for (String name : columnNames) {
+                PVScalarArray column = table.getColumn(name);
+                ScalarType type = column.getScalarArray().getElementType();
+                if (name.equals("channelName")) {
+                    names = strings(column);
+                } else if (name.equals("owner")) {
+                    owners = strings(column);
+                } else if (type.equals(ScalarType.pvBoolean)) {
+                    tagNames.add(name);
+                    tags.add(booleans(column));
+                } else if (type.equals(ScalarType.pvString)) {
+                    propertyNames.add(name);
+                    properties.add(strings(column));
+                }
             }
-            
-            if(names.contains("owner")){
-                PVStringArray array = (PVStringArray) table.getColumn("owner");
-                StringArrayData data = new StringArrayData();
-                int len = array.get(0, array.getLength(), data);
-                List<Optional<String>> owners = Arrays.asList(data.data).stream().map(Optional::ofNullable)
-                        .collect(Collectors.toList());
-                for (int i = 0; i < channels.size(); i++) {
-                    if (owners.get(i).isPresent())
-                        channels.get(i).setOwner(owners.get(i).get());
+            this.rows = names == null ? 0 : names.length;
+            this.names = names;
+            this.owners = owners;
+            this.propertyNames = propertyNames.toArray(new String[0]);
+            this.properties = properties.toArray(new String[0][]);
+            this.tagNames = tagNames.toArray(new String[0]);
+            this.tags = tags.toArray(new boolean[0][]);
+        }
+
+        XmlChannel channel(int row) {
+            int propertyCount = 0;
+            for (String[] column : properties) {
+                if (row < column.length && column[row] != null) {
+                    propertyCount++;
                 }
             }
-            
-            for (String name : names) {
-                if(!name.equals("channelName") && !name.equals("owner")){
-                    ScalarType type = table.getColumn(name).getScalarArray().getElementType();
-                    if (type.equals(ScalarType.pvBoolean)){
-                        PVBooleanArray array = (PVBooleanArray) table.getColumn(name);
-                        BooleanArrayData data = new BooleanArrayData();
-                        array.get(0, array.getLength(), data);
-                        List<Boolean> tag = new ArrayList<>(array.getLength());
-                        for (int i = 0; i < array.getLength(); i++) {
-                            tag.add(data.data[i]);
-                            if(data.data[i]){
-                                channels.get(i).getTags().add(new XmlTag(name));
-                            }
-                        }
-                    }
-                    else if (type.equals(ScalarType.pvString)) {
-                        PVStringArray array = (PVStringArray) table.getColumn(name);
-                        StringArrayData data = new StringArrayData();
-                        int len = array.get(0, array.getLength(), data);
-                        List<Optional<String>> list = Arrays.asList(data.data).stream().map(Optional::ofNullable)
-                                .collect(Collectors.toList());
-                        for (int i = 0; i < channels.size(); i++) {
-                            if (list.get(i).isPresent())
-                                channels.get(i).getProperties().add(new XmlProperty(name, null, list.get(i).get()));
-                        }
-                    }
+            int tagCount = 0;
+            for (boolean[] column : tags) {
+                if (row < column.length && column[row]) {
+                    tagCount++;
                 }
             }
-            return channels;
-        } else {
-            throw new Exception(result.toString() +" is not compatible with NTTable");
+
+            List<XmlProperty> channelProperties = new ArrayList<>(propertyCount);
+            for (int i = 0; i < properties.length; i++) {
+                String[] column = properties[i];
+                if (row < column.length && column[row] != null) {
+                    channelProperties.add(new XmlProperty(propertyNames[i], null, column[row]));
+                }
+            }
+            List<XmlTag> channelTags = new ArrayList<>(tagCount);
+            for (int i = 0; i < tags.length; i++) {
+                boolean[] column = tags[i];
+                if (row < column.length && column[row]) {
+                    channelTags.add(new XmlTag(tagNames[i]));
+                }
+            }
+            String owner = owners != null && row < owners.length ? owners[row] : null;
+            return new XmlChannel(names[row], owner, channelProperties, channelTags);
+        }
+
+        /**
+         * @return the values of the column, the array of the column itself is returned when it has the column length
+         */
+        private static String[] strings(PVScalarArray column) {
+            StringArrayData data = new StringArrayData();
+            int length = ((PVStringArray) column).get(0, column.getLength(), data);
+            return data.data.length == length ? data.data : Arrays.copyOf(data.data, length);
+        }
+
+        private static boolean[] booleans(PVScalarArray column) {
+            BooleanArrayData data = new BooleanArrayData();
+            int length = ((PVBooleanArray) column).get(0, column.getLength(), data);
+            return data.data.length == length ? data.data : Arrays.copyOf(data.data, length);
+        }
+    }
+
+    /**
+     * A helper method to get the result tables of a cfService:multiquery
+     * request
+     * 
+     * @param result - the result returned by the cfService:multiquery service
+     * @return the NTTable of each query, in the order of the queries
+     */
+    public static List<PVStructure> results(PVStructure result) {
+        PVUnionArray array = result.getUnionArrayField("results");
+        UnionArrayData data = new UnionArrayData();
+        int len = array.get(0, array.getLength(), data);
+        List<PVStructure> tables = new ArrayList<>(len);
+        for (int i = 0; i < len; i++) {
+            tables.add(data.data[i].get(PVStructure.class));
+        }
+        return tables;
+    }
+
+    /**
+     * A helper method to get the continuation token of a paged result of the
+     * channelfinder v4 service, to be passed as the _after argument of the
+     * request for the next page
+     * 
+     * @param result - NTTable returned by the channelfinder service
+     * @return the continuation token, null if this is the last page
+     */
+    public static String next(PVStructure result) {
+        PVString next = result.getStringField("next");
+        if (next == null || next.get() == null || next.get().isEmpty()) {
+            return null;
         }
+        return next.get();
     }
 }
@@ -0,0 +1,581 @@
+package org.phoebus.channelfinder.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.phoebus.channelfinder.ChangeRepository;
+import org.phoebus.channelfinder.XmlChannel;
+import org.phoebus.channelfinder.XmlProperty;
+import org.phoebus.channelfinder.XmlTag;
+import org.phoebus.channelfinder.XmlTombstone;
+import org.phoebus.channelfinder.jfr.BulkEvent;
+import org.phoebus.channelfinder.tracing.TracingRestClientTransport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.Refresh;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.json.JsonData;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+
+/**
+ * Generates a synthetic directory of any number of cells, to test the service
+ * at the scale of the larger facilities, see the <code>--synthetic-data</code>
+ * option.
+ * <p>
+ * The channels follow the naming convention of the {@link PopulateService}
+ * demo data, a storage ring and a booster section in each cell, with device
+ * counts varying from cell to cell. They carry the properties of the channels
+ * published by the iocs: the ioc, its host and boot time, the record type and
+ * the pv status, along with the location, cell, element, device, unit and
+ * signal type. The tags are drawn from a vocabulary with a Zipf distribution,
+ * a few tags are found on most channels and most tags on a few channels.
+ * <p>
+ * The cells are generated in parallel on a bounded pool and indexed in bulk
+ * chunks as they are generated, without holding the directory in memory. Each
+ * cell draws from its own random generator seeded from the seed and the cell,
+ * so a seed always generates the same directory whatever the scheduling of the
+ * cells, and the same seed removes it again.
+ * <p>
+ * The generated directory has its own namespace, the channels named
+ * <code>SYN:*</code> and the tags and properties named <code>syn-*</code>, so
+ * that it never overwrites nor removes the channels, tags and properties of the
+ * service, the demo data in particular. The channels, tags and properties are
+ * stamped and the removed ones recorded, like the ones written through the
+ * service, so the generated directory is part of the change feed; the
+ * subscribers to the changes are not notified.
+ */
+@Configuration
+public class DirectoryGenerator {
+
+    private static final Logger log = Logger.getLogger(DirectoryGenerator.class.getName());
+
+    /** the prefix of the generated channels */
+    static final String CHANNEL_PREFIX = "SYN:";
+    /** the prefix of the generated tags and properties */
+    static final String VOCABULARY_PREFIX = "syn-";
+    static final List<String> PROPERTIES = Arrays.asList(property("location"), property("cell"), property("element"),
+            property("device"), property("family"), property("unit"), property("type"), property("recordType"),
+            property("iocName"), property("hostName"), property("pvStatus"), property("time"));
+    private static final Instant EPOCH = Instant.parse("2020-01-01T00:00:00Z");
+
+    @Autowired
+    @Qualifier("indexClient")
+    ElasticsearchClient client;
+
+    @Autowired
+    ChangeRepository changeRepository;
+
+    @Value("${elasticsearch.channel.index:channelfinder}")
+    private String ES_CHANNEL_INDEX;
+    @Value("${elasticsearch.tag.index:cf_tags}")
+    private String ES_TAG_INDEX;
+    @Value("${elasticsearch.property.index:cf_properties}")
+    private String ES_PROPERTY_INDEX;
+
+    @Value("${synthetic.seed:1}")
+    private long seed;
+    @Value("${synthetic.threads:4}")
+    private int threads;
+    @Value("${synthetic.bulk.size:5000}")
+    private int bulkSize;
+    @Value("${synthetic.tags:1000}")
+    private int tags;
+    @Value("${synthetic.tags.per.channel:3}")
+    private double tagsPerChannel;
+    @Value("${synthetic.inactive:0.05}")
+    private double inactive;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .addMixIn(XmlTag.class, XmlTag.EmbeddedXmlTag.class)
+            .addMixIn(XmlProperty.class, XmlProperty.EmbeddedXmlProperty.class);
+    // the tags and properties are indexed like the repositories index them
+    private final ObjectMapper tagMapper = new ObjectMapper().addMixIn(XmlTag.class, XmlTag.OnlyXmlTag.class);
+    private final ObjectMapper propertyMapper = new ObjectMapper()
+            .addMixIn(XmlProperty.class, XmlProperty.OnlyNameOwnerXmlProperty.class);
+
+    /**
+     * A signal of a device: the part of the channel name around the device
+     * number, the kind of device, the unit and the signal type
+     */
+    static final class Signal {
+        final String midfix;
+        final String postfix;
+        final String device;
+        final String unit;
+        final String type;
+
+        Signal(String midfix, String postfix, String device, String unit, String type) {
+            this.midfix = midfix;
+            this.postfix = postfix;
+            this.device = device;
+            this.unit = unit;
+            this.type = type;
+        }
+    }
+
+    /**
+     * The devices of a kind in a section of a cell, with their typical count
+     */
+    static final class Device {
+        final String code;
+        final String element;
+        final int count;
+        final Signal[] signals;
+
+        Device(String code, String element, int count, Signal[] signals) {
+            this.code = code;
+            this.element = element;
+            this.count = count;
+            this.signals = signals;
+        }
+    }
+
+    private static final Signal[] AIR_MAGNET = {
+            new Signal("PS:", "I-RB", "power supply", "current", "readback"),
+            new Signal("PS:", "I-SP", "power supply", "current", "setpoint"),
+            new Signal("PS:", "On-Sw", "power supply", "power", "switch"),
+            new Signal("PS:", "Rst-Cmd", "power supply", "reset", "command"),
+            new Signal("PS:", "On-St", "power supply", "power", "status"),
+            new Signal("PS:", "Acc-St", "power supply", "access", "status"),
+            new Signal("PS:", "OK-St", "power supply", "sum error", "status"),
+            new Signal("MG:", "Fld-RB", "magnet", "field", "readback"),
+            new Signal("MG:", "Fld-SP", "magnet", "field", "setpoint"),
+            new Signal("MG:", "T-RB", "magnet", "temperature", "readback") };
+    private static final Signal[] BIG_MAGNET = concat(Arrays.copyOf(AIR_MAGNET, 9),
+            new Signal("PS:", "T-St", "power supply", "temperature", "status"),
+            new Signal("PS:", "F-St", "power supply", "water flow", "status"),
+            new Signal("PS:", "Gnd-St", "power supply", "ground", "status"),
+            new Signal("PS:", "Ctl-St", "power supply", "control", "status"),
+            new Signal("PS:", "Val-St", "power supply", "value", "status"),
+            new Signal("MG:", "T:1-RB", "magnet", "temperature", "readback"),
+            new Signal("MG:", "T:2-RB", "magnet", "temperature", "readback"),
+            new Signal("MG:", "F-RB", "magnet", "water flow", "readback"),
+            new Signal("MG:", "F:in-St", "magnet", "water flow in", "status"),
+            new Signal("MG:", "F:out-St", "magnet", "water flow out", "status"),
+            new Signal("MG:", "F:dif-St", "magnet", "water flow diff", "status"));
+    private static final Signal[] VALVE = {
+            new Signal("VA:", "Opn-Sw", "valve", "position", "switch"),
+            new Signal("VA:", "Opn-St", "valve", "position", "status") };
+    private static final Signal[] GAUGE = {
+            new Signal("VA:", "P-RB", "gauge", "pressure", "readback"),
+            new Signal("VA:", "OK-St", "gauge", "error", "status") };
+    private static final Signal[] PUMP = {
+            new Signal("VA:", "I-RB", "pump", "current", "readback"),
+            new Signal("VA:", "P-RB", "pump", "pressure", "readback"),
+            new Signal("VA:", "On-Sw", "pump", "power", "switch"),
+            new Signal("VA:", "OK-St", "pump", "error", "status"),
+            new Signal("VA:", "On-St", "pump", "power", "status") };
+    private static final Signal[] TEMPERATURE = {
+            new Signal("PU:T", "T:1-RB", "sensor", "temperature 1", "readback"),
+            new Signal("PU:T", "T:2-RB", "sensor", "temperature 2", "readback"),
+            new Signal("PU:T", "T:3-RB", "sensor", "temperature 3", "readback"),
+            new Signal("PU:T", "T:4-RB", "sensor", "temperature 4", "readback"),
+            new Signal("PU:T", "On-St", "sensor", "power", "status") };
+    private static final Signal[] BPM = {
+            new Signal("BI:", "Pos:X-RB", "bpm", "x position", "readback"),
+            new Signal("BI:", "Pos:Y-RB", "bpm", "y position", "readback"),
+            new Signal("BI:", "Sig:X-RB", "bpm", "x sigma", "readback"),
+            new Signal("BI:", "Sig:Y-RB", "bpm", "y sigma", "readback"),
+            new Signal("BI:", "On-St", "bpm", "power", "status") };
+
+    private static final Device[] STORAGE_RING = {
+            new Device("DP", "dipole", 2, BIG_MAGNET),
+            new Device("QDP:D", "defocusing quadrupole", 5, BIG_MAGNET),
+            new Device("QDP:F", "focusing quadrupole", 5, BIG_MAGNET),
+            new Device("QDP:S", "skew quadrupole", 4, BIG_MAGNET),
+            new Device("STP", "sextupole", 4, BIG_MAGNET),
+            new Device("HC:S", "horizontal slow corrector", 5, BIG_MAGNET),
+            new Device("HC:F", "horizontal fast corrector", 5, AIR_MAGNET),
+            new Device("VC:S", "vertical slow corrector", 5, BIG_MAGNET),
+            new Device("VC:F", "vertical fast corrector", 4, AIR_MAGNET),
+            new Device("GV", "vacuum", 5, VALVE),
+            new Device("VGC", "vacuum", 5, GAUGE),
+            new Device("TCG", "vacuum", 5, GAUGE),
+            new Device("IPC", "vacuum", 2, PUMP),
+            new Device("TMP", "vacuum", 2, PUMP),
+            new Device("TC", "temperature sensor", 40, TEMPERATURE),
+            new Device("BSA", "small aperture BPM", 4, BPM),
+            new Device("BHS", "high stability BPM", 4, BPM),
+            new Device("BLA", "large aperture BPM", 4, BPM) };
+    private static final Device[] BOOSTER = {
+            new Device("DP", "dipole", 2, BIG_MAGNET),
+            new Device("QDP:D", "defocusing quadrupole", 4, BIG_MAGNET),
+            new Device("QDP:F", "focusing quadrupole", 4, BIG_MAGNET),
+            new Device("STP", "sextupole", 2, BIG_MAGNET),
+            new Device("HC", "horizontal corrector", 4, BIG_MAGNET),
+            new Device("VC", "vertical corrector", 4, BIG_MAGNET),
+            new Device("GV", "vacuum", 4, VALVE),
+            new Device("VGC", "vacuum", 4, GAUGE),
+            new Device("TCG", "vacuum", 2, GAUGE),
+            new Device("IPC", "vacuum", 2, PUMP),
+            new Device("TMP", "vacuum", 2, PUMP),
+            new Device("TC", "temperature sensor", 10, TEMPERATURE),
+            new Device("BLA", "beam position monitor", 2, BPM) };
+
+    private static Signal[] concat(Signal[] signals, Signal... more) {
+        Signal[] all = Arrays.copyOf(signals, signals.length + more.length);
+        System.arraycopy(more, 0, all, signals.length, more.length);
+        return all;
+    }
+
+    /**
+     * The ingest of a synthetic directory, or its removal
+     */
+    public static class Report {
+        private final int cells;
+        private final long channels;
+        private final long failed;
+        private final double seconds;
+        private final long documents;
+        private final long bytes;
+
+        Report(int cells, long channels, long failed, double seconds, long documents, long bytes) {
+            this.cells = cells;
+            this.channels = channels;
+            this.failed = failed;
+            this.seconds = seconds;
+            this.documents = documents;
+            this.bytes = bytes;
+        }
+
+        public long getChannels() {
+            return channels;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        /**
+         * @return the channels indexed or removed per second
+         */
+        public double getRate() {
+            return channels / seconds;
+        }
+
+        /**
+         * @return the documents of the channel index at the end
+         */
+        public long getDocuments() {
+            return documents;
+        }
+
+        /**
+         * @return the size of the primary shards of the channel index at the end, in bytes
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d channels of %d cells in %.1f s, %.0f channels/s, %d failed, channel index of %d documents and %.1f MB",
+                    channels, cells, seconds, getRate(), failed, documents, bytes / (1024.0 * 1024.0));
+        }
+    }
+
+    /**
+     * Index the channels of the cells 1 to <code>cells</code>, and the tags and
+     * properties they use
+     *
+     * @param cells the number of cells, about 1400 channels each
+     * @return the ingest report
+     */
+    public Report generate(int cells) {
+        BulkRequest.Builder vocabulary = new BulkRequest.Builder();
+        for (String tag : tagNames()) {
+            XmlTag xmlTag = new XmlTag(tag, PopulateService.towner);
+            xmlTag.setLastModified(changeRepository.nextStamp());
+            vocabulary.operations(op -> op.index(i -> i.index(ES_TAG_INDEX).id(tag)
+                    .document(JsonData.of(xmlTag, new JacksonJsonpMapper(tagMapper)))));
+        }
+        for (String property : PROPERTIES) {
+            XmlProperty xmlProperty = new XmlProperty(property, PopulateService.powner);
+            xmlProperty.setLastModified(changeRepository.nextStamp());
+            vocabulary.operations(op -> op.index(i -> i.index(ES_PROPERTY_INDEX).id(property)
+                    .document(JsonData.of(xmlProperty, new JacksonJsonpMapper(propertyMapper)))));
+        }
+        bulk(vocabulary.refresh(Refresh.True).build(), new AtomicLong());
+
+        Report report = forEachCell(cells, channel -> {
+            channel.setLastModified(changeRepository.nextStamp());
+            return BulkOperation.of(op -> op.index(i -> i.index(ES_CHANNEL_INDEX)
+                    .id(channel.getName())
+                    .document(JsonData.of(channel, new JacksonJsonpMapper(objectMapper)))));
+        }, names -> { });
+        log.info("Generated " + report);
+        return report;
+    }
+
+    /**
+     * Remove the channels generated by {@link #generate(int)} with the same
+     * seed, and the tags and properties they use, recording the removal of the
+     * channels, tags and properties in the change feed
+     *
+     * @param cells the number of cells
+     * @return the removal report
+     */
+    public Report cleanup(int cells) {
+        Report report = forEachCell(cells, channel -> BulkOperation.of(op -> op.delete(d -> d.index(ES_CHANNEL_INDEX).id(channel.getName()))),
+                names -> changeRepository.tombstoneAll(XmlTombstone.CHANNEL, names));
+
+        BulkRequest.Builder vocabulary = new BulkRequest.Builder();
+        for (String tag : tagNames()) {
+            vocabulary.operations(op -> op.delete(d -> d.index(ES_TAG_INDEX).id(tag)));
+        }
+        for (String property : PROPERTIES) {
+            vocabulary.operations(op -> op.delete(d -> d.index(ES_PROPERTY_INDEX).id(property)));
+        }
+        bulk(vocabulary.refresh(Refresh.True).build(), new AtomicLong());
+        changeRepository.tombstoneAll(XmlTombstone.TAG, tagNames());
+        changeRepository.tombstoneAll(XmlTombstone.PROPERTY, PROPERTIES);
+        log.info("Removed " + report);
+        return report;
+    }
+
+    /**
+     * @param operation the bulk operation of a channel
+     * @param written receives the names of the channels of each bulk request
+     */
+    private Report forEachCell(int cells, Function<XmlChannel, BulkOperation> operation, Consumer<List<String>> written) {
+        long start = System.nanoTime();
+        AtomicLong failed = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long channels = 0;
+        try {
+            List<Future<Long>> results = new ArrayList<>(cells);
+            for (int cell = 1; cell <= cells; cell++) {
+                int c = cell;
+                results.add(pool.submit(() -> {
+                    List<BulkOperation> chunk = new ArrayList<>(bulkSize);
+                    List<String> names = new ArrayList<>(bulkSize);
+                    long count = cell(c, channel -> {
+                        chunk.add(operation.apply(channel));
+                        names.add(channel.getName());
+                        if (chunk.size() >= bulkSize) {
+                            bulk(BulkRequest.of(b -> b.operations(chunk)), failed);
+                            written.accept(names);
+                            chunk.clear();
+                            names.clear();
+                        }
+                    });
+                    if (!chunk.isEmpty()) {
+                        bulk(BulkRequest.of(b -> b.operations(chunk)), failed);
+                        written.accept(names);
+                    }
+                    return count;
+                }));
+            }
+            for (Future<Long> result : results) {
+                channels += result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted after " + channels + " channels", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed after " + channels + " channels", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long documents = 0;
+        long bytes = 0;
+        try {
+            client.indices().refresh(r -> r.index(ES_CHANNEL_INDEX));
+            // the typed stats of the client hold the size in an int
+            Response response = TracingRestClientTransport.perform(((RestClientTransport) client._transport()).restClient(),
+                    new Request("GET", "/" + ES_CHANNEL_INDEX + "/_stats/docs,store"));
+            try (InputStream content = response.getEntity().getContent()) {
+                JsonNode primaries = objectMapper.readTree(content).path("_all").path("primaries");
+                documents = primaries.path("docs").path("count").asLong();
+                bytes = primaries.path("store").path("size_in_bytes").asLong();
+            }
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Failed to read the size of the index " + ES_CHANNEL_INDEX, e);
+        }
+        return new Report(cells, channels, failed.get(), seconds, documents, bytes);
+    }
+
+    private void bulk(BulkRequest request, AtomicLong failed) {
+        try {
+            BulkResponse response = BulkEvent.bulk(client, request);
+            if (response.errors()) {
+                for (BulkResponseItem item : response.items()) {
+                    if (item.error() != null && failed.getAndIncrement() == 0) {
+                        log.severe("Bulk had errors, first: " + item.error().reason());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the tag vocabulary, by decreasing frequency
+     */
+    List<String> tagNames() {
+        List<String> names = new ArrayList<>(tags);
+        for (int rank = 0; rank < tags; rank++) {
+            names.add(tagName(rank));
+        }
+        return names;
+    }
+
+    /**
+     * Generate the channels of a cell
+     *
+     * @param cell the cell, from 1
+     * @param consumer receives the channels of the cell in order
+     * @return the number of channels of the cell
+     */
+    long cell(int cell, Consumer<XmlChannel> consumer) {
+        SplittableRandom random = new SplittableRandom(seed * 1_000_003L + cell);
+        String cellName = String.format("%03d", cell);
+        Zipf tagRanks = new Zipf(tags);
+        long count = section(random, tagRanks, "SR:C", "storage ring", cellName, STORAGE_RING, consumer);
+        count += section(random, tagRanks, "BR:C", "booster", cellName, BOOSTER, consumer);
+        return count;
+    }
+
+    private long section(SplittableRandom random, Zipf tagRanks, String prefix, String location, String cell,
+                         Device[] devices, Consumer<XmlChannel> consumer) {
+        String system = prefix.substring(0, 2).toLowerCase();
+        // one ioc per kind of signal of the section, on a few hosts, each booted at its own time
+        Map<String, String[]> iocs = new HashMap<>();
+        int hosts = 1 + random.nextInt(3);
+        long count = 0;
+        for (Device device : devices) {
+            // the device counts vary by up to a quarter from cell to cell
+            int devicesInCell = Math.max(1, (int) Math.round(device.count * (0.75 + random.nextDouble() / 2)));
+            int width = devicesInCell > 9 ? 2 : 1;
+            for (int i = 1; i <= devicesInCell; i++) {
+                String family = String.format("%0" + width + "d", i);
+                for (Signal signal : device.signals) {
+                    String[] ioc = iocs.computeIfAbsent(signal.midfix, midfix -> new String[] {
+                            system + "-c" + cell + "-" + midfix.replaceAll("[^A-Za-z]", "").toLowerCase(),
+                            "srv-" + system + "-c" + cell + "-" + (1 + iocs.size() % hosts),
+                            EPOCH.plus(random.nextLong(365L * 24 * 3600), ChronoUnit.SECONDS).toString() });
+                    XmlChannel channel = new XmlChannel(CHANNEL_PREFIX + prefix + cell + "-" + signal.midfix + family
+                            + "{" + device.code + "}" + signal.postfix, PopulateService.cowner);
+                    List<XmlProperty> properties = channel.getProperties();
+                    properties.add(new XmlProperty(property("location"), PopulateService.powner, location));
+                    properties.add(new XmlProperty(property("cell"), PopulateService.powner, cell));
+                    properties.add(new XmlProperty(property("element"), PopulateService.powner, device.element));
+                    properties.add(new XmlProperty(property("device"), PopulateService.powner, signal.device));
+                    properties.add(new XmlProperty(property("family"), PopulateService.powner, family));
+                    properties.add(new XmlProperty(property("unit"), PopulateService.powner, signal.unit));
+                    properties.add(new XmlProperty(property("type"), PopulateService.powner, signal.type));
+                    properties.add(new XmlProperty(property("recordType"), PopulateService.powner, recordType(random, signal.type)));
+                    properties.add(new XmlProperty(property("iocName"), PopulateService.powner, ioc[0]));
+                    properties.add(new XmlProperty(property("hostName"), PopulateService.powner, ioc[1]));
+                    properties.add(new XmlProperty(property("pvStatus"), PopulateService.powner,
+                            random.nextDouble() < inactive ? "Inactive" : "Active"));
+                    properties.add(new XmlProperty(property("time"), PopulateService.powner, ioc[2]));
+                    for (String tag : tags(random, tagRanks)) {
+                        channel.getTags().add(new XmlTag(tag, PopulateService.towner));
+                    }
+                    consumer.accept(channel);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static String recordType(SplittableRandom random, String type) {
+        switch (type) {
+        case "readback":
+            return random.nextInt(10) == 0 ? "calc" : "ai";
+        case "setpoint":
+            return "ao";
+        case "status":
+            return random.nextInt(3) == 0 ? "mbbi" : "bi";
+        default:
+            return "bo";
+        }
+    }
+
+    /**
+     * A geometric number of distinct tags, drawn by their Zipf frequency
+     */
+    private Set<String> tags(SplittableRandom random, Zipf tagRanks) {
+        double more = tagsPerChannel / (tagsPerChannel + 1);
+        int count = 0;
+        while (count < tags && random.nextDouble() < more) {
+            count++;
+        }
+        Set<String> names = new LinkedHashSet<>();
+        while (names.size() < count) {
+            names.add(tagName(tagRanks.sample(random)));
+        }
+        return names;
+    }
+
+    private static String tagName(int rank) {
+        return String.format(VOCABULARY_PREFIX + "tag%04d", rank);
+    }
+
+    private static String property(String name) {
+        return VOCABULARY_PREFIX + name;
+    }
+
+    /**
+     * The ranks 0 to size - 1 with the probability of a rank inversely
+     * proportional to the rank + 1
+     */
+    static final class Zipf {
+        private final double[] cumulative;
+
+        Zipf(int size) {
+            cumulative = new double[size];
+            double sum = 0;
+            for (int rank = 0; rank < size; rank++) {
+                sum += 1.0 / (rank + 1);
+                cumulative[rank] = sum;
+            }
+            for (int rank = 0; rank < size; rank++) {
+                cumulative[rank] /= sum;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(rank < 0 ? -rank - 1 : rank, cumulative.length - 1);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.phoebus.channelfinder.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A role or ownership check of the authorization service.
+ */
+@Name("org.phoebus.channelfinder.Authorization")
+@Label("Authorization Check")
+@Category({ "ChannelFinder", "Security" })
+@Description("A role or ownership check of the authenticated user")
+@StackTrace(false)
+public class AuthorizationEvent extends Event {
+
+    @Label("User")
+    public String user;
+
+    @Label("Check")
+    @Description("role, owner or owners")
+    public String check;
+
+    @Label("Target")
+    @Description("The expected role, or the owner")
+    public String target;
+
+    @Label("Checked")
+    @Description("The number of elements whose owner was checked")
+    public int checked;
+
+    @Label("Authorized")
+    public boolean authorized;
+}
@@ -0,0 +1,74 @@
+package org.phoebus.channelfinder.jfr;
+
+import java.io.IOException;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperationBase;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A bulk request of the repositories, with the number of operations it
+ * carried and the time elastic reports it took.
+ */
+@Name("org.phoebus.channelfinder.Bulk")
+@Label("Bulk Request")
+@Category({ "ChannelFinder", "Elastic" })
+@Description("A bulk request of the channelfinder repositories")
+public class BulkEvent extends Event {
+
+    @Label("Index")
+    String index;
+
+    @Label("Operation")
+    @Description("The kind of the first operation, e.g. index, update or delete")
+    String operation;
+
+    @Label("Operations")
+    int operations;
+
+    @Label("Failed Operations")
+    int failures;
+
+    @Label("Took")
+    @Timespan(Timespan.MILLISECONDS)
+    long took;
+
+    /**
+     * Send a bulk request, recording it as a bulk event
+     *
+     * @param client - the elastic client
+     * @param request - the bulk request
+     * @return the bulk response
+     * @throws IOException if the request failed
+     */
+    public static BulkResponse bulk(ElasticsearchClient client, BulkRequest request) throws IOException {
+        BulkEvent event = new BulkEvent();
+        event.begin();
+        BulkResponse response = client.bulk(request);
+        event.end();
+        if (event.shouldCommit()) {
+            event.operations = request.operations().size();
+            if (!request.operations().isEmpty()) {
+                BulkOperation operation = request.operations().get(0);
+                event.operation = operation._kind().jsonValue();
+                event.index = operation._get() instanceof BulkOperationBase
+                        ? ((BulkOperationBase) operation._get()).index() : null;
+            }
+            if (event.index == null) {
+                event.index = request.index();
+            }
+            event.failures = (int) response.items().stream().filter(item -> item.error() != null).count();
+            event.took = response.took();
+            event.commit();
+        }
+        return response;
+    }
+}
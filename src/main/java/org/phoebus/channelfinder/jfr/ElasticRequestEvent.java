@@ -0,0 +1,193 @@
+package org.phoebus.channelfinder.jfr;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+import org.elasticsearch.client.HeapBufferedAsyncResponseConsumer;
+import org.elasticsearch.client.RequestOptions;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A request sent to elastic, from the request being written to the response
+ * headers being received, with the time elastic reports it took.
+ * <p>
+ * The event is committed once the response body has been read, by the
+ * response consumer of the request options, see {@link #options}.
+ */
+@Name("org.phoebus.channelfinder.ElasticRequest")
+@Label("Elastic Request")
+@Category({ "ChannelFinder", "Elastic" })
+@Description("A request of the elastic client")
+@StackTrace(false)
+public class ElasticRequestEvent extends Event {
+
+    private static final String EVENT_ATTRIBUTE = ElasticRequestEvent.class.getName();
+
+    @Label("Method")
+    String method;
+
+    @Label("Index")
+    String index;
+
+    @Label("Operation")
+    @Description("The elastic endpoint, e.g. _search, _bulk or _doc")
+    String operation;
+
+    @Label("Request Size")
+    @DataAmount
+    long requestSize;
+
+    @Label("Response Size")
+    @DataAmount
+    long responseSize;
+
+    @Label("Status")
+    int status;
+
+    @Label("Took")
+    @Description("The time elastic reports the request took, -1 when the response does not report it")
+    @Timespan(Timespan.MILLISECONDS)
+    long tookMillis = -1;
+
+    /** the heap buffer limit of the default response consumer of the elastic client */
+    private static final int BUFFER_LIMIT = 100 * 1024 * 1024;
+    /** the length of the beginning of the response searched for the took field */
+    private static final int TOOK_PREFIX = 64;
+    private static final byte[] TOOK = "\"took\":".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Record the requests of the elastic clients built by the builder, whose
+     * requests must be sent with the {@link #options}
+     *
+     * @param builder - the http client builder of an elastic rest client
+     * @return the builder
+     */
+    public static HttpAsyncClientBuilder record(HttpAsyncClientBuilder builder) {
+        return builder
+                .addInterceptorLast((HttpRequest request, HttpContext context) -> {
+                    ElasticRequestEvent event = new ElasticRequestEvent();
+                    if (event.isEnabled()) {
+                        event.begin();
+                        context.setAttribute(EVENT_ATTRIBUTE, event);
+                    }
+                })
+                .addInterceptorFirst((HttpResponse response, HttpContext context) -> {
+                    Object attribute = context.getAttribute(EVENT_ATTRIBUTE);
+                    if (attribute instanceof ElasticRequestEvent) {
+                        ((ElasticRequestEvent) attribute).end(
+                                HttpCoreContext.adapt(context).getRequest(), response);
+                    }
+                });
+    }
+
+    /**
+     * Set the response consumer committing the events of the requests once
+     * their response body has been read
+     *
+     * @param options - the options of the elastic requests
+     * @return the options
+     */
+    public static RequestOptions.Builder options(RequestOptions.Builder options) {
+        options.setHttpAsyncResponseConsumerFactory(() -> new HeapBufferedAsyncResponseConsumer(BUFFER_LIMIT) {
+            @Override
+            protected HttpResponse buildResult(HttpContext context) throws Exception {
+                HttpResponse response = super.buildResult(context);
+                Object attribute = context.getAttribute(EVENT_ATTRIBUTE);
+                if (attribute instanceof ElasticRequestEvent) {
+                    context.removeAttribute(EVENT_ATTRIBUTE);
+                    ((ElasticRequestEvent) attribute).commit(response);
+                }
+                return response;
+            }
+        });
+        return options;
+    }
+
+    private void end(HttpRequest request, HttpResponse response) {
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        method = request.getRequestLine().getMethod();
+        String path = request.getRequestLine().getUri();
+        int query = path.indexOf('?');
+        String[] parts = (query < 0 ? path : path.substring(0, query)).replaceFirst("^/", "").split("/");
+        if (parts.length > 0 && parts[0].startsWith("_")) {
+            operation = parts[0];
+        } else if (parts.length > 0) {
+            index = parts[0];
+            operation = parts.length > 1 ? parts[1] : "";
+        }
+        if (request instanceof HttpEntityEnclosingRequest) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            requestSize = entity == null ? 0 : entity.getContentLength();
+        }
+        HttpEntity entity = response.getEntity();
+        responseSize = entity == null ? 0 : entity.getContentLength();
+        status = response.getStatusLine().getStatusCode();
+    }
+
+    private void commit(HttpResponse response) throws IOException {
+        if (!shouldCommit()) {
+            return;
+        }
+        HttpEntity entity = response.getEntity();
+        if (entity != null) {
+            // the buffered content can only be read once, the client reads the prefix again
+            InputStream content = entity.getContent();
+            byte[] prefix = content.readNBytes(TOOK_PREFIX);
+            tookMillis = took(prefix);
+            response.setEntity(new HttpEntityWrapper(entity) {
+                @Override
+                public InputStream getContent() {
+                    return new SequenceInputStream(new ByteArrayInputStream(prefix), content);
+                }
+            });
+        }
+        commit();
+    }
+
+    /**
+     * @param prefix - the beginning of a response body
+     * @return the value of the leading took field of the search and bulk
+     *         responses, -1 if there is none
+     */
+    static long took(byte[] prefix) {
+        search: for (int i = 0; i + TOOK.length <= prefix.length; i++) {
+            for (int j = 0; j < TOOK.length; j++) {
+                if (prefix[i + j] != TOOK[j]) {
+                    continue search;
+                }
+            }
+            int digit = i + TOOK.length;
+            while (digit < prefix.length && prefix[digit] == ' ') {
+                digit++;
+            }
+            long took = -1;
+            for (; digit < prefix.length && prefix[digit] >= '0' && prefix[digit] <= '9'; digit++) {
+                took = Math.max(took, 0) * 10 + (prefix[digit] - '0');
+            }
+            return took;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,29 @@
+package org.phoebus.channelfinder.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A pvAccess rpc request, from its arrival to its response.
+ */
+@Name("org.phoebus.channelfinder.EpicsRpc")
+@Label("EPICS RPC")
+@Category({ "ChannelFinder", "EPICS" })
+@Description("A pvAccess rpc request of the channelfinder services")
+@StackTrace(false)
+public class EpicsRpcEvent extends Event {
+
+    @Label("Service")
+    public String service;
+
+    @Label("Arguments")
+    public String arguments;
+
+    @Label("Outcome")
+    @Description("ok, error or timeout")
+    public String outcome;
+}
@@ -0,0 +1,171 @@
+package org.phoebus.channelfinder.replay;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Appends the recorded queries to a local file, one json document per line,
+ * rotating the file when it exceeds its maximum size: <code>queries.jsonl</code>
+ * is renamed <code>queries.jsonl.1</code>, <code>queries.jsonl.1</code> is
+ * renamed <code>queries.jsonl.2</code> and so on, up to the number of files
+ * kept.
+ * <p>
+ * The requests only hand their query to a bounded queue, the queries are
+ * written by a single background thread. The queries arriving while the queue
+ * is full are dropped and counted rather than delaying the requests.
+ */
+public class QueryRecorder implements Closeable {
+
+    private static final Logger log = Logger.getLogger(QueryRecorder.class.getName());
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Path file;
+    private final long maxSize;
+    private final int files;
+    private final BlockingQueue<RecordedQuery> queue;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    private OutputStream out;
+    private long size;
+
+    /**
+     * @param file the file written
+     * @param maxSize the size of the file, in bytes, beyond which it is rotated
+     * @param files the number of files kept, including the one written
+     * @param capacity the queries waiting to be written beyond which they are dropped
+     * @throws IOException if the file cannot be opened
+     */
+    public QueryRecorder(Path file, long maxSize, int files, int capacity) throws IOException {
+        this.file = file;
+        this.maxSize = maxSize;
+        this.files = Math.max(1, files);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        open();
+        writer = new Thread(this::write, "query-recorder");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queue a query to be written
+     *
+     * @return false if the query was dropped
+     */
+    public boolean record(RecordedQuery query) {
+        if (closed || !queue.offer(query)) {
+            dropped.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of queries dropped as the queue was full
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return the files holding the recorded queries, the oldest first
+     */
+    public static List<Path> files(Path file) {
+        List<Path> rotated = new ArrayList<>();
+        for (int i = 1; Files.exists(rotated(file, i)); i++) {
+            rotated.add(0, rotated(file, i));
+        }
+        if (Files.exists(file)) {
+            rotated.add(file);
+        }
+        return rotated;
+    }
+
+    private static Path rotated(Path file, int i) {
+        return Paths.get(file + "." + i);
+    }
+
+    private void open() throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+        size = Files.size(file);
+    }
+
+    private void rotate() throws IOException {
+        out.close();
+        Files.deleteIfExists(rotated(file, files - 1));
+        for (int i = files - 2; i >= 1; i--) {
+            if (Files.exists(rotated(file, i))) {
+                Files.move(rotated(file, i), rotated(file, i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (files > 1) {
+            Files.move(file, rotated(file, 1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(file);
+        }
+        open();
+    }
+
+    private void write() {
+        while (!closed || !queue.isEmpty()) {
+            try {
+                RecordedQuery query = queue.poll(1, TimeUnit.SECONDS);
+                if (query == null) {
+                    out.flush();
+                    continue;
+                }
+                byte[] line = mapper.writeValueAsBytes(query);
+                out.write(line);
+                out.write('\n');
+                size += line.length + 1;
+                if (size >= maxSize) {
+                    rotate();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (IOException e) {
+                log.log(Level.WARNING, "Failed to record a query in " + file, e);
+            }
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Failed to close " + file, e);
+        }
+    }
+
+    /**
+     * Write the queued queries and close the file
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.phoebus.channelfinder.replay;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A query of the rest api as recorded by the {@link QueryRecorder}: the
+ * endpoint with its path variables rather than the path, the parameters,
+ * whether it carried credentials, when it was received, and its status and the
+ * time the service took to handle it.
+ */
+public class RecordedQuery {
+
+    private long timestamp;
+    private String method;
+    private String endpoint;
+    private Map<String, String> variables = new LinkedHashMap<>();
+    private Map<String, List<String>> parameters = new LinkedHashMap<>();
+    private boolean authorization;
+    private int status;
+    private long micros;
+
+    public RecordedQuery() {
+    }
+
+    /**
+     * @param timestamp the time the query was received, in milliseconds since the epoch
+     * @param method the http method
+     * @param endpoint the path pattern of the endpoint, within the context path
+     * @param variables the values of the path variables of the endpoint
+     * @param parameters the query parameters
+     * @param authorization whether the query carried an Authorization header
+     * @param status the http status of the response
+     * @param micros the time the service took to handle the query, in microseconds
+     */
+    public RecordedQuery(long timestamp, String method, String endpoint, Map<String, String> variables,
+                         Map<String, List<String>> parameters, boolean authorization, int status, long micros) {
+        this.timestamp = timestamp;
+        this.method = method;
+        this.endpoint = endpoint;
+        this.variables = variables;
+        this.parameters = parameters;
+        this.authorization = authorization;
+        this.status = status;
+        this.micros = micros;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public Map<String, String> getVariables() {
+        return variables;
+    }
+
+    public void setVariables(Map<String, String> variables) {
+        this.variables = variables;
+    }
+
+    public Map<String, List<String>> getParameters() {
+        return parameters;
+    }
+
+    public void setParameters(Map<String, List<String>> parameters) {
+        this.parameters = parameters;
+    }
+
+    public boolean isAuthorization() {
+        return authorization;
+    }
+
+    public void setAuthorization(boolean authorization) {
+        this.authorization = authorization;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public long getMicros() {
+        return micros;
+    }
+
+    public void setMicros(long micros) {
+        this.micros = micros;
+    }
+}
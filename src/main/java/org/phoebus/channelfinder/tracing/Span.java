@@ -0,0 +1,177 @@
+package org.phoebus.channelfinder.tracing;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A timed operation of a trace, following the OpenTelemetry span model: a
+ * span has the 16 bytes id of its trace, its own 8 bytes id, the id of its
+ * parent span, a kind, attributes and a status.
+ * <p>
+ * A span is the current span of the thread which started it until it is
+ * closed, the spans started meanwhile on that thread are its children.
+ */
+public class Span implements AutoCloseable {
+
+    public enum Kind {
+        INTERNAL(1), SERVER(2), CLIENT(3);
+
+        /** the OTLP value of the kind */
+        final int code;
+
+        Kind(int code) {
+            this.code = code;
+        }
+    }
+
+    /** the span returned when tracing is disabled, it records nothing */
+    static final Span NOOP = new Span(null, null, null, null, Kind.INTERNAL, null);
+
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId;
+    private final Span parent;
+    private final Kind kind;
+    private volatile String name;
+    private final long start;
+    private final long startNanos = System.nanoTime();
+    private long end;
+    private final Map<String, Object> attributes = new LinkedHashMap<>();
+    private String error;
+
+    Span(String traceId, String spanId, String parentSpanId, Span parent, Kind kind, String name) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.parent = parent;
+        this.kind = kind;
+        this.name = name;
+        Instant now = Instant.now();
+        this.start = now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    }
+
+    public boolean isRecording() {
+        return this != NOOP;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    Span getParent() {
+        return parent;
+    }
+
+    /**
+     * @param name - the new name of the span, e.g. once the route of a request is known
+     * @return this span
+     */
+    public Span setName(String name) {
+        if (isRecording()) {
+            this.name = name;
+        }
+        return this;
+    }
+
+    /**
+     * @param key - the attribute name, preferably an OpenTelemetry semantic convention
+     * @param value - a string, boolean, long or double value
+     * @return this span
+     */
+    public synchronized Span setAttribute(String key, Object value) {
+        if (isRecording() && value != null) {
+            attributes.put(key, value);
+        }
+        return this;
+    }
+
+    /**
+     * Mark the span as failed
+     *
+     * @param error - the error
+     * @return this span
+     */
+    public synchronized Span setError(Throwable error) {
+        if (isRecording()) {
+            this.error = error.getClass().getName() + ": " + error.getMessage();
+        }
+        return this;
+    }
+
+    /**
+     * @return the W3C trace context of this span, to be sent as the traceparent header
+     */
+    public String traceparent() {
+        return "00-" + traceId + "-" + spanId + "-01";
+    }
+
+    /**
+     * End the span, its parent becomes the current span again and the span is
+     * exported
+     */
+    @Override
+    public void close() {
+        if (isRecording()) {
+            synchronized (this) {
+                end = start + System.nanoTime() - startNanos;
+            }
+            Tracing.end(this);
+        }
+    }
+
+    /**
+     * @return the span in the OTLP JSON encoding
+     */
+    public synchronized Map<String, Object> toOtlp() {
+        Map<String, Object> span = new LinkedHashMap<>();
+        span.put("traceId", traceId);
+        span.put("spanId", spanId);
+        if (parentSpanId != null) {
+            span.put("parentSpanId", parentSpanId);
+        }
+        span.put("name", name);
+        span.put("kind", kind.code);
+        span.put("startTimeUnixNano", Long.toString(start));
+        span.put("endTimeUnixNano", Long.toString(end));
+        span.put("attributes", attributes(attributes));
+        Map<String, Object> status = new LinkedHashMap<>();
+        if (error != null) {
+            status.put("code", 2);
+            status.put("message", error);
+        }
+        span.put("status", status);
+        return span;
+    }
+
+    static List<Map<String, Object>> attributes(Map<String, Object> attributes) {
+        List<Map<String, Object>> otlp = new ArrayList<>(attributes.size());
+        attributes.forEach((key, value) -> {
+            Map<String, Object> any = new LinkedHashMap<>();
+            if (value instanceof Boolean) {
+                any.put("boolValue", value);
+            } else if (value instanceof Integer || value instanceof Long) {
+                any.put("intValue", value.toString());
+            } else if (value instanceof Number) {
+                any.put("doubleValue", value);
+            } else {
+                any.put("stringValue", value.toString());
+            }
+            Map<String, Object> attribute = new LinkedHashMap<>();
+            attribute.put("key", key);
+            attribute.put("value", any);
+            otlp.add(attribute);
+        });
+        return otlp;
+    }
+}
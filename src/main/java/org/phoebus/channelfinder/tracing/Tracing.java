@@ -0,0 +1,174 @@
+package org.phoebus.channelfinder.tracing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Starts the spans of the service and keeps the last finished spans in
+ * memory, so that the traces can be read from the service itself without a
+ * collector. The finished spans are also logged in the OTLP JSON encoding at
+ * the FINE level of this logger, to be shipped to a collector by the logging
+ * system if needed.
+ */
+public class Tracing {
+
+    static Logger log = Logger.getLogger(Tracing.class.getName());
+
+    /** the trace id propagated to elastic, shown in the elastic slow logs */
+    public static final String OPAQUE_ID_HEADER = "X-Opaque-Id";
+    /** the W3C trace context header */
+    public static final String TRACEPARENT_HEADER = "traceparent";
+
+    private static final Pattern TRACEPARENT = Pattern.compile("00-([0-9a-f]{32})-([0-9a-f]{16})-[0-9a-f]{2}");
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static final ThreadLocal<Span> current = new ThreadLocal<>();
+    private static volatile boolean enabled = true;
+    private static volatile int bufferSize = 10000;
+    private static final Deque<Span> finished = new ArrayDeque<>();
+
+    private Tracing() {
+    }
+
+    /**
+     * @param enabled - false to stop recording spans
+     * @param bufferSize - the number of finished spans kept in memory
+     */
+    public static void configure(boolean enabled, int bufferSize) {
+        Tracing.enabled = enabled;
+        Tracing.bufferSize = bufferSize;
+    }
+
+    /**
+     * @return the current span of this thread, null if none
+     */
+    public static Span current() {
+        return current.get();
+    }
+
+    /**
+     * Start a span, child of the current span of this thread or the root of a
+     * new trace
+     *
+     * @param name - the name of the span
+     * @param kind - the kind of the span
+     * @return the span, current until it is closed
+     */
+    public static Span start(String name, Span.Kind kind) {
+        Span parent = current.get();
+        return parent == null ? start(name, kind, null) : start(name, kind, parent.getTraceId(), parent.getSpanId(), parent);
+    }
+
+    /**
+     * Start a span continuing the trace of a request
+     *
+     * @param name - the name of the span
+     * @param kind - the kind of the span
+     * @param traceparent - the W3C trace context of the request, a new trace is started if null or invalid
+     * @return the span, current until it is closed
+     */
+    public static Span start(String name, Span.Kind kind, String traceparent) {
+        if (traceparent != null) {
+            Matcher matcher = TRACEPARENT.matcher(traceparent.trim());
+            if (matcher.matches()) {
+                return start(name, kind, matcher.group(1), matcher.group(2), current.get());
+            }
+        }
+        return start(name, kind, id(16), null, current.get());
+    }
+
+    private static Span start(String name, Span.Kind kind, String traceId, String parentSpanId, Span parent) {
+        if (!enabled) {
+            return Span.NOOP;
+        }
+        Span span = new Span(traceId, id(8), parentSpanId, parent, kind, name);
+        current.set(span);
+        return span;
+    }
+
+    static void end(Span span) {
+        if (current.get() == span) {
+            if (span.getParent() == null) {
+                current.remove();
+            } else {
+                current.set(span.getParent());
+            }
+        }
+        synchronized (finished) {
+            finished.addLast(span);
+            while (finished.size() > bufferSize) {
+                finished.removeFirst();
+            }
+        }
+        if (log.isLoggable(Level.FINE)) {
+            try {
+                log.fine(mapper.writeValueAsString(span.toOtlp()));
+            } catch (JsonProcessingException e) {
+                log.log(Level.FINE, "Failed to write span " + span.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * @param traceId - a trace id, null for all the traces
+     * @return the finished spans kept in memory, oldest first
+     */
+    public static List<Span> spans(String traceId) {
+        List<Span> spans = new ArrayList<>();
+        synchronized (finished) {
+            for (Span span : finished) {
+                if (traceId == null || traceId.equals(span.getTraceId())) {
+                    spans.add(span);
+                }
+            }
+        }
+        return spans;
+    }
+
+    /**
+     * @param spans - finished spans
+     * @param serviceName - the name of the service
+     * @return the spans in the OTLP JSON encoding of an export request
+     */
+    public static Map<String, Object> toOtlp(List<Span> spans, String serviceName) {
+        List<Map<String, Object>> otlpSpans = new ArrayList<>(spans.size());
+        for (Span span : spans) {
+            otlpSpans.add(span.toOtlp());
+        }
+        Map<String, Object> resourceAttributes = new LinkedHashMap<>();
+        resourceAttributes.put("service.name", serviceName);
+        Map<String, Object> scope = new LinkedHashMap<>();
+        scope.put("name", Tracing.class.getPackageName());
+        Map<String, Object> scopeSpans = new LinkedHashMap<>();
+        scopeSpans.put("scope", scope);
+        scopeSpans.put("spans", otlpSpans);
+        Map<String, Object> resource = new LinkedHashMap<>();
+        resource.put("attributes", Span.attributes(resourceAttributes));
+        Map<String, Object> resourceSpans = new LinkedHashMap<>();
+        resourceSpans.put("resource", resource);
+        resourceSpans.put("scopeSpans", List.of(scopeSpans));
+        return Map.of("resourceSpans", List.of(resourceSpans));
+    }
+
+    private static String id(int bytes) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder id = new StringBuilder(bytes * 2);
+        for (int i = 0; i < bytes; i++) {
+            int b = random.nextInt(256);
+            id.append(Character.forDigit(b >> 4, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return id.toString();
+    }
+}
@@ -0,0 +1,103 @@
+package org.phoebus.channelfinder.tracing;
+
+import java.io.IOException;
+
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.RestClient;
+import org.phoebus.channelfinder.jfr.ElasticRequestEvent;
+import org.phoebus.channelfinder.usage.UsageAccounting;
+
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.transport.Endpoint;
+import co.elastic.clients.transport.TransportOptions;
+import co.elastic.clients.transport.rest_client.RestClientOptions;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+
+/**
+ * A transport recording a client span for each elastic request, and sending
+ * the trace id as the <code>X-Opaque-Id</code> of the request so that the
+ * elastic slow logs and tasks can be matched with the traces of the service.
+ * The time of each request is also accounted to the rest request making it,
+ * see {@link UsageAccounting}.
+ */
+public class TracingRestClientTransport extends RestClientTransport {
+
+    public TracingRestClientTransport(RestClient restClient, JsonpMapper mapper) {
+        super(restClient, mapper, new RestClientOptions(ElasticRequestEvent.options(RequestOptions.DEFAULT.toBuilder()).build()));
+    }
+
+    @Override
+    public <RequestT, ResponseT, ErrorT> ResponseT performRequest(RequestT request,
+            Endpoint<RequestT, ResponseT, ErrorT> endpoint, TransportOptions options) throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (Tracing.current() == null) {
+                return super.performRequest(request, endpoint, options);
+            }
+            try (Span span = Tracing.start("elastic " + endpoint.id(), Span.Kind.CLIENT)) {
+                span.setAttribute("db.system", "elasticsearch")
+                    .setAttribute("db.operation", endpoint.id())
+                    .setAttribute("http.method", endpoint.method(request))
+                    .setAttribute("http.url", endpoint.requestUrl(request));
+                try {
+                    return super.performRequest(request, endpoint, traced(options == null ? options() : options, span));
+                } catch (IOException | RuntimeException e) {
+                    span.setError(e);
+                    throw e;
+                }
+            }
+        } finally {
+            UsageAccounting.elastic(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Perform a low level elastic request with the trace headers of the
+     * current span, accounting its time as the typed requests
+     *
+     * @param client - the low level client
+     * @param request - the request
+     * @return the response
+     * @throws IOException if the request failed
+     */
+    public static Response perform(RestClient client, Request request) throws IOException {
+        long start = System.nanoTime();
+        try {
+            request.setOptions(ElasticRequestEvent.options(request.getOptions().toBuilder()));
+            return client.performRequest(trace(request));
+        } finally {
+            UsageAccounting.elastic(System.nanoTime() - start);
+        }
+    }
+
+    private static TransportOptions traced(TransportOptions options, Span span) {
+        if (!span.isRecording()) {
+            return options;
+        }
+        RequestOptions.Builder builder = options instanceof RestClientOptions
+                ? ((RestClientOptions) options).restClientRequestOptions().toBuilder()
+                : RequestOptions.DEFAULT.toBuilder();
+        return new RestClientOptions(trace(builder, span).build());
+    }
+
+    /**
+     * Add the trace headers of the current span to a low level elastic request
+     *
+     * @param request - the request
+     * @return the request
+     */
+    public static Request trace(Request request) {
+        Span span = Tracing.current();
+        if (span != null && span.isRecording()) {
+            request.setOptions(trace(request.getOptions().toBuilder(), span));
+        }
+        return request;
+    }
+
+    private static RequestOptions.Builder trace(RequestOptions.Builder builder, Span span) {
+        return builder.addHeader(Tracing.OPAQUE_ID_HEADER, span.getTraceId())
+                .addHeader(Tracing.TRACEPARENT_HEADER, span.traceparent());
+    }
+}
@@ -0,0 +1,86 @@
+package org.phoebus.channelfinder.usage;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * A response counting the bytes written to its body
+ */
+public class CountingResponse extends HttpServletResponseWrapper {
+
+    private ServletOutputStream output;
+    private PrintWriter writer;
+    private long bytes;
+
+    public CountingResponse(HttpServletResponse response) {
+        super(response);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (output == null) {
+            ServletOutputStream delegate = super.getOutputStream();
+            output = new ServletOutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    delegate.write(b);
+                    bytes++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    delegate.write(b, off, len);
+                    bytes += len;
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    delegate.flush();
+                }
+
+                @Override
+                public boolean isReady() {
+                    return delegate.isReady();
+                }
+
+                @Override
+                public void setWriteListener(WriteListener listener) {
+                    delegate.setWriteListener(listener);
+                }
+            };
+        }
+        return output;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        super.flushBuffer();
+    }
+
+    /**
+     * @return the bytes written to the body so far, the writer being flushed
+     */
+    public long getBytes() {
+        if (writer != null) {
+            writer.flush();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,144 @@
+package org.phoebus.channelfinder.usage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.BinaryOperator;
+
+/**
+ * The space saving summary of Metwally, Agrawal and El Abbadi, finding the
+ * heaviest keys of a stream of weighted keys with a fixed number of counters.
+ * <p>
+ * A key which is not counted yet takes the counter of the smallest count, and
+ * inherits that count as the error of its estimate. The count of a key is
+ * then overestimated by at most its error, and every key weighing more than
+ * <code>total / capacity</code> is counted.
+ * <p>
+ * Each counter also merges the values added with its key since the key was
+ * last counted.
+ *
+ * @param <T> the values added with the keys
+ */
+public class SpaceSaving<T> {
+
+    private static final Comparator<Counter<?>> ORDER = Comparator.comparingLong((Counter<?> counter) -> counter.count)
+            .thenComparing(counter -> counter.key);
+
+    private final int capacity;
+    private final BinaryOperator<T> merge;
+    private final Map<String, Counter<T>> counters = new HashMap<>();
+    private final TreeSet<Counter<T>> order = new TreeSet<>(ORDER);
+    private long total;
+
+    /**
+     * @param capacity - the number of counters
+     * @param merge - merges the values added with the same key
+     */
+    public SpaceSaving(int capacity, BinaryOperator<T> merge) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.merge = merge;
+    }
+
+    /**
+     * Count a key
+     *
+     * @param key - the key
+     * @param weight - the weight of the key, the keys of no weight are only
+     *            counted if they are already
+     * @param value - the value merged into the counter of the key
+     */
+    public synchronized void add(String key, long weight, T value) {
+        total += Math.max(0, weight);
+        Counter<T> counter = counters.get(key);
+        if (counter != null) {
+            order.remove(counter);
+            counter.count += Math.max(0, weight);
+            counter.value = merge.apply(counter.value, value);
+            order.add(counter);
+        } else if (weight > 0) {
+            if (counters.size() < capacity) {
+                counter = new Counter<>(key, weight, 0, value);
+            } else {
+                Counter<T> smallest = order.pollFirst();
+                counters.remove(smallest.key);
+                counter = new Counter<>(key, smallest.count + weight, smallest.count, value);
+            }
+            counters.put(key, counter);
+            order.add(counter);
+        }
+    }
+
+    /**
+     * @param n - the number of keys
+     * @return copies of the counters of the n heaviest keys, heaviest first
+     */
+    public synchronized List<Counter<T>> top(int n) {
+        List<Counter<T>> top = new ArrayList<>(Math.min(n, counters.size()));
+        Iterator<Counter<T>> counters = order.descendingIterator();
+        while (top.size() < n && counters.hasNext()) {
+            Counter<T> counter = counters.next();
+            top.add(new Counter<>(counter.key, counter.count, counter.error, counter.value));
+        }
+        return top;
+    }
+
+    /**
+     * @return the total weight of the keys counted so far
+     */
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    /**
+     * Forget all the keys
+     */
+    public synchronized void clear() {
+        counters.clear();
+        order.clear();
+        total = 0;
+    }
+
+    public static class Counter<T> {
+        private final String key;
+        private long count;
+        private final long error;
+        private T value;
+
+        Counter(String key, long count, long error, T value) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+            this.value = value;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return the estimated weight of the key, at most {@link #getError()}
+         *         more than its actual weight
+         */
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+
+        /**
+         * @return the merged values added since the key was last counted
+         */
+        public T getValue() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.phoebus.channelfinder.usage;
+
+/**
+ * The usage of the service by a principal or a client: its requests, the
+ * requests which failed, the elements returned, the bytes of the responses
+ * and the time spent in elastic.
+ */
+public final class Usage {
+
+    public static final Usage NONE = new Usage(0, 0, 0, 0, 0);
+
+    private final long requests;
+    private final long errors;
+    private final long rows;
+    private final long bytes;
+    private final long elasticNanos;
+
+    public Usage(long requests, long errors, long rows, long bytes, long elasticNanos) {
+        this.requests = requests;
+        this.errors = errors;
+        this.rows = rows;
+        this.bytes = bytes;
+        this.elasticNanos = elasticNanos;
+    }
+
+    /**
+     * @param other - another usage
+     * @return the sum of both usages
+     */
+    public Usage plus(Usage other) {
+        return new Usage(requests + other.requests,
+                errors + other.errors,
+                rows + other.rows,
+                bytes + other.bytes,
+                elasticNanos + other.elasticNanos);
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getElasticNanos() {
+        return elasticNanos;
+    }
+}
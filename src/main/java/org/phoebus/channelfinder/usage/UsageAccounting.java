@@ -0,0 +1,240 @@
+package org.phoebus.channelfinder.usage;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * Accounts the usage of the service by principal and by client address, to
+ * find who is loading the service and elastic without parsing the access logs.
+ * <p>
+ * The heaviest principals and clients are kept for each metric in a
+ * {@link SpaceSaving} summary of a fixed capacity, so that the memory used
+ * does not grow with the number of clients.
+ * <p>
+ * The usage of a request is gathered on the thread handling it, between
+ * {@link #begin()} and {@link #end(String, int, long)}, then appended to a
+ * lock free queue. The queued usages are added to the summaries in batches,
+ * by the request thread completing a batch unless another thread is already
+ * adding them, and by the readers of the summaries: the request threads never
+ * wait for each other on the summaries.
+ */
+public class UsageAccounting {
+
+    /** the principal of the requests made without authentication */
+    public static final String ANONYMOUS = "anonymous";
+
+    public enum Dimension {
+        PRINCIPAL, CLIENT
+    }
+
+    public enum Metric {
+        REQUESTS(Usage::getRequests),
+        ERRORS(Usage::getErrors),
+        ROWS(Usage::getRows),
+        BYTES(Usage::getBytes),
+        ELASTIC(Usage::getElasticNanos);
+
+        private final ToLongFunction<Usage> weight;
+
+        Metric(ToLongFunction<Usage> weight) {
+            this.weight = weight;
+        }
+
+        public long weight(Usage usage) {
+            return weight.applyAsLong(usage);
+        }
+    }
+
+    private static class Request {
+        private String principal = ANONYMOUS;
+        private long rows;
+        private long elasticNanos;
+    }
+
+    /** the usage of a request, queued to be added to the summaries */
+    private static class Accounted {
+        private final String principal;
+        private final String client;
+        private final Usage usage;
+
+        Accounted(String principal, String client, Usage usage) {
+            this.principal = principal;
+            this.client = client;
+            this.usage = usage;
+        }
+    }
+
+    /** the number of queued usages from which a request thread adds them to the summaries */
+    static final int BATCH = 256;
+
+    private static final ThreadLocal<Request> current = new ThreadLocal<>();
+    private static final Queue<Accounted> pending = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger pendingSize = new AtomicInteger();
+    private static final ReentrantLock summarizing = new ReentrantLock();
+    private static volatile boolean enabled = true;
+    private static volatile Map<Dimension, Map<Metric, SpaceSaving<Usage>>> summaries = summaries(1000);
+
+    private UsageAccounting() {
+    }
+
+    /**
+     * @param enabled - false to stop the accounting
+     * @param capacity - the number of principals and clients counted for each metric
+     */
+    public static void configure(boolean enabled, int capacity) {
+        UsageAccounting.enabled = enabled;
+        UsageAccounting.summaries = summaries(capacity);
+    }
+
+    private static Map<Dimension, Map<Metric, SpaceSaving<Usage>>> summaries(int capacity) {
+        Map<Dimension, Map<Metric, SpaceSaving<Usage>>> summaries = new EnumMap<>(Dimension.class);
+        for (Dimension dimension : Dimension.values()) {
+            Map<Metric, SpaceSaving<Usage>> metrics = new EnumMap<>(Metric.class);
+            for (Metric metric : Metric.values()) {
+                metrics.put(metric, new SpaceSaving<>(capacity, Usage::plus));
+            }
+            summaries.put(dimension, metrics);
+        }
+        return summaries;
+    }
+
+    /**
+     * Start accounting the request handled by this thread
+     */
+    public static void begin() {
+        if (enabled) {
+            current.set(new Request());
+        }
+    }
+
+    /**
+     * @param principal - the principal of the request handled by this thread
+     */
+    public static void principal(String principal) {
+        Request request = current.get();
+        if (request != null && principal != null) {
+            request.principal = principal;
+        }
+    }
+
+    /**
+     * @param rows - a number of elements returned by the request handled by this thread
+     */
+    public static void rows(long rows) {
+        Request request = current.get();
+        if (request != null) {
+            request.rows += rows;
+        }
+    }
+
+    /**
+     * @param nanos - a time spent in elastic by the request handled by this thread
+     */
+    public static void elastic(long nanos) {
+        Request request = current.get();
+        if (request != null) {
+            request.elasticNanos += nanos;
+        }
+    }
+
+    /**
+     * Account the request handled by this thread
+     *
+     * @param client - the address of the client
+     * @param status - the http status of the response
+     * @param bytes - the bytes of the response
+     * @return the usage of the request, null if it was not accounted
+     */
+    public static Usage end(String client, int status, long bytes) {
+        Request request = current.get();
+        if (request == null) {
+            return null;
+        }
+        current.remove();
+        Usage usage = new Usage(1, status >= 400 ? 1 : 0, request.rows, bytes, request.elasticNanos);
+        pending.offer(new Accounted(request.principal, client, usage));
+        if (pendingSize.incrementAndGet() >= BATCH && summarizing.tryLock()) {
+            try {
+                summarize();
+            } finally {
+                summarizing.unlock();
+            }
+        }
+        return usage;
+    }
+
+    /**
+     * Add the queued usages to the summaries, holding the summarizing lock
+     */
+    private static void summarize() {
+        Map<Dimension, Map<Metric, SpaceSaving<Usage>>> summaries = UsageAccounting.summaries;
+        Accounted accounted;
+        while ((accounted = pending.poll()) != null) {
+            pendingSize.decrementAndGet();
+            add(summaries.get(Dimension.PRINCIPAL), accounted.principal, accounted.usage);
+            add(summaries.get(Dimension.CLIENT), accounted.client, accounted.usage);
+        }
+    }
+
+    /**
+     * Add the queued usages to the summaries before they are read
+     */
+    private static void flush() {
+        summarizing.lock();
+        try {
+            summarize();
+        } finally {
+            summarizing.unlock();
+        }
+    }
+
+    private static void add(Map<Metric, SpaceSaving<Usage>> summaries, String key, Usage usage) {
+        for (Map.Entry<Metric, SpaceSaving<Usage>> summary : summaries.entrySet()) {
+            summary.getValue().add(key, summary.getKey().weight(usage), usage);
+        }
+    }
+
+    /**
+     * @param dimension - principals or clients
+     * @param metric - the metric ranking them
+     * @param n - the number of principals or clients
+     * @return the n heaviest principals or clients for the metric, heaviest first
+     */
+    public static List<SpaceSaving.Counter<Usage>> top(Dimension dimension, Metric metric, int n) {
+        flush();
+        return summaries.get(dimension).get(metric).top(n);
+    }
+
+    /**
+     * @param dimension - principals or clients
+     * @param metric - a metric
+     * @return the total of the metric since the last reset
+     */
+    public static long total(Dimension dimension, Metric metric) {
+        flush();
+        return summaries.get(dimension).get(metric).getTotal();
+    }
+
+    /**
+     * Forget the usage accounted so far
+     */
+    public static void reset() {
+        summarizing.lock();
+        try {
+            summarize();
+            for (Map<Metric, SpaceSaving<Usage>> metrics : summaries.values()) {
+                for (SpaceSaving<Usage> summary : metrics.values()) {
+                    summary.clear();
+                }
+            }
+        } finally {
+            summarizing.unlock();
+        }
+    }
+}
@@ -26,6 +26,9 @@ curl -H 'Content-Type: application/json' -XPUT http://${es_host}:${es_port}/cf_t
       },
       "owner" : {
         "type" : "keyword"
+      },
+      "lastModified" : {
+        "type" : "long"
       }
     }
   }
@@ -40,6 +43,9 @@ curl -H 'Content-Type: application/json' -XPUT http://${es_host}:${es_port}/cf_p
       },
       "owner" : {
         "type" : "keyword"
+      },
+      "lastModified" : {
+        "type" : "long"
       }
     }
   }
@@ -55,6 +61,9 @@ curl -H 'Content-Type: application/json' -XPUT http://${es_host}:${es_port}/chan
       "owner" : {
         "type" : "keyword"
       },
+      "lastModified" : {
+        "type" : "long"
+      },
       "script" : {
         "type" : "keyword"
       },
@@ -86,3 +95,20 @@ curl -H 'Content-Type: application/json' -XPUT http://${es_host}:${es_port}/chan
     }
   }
 }'
+
+curl -H 'Content-Type: application/json' -XPUT http://${es_host}:${es_port}/cf_tombstones -d'
+{
+"mappings":{
+    "properties" : {
+      "type" : {
+        "type" : "keyword"
+      },
+      "name" : {
+        "type" : "keyword"
+      },
+      "lastModified" : {
+        "type" : "long"
+      }
+    }
+  }
+}'
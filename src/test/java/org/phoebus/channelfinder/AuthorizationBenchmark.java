@@ -0,0 +1,104 @@
+package org.phoebus.channelfinder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.phoebus.channelfinder.AuthorizationService.ROLES;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Latency of the role and ownership checks of a user who is not an admin,
+ * within a request so that the authorities of the user are cached as they are
+ * by the rest requests.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class AuthorizationBenchmark {
+
+    @Param({"10000"})
+    int rows;
+
+    @Param({"10"})
+    int owners;
+
+    AuthorizationService authorizationService;
+    Authentication user;
+    XmlChannel channel;
+    List<XmlChannel> channels;
+
+    @Setup
+    public void setup() {
+        authorizationService = new AuthorizationService();
+        // the groups are set before the roles are first used
+        authorizationService.initializeAdminRoles("cf-admins");
+        authorizationService.initializeChannelModRoles("cf-channels");
+        authorizationService.initializePropertyRoles("cf-properties");
+        authorizationService.initializeTagRoles("cf-tags");
+        List<String> roles = new ArrayList<>();
+        for (int i = 0; i < owners; i++) {
+            roles.add("ROLE_OWNER" + i);
+        }
+        roles.add("ROLE_CF-TAGS");
+        user = new UsernamePasswordAuthenticationToken("user", "userPass", AuthorityUtils.createAuthorityList(roles.toArray(String[]::new)));
+        channels = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            channels.add(new XmlChannel("SR:C" + (i % 30) + "{Dev:" + i + "}Sig-I", "owner" + (i % owners)));
+        }
+        channel = channels.get(rows - 1);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public boolean isAuthorizedRole() {
+        return authorizationService.isAuthorizedRole(user, ROLES.CF_PROPERTY);
+    }
+
+    @Benchmark
+    public boolean isAuthorizedOwner() {
+        return authorizationService.isAuthorizedOwner(user, channel);
+    }
+
+    @Benchmark
+    public Optional<XmlChannel> findUnauthorizedOwner() {
+        return authorizationService.findUnauthorizedOwner(user, channels, XmlChannel::getOwner);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AuthorizationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -1,6 +1,11 @@
 package org.phoebus.channelfinder;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Optional;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.phoebus.channelfinder.AuthorizationService.ROLES;
@@ -202,11 +207,16 @@ public class AuthorizationIT {
         assertTrue("authorized user that is admin (property)",!authorizationService.isAuthorizedRole(SecurityContextHolder.getContext().getAuthentication(), ROLES.CF_PROPERTY));
         assertTrue("authorized user that is admin (tag)",!authorizationService.isAuthorizedRole(SecurityContextHolder.getContext().getAuthentication(), ROLES.CF_TAG));
     }
-}
-
-
-
-
-
-
 
+    @Test
+    @WithMockUser(username = "valid", roles = "GROUP")
+    public void findUnauthorizedOwner() {
+        List<XmlChannel> owned = List.of(testChannel, new XmlChannel("groupChannel", "group"), new XmlChannel("otherChannel", "valid"));
+        assertEquals("failed to authorize user that is direct and group owner (channels)", Optional.empty(),
+                authorizationService.findUnauthorizedOwner(SecurityContextHolder.getContext().getAuthentication(), owned, XmlChannel::getOwner));
+        XmlChannel invalidChannel = new XmlChannel("invalidChannel", "invalid");
+        List<XmlChannel> notOwned = List.of(testChannel, invalidChannel, new XmlChannel("groupChannel", "group"));
+        assertEquals("authorized user that is not owner (channels)", Optional.of(invalidChannel),
+                authorizationService.findUnauthorizedOwner(SecurityContextHolder.getContext().getAuthentication(), notOwned, XmlChannel::getOwner));
+    }
+}
@@ -0,0 +1,39 @@
+package org.phoebus.channelfinder;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.springframework.ldap.core.DirContextAdapter;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.ldap.userdetails.LdapAuthoritiesPopulator;
+
+public class CachingLdapAuthoritiesPopulatorIT {
+
+    /**
+     * the groups of a user are searched once until they expire or are invalidated
+     */
+    @Test
+    public void cacheAuthorities() {
+        AtomicInteger searches = new AtomicInteger();
+        LdapAuthoritiesPopulator ldap = (userData, username) -> {
+            searches.incrementAndGet();
+            return List.of(new SimpleGrantedAuthority("ROLE_CF-" + username.toUpperCase()));
+        };
+        CachingLdapAuthoritiesPopulator populator = new CachingLdapAuthoritiesPopulator("test", ldap, 60, 10);
+
+        DirContextAdapter admin = new DirContextAdapter("uid=admin,ou=People");
+        DirContextAdapter user = new DirContextAdapter("uid=user,ou=People");
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_CF-ADMIN")), populator.getGrantedAuthorities(admin, "admin"));
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_CF-ADMIN")), populator.getGrantedAuthorities(admin, "admin"));
+        assertEquals(1, searches.get());
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_CF-USER")), populator.getGrantedAuthorities(user, "user"));
+        assertEquals(2, searches.get());
+
+        populator.invalidateAll();
+        populator.getGrantedAuthorities(admin, "admin");
+        assertEquals(3, searches.get());
+    }
+}
@@ -0,0 +1,139 @@
+package org.phoebus.channelfinder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(ChangeRepository.class)
+@TestPropertySource(properties = "changes.safety.lag=" + ChangeRepositoryIT.LAG)
+public class ChangeRepositoryIT {
+
+    static final long LAG = 1000;
+
+    @Autowired
+    ElasticConfig esService;
+
+    @Autowired
+    ChangeRepository changeRepository;
+
+    @Autowired
+    ChannelRepository channelRepository;
+
+    /**
+     * tokens are strictly increasing
+     */
+    @Test
+    public void nextStamp() {
+        long first = changeRepository.nextStamp();
+        long second = changeRepository.nextStamp();
+        assertTrue("Change feed tokens are not increasing", second > first);
+    }
+
+    /**
+     * created, updated and deleted channels are reported after the token
+     */
+    @Test
+    public void findChangesSince() throws InterruptedException {
+        long since = changeRepository.nextStamp();
+        XmlChannel testChannel = new XmlChannel("testChangeChannel", "testOwner");
+        XmlChannel testChannel1 = new XmlChannel("testChangeChannel1", "testOwner");
+        cleanupTestChannels = List.of(testChannel, testChannel1);
+
+        XmlChannel createdChannel = channelRepository.index(testChannel);
+        assertNotNull("Failed to stamp the created channel", createdChannel.getLastModified());
+        assertTrue("Failed to stamp the created channel", createdChannel.getLastModified() > since);
+        channelRepository.index(testChannel1);
+        channelRepository.deleteById(testChannel1.getName());
+
+        XmlChanges recent = changeRepository.findChangesSince(since, null);
+        assertTrue("Unexpected changes within the safety lag", recent.getChannels().isEmpty() && recent.getTombstones().isEmpty());
+
+        Thread.sleep(LAG);
+        XmlChanges changes = changeRepository.findChangesSince(since, null);
+        assertEquals("Failed to find the created channel",
+                List.of(testChannel.getName()),
+                changes.getChannels().stream().map(XmlChannel::getName).collect(Collectors.toList()));
+        assertEquals("Failed to find the deleted channel",
+                List.of(XmlTombstone.CHANNEL + ":" + testChannel1.getName()),
+                changes.getTombstones().stream().map(XmlTombstone::id).collect(Collectors.toList()));
+        assertTrue("Failed to return the token of the last change", changes.getToken() > createdChannel.getLastModified());
+
+        // nothing changed since the returned token
+        XmlChanges noChanges = changeRepository.findChangesSince(changes.getToken(), null);
+        assertTrue("Unexpected changes after the last token", noChanges.getChannels().isEmpty() && noChanges.getTombstones().isEmpty());
+    }
+
+    /**
+     * a client following the tokens while channels are written concurrently
+     * sees every channel
+     */
+    @Test
+    public void concurrentWrites() throws Exception {
+        long since = changeRepository.nextStamp();
+        List<XmlChannel> testChannels = IntStream.range(0, 200)
+                .mapToObj(i -> new XmlChannel("testChangeConcurrentChannel" + i, "testOwner"))
+                .collect(Collectors.toList());
+        cleanupTestChannels = testChannels;
+
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+        List<Future<XmlChannel>> written = new ArrayList<>();
+        testChannels.forEach(channel -> written.add(writers.submit(() -> channelRepository.index(channel))));
+        writers.shutdown();
+
+        Set<String> seen = new HashSet<>();
+        long token = since;
+        do {
+            XmlChanges changes = changeRepository.findChangesSince(token, 10);
+            changes.getChannels().forEach(channel -> seen.add(channel.getName()));
+            token = changes.getToken();
+        } while (!writers.awaitTermination(10, TimeUnit.MILLISECONDS));
+        for (Future<XmlChannel> channel : written) {
+            channel.get();
+        }
+
+        Thread.sleep(LAG);
+        XmlChanges changes;
+        do {
+            changes = changeRepository.findChangesSince(token, 10);
+            changes.getChannels().forEach(channel -> seen.add(channel.getName()));
+            token = changes.getToken();
+        } while (!changes.getChannels().isEmpty());
+        assertEquals("Failed to follow the concurrent writes",
+                testChannels.stream().map(XmlChannel::getName).collect(Collectors.toSet()), seen);
+    }
+
+    // helper operations to clean up
+
+    private List<XmlChannel> cleanupTestChannels = Collections.emptyList();
+
+    @After
+    public void cleanup() {
+        // clean up
+        cleanupTestChannels.forEach(channel -> {
+            if (channelRepository.existsById(channel.getName())) {
+                channelRepository.deleteById(channel.getName());
+            }
+        });
+    }
+}
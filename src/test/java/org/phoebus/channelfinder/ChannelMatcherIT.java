@@ -0,0 +1,61 @@
+package org.phoebus.channelfinder;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+public class ChannelMatcherIT {
+
+    private final XmlChannel testChannel = new XmlChannel("SR:C01-BI:G02A<BPM:L1>Pos-X", "testOwner",
+            List.of(new XmlProperty("domain", "testOwner", "storage ring"), new XmlProperty("cell", "testOwner", "01")),
+            List.of(new XmlTag("readback", "testOwner")));
+
+    /**
+     * match channels by name
+     */
+    @Test
+    public void matchName() {
+        assertTrue(matcher("~name", "SR:C01*").matches(testChannel));
+        assertTrue(matcher("~name", "BR*|SR:C0?-BI*").matches(testChannel));
+        assertFalse(matcher("~name", "SR:C02*").matches(testChannel));
+        // the pattern is not a regular expression
+        assertFalse(matcher("~name", "SR.C01.*").matches(testChannel));
+        assertTrue(matcher("~name", "SR:C01*").matchesName(testChannel.getName()));
+    }
+
+    /**
+     * match channels by tag
+     */
+    @Test
+    public void matchTag() {
+        assertTrue(matcher("~tag", "read*").matches(testChannel));
+        assertFalse(matcher("~tag", "setpoint").matches(testChannel));
+        assertFalse(matcher("~tag!", "readback").matches(testChannel));
+        assertTrue(matcher("~tag!", "setpoint").matches(testChannel));
+    }
+
+    /**
+     * match channels by property value
+     */
+    @Test
+    public void matchProperty() {
+        assertTrue(matcher("domain", "storage*").matches(testChannel));
+        assertTrue(matcher("cell", "02,01").matches(testChannel));
+        assertFalse(matcher("cell", "02").matches(testChannel));
+        assertFalse(matcher("type", "*").matches(testChannel));
+        assertTrue(matcher("cell!", "02").matches(testChannel));
+        // pagination parameters do not select channels
+        assertTrue(matcher("~size", "10").matches(testChannel));
+    }
+
+    private static ChannelMatcher matcher(String key, String value) {
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.add(key, value);
+        return new ChannelMatcher(params);
+    }
+}
@@ -1,11 +1,14 @@
 package org.phoebus.channelfinder;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 import org.junit.After;
@@ -19,6 +22,8 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 
+import com.fasterxml.jackson.databind.JsonNode;
+
 @RunWith(SpringRunner.class)
 @WebMvcTest(ChannelRepository.class)
 public class ChannelRepositorySearchIT {
@@ -124,6 +129,80 @@ public class ChannelRepositorySearchIT {
         }
     }
 
+    /**
+     * Test a multi search returns the same channels as the individual searches
+     * @throws InterruptedException 
+     */
+    @Test
+    public void searchAllTest() throws InterruptedException {
+        List<MultiValueMap<String, String>> queries = new ArrayList<>();
+        for (String name : Arrays.asList("SR*", "BR:C001-BI:?{BLA}Pos:*", "none*")) {
+            MultiValueMap<String, String> searchParameters = new LinkedMultiValueMap<String, String>();
+            searchParameters.add("~name", name);
+            queries.add(searchParameters);
+        }
+        MultiValueMap<String, String> tagQuery = new LinkedMultiValueMap<String, String>();
+        tagQuery.add("~name", "SR*");
+        tagQuery.add("~tag", "group0_" + val_bucket.get(3));
+        tagQuery.add("~size", "5");
+        queries.add(tagQuery);
+
+        List<List<XmlChannel>> results = channelRepository.searchAll(queries, null);
+        assertEquals(queries.size(), results.size());
+        for (int i = 0; i < queries.size(); i++) {
+            assertEquals("Search: " + maptoString(queries.get(i)) + " Failed",
+                    channelRepository.search(queries.get(i)), results.get(i));
+        }
+        assertEquals(0, results.get(2).size());
+        assertEquals(5, results.get(3).size());
+    }
+
+    /**
+     * Test counting channels and their tag and property facets
+     * @throws InterruptedException 
+     */
+    @Test
+    public void countAndFacetsTest() throws InterruptedException {
+        MultiValueMap<String, String> searchParameters = new LinkedMultiValueMap<String, String>();
+        searchParameters.add("~name", "SR*");
+        assertEquals(1000, channelRepository.count(searchParameters));
+
+        searchParameters.add("~tag", "group0_" + val_bucket.get(4));
+        assertEquals(val_bucket.get(4).longValue(), channelRepository.count(searchParameters));
+
+        searchParameters.clear();
+        searchParameters.add("~name", "SR*");
+        Map<String, Map<String, Long>> facets = channelRepository.facets(searchParameters,
+                Arrays.asList("group0", ChannelRepository.TAG_FACET), 1000);
+        for (Integer val : val_bucket) {
+            assertEquals(val.longValue(), facets.get("group0").get(String.valueOf(val)).longValue());
+            assertEquals(val.longValue(), facets.get(ChannelRepository.TAG_FACET).get("group0_" + val).longValue());
+        }
+    }
+
+    /**
+     * Test explaining and profiling a channel query
+     * @throws InterruptedException 
+     */
+    @Test
+    public void explainAndProfileTest() throws InterruptedException {
+        MultiValueMap<String, String> searchParameters = new LinkedMultiValueMap<String, String>();
+        searchParameters.add("~name", "SR*");
+        searchParameters.add("~tag", "group0_" + val_bucket.get(4));
+        searchParameters.add("~explain", "");
+
+        Map<String, Object> explanation = channelRepository.explain(searchParameters, false);
+        assertTrue("Failed to explain the elastic query", ((JsonNode) explanation.get("query")).path("query").has("bool"));
+        assertEquals(val_bucket.get(4).longValue(), ((Number) explanation.get("hits")).longValue());
+        assertTrue(((Number) explanation.get("took")).longValue() >= 0);
+        assertFalse("Profiled a query only to be explained", explanation.containsKey("profile"));
+
+        Map<String, Object> profile = channelRepository.explain(searchParameters, true);
+        assertEquals(explanation.get("query"), profile.get("query"));
+        assertEquals(val_bucket.get(4).longValue(), ((Number) profile.get("hits")).longValue());
+        assertTrue("Failed to profile the elastic query", ((JsonNode) profile.get("profile")).path("shards").size() > 0);
+    }
+
     private String maptoString(MultiValueMap<String, String> searchParameters) {
         StringBuffer sb = new StringBuffer();
         searchParameters.entrySet().forEach(e -> {
@@ -1,6 +1,8 @@
 package org.phoebus.channelfinder;
 
 import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.Arrays;
 
@@ -8,8 +10,10 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.server.ResponseStatusException;
 
 
@@ -30,6 +34,9 @@ public class ChannelValidationIT {
     @Autowired
     ChannelRepository channelRepository;
 
+    @Autowired
+    MockMvc mvc;
+
     /**
      * Attempt to XmlChannel request with null name
      */
@@ -66,6 +73,20 @@ public class ChannelValidationIT {
         channelManager.validateChannelRequest(testChannel1);
     }
 
+    /**
+     * Attempt to XmlChannel request listing a tag and a property twice
+     */
+    @Test
+    public void validateXmlChannelRequestDuplicateNames() throws Exception {
+        String channel = "{\"name\":\"testChannel1\",\"owner\":\"testOwner\","
+                + "\"properties\":[{\"name\":\"testProperty1\",\"owner\":\"testOwner\",\"value\":\"value\"},"
+                + "{\"name\":\"testProperty1\",\"owner\":\"testOwner\",\"value\":\"other\"}],"
+                + "\"tags\":[{\"name\":\"testTag1\",\"owner\":\"testOwner\"},{\"name\":\"testTag1\",\"owner\":\"testOwner\"}]}";
+        mvc.perform(put("/" + CFResourceDescriptors.CHANNEL_RESOURCE_URI + "/testChannel1")
+                .contentType(MediaType.APPLICATION_JSON).content(channel))
+                .andExpect(status().isBadRequest());
+    }
+
     /**
      * Attempt to XmlChannel request with a non existent tag
      */
@@ -0,0 +1,43 @@
+package org.phoebus.channelfinder;
+
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+
+public class MetricsManagerIT {
+
+    /**
+     * the meters are written in the Prometheus text format, timers in seconds
+     */
+    @Test
+    public void scrape() {
+        Timer timer = Timer.builder("cf.test.timer").description("test timer").tag("method", "search")
+                .register(MetricsConfig.registry);
+        timer.record(Duration.ofMillis(5));
+        timer.record(Duration.ofMillis(50));
+        Counter.builder("cf.test.counter").tag("result", "hit").register(MetricsConfig.registry).increment(3);
+        AtomicInteger value = new AtomicInteger(7);
+        Gauge.builder("cf.test.gauge", value, AtomicInteger::get).register(MetricsConfig.registry);
+
+        String text = MetricsManager.scrape(MetricsConfig.registry);
+        assertTrue(text, text.contains("# HELP cf_test_timer_seconds test timer\n# TYPE cf_test_timer_seconds histogram\n"));
+        assertTrue(text, text.contains("cf_test_timer_seconds_count{method=\"search\"} 2.0\n"));
+        assertTrue(text, text.contains("cf_test_timer_seconds_sum{method=\"search\"} 0.055\n"));
+        assertTrue(text, text.contains("cf_test_timer_seconds_bucket{method=\"search\",le=\"+Inf\"} 2.0\n"));
+        assertTrue(text, text.contains("cf_test_timer_seconds_bucket{method=\"search\",le=\"0.050331646\"} 2.0\n"));
+        assertTrue(text, text.contains("cf_test_timer_seconds_bucket{method=\"search\",le=\"0.005592405\"} 1.0\n"));
+        assertTrue(text, text.contains("# HELP cf_test_timer_seconds_max test timer\n# TYPE cf_test_timer_seconds_max gauge\n"
+                + "cf_test_timer_seconds_max{method=\"search\"} 0.05\n"));
+        // the maximum is only written in its own gauge family
+        assertTrue(text, text.indexOf("cf_test_timer_seconds_max{") > text.indexOf("# TYPE cf_test_timer_seconds_max gauge"));
+        assertTrue(text, text.contains("# TYPE cf_test_counter_total counter\ncf_test_counter_total{result=\"hit\"} 3.0\n"));
+        assertTrue(text, text.contains("# TYPE cf_test_gauge gauge\ncf_test_gauge 7.0\n"));
+    }
+}
@@ -0,0 +1,39 @@
+package org.phoebus.channelfinder;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(MetricsManager.class)
+public class MetricsManagerSecurityIT {
+
+    private static final String METRICS = "/" + CFResourceDescriptors.METRICS_RESOURCE_URI;
+
+    @Autowired
+    MockMvc mvc;
+
+    /**
+     * the metrics are not readable without authentication
+     */
+    @Test
+    public void anonymous() throws Exception {
+        mvc.perform(get(METRICS)).andExpect(status().isUnauthorized());
+    }
+
+    /**
+     * the metrics are readable by the authenticated users
+     */
+    @Test
+    @WithMockUser(roles = "CF-CHANNELS")
+    public void user() throws Exception {
+        mvc.perform(get(METRICS)).andExpect(status().isOk());
+    }
+}
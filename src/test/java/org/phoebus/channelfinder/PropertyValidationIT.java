@@ -1,6 +1,8 @@
 package org.phoebus.channelfinder;
 
 import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -9,8 +11,10 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.server.ResponseStatusException;
 
 
@@ -25,6 +29,9 @@ public class PropertyValidationIT {
     @Autowired
     ChannelRepository channelRepository;
 
+    @Autowired
+    MockMvc mvc;
+
     /**
      * Attempt to XmlProperty request with null name
      */
@@ -83,6 +90,19 @@ public class PropertyValidationIT {
         propertyManager.validatePropertyRequest(testProperty1);
     }
 
+    /**
+     * Attempt to XmlProperty request with a channel listing the property twice
+     */
+    @Test
+    public void validateXmlPropertyRequestDuplicateNames() throws Exception {
+        String property = "{\"name\":\"testProperty1\",\"owner\":\"testOwner\",\"channels\":[{\"name\":\"testChannel0\",\"owner\":\"testOwner\","
+                + "\"properties\":[{\"name\":\"testProperty1\",\"owner\":\"testOwner\",\"value\":\"value\"},"
+                + "{\"name\":\"testProperty1\",\"owner\":\"testOwner\",\"value\":\"other\"}]}]}";
+        mvc.perform(put("/" + CFResourceDescriptors.PROPERTY_RESOURCE_URI + "/testProperty1")
+                .contentType(MediaType.APPLICATION_JSON).content(property))
+                .andExpect(status().isBadRequest());
+    }
+
     /**
      * Attempt to XmlProperty request with some existent(and valid) and some non existent channels
      */
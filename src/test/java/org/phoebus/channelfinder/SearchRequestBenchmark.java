@@ -0,0 +1,100 @@
+package org.phoebus.channelfinder;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import jakarta.json.stream.JsonGenerator;
+
+/**
+ * Latency of translating the query parameters of a channel search into the
+ * elastic search request, and of writing the request sent to elastic.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class SearchRequestBenchmark {
+
+    @Param({"name", "tag", "property", "mixed"})
+    String query;
+
+    ChannelRepository channelRepository;
+    MultiValueMap<String, String> searchParameters;
+    SearchRequest request;
+    JacksonJsonpMapper mapper = new JacksonJsonpMapper();
+
+    @Setup
+    public void setup() {
+        channelRepository = new ChannelRepository();
+        ReflectionTestUtils.setField(channelRepository, "ES_CHANNEL_INDEX", "channelfinder");
+        ReflectionTestUtils.setField(channelRepository, "defaultMaxSize", 10000);
+        searchParameters = new LinkedMultiValueMap<>();
+        switch (query) {
+        case "name":
+            searchParameters.add("~name", "SR:C01*");
+            break;
+        case "tag":
+            searchParameters.add("~tag", "archived|aligned");
+            break;
+        case "property":
+            searchParameters.add("cell", "1|2|3|4|5");
+            break;
+        default:
+            searchParameters.add("~name", "SR:C01*|SR:C02*");
+            searchParameters.add("~tag", "archived");
+            searchParameters.add("~tag!", "obsolete");
+            searchParameters.add("domain", "storage ring");
+            searchParameters.add("element", "*corrector");
+            searchParameters.add("type!", "setpoint");
+            searchParameters.add("~size", "100");
+            searchParameters.add("~from", "200");
+            break;
+        }
+        request = channelRepository.searchRequest(searchParameters, null);
+    }
+
+    @Benchmark
+    public SearchRequest searchRequest() {
+        return channelRepository.searchRequest(searchParameters, List.of("name"));
+    }
+
+    @Benchmark
+    public String writeRequest() {
+        StringWriter json = new StringWriter();
+        JsonGenerator generator = mapper.jsonProvider().createGenerator(json);
+        request.serialize(generator, mapper);
+        generator.close();
+        return json.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SearchRequestBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
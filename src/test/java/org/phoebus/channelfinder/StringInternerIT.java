@@ -0,0 +1,90 @@
+package org.phoebus.channelfinder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class StringInternerIT {
+
+    @After
+    public void reset() {
+        StringInterner.set(new StringInterner(4096, 10000, 64));
+    }
+
+    /**
+     * the catalog and the cache return the first instance of a string
+     */
+    @Test
+    public void intern() {
+        StringInterner interner = new StringInterner(16, 1, 8);
+        String seeded = new String("cf-tags");
+        assertSame(seeded, interner.seed(seeded));
+        assertSame(seeded, interner.intern(new String("cf-tags")));
+        // the catalog is full
+        String other = new String("cf-props");
+        assertSame(other, interner.seed(other));
+        assertEquals(1, interner.getCatalogSize());
+
+        String cached = new String("ai");
+        assertSame(cached, interner.intern(cached));
+        assertSame(cached, interner.intern(new String("ai")));
+        // too long to be shared
+        String value = new String("storage ring");
+        assertNotSame(value, interner.intern(new String("storage ring")));
+        assertEquals(null, interner.intern(null));
+    }
+
+    /**
+     * the tags and properties written are added to the catalog of the current
+     * interner
+     */
+    @Test
+    public void catalog() {
+        StringInterner interner = new StringInterner(16, 10, 64);
+        StringInterner.set(interner);
+        String name = new String("newTag");
+        StringInterner.catalog(name, "cf-tags");
+        assertEquals(2, interner.getCatalogSize());
+        assertSame(name, interner.intern(new String("newTag")));
+
+        StringInterner.set(null);
+        StringInterner.catalog("otherTag", "cf-tags");
+        assertEquals(2, interner.getCatalogSize());
+    }
+
+    /**
+     * the names, owners and values of the deserialized channels are shared
+     */
+    @Test
+    public void deserialize() throws Exception {
+        StringInterner.set(new StringInterner(4096, 10000, 64));
+        String json = "[{\"name\":\"SR:C01-BI:G02A<BPM:L1>Pos-X\",\"owner\":\"testOwner\","
+                + "\"properties\":[{\"name\":\"domain\",\"owner\":\"testOwner\",\"value\":\"storage ring\"}],"
+                + "\"tags\":[{\"name\":\"readback\",\"owner\":\"testOwner\"}]},"
+                + "{\"name\":\"SR:C01-BI:G02A<BPM:L1>Pos-Y\",\"owner\":\"testOwner\","
+                + "\"properties\":[{\"name\":\"domain\",\"owner\":\"testOwner\",\"value\":\"storage ring\"}],"
+                + "\"tags\":[{\"name\":\"readback\",\"owner\":\"testOwner\"}]}]";
+        List<XmlChannel> channels = new ObjectMapper().readValue(json, new TypeReference<List<XmlChannel>>() {
+        });
+        XmlChannel x = channels.get(0);
+        XmlChannel y = channels.get(1);
+        assertSame(x.getOwner(), y.getOwner());
+        assertSame(x.getOwner(), x.getTags().get(0).getOwner());
+        assertSame(x.getProperties().get(0).getName(), y.getProperties().get(0).getName());
+        assertSame(x.getProperties().get(0).getValue(), y.getProperties().get(0).getValue());
+        assertSame(x.getTags().get(0).getName(), y.getTags().get(0).getName());
+
+        StringInterner.set(null);
+        channels = new ObjectMapper().readValue(json, new TypeReference<List<XmlChannel>>() {
+        });
+        assertNotSame(channels.get(0).getOwner(), channels.get(1).getOwner());
+    }
+}
@@ -0,0 +1,71 @@
+package org.phoebus.channelfinder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+public class TokenServiceIT {
+
+    private static final String SECRET = "tokenServiceTestSecretOfAtLeast32Bytes";
+
+    private final Authentication user = new UsernamePasswordAuthenticationToken("user", "userPass",
+            List.of(new SimpleGrantedAuthority("ROLE_CF-CHANNELS"), new SimpleGrantedAuthority("ROLE_CF-TAGS")));
+
+    /**
+     * a token authenticates the user with its roles
+     */
+    @Test
+    public void verifyToken() {
+        TokenService tokenService = new TokenService(SECRET, 60);
+        XmlToken token = tokenService.issue(user);
+        assertEquals(List.of("ROLE_CF-CHANNELS", "ROLE_CF-TAGS"), token.getRoles());
+
+        Authentication authentication = tokenService.verify(token.getToken());
+        assertTrue("Failed to mark the authentication by a token", authentication instanceof TokenService.TokenAuthentication);
+        assertEquals("user", authentication.getName());
+        assertEquals(token.getRoles(),
+                authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.toList()));
+    }
+
+    /**
+     * expired, tampered or foreign tokens are rejected
+     */
+    @Test
+    public void rejectInvalidToken() {
+        TokenService tokenService = new TokenService(SECRET, 60);
+        String token = tokenService.issue(user).getToken();
+
+        assertNull(new TokenService(SECRET, 0).verify(new TokenService(SECRET, 0).issue(user).getToken()));
+        assertNull(new TokenService("otherTokenServiceTestSecretOf32Bytes", 60).verify(token));
+        String[] parts = token.split("\\.");
+        String admin = java.util.Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"sub\":\"user\",\"roles\":[\"ROLE_CF-ADMINS\"],\"exp\":9999999999}".getBytes());
+        assertNull(tokenService.verify(parts[0] + "." + admin + "." + parts[2]));
+        assertNull(tokenService.verify("not a token"));
+    }
+
+    /**
+     * the tokens cannot be enabled without a secret
+     */
+    @Test(expected = IllegalStateException.class)
+    public void requireSecret() {
+        new TokenService(true, "", 60);
+    }
+
+    /**
+     * a secret shorter than the hash is rejected
+     */
+    @Test(expected = IllegalStateException.class)
+    public void requireLongSecret() {
+        new TokenService(true, "secret", 60);
+    }
+}
@@ -0,0 +1,48 @@
+package org.phoebus.channelfinder;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(TraceManager.class)
+public class TraceManagerIT {
+
+    private static final String TRACES = "/" + CFResourceDescriptors.TRACES_RESOURCE_URI;
+
+    @Autowired
+    MockMvc mvc;
+
+    /**
+     * the traces are not readable without authentication
+     */
+    @Test
+    public void anonymous() throws Exception {
+        mvc.perform(get(TRACES)).andExpect(status().isUnauthorized());
+    }
+
+    /**
+     * the traces are not readable by the users which are not ADMIN
+     */
+    @Test
+    @WithMockUser(roles = "CF-CHANNELS")
+    public void user() throws Exception {
+        mvc.perform(get(TRACES)).andExpect(status().isUnauthorized());
+    }
+
+    /**
+     * the traces are readable by ADMIN
+     */
+    @Test
+    @WithMockUser(roles = "CF-ADMINS")
+    public void admin() throws Exception {
+        mvc.perform(get(TRACES)).andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,52 @@
+package org.phoebus.channelfinder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+public class UsageConfigIT {
+
+    private static final String SECRET = "usageConfigTestSecretOfAtLeast32Bytes";
+
+    private final UsageConfig usageConfig = new UsageConfig();
+
+    {
+        usageConfig.tokenService = new TokenService(SECRET, 60);
+    }
+
+    private static MockHttpServletRequest request(String authorization) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ChannelFinder/resources/channels");
+        if (authorization != null) {
+            request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        return request;
+    }
+
+    /**
+     * the user of a valid bearer token is the principal of a request which
+     * was not authenticated, the user claimed by basic credentials is only
+     * accounted as unverified
+     */
+    @Test
+    public void claimedPrincipal() {
+        String token = usageConfig.tokenService.issue(new UsernamePasswordAuthenticationToken("user", "userPass",
+                List.of(new SimpleGrantedAuthority("ROLE_CF-CHANNELS")))).getToken();
+        assertEquals("user", usageConfig.claimedPrincipal(request("Bearer " + token)));
+        assertNull(usageConfig.claimedPrincipal(request("Bearer " + new TokenService("otherUsageConfigTestSecretOf32Bytes", 60)
+                .issue(new UsernamePasswordAuthenticationToken("admin", "adminPass", List.of())).getToken())));
+
+        String basic = Base64.getEncoder().encodeToString("admin:wrongPass".getBytes(StandardCharsets.UTF_8));
+        assertEquals(UsageConfig.UNVERIFIED + "admin", usageConfig.claimedPrincipal(request("Basic " + basic)));
+        assertNull(usageConfig.claimedPrincipal(request("Basic !")));
+        assertNull(usageConfig.claimedPrincipal(request(null)));
+    }
+}
@@ -0,0 +1,166 @@
+package org.phoebus.channelfinder;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * The responses of the single tag, property and channel writes are the
+ * documents read back by a subsequent GET: they do not echo the fields of the
+ * request which are not persisted.
+ */
+@RunWith(SpringRunner.class)
+@WebMvcTest({ TagManager.class, PropertyManager.class, ChannelManager.class })
+@WithMockUser(roles = "CF-ADMINS")
+public class WriteResponseIT {
+
+    private static final String RESOURCES = "/" + CFResourceDescriptors.CF_SERVICE + "/resources/";
+    private static final String CHANNEL = "writeResponseChannel";
+    private static final String TAG = "writeResponseTag";
+    private static final String PROPERTY = "writeResponseProperty";
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    ChannelRepository channelRepository;
+    @Autowired
+    TagRepository tagRepository;
+    @Autowired
+    PropertyRepository propertyRepository;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * PUT and POST of a channel, with tags and properties carrying the fields
+     * which are not persisted in the channel document
+     */
+    @Test
+    public void channel() throws Exception {
+        write(put(RESOURCES + "tags/" + TAG), "{\"name\":\"" + TAG + "\",\"owner\":\"testOwner\"}");
+        write(put(RESOURCES + "properties/" + PROPERTY), "{\"name\":\"" + PROPERTY + "\",\"owner\":\"testOwner\"}");
+        String created = write(put(RESOURCES + "channels/" + CHANNEL), "{\"name\":\"" + CHANNEL + "\",\"owner\":\"testOwner\","
+                + "\"properties\":[{\"name\":\"" + PROPERTY + "\",\"owner\":\"testOwner\",\"value\":\"0\",\"lastModified\":1,"
+                + "\"channels\":[{\"name\":\"other\",\"owner\":\"testOwner\"}]}],"
+                + "\"tags\":[{\"name\":\"" + TAG + "\",\"owner\":\"testOwner\",\"lastModified\":1,"
+                + "\"channels\":[{\"name\":\"other\",\"owner\":\"testOwner\"}]}]}");
+        assertSameAsRead(created, RESOURCES + "channels/" + CHANNEL);
+
+        String updated = write(post(RESOURCES + "channels/" + CHANNEL), "{\"name\":\"" + CHANNEL + "\",\"owner\":\"testOwner\","
+                + "\"properties\":[{\"name\":\"" + PROPERTY + "\",\"owner\":\"testOwner\",\"value\":\"1\","
+                + "\"channels\":[{\"name\":\"other\",\"owner\":\"testOwner\"}]}]}");
+        assertSameAsRead(updated, RESOURCES + "channels/" + CHANNEL);
+    }
+
+    /**
+     * PUT and POST of a tag with a channel, and PUT of the tag on a single
+     * channel
+     */
+    @Test
+    public void tag() throws Exception {
+        write(put(RESOURCES + "channels/" + CHANNEL), "{\"name\":\"" + CHANNEL + "\",\"owner\":\"testOwner\"}");
+        String channels = "[{\"name\":\"" + CHANNEL + "\",\"owner\":\"testOwner\"}]";
+
+        String created = write(put(RESOURCES + "tags/" + TAG),
+                "{\"name\":\"" + TAG + "\",\"owner\":\"testOwner\",\"channels\":" + channels + "}");
+        assertSameAsRead(created, RESOURCES + "tags/" + TAG);
+
+        String updated = write(post(RESOURCES + "tags/" + TAG),
+                "{\"name\":\"" + TAG + "\",\"owner\":\"testOwner\",\"channels\":" + channels + "}");
+        assertSameAsRead(updated, RESOURCES + "tags/" + TAG);
+
+        String added = write(put(RESOURCES + "tags/" + TAG + "/" + CHANNEL), null);
+        assertSameAsRead(added, RESOURCES + "tags/" + TAG);
+    }
+
+    /**
+     * PUT and POST of a property with a channel, and PUT of the property on a
+     * single channel
+     */
+    @Test
+    public void property() throws Exception {
+        write(put(RESOURCES + "channels/" + CHANNEL), "{\"name\":\"" + CHANNEL + "\",\"owner\":\"testOwner\"}");
+        String channels = "[{\"name\":\"" + CHANNEL + "\",\"owner\":\"testOwner\","
+                + "\"properties\":[{\"name\":\"" + PROPERTY + "\",\"owner\":\"testOwner\",\"value\":\"0\"}]}]";
+
+        String created = write(put(RESOURCES + "properties/" + PROPERTY),
+                "{\"name\":\"" + PROPERTY + "\",\"owner\":\"testOwner\",\"channels\":" + channels + "}");
+        assertSameAsRead(created, RESOURCES + "properties/" + PROPERTY);
+
+        String updated = write(post(RESOURCES + "properties/" + PROPERTY),
+                "{\"name\":\"" + PROPERTY + "\",\"owner\":\"testOwner\",\"channels\":" + channels + "}");
+        assertSameAsRead(updated, RESOURCES + "properties/" + PROPERTY);
+
+        String added = write(put(RESOURCES + "properties/" + PROPERTY + "/" + CHANNEL),
+                "{\"name\":\"" + PROPERTY + "\",\"owner\":\"testOwner\",\"value\":\"1\"}");
+        assertSameAsRead(added, RESOURCES + "properties/" + PROPERTY);
+    }
+
+    private String write(MockHttpServletRequestBuilder request, String body) throws Exception {
+        if (body != null) {
+            request.contentType(MediaType.APPLICATION_JSON).content(body);
+        }
+        return mvc.perform(request).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+    }
+
+    private void assertSameAsRead(String written, String uri) throws Exception {
+        String read = mvc.perform(get(uri)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        assertEquals(normalized(mapper.readTree(read)), normalized(mapper.readTree(written)));
+    }
+
+    /**
+     * @return the json with its arrays sorted by name, elastic does not keep
+     *         the order of the channels
+     */
+    private static JsonNode normalized(JsonNode node) {
+        if (node.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            List<Map.Entry<String, JsonNode>> entries = new ArrayList<>();
+            fields.forEachRemaining(entries::add);
+            entries.forEach(field -> ((ObjectNode) node).set(field.getKey(), normalized(field.getValue())));
+        } else if (node.isArray()) {
+            List<JsonNode> elements = new ArrayList<>();
+            node.forEach(element -> elements.add(normalized(element)));
+            elements.sort(Comparator.comparing(element -> element.path("name").asText()));
+            ((ArrayNode) node).removeAll().addAll(elements);
+        }
+        return node;
+    }
+
+    @After
+    public void cleanup() {
+        if (channelRepository.existsById(CHANNEL)) {
+            channelRepository.deleteById(CHANNEL);
+        }
+        if (tagRepository.existsById(TAG)) {
+            tagRepository.deleteById(TAG);
+        }
+        if (propertyRepository.existsById(PROPERTY)) {
+            propertyRepository.deleteById(PROPERTY);
+        }
+    }
+}
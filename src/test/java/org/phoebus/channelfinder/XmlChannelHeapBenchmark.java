@@ -0,0 +1,180 @@
+package org.phoebus.channelfinder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Heap retained by a result of channels read from elastic, with and without
+ * the canonicalization of the tag and property names, owners and values, see
+ * {@link StringInterner}. The primary score is the latency of reading the
+ * channel documents, the secondary scores are the retained size of the result:
+ * <ul>
+ * <li><code>retainedBytes</code>, the heap used after a full gc with the result
+ * held, less the heap used without it</li>
+ * <li><code>stringBytes</code>, the size of the distinct string instances of
+ * the result, with compressed oops and compact strings</li>
+ * </ul>
+ * The retained sizes are measured at the end of the iteration, jmh adds them
+ * up over the iterations: a single measurement iteration reports the size of a
+ * single result.
+ * <p>
+ * The channels have the properties published by the iocs, most of them with
+ * a few common values, and the time of the last update, unique.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 1, time = 10)
+@Fork(value = 3, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class XmlChannelHeapBenchmark {
+
+    @Param({"10000"})
+    int rows;
+
+    @Param({"false", "true"})
+    boolean interned;
+
+    /** the mapper of the channel documents, see {@link ChannelRepository} */
+    ObjectMapper documentMapper = new ObjectMapper()
+            .addMixIn(XmlTag.class, XmlTag.EmbeddedXmlTag.class)
+            .addMixIn(XmlProperty.class, XmlProperty.EmbeddedXmlProperty.class);
+
+    List<byte[]> documents;
+    /** the result measured, held until the heap is measured */
+    List<XmlChannel> result;
+
+    /**
+     * The retained size of the last result read in the iteration
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Retained {
+        public long retainedBytes;
+        public long stringBytes;
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        StringInterner interner = interned ? new StringInterner(4096, 10000, 64) : null;
+        documents = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            XmlChannel channel = new XmlChannel(String.format("SR:C%02d-MG{PS:QH%d}I:Sp%d-SP", i % 30, i % 100, i), "cf-channels");
+            channel.addProperty(new XmlProperty("iocName", "cf-properties", "IOC-" + (i % 50)));
+            channel.addProperty(new XmlProperty("hostName", "cf-properties", "host" + (i % 20) + ".cs.example.org"));
+            channel.addProperty(new XmlProperty("recordType", "cf-properties", i % 3 == 0 ? "ai" : "ao"));
+            channel.addProperty(new XmlProperty("pvStatus", "cf-properties", i % 20 == 0 ? "Inactive" : "Active"));
+            channel.addProperty(new XmlProperty("cell", "cf-properties", String.valueOf(i % 30)));
+            channel.addProperty(new XmlProperty("device", "cf-properties", "QH" + (i % 100)));
+            channel.addProperty(new XmlProperty("unit", "cf-properties", "A"));
+            channel.addProperty(new XmlProperty("time", "cf-properties", String.valueOf(1700000000000L + i * 1009L)));
+            for (int t = 0; t < 10; t++) {
+                if ((i + t) % 2 == 0) {
+                    channel.addTag(new XmlTag("tag" + t, "cf-tags"));
+                }
+            }
+            documents.add(documentMapper.writeValueAsBytes(channel));
+        }
+        if (interner != null) {
+            for (String seed : new String[] {"iocName", "hostName", "recordType", "pvStatus", "cell", "device", "unit",
+                    "time", "cf-properties", "cf-tags"}) {
+                interner.seed(seed);
+            }
+            for (int t = 0; t < 10; t++) {
+                interner.seed("tag" + t);
+            }
+        }
+        StringInterner.set(interner);
+    }
+
+    @TearDown
+    public void tearDown() {
+        StringInterner.set(new StringInterner(4096, 10000, 64));
+    }
+
+    @Benchmark
+    public List<XmlChannel> readDocuments() throws Exception {
+        List<XmlChannel> read = new ArrayList<>(documents.size());
+        for (byte[] document : documents) {
+            read.add(documentMapper.readValue(document, XmlChannel.class));
+        }
+        return read;
+    }
+
+    @TearDown(Level.Iteration)
+    public void retained(Retained retained) throws Exception {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        result = readDocuments();
+        long held = usedAfterGc(memory);
+        retained.stringBytes = stringBytes(result);
+        result = null;
+        retained.retainedBytes = held - usedAfterGc(memory);
+    }
+
+    private static long usedAfterGc(MemoryMXBean memory) throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * @return the size of the distinct strings of the channels: 24 bytes for the
+     *         string and 16 bytes plus its characters, aligned on 8 bytes, for
+     *         its array
+     */
+    static long stringBytes(List<XmlChannel> channels) {
+        Set<String> strings = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (XmlChannel channel : channels) {
+            strings.add(channel.getName());
+            strings.add(channel.getOwner());
+            for (XmlProperty property : channel.getProperties()) {
+                strings.add(property.getName());
+                strings.add(property.getOwner());
+                strings.add(property.getValue());
+            }
+            for (XmlTag tag : channel.getTags()) {
+                strings.add(tag.getName());
+                strings.add(tag.getOwner());
+            }
+        }
+        long bytes = 0;
+        for (String string : strings) {
+            bytes += 24 + ((16 + string.length() + 7) & ~7);
+        }
+        return bytes;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(XmlChannelHeapBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,134 @@
+package org.phoebus.channelfinder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class XmlChannelIT {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private static List<String> names(List<?> elements) {
+        return elements.stream()
+                .map(e -> e instanceof XmlTag ? ((XmlTag) e).getName() : ((XmlProperty) e).getName())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * the tags and properties added replace the ones of the same name in their
+     * position
+     */
+    @Test
+    public void merge() {
+        XmlChannel channel = new XmlChannel("SR:C01-BI:G02A<BPM:L1>Pos-X", "testOwner",
+                Arrays.asList(new XmlProperty("domain", "testOwner", "storage ring"), new XmlProperty("cell", "testOwner", "01")),
+                Arrays.asList(new XmlTag("readback", "testOwner"), new XmlTag("archived", "testOwner")));
+
+        channel.addProperties(Arrays.asList(new XmlProperty("cell", "newOwner", "02"), new XmlProperty("unit", "testOwner", "mm")));
+        channel.addTags(Arrays.asList(new XmlTag("readback", "newOwner"), new XmlTag("golden", "testOwner")));
+        assertEquals(Arrays.asList("domain", "cell", "unit"), names(channel.getProperties()));
+        assertEquals("02", channel.getProperties().get(1).getValue());
+        assertEquals(Arrays.asList("readback", "archived", "golden"), names(channel.getTags()));
+        assertEquals("newOwner", channel.getTags().get(0).getOwner());
+
+        channel.removeProperty(new XmlProperty("domain", ""));
+        channel.removeTag(new XmlTag("archived", ""));
+        channel.removeTag(new XmlTag("missing", ""));
+        assertEquals(Arrays.asList("cell", "unit"), names(channel.getProperties()));
+        assertEquals(Arrays.asList("readback", "golden"), names(channel.getTags()));
+    }
+
+    /**
+     * the tags and properties can still be changed through their lists
+     */
+    @Test
+    public void lists() {
+        XmlChannel channel = new XmlChannel("SR:C01-BI:G02A<BPM:L1>Pos-X", "testOwner");
+        channel.getTags().add(new XmlTag("b", "testOwner"));
+        channel.getTags().add(new XmlTag("c", "testOwner"));
+        channel.getTags().add(new XmlTag("a", "testOwner"));
+        channel.getTags().add(new XmlTag("b", "newOwner"));
+        assertEquals(Arrays.asList("b", "c", "a"), names(channel.getTags()));
+
+        channel.getTags().sort(Comparator.comparing(XmlTag::getName));
+        assertEquals(Arrays.asList("a", "b", "c"), names(channel.getTags()));
+        assertEquals("newOwner", channel.getTags().get(1).getOwner());
+
+        channel.getTags().removeIf(tag -> tag.getName().equals("a"));
+        channel.getTags().set(1, new XmlTag("d", "testOwner"));
+        channel.getTags().add(0, new XmlTag("e", "testOwner"));
+        assertEquals(Arrays.asList("e", "b", "d"), names(channel.getTags()));
+        assertEquals(new ArrayList<>(channel.getTags()), channel.getTags());
+        assertEquals(channel.getTags(), new ArrayList<>(channel.getTags()));
+        assertTrue(channel.getTags().contains(new XmlTag("d", "testOwner")));
+
+        channel.getTags().remove(0);
+        channel.getTags().clear();
+        assertTrue(channel.getTags().isEmpty());
+    }
+
+    /**
+     * the names stay unique: the positional set and add reject a name found in
+     * another position, rather than change the size or the positions of the
+     * list
+     */
+    @Test
+    public void uniqueNames() {
+        XmlChannel channel = new XmlChannel("SR:C01-BI:G02A<BPM:L1>Pos-X", "testOwner", null,
+                Arrays.asList(new XmlTag("a", "testOwner"), new XmlTag("b", "testOwner")));
+        List<XmlTag> tags = channel.getTags();
+        assertThrows(IllegalArgumentException.class, () -> tags.set(0, new XmlTag("b", "newOwner")));
+        assertThrows(IllegalArgumentException.class, () -> tags.add(1, new XmlTag("a", "newOwner")));
+        assertThrows(IndexOutOfBoundsException.class, () -> tags.add(3, new XmlTag("c", "testOwner")));
+        assertEquals(Arrays.asList("a", "b"), names(tags));
+
+        assertEquals(new XmlTag("b", "testOwner"), tags.set(1, new XmlTag("b", "newOwner")));
+        assertEquals("newOwner", channel.getTags().get(1).getOwner());
+        assertEquals(Arrays.asList("a", "b"), names(tags));
+        assertTrue(channel.duplicateNames().isEmpty());
+    }
+
+    /**
+     * a channel listing a tag or a property more than once is rejected
+     */
+    @Test
+    public void duplicateNames() throws Exception {
+        String json = "{\"name\":\"SR:C01-BI:G02A<BPM:L1>Pos-X\",\"owner\":\"testOwner\","
+                + "\"properties\":[{\"name\":\"cell\",\"owner\":\"testOwner\",\"value\":\"01\"},"
+                + "{\"name\":\"cell\",\"owner\":\"testOwner\",\"value\":\"02\"}],"
+                + "\"tags\":[{\"name\":\"readback\",\"owner\":\"testOwner\"},"
+                + "{\"name\":\"readback\",\"owner\":\"testOwner\"}]}";
+        XmlChannel channel = mapper.readValue(json, XmlChannel.class);
+        assertEquals(Arrays.asList("cell", "readback"), channel.duplicateNames());
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> new ChannelManager().validateChannelRequest(channel));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+    }
+
+    /**
+     * the json representation of the channel is unchanged
+     */
+    @Test
+    public void json() throws Exception {
+        String json = "{\"name\":\"SR:C01-BI:G02A<BPM:L1>Pos-X\",\"owner\":\"testOwner\","
+                + "\"properties\":[{\"name\":\"domain\",\"owner\":\"testOwner\",\"value\":\"storage ring\",\"channels\":[]},"
+                + "{\"name\":\"cell\",\"owner\":\"testOwner\",\"value\":\"01\",\"channels\":[]}],"
+                + "\"tags\":[{\"name\":\"readback\",\"owner\":\"testOwner\",\"channels\":[]}]}";
+        XmlChannel channel = mapper.readValue(json, XmlChannel.class);
+        assertEquals(Arrays.asList("domain", "cell"), names(channel.getProperties()));
+        assertEquals(json, mapper.writeValueAsString(channel));
+    }
+}
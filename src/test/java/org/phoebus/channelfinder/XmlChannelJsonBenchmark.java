@@ -0,0 +1,139 @@
+package org.phoebus.channelfinder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Latency of the JSON encoding of the channels: the channel documents written
+ * to and read from elastic with the embedded tag and property mixins, the
+ * responses and requests of the rest api, and the tag and property documents
+ * written with the {@link XmlTag.OnlyXmlTag} and
+ * {@link XmlProperty.OnlyXmlProperty} mixins.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class XmlChannelJsonBenchmark {
+
+    private static final TypeReference<List<XmlChannel>> CHANNELS = new TypeReference<>() {
+    };
+
+    @Param({"1000"})
+    int rows;
+
+    @Param({"20"})
+    int properties;
+
+    @Param({"10"})
+    int tags;
+
+    /** the mapper of the channel documents, see {@link ChannelRepository} */
+    ObjectMapper documentMapper = new ObjectMapper()
+            .addMixIn(XmlTag.class, XmlTag.EmbeddedXmlTag.class)
+            .addMixIn(XmlProperty.class, XmlProperty.EmbeddedXmlProperty.class);
+    ObjectMapper restMapper = new ObjectMapper();
+    ObjectMapper tagMapper = new ObjectMapper().addMixIn(XmlTag.class, XmlTag.OnlyXmlTag.class);
+    ObjectMapper propertyMapper = new ObjectMapper().addMixIn(XmlProperty.class, XmlProperty.OnlyXmlProperty.class);
+
+    List<XmlChannel> channels;
+    List<byte[]> documents;
+    byte[] response;
+    XmlTag tag;
+    XmlProperty property;
+
+    @Setup
+    public void setup() throws Exception {
+        channels = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            XmlChannel channel = new XmlChannel("SR:C" + (i % 30) + "{Dev:" + i + "}Sig-I", "cf-channels");
+            for (int p = 0; p < properties; p++) {
+                channel.addProperty(new XmlProperty("prop" + p, "cf-properties", String.valueOf(i % (p + 2))));
+            }
+            for (int t = 0; t < tags; t++) {
+                // every channel has half of the tags
+                if ((i + t) % 2 == 0) {
+                    channel.addTag(new XmlTag("tag" + t, "cf-tags"));
+                }
+            }
+            channels.add(channel);
+        }
+        documents = new ArrayList<>(rows);
+        for (XmlChannel channel : channels) {
+            documents.add(documentMapper.writeValueAsBytes(channel));
+        }
+        response = restMapper.writeValueAsBytes(channels);
+        // a tag and a property with all the channels, as written by the tag and property updates
+        tag = new XmlTag("tag0", "cf-tags");
+        tag.setChannels(channels);
+        property = new XmlProperty("prop0", "cf-properties", "0");
+        property.setChannels(channels);
+    }
+
+    @Benchmark
+    public List<byte[]> writeDocuments() throws Exception {
+        List<byte[]> written = new ArrayList<>(channels.size());
+        for (XmlChannel channel : channels) {
+            written.add(documentMapper.writeValueAsBytes(channel));
+        }
+        return written;
+    }
+
+    @Benchmark
+    public List<XmlChannel> readDocuments() throws Exception {
+        List<XmlChannel> read = new ArrayList<>(documents.size());
+        for (byte[] document : documents) {
+            read.add(documentMapper.readValue(document, XmlChannel.class));
+        }
+        return read;
+    }
+
+    @Benchmark
+    public byte[] writeResponse() throws Exception {
+        return restMapper.writeValueAsBytes(channels);
+    }
+
+    @Benchmark
+    public List<XmlChannel> readRequest() throws Exception {
+        return restMapper.readValue(response, CHANNELS);
+    }
+
+    @Benchmark
+    public byte[] writeTagDocument() throws Exception {
+        return tagMapper.writeValueAsBytes(tag);
+    }
+
+    @Benchmark
+    public byte[] writePropertyDocument() throws Exception {
+        return propertyMapper.writeValueAsBytes(property);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(XmlChannelJsonBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,85 @@
+package org.phoebus.channelfinder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Latency of merging tags and properties into a channel, as the channel
+ * updates do. Half of the added tags and properties replace existing ones.
+ * <p>
+ * Each operation merges into a new copy of the channel, the copy of its lists
+ * is part of the measured time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class XmlChannelMergeBenchmark {
+
+    @Param({"10", "100"})
+    int size;
+
+    XmlChannel channel;
+    List<XmlTag> tags;
+    List<XmlProperty> properties;
+
+    @Setup
+    public void setup() {
+        channel = new XmlChannel("SR:C01{Dev:1}Sig-I", "cf-channels");
+        for (int i = 0; i < size; i++) {
+            channel.addTag(new XmlTag("tag" + i, "cf-tags"));
+            channel.addProperty(new XmlProperty("prop" + i, "cf-properties", "old"));
+        }
+        tags = new ArrayList<>(size);
+        properties = new ArrayList<>(size);
+        for (int i = size / 2; i < size + size / 2; i++) {
+            tags.add(new XmlTag("tag" + i, "cf-tags"));
+            properties.add(new XmlProperty("prop" + i, "cf-properties", "new"));
+        }
+    }
+
+    @Benchmark
+    public XmlChannel addTags() {
+        XmlChannel merged = copy(channel);
+        merged.addTags(tags);
+        return merged;
+    }
+
+    @Benchmark
+    public XmlChannel addProperties() {
+        XmlChannel merged = copy(channel);
+        merged.addProperties(properties);
+        return merged;
+    }
+
+    private static XmlChannel copy(XmlChannel channel) {
+        return new XmlChannel(channel.getName(), channel.getOwner(),
+                new ArrayList<>(channel.getProperties()), new ArrayList<>(channel.getTags()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(XmlChannelMergeBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
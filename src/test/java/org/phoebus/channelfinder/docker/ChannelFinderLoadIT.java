@@ -0,0 +1,49 @@
+package org.phoebus.channelfinder.docker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.phoebus.channelfinder.performance.LoadGenerator;
+import org.phoebus.channelfinder.performance.LoadGenerator.Operation;
+import org.phoebus.channelfinder.performance.LoadGenerator.Result;
+import org.testcontainers.containers.DockerComposeContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Load test of ChannelFinder and Elasticsearch, with docker-compose-integrationtest.yml
+ * overridden by docker-compose-loadtest.yml to populate the service with the demo data.
+ *
+ * <p>
+ * The workload and its settings are described by {@link LoadGenerator}, run it with
+ * <code>mvn test -P loadtest [-Dload.threads=16] [-Dload.cells=10]</code>.
+ */
+@Testcontainers
+class ChannelFinderLoadIT {
+
+    @Container
+    public static final DockerComposeContainer<?> ENVIRONMENT =
+        new DockerComposeContainer<>(new File("docker-compose-integrationtest.yml"), new File("docker-compose-loadtest.yml"))
+            .withEnv("LOADTEST_CELLS", System.getProperty("load.cells", "2"))
+            .waitingFor(ITUtil.CHANNELFINDER, Wait.forLogMessage(".*completed populating.*", 1)
+                    .withStartupTimeout(Duration.ofMinutes(30)));
+
+    @Test
+    void mixedWorkload() throws Exception {
+        LoadGenerator generator = new LoadGenerator(ITUtil.HTTP_IP_PORT_CHANNELFINDER, System.getProperties());
+        Map<Operation, Result> results = generator.run();
+
+        for (Result result : results.values()) {
+            assertEquals(0, result.getErrors(), result.getOperation() + " failed with " + result.getFirstError());
+            if (generator.getMix().getOrDefault(result.getOperation(), 0) > 0) {
+                assertTrue(result.getCount() > 0, result.getOperation() + " was not measured");
+            }
+        }
+    }
+}
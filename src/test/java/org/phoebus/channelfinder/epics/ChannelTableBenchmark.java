@@ -0,0 +1,139 @@
+package org.phoebus.channelfinder.epics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.epics.nt.NTTable;
+import org.epics.nt.NTTableBuilder;
+import org.epics.pvdata.pv.PVBooleanArray;
+import org.epics.pvdata.pv.PVStringArray;
+import org.epics.pvdata.pv.ScalarType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.phoebus.channelfinder.XmlChannel;
+import org.phoebus.channelfinder.XmlProperty;
+import org.phoebus.channelfinder.XmlTag;
+
+/**
+ * Latency and allocation of building the rpc service result table, compared
+ * with the previous map based construction.
+ * <p>
+ * Run with the gc profiler to see the allocation rate per operation, e.g. from
+ * the main method of this class.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class ChannelTableBenchmark {
+
+    @Param({"10000"})
+    int rows;
+
+    @Param({"20"})
+    int properties;
+
+    @Param({"10"})
+    int tags;
+
+    List<XmlChannel> channels;
+
+    @Setup
+    public void setup() {
+        channels = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            XmlChannel channel = new XmlChannel("SR:C" + (i % 30) + "{Dev:" + i + "}Sig-I", "cf-channels");
+            for (int p = 0; p < properties; p++) {
+                channel.addProperty(new XmlProperty("prop" + p, "cf-properties", String.valueOf(i % (p + 2))));
+            }
+            for (int t = 0; t < tags; t++) {
+                // every channel has half of the tags
+                if ((i + t) % 2 == 0) {
+                    channel.addTag(new XmlTag("tag" + t, "cf-tags"));
+                }
+            }
+            channels.add(channel);
+        }
+    }
+
+    @Benchmark
+    public NTTable channelTable() {
+        return ChannelTable.create(channels, name -> true, "");
+    }
+
+    @Benchmark
+    public NTTable mapTable() {
+        final List<XmlChannel> result = channels;
+        final Map<String, List<String>> channelTable = new HashMap<>();
+        final Map<String, List<String>> channelPropertyTable = new HashMap<>();
+        final Map<String, boolean[]> channelTagTable = new HashMap<>();
+        channelTable.put("channelName", Arrays.asList(new String[result.size()]));
+        channelTable.put("owner", Arrays.asList(new String[result.size()]));
+
+        AtomicInteger counter = new AtomicInteger(0);
+
+        result.forEach(ch -> {
+            int index = counter.getAndIncrement();
+
+            channelTable.get("channelName").set(index, ch.getName());
+            channelTable.get("owner").set(index, ch.getOwner());
+
+            ch.getTags().forEach(t -> {
+                if (!channelTagTable.containsKey(t.getName())) {
+                    channelTagTable.put(t.getName(), new boolean[result.size()]);
+                }
+                channelTagTable.get(t.getName())[index] = true;
+            });
+
+            ch.getProperties().forEach(prop -> {
+                if (!channelPropertyTable.containsKey(prop.getName())) {
+                    channelPropertyTable.put(prop.getName(), Arrays.asList(new String[result.size()]));
+                }
+                channelPropertyTable.get(prop.getName()).set(index, prop.getValue());
+            });
+        });
+        NTTableBuilder ntTableBuilder = NTTable.createBuilder();
+        channelTable.keySet().forEach(name -> ntTableBuilder.addColumn(name, ScalarType.pvString));
+        channelPropertyTable.keySet().forEach(name -> ntTableBuilder.addColumn(name, ScalarType.pvString));
+        channelTagTable.keySet().forEach(name -> ntTableBuilder.addColumn(name, ScalarType.pvBoolean));
+        NTTable ntTable = ntTableBuilder.create();
+
+        channelTable.entrySet().stream().forEach(col ->
+            ntTable.getColumn(PVStringArray.class, col.getKey()).put(0, col.getValue().size(),
+                    col.getValue().stream().toArray(String[]::new), 0));
+        channelPropertyTable.entrySet().stream().forEach(col ->
+            ntTable.getColumn(PVStringArray.class, col.getKey()).put(0, col.getValue().size(),
+                    col.getValue().stream().toArray(String[]::new), 0));
+        channelTagTable.entrySet().stream().forEach(col ->
+            ntTable.getColumn(PVBooleanArray.class, col.getKey()).put(0, col.getValue().length,
+                    col.getValue(), 0));
+        return ntTable;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ChannelTableBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,215 @@
+package org.phoebus.channelfinder.epics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.epics.pvaccess.client.Channel;
+import org.epics.pvaccess.client.ChannelProvider;
+import org.epics.pvaccess.client.ChannelRequester;
+import org.epics.pvdata.monitor.Monitor;
+import org.epics.pvdata.monitor.MonitorRequester;
+import org.epics.pvdata.pv.MessageType;
+import org.epics.pvdata.pv.PVStructure;
+import org.epics.pvdata.pv.Status;
+import org.epics.pvdata.pv.Structure;
+import org.junit.After;
+import org.junit.Test;
+import org.phoebus.channelfinder.ChannelRepository;
+import org.phoebus.channelfinder.ChannelSubscriptions;
+import org.phoebus.channelfinder.XmlChannel;
+import org.springframework.util.MultiValueMap;
+
+public class ChannelWatchProviderIT {
+
+    private static final String QUERY = ChannelWatchProvider.WATCH_PREFIX + "_name=SR*";
+    private static final String OTHER_QUERY = ChannelWatchProvider.WATCH_PREFIX + "_name=BR*";
+
+    private final StubRepository channelRepository = new StubRepository();
+    private final ChannelSubscriptions channelSubscriptions = new ChannelSubscriptions(1);
+    private final ChannelWatchProvider provider =
+            new ChannelWatchProvider(channelRepository, channelSubscriptions, 100, 50, 10, 4);
+
+    /**
+     * the channels of the same query share a single initial query, which does
+     * not hold up the channels of the other queries, and the query is watched
+     * until its last channel is destroyed
+     */
+    @Test
+    public void sharedQuery() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        channelRepository.gates.put("SR*", gate);
+        CompletableFuture<Channel> first = create(QUERY);
+        CompletableFuture<Channel> second = create(QUERY);
+
+        Channel other = create(OTHER_QUERY).get(10, TimeUnit.SECONDS);
+        assertNotNull("The query of a channel waited for the initial query of another", other);
+        assertFalse("Created a channel before its initial query", first.isDone() || second.isDone());
+
+        gate.countDown();
+        Channel firstChannel = first.get(10, TimeUnit.SECONDS);
+        Channel secondChannel = second.get(10, TimeUnit.SECONDS);
+        assertEquals("The channels of a query did not share its initial query", 1, channelRepository.searches("SR*"));
+        assertEquals(Set.of(QUERY, OTHER_QUERY), provider.watched());
+        assertEquals(2, channelSubscriptions.watched());
+        assertEquals("Counted the watched queries against the subscriptions", 0, channelSubscriptions.size());
+
+        firstChannel.destroy();
+        assertEquals("Stopped watching a query still used by a channel", Set.of(QUERY, OTHER_QUERY), provider.watched());
+        secondChannel.destroy();
+        assertEquals("Failed to stop watching a query without channels", Set.of(OTHER_QUERY), provider.watched());
+        assertEquals("Failed to stop watching the changes of a query without channels", 1, channelSubscriptions.watched());
+        other.destroy();
+        assertTrue(provider.watched().isEmpty());
+        assertEquals(0, channelSubscriptions.watched());
+    }
+
+    /**
+     * a failed initial query does not leave the query watched, the next
+     * channel runs it again
+     */
+    @Test
+    public void failedQuery() throws Exception {
+        channelRepository.failure = new IllegalStateException("test failure");
+        CompletableFuture<Channel> failed = create(QUERY);
+        try {
+            failed.get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            // expected
+        }
+        assertTrue("Created a channel without its initial query", failed.isCompletedExceptionally());
+        assertTrue("Failed query still watched", provider.watched().isEmpty());
+        assertEquals("Failed query still notified of the changes", 0, channelSubscriptions.watched());
+
+        channelRepository.failure = null;
+        Channel channel = create(QUERY).get(10, TimeUnit.SECONDS);
+        assertEquals(Set.of(QUERY), provider.watched());
+        channel.destroy();
+    }
+
+    /**
+     * the monitors of a query are sent a new table when a matching channel
+     * changes, and only then
+     */
+    @Test
+    public void changeNotification() throws Exception {
+        Channel channel = create(QUERY).get(10, TimeUnit.SECONDS);
+        BlockingQueue<PVStructure> updates = new LinkedBlockingQueue<>();
+        Monitor monitor = channel.createMonitor(new MonitorRequester() {
+            @Override
+            public void monitorConnect(Status status, Monitor monitor, Structure structure) {
+            }
+
+            @Override
+            public void monitorEvent(Monitor monitor) {
+                updates.add(monitor.poll().getPVStructure());
+            }
+
+            @Override
+            public void unlisten(Monitor monitor) {
+            }
+
+            @Override
+            public String getRequesterName() {
+                return "test";
+            }
+
+            @Override
+            public void message(String message, MessageType messageType) {
+            }
+        }, null);
+        monitor.start();
+        assertNotNull("Failed to post the initial table", updates.poll(10, TimeUnit.SECONDS));
+
+        channelSubscriptions.updated(List.of(new XmlChannel("BR:C01-MG{PS:Q1}I-SP", "testOwner")));
+        assertNull("Refreshed the table on the change of another channel", updates.poll(500, TimeUnit.MILLISECONDS));
+        assertEquals(1, channelRepository.searches("SR*"));
+
+        channelSubscriptions.updated(List.of(new XmlChannel("SR:C01-MG{PS:Q1}I-SP", "testOwner")));
+        assertNotNull("Failed to refresh the table on the change of a matching channel", updates.poll(10, TimeUnit.SECONDS));
+        assertEquals(2, channelRepository.searches("SR*"));
+        monitor.destroy();
+        channel.destroy();
+    }
+
+    private CompletableFuture<Channel> create(String channelName) {
+        CompletableFuture<Channel> created = new CompletableFuture<>();
+        provider.createChannel(channelName, new ChannelRequester() {
+            @Override
+            public void channelCreated(Status status, Channel channel) {
+                if (status.isSuccess()) {
+                    created.complete(channel);
+                } else {
+                    created.completeExceptionally(new IllegalStateException(status.getMessage()));
+                }
+            }
+
+            @Override
+            public void channelStateChange(Channel channel, Channel.ConnectionState connectionState) {
+            }
+
+            @Override
+            public String getRequesterName() {
+                return "test";
+            }
+
+            @Override
+            public void message(String message, MessageType messageType) {
+            }
+        }, ChannelProvider.PRIORITY_DEFAULT);
+        return created;
+    }
+
+    @After
+    public void cleanup() {
+        channelRepository.gates.values().forEach(CountDownLatch::countDown);
+        provider.destroy();
+    }
+
+    /**
+     * A repository returning no channels, counting the searches by name
+     * pattern, which can be held up or fail
+     */
+    private static class StubRepository extends ChannelRepository {
+        final Map<String, CountDownLatch> gates = new ConcurrentHashMap<>();
+        final Map<String, AtomicInteger> searches = new ConcurrentHashMap<>();
+        volatile RuntimeException failure;
+
+        @Override
+        public List<XmlChannel> search(MultiValueMap<String, String> searchParameters, List<String> sourceIncludes) {
+            String name = searchParameters.getFirst("~name");
+            searches.computeIfAbsent(name, key -> new AtomicInteger()).incrementAndGet();
+            CountDownLatch gate = gates.get(name);
+            if (gate != null) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return List.of();
+        }
+
+        int searches(String name) {
+            AtomicInteger count = searches.get(name);
+            return count == null ? 0 : count.get();
+        }
+    }
+}
@@ -18,14 +18,23 @@ public class EpicsRPCRequest {
 
         NTURIBuilder uriBuilder = NTURI.createBuilder();
         uriBuilder.addQueryString("_name");
+        uriBuilder.addQueryString("_size");
+        uriBuilder.addQueryString("_after");
         NTURI uri = uriBuilder.create();
         uri.getPVStructure().getStringField("scheme").put("pva");
         uri.getPVStructure().getStringField("path").put(ChannelFinderEpicsService.SERVICE_DESC);
         uri.getQuery().getStringField("_name").put("*");
+        uri.getQuery().getStringField("_size").put("1000");
         try {
-            PVStructure result = client.request(uri.getPVStructure(), 3.0);
-//            List<XmlChannel> channels = NTXmlUtil.parse(result);
-//            channels.forEach(c -> System.out.println(c.toLog()));
+            // retrieve the channels one page at a time
+            String next = null;
+            do {
+                uri.getQuery().getStringField("_after").put(next == null ? "" : next);
+                PVStructure result = client.request(uri.getPVStructure(), 3.0);
+//                List<XmlChannel> channels = NTXmlUtil.parse(result);
+//                channels.forEach(c -> System.out.println(c.toLog()));
+                next = NTXmlUtil.next(result);
+            } while (next != null);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -0,0 +1,162 @@
+package org.phoebus.channelfinder.epics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.epics.nt.NTTable;
+import org.epics.pvdata.pv.BooleanArrayData;
+import org.epics.pvdata.pv.PVBooleanArray;
+import org.epics.pvdata.pv.PVStringArray;
+import org.epics.pvdata.pv.PVStructure;
+import org.epics.pvdata.pv.ScalarType;
+import org.epics.pvdata.pv.StringArrayData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.phoebus.channelfinder.XmlChannel;
+import org.phoebus.channelfinder.XmlProperty;
+import org.phoebus.channelfinder.XmlTag;
+
+/**
+ * Latency and allocation of converting a result table to channels, compared
+ * with the previous synchronized, column by column conversion. The benchmark
+ * runs on several threads, as the clients converting concurrent results do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 10, time = 1)
+@Threads(4)
+@Fork(3)
+public class NTXmlUtilBenchmark {
+
+    @Param({"10000"})
+    int rows;
+
+    @Param({"20"})
+    int properties;
+
+    @Param({"10"})
+    int tags;
+
+    PVStructure result;
+
+    @Setup
+    public void setup() {
+        List<XmlChannel> channels = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            XmlChannel channel = new XmlChannel("SR:C" + (i % 30) + "{Dev:" + i + "}Sig-I", "cf-channels");
+            for (int p = 0; p < properties; p++) {
+                channel.addProperty(new XmlProperty("prop" + p, "cf-properties", String.valueOf(i % (p + 2))));
+            }
+            for (int t = 0; t < tags; t++) {
+                // every channel has half of the tags
+                if ((i + t) % 2 == 0) {
+                    channel.addTag(new XmlTag("tag" + t, "cf-tags"));
+                }
+            }
+            channels.add(channel);
+        }
+        result = ChannelTable.create(channels, name -> true, "").getPVStructure();
+    }
+
+    @Benchmark
+    public List<XmlChannel> parse() throws Exception {
+        return NTXmlUtil.parse(result);
+    }
+
+    @Benchmark
+    public void stream(Blackhole blackhole) throws Exception {
+        NTXmlUtil.stream(result).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public List<XmlChannel> synchronizedParse() throws Exception {
+        return previousParse(result);
+    }
+
+    private static synchronized List<XmlChannel> previousParse(PVStructure result) throws Exception {
+        if (NTTable.isCompatible(result)) {
+            NTTable table = NTTable.wrap(result);
+            List<String> names = Arrays.asList(table.getColumnNames());
+            List<XmlChannel> channels = new ArrayList<>();
+
+            if(names.contains("channelName")){
+                PVStringArray array = (PVStringArray) table.getColumn("channelName");
+                StringArrayData data = new StringArrayData();
+                array.get(0, array.getLength(), data);
+                Arrays.asList(data.data).forEach(name -> channels.add(new XmlChannel(name)));
+            }
+
+            if(names.contains("owner")){
+                PVStringArray array = (PVStringArray) table.getColumn("owner");
+                StringArrayData data = new StringArrayData();
+                array.get(0, array.getLength(), data);
+                List<Optional<String>> owners = Arrays.asList(data.data).stream().map(Optional::ofNullable)
+                        .collect(Collectors.toList());
+                for (int i = 0; i < channels.size(); i++) {
+                    if (owners.get(i).isPresent())
+                        channels.get(i).setOwner(owners.get(i).get());
+                }
+            }
+
+            for (String name : names) {
+                if(!name.equals("channelName") && !name.equals("owner")){
+                    ScalarType type = table.getColumn(name).getScalarArray().getElementType();
+                    if (type.equals(ScalarType.pvBoolean)){
+                        PVBooleanArray array = (PVBooleanArray) table.getColumn(name);
+                        BooleanArrayData data = new BooleanArrayData();
+                        array.get(0, array.getLength(), data);
+                        List<Boolean> tag = new ArrayList<>(array.getLength());
+                        for (int i = 0; i < array.getLength(); i++) {
+                            tag.add(data.data[i]);
+                            if(data.data[i]){
+                                channels.get(i).getTags().add(new XmlTag(name));
+                            }
+                        }
+                    }
+                    else if (type.equals(ScalarType.pvString)) {
+                        PVStringArray array = (PVStringArray) table.getColumn(name);
+                        StringArrayData data = new StringArrayData();
+                        array.get(0, array.getLength(), data);
+                        List<Optional<String>> list = Arrays.asList(data.data).stream().map(Optional::ofNullable)
+                                .collect(Collectors.toList());
+                        for (int i = 0; i < channels.size(); i++) {
+                            if (list.get(i).isPresent())
+                                channels.get(i).getProperties().add(new XmlProperty(name, null, list.get(i).get()));
+                        }
+                    }
+                }
+            }
+            return channels;
+        } else {
+            throw new Exception(result.toString() +" is not compatible with NTTable");
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(NTXmlUtilBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,54 @@
+package org.phoebus.channelfinder.epics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.epics.nt.NTTable;
+import org.junit.Test;
+import org.phoebus.channelfinder.XmlChannel;
+import org.phoebus.channelfinder.XmlProperty;
+import org.phoebus.channelfinder.XmlTag;
+
+public class NTXmlUtilIT {
+
+    private final List<XmlChannel> channels = List.of(
+            new XmlChannel("SR:C01-BI:G02A<BPM:L1>Pos-X", "testOwner",
+                    List.of(new XmlProperty("cell", null, "01"), new XmlProperty("domain", null, "storage ring")),
+                    List.of(new XmlTag("archive"), new XmlTag("readback"))),
+            new XmlChannel("SR:C01-BI:G02A<BPM:L1>Pos-Y", "otherOwner",
+                    List.of(new XmlProperty("cell", null, "02")),
+                    List.of(new XmlTag("readback"))),
+            new XmlChannel("SR:C01-BI:G02A<BPM:L1>Pos-Z", "testOwner",
+                    List.of(),
+                    List.of()));
+
+    /**
+     * the channels of a result table are parsed with their owner, properties and tags
+     */
+    @Test
+    public void parse() throws Exception {
+        NTTable table = ChannelTable.create(channels, name -> true, "");
+        assertEquals(channels, NTXmlUtil.parse(table.getPVStructure()));
+    }
+
+    /**
+     * the stream returns the same channels as the list
+     */
+    @Test
+    public void stream() throws Exception {
+        NTTable table = ChannelTable.create(channels, name -> true, "");
+        assertEquals(channels, NTXmlUtil.stream(table.getPVStructure()).collect(Collectors.toList()));
+    }
+
+    /**
+     * an empty table has no channels
+     */
+    @Test
+    public void parseEmpty() throws Exception {
+        NTTable table = ChannelTable.create(List.of(), name -> true, "");
+        assertTrue(NTXmlUtil.parse(table.getPVStructure()).isEmpty());
+    }
+}
@@ -0,0 +1,121 @@
+package org.phoebus.channelfinder.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.phoebus.channelfinder.XmlChannel;
+import org.phoebus.channelfinder.XmlProperty;
+import org.phoebus.channelfinder.XmlTag;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * The channels of the synthetic directory, generated without elastic
+ */
+public class DirectoryGeneratorIT {
+
+    private static DirectoryGenerator generator(long seed) {
+        DirectoryGenerator generator = new DirectoryGenerator();
+        ReflectionTestUtils.setField(generator, "seed", seed);
+        ReflectionTestUtils.setField(generator, "tags", 1000);
+        ReflectionTestUtils.setField(generator, "tagsPerChannel", 3.0);
+        ReflectionTestUtils.setField(generator, "inactive", 0.05);
+        return generator;
+    }
+
+    private static List<XmlChannel> cell(DirectoryGenerator generator, int cell) {
+        List<XmlChannel> channels = new ArrayList<>();
+        long count = generator.cell(cell, channels::add);
+        assertEquals(count, channels.size());
+        return channels;
+    }
+
+    /**
+     * a seed always generates the same cell, whatever was generated before
+     */
+    @Test
+    public void deterministic() {
+        DirectoryGenerator generator = generator(7);
+        List<XmlChannel> first = cell(generator, 3);
+        cell(generator, 1);
+        assertEquals(first, cell(generator(7), 3));
+        assertEquals(json(first), json(cell(generator, 3)));
+        assertNotEquals(json(first), json(cell(generator(8), 3)));
+    }
+
+    /**
+     * the channels of the cells are unique and follow the naming convention of the demo data, in their own namespace
+     */
+    @Test
+    public void names() {
+        DirectoryGenerator generator = generator(1);
+        Set<String> names = new HashSet<>();
+        long channels = 0;
+        for (int cell = 1; cell <= 20; cell++) {
+            for (XmlChannel channel : cell(generator, cell)) {
+                assertTrue(channel.getName(), channel.getName().matches("SYN:(SR|BR):C0\\d\\d-\\w+:(T)?\\d+\\{[A-Z:]+\\}.+"));
+                names.add(channel.getName());
+                channels++;
+            }
+        }
+        assertEquals(channels, names.size());
+        // about 1400 channels a cell
+        assertTrue(String.valueOf(channels), channels > 20 * 1000 && channels < 20 * 1800);
+    }
+
+    /**
+     * every channel has the properties of the vocabulary, the tags are skewed
+     */
+    @Test
+    public void cardinalities() {
+        DirectoryGenerator generator = generator(1);
+        Map<String, Integer> tags = new HashMap<>();
+        Set<String> iocs = new HashSet<>();
+        int channels = 0;
+        int inactive = 0;
+        int tagged = 0;
+        for (int cell = 1; cell <= 10; cell++) {
+            for (XmlChannel channel : cell(generator, cell)) {
+                channels++;
+                List<String> properties = new ArrayList<>();
+                for (XmlProperty property : channel.getProperties()) {
+                    properties.add(property.getName());
+                    if (property.getName().equals("syn-iocName")) {
+                        iocs.add(property.getValue());
+                    } else if (property.getName().equals("syn-pvStatus") && property.getValue().equals("Inactive")) {
+                        inactive++;
+                    }
+                }
+                assertEquals(DirectoryGenerator.PROPERTIES, properties);
+                for (XmlTag tag : channel.getTags()) {
+                    tags.merge(tag.getName(), 1, Integer::sum);
+                    tagged++;
+                }
+            }
+        }
+        // about 3 tags a channel, the first tag on a share of them and most tags on a few
+        assertEquals(3.0, (double) tagged / channels, 0.2);
+        assertTrue(tags.get("syn-tag0000") > channels / 4);
+        assertTrue(tags.get("syn-tag0000") > 50 * tags.getOrDefault("syn-tag0500", 1));
+        assertEquals(0.05, (double) inactive / channels, 0.01);
+        // an ioc for each kind of signal of the sections of a cell
+        assertTrue(String.valueOf(iocs.size()), iocs.size() >= 10 * 2 * 4 && iocs.size() <= 10 * 2 * 6);
+    }
+
+    private static List<String> json(List<XmlChannel> channels) {
+        List<String> json = new ArrayList<>();
+        for (XmlChannel channel : channels) {
+            json.add(channel.getName() + channel.getProperties().stream().map(p -> p.getName() + "=" + p.getValue()).reduce("", String::concat)
+                    + channel.getTags().stream().map(XmlTag::getName).reduce("", String::concat));
+        }
+        return json;
+    }
+}
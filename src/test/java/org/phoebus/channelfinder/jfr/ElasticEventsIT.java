@@ -0,0 +1,108 @@
+package org.phoebus.channelfinder.jfr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.phoebus.channelfinder.ChannelRepository;
+import org.phoebus.channelfinder.XmlChannel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.util.LinkedMultiValueMap;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(ChannelRepository.class)
+public class ElasticEventsIT {
+
+    @Autowired
+    ChannelRepository channelRepository;
+
+    @Value("${elasticsearch.channel.index:channelfinder}")
+    String channelIndex;
+
+    private final List<XmlChannel> testChannels = List.of(
+            new XmlChannel("testJfrChannel0", "testOwner"),
+            new XmlChannel("testJfrChannel1", "testOwner"));
+
+    /**
+     * a bulk request and a search are recorded with their index, operation,
+     * sizes, status and the time elastic reports they took
+     */
+    @Test
+    public void events() throws Exception {
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(ElasticRequestEvent.class);
+            recording.enable(BulkEvent.class);
+            recording.start();
+            channelRepository.indexAll(testChannels);
+            LinkedMultiValueMap<String, String> searchParameters = new LinkedMultiValueMap<>();
+            searchParameters.add("~name", "testJfrChannel*");
+            channelRepository.search(searchParameters);
+            recording.stop();
+            Path file = Files.createTempFile("elastic-events", ".jfr");
+            try {
+                recording.dump(file);
+                events = RecordingFile.readAllEvents(file);
+            } finally {
+                Files.delete(file);
+            }
+        }
+
+        List<RecordedEvent> bulks = events.stream()
+                .filter(event -> event.getEventType().getName().equals("org.phoebus.channelfinder.Bulk"))
+                .collect(Collectors.toList());
+        assertEquals("Failed to record the bulk request", 1, bulks.size());
+        RecordedEvent bulk = bulks.get(0);
+        assertEquals(channelIndex, bulk.getString("index"));
+        assertEquals("index", bulk.getString("operation"));
+        assertEquals(testChannels.size(), bulk.getInt("operations"));
+        assertEquals(0, bulk.getInt("failures"));
+        assertTrue("Failed to record the time the bulk request took", bulk.getLong("took") >= 0);
+
+        RecordedEvent search = events.stream()
+                .filter(event -> event.getEventType().getName().equals("org.phoebus.channelfinder.ElasticRequest"))
+                .filter(event -> "_search".equals(event.getString("operation")))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Failed to record the search request"));
+        assertEquals(channelIndex, search.getString("index"));
+        assertEquals(200, search.getInt("status"));
+        assertTrue("Failed to record the request size", search.getLong("requestSize") > 0);
+        assertTrue("Failed to record the response size", search.getLong("responseSize") > 0);
+        assertTrue("Failed to record the time the search took", search.getLong("tookMillis") >= 0);
+        assertTrue("Failed to record the duration", search.getDuration().toNanos() > 0);
+    }
+
+    /**
+     * the took field is read from the beginning of the response
+     */
+    @Test
+    public void took() {
+        assertEquals(12, ElasticRequestEvent.took("{\"took\":12,\"timed_out\":false".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(3, ElasticRequestEvent.took("{\"took\": 3, \"errors\": false".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(-1, ElasticRequestEvent.took("{\"_index\":\"channelfinder\"".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @After
+    public void cleanup() {
+        testChannels.forEach(channel -> {
+            if (channelRepository.existsById(channel.getName())) {
+                channelRepository.deleteById(channel.getName());
+            }
+        });
+    }
+}
@@ -0,0 +1,160 @@
+package org.phoebus.channelfinder.performance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Runs the jmh benchmarks of the service and compares their scores with the
+ * committed baseline, see the <code>jmh</code> profile:
+ *
+ * <pre>
+ * mvn test -P jmh
+ * mvn test -P jmh -Djmh.include=SearchRequestBenchmark
+ * mvn test -P jmh -Djmh.baseline.update=true
+ * </pre>
+ *
+ * The benchmarks slower than the baseline by more than
+ * <code>jmh.threshold</code>, with a confidence interval apart from the one of
+ * the baseline, fail the test. The baseline depends on the machine it was
+ * recorded on, update it before comparing on another machine; the path of the
+ * jvm is left out of it.
+ */
+public class BenchmarkBaselineIT {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void compareWithBaseline() throws Exception {
+        String include = System.getProperty("jmh.include", "org.phoebus.channelfinder");
+        File baseline = new File(System.getProperty("jmh.baseline", "src/test/resources/jmh/baseline.json"));
+        File result = new File(System.getProperty("jmh.result", "target/jmh-result.json"));
+        double threshold = Double.parseDouble(System.getProperty("jmh.threshold", "0.25"));
+
+        new Runner(new OptionsBuilder()
+                .include(include)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result.getPath())
+                .build()).run();
+
+        if (Boolean.getBoolean("jmh.baseline.update")) {
+            Files.createDirectories(baseline.toPath().getParent());
+            ArrayNode benchmarks = (ArrayNode) mapper.readTree(result);
+            benchmarks.forEach(benchmark -> ((ObjectNode) benchmark).remove("jvm"));
+            mapper.writerWithDefaultPrettyPrinter().writeValue(baseline, benchmarks);
+            System.out.println("Updated the baseline " + baseline);
+            return;
+        }
+        List<String> regressions = compare(scores(baseline.toPath()), scores(result.toPath()), threshold);
+        assertTrue(regressions.isEmpty(), "Slower than the baseline " + baseline + " by more than " + threshold * 100 + "%:\n"
+                + String.join("\n", regressions));
+    }
+
+    /**
+     * the regressions are the changes beyond the threshold which are beyond the
+     * error of the scores as well
+     */
+    @Test
+    public void compareConfidenceIntervals() throws Exception {
+        Map<String, JsonNode> baseline = Map.of("bench", metric("avgt", 10, 9, 11));
+        assertTrue(compare(baseline, Map.of("bench", metric("avgt", 14, 10.5, 17.5)), 0.25).isEmpty(),
+                "Reported a change within the error as a regression");
+        assertEquals(1, compare(baseline, Map.of("bench", metric("avgt", 14, 13, 15)), 0.25).size());
+        assertTrue(compare(baseline, Map.of("bench", metric("avgt", 12, 11.5, 12.5)), 0.25).isEmpty(),
+                "Reported a change below the threshold as a regression");
+
+        Map<String, JsonNode> throughput = Map.of("bench", metric("thrpt", 10, 9, 11));
+        assertEquals(1, compare(throughput, Map.of("bench", metric("thrpt", 7, 6.5, 7.5)), 0.25).size());
+        assertTrue(compare(throughput, Map.of("bench", metric("thrpt", 7, 5, 9.5)), 0.25).isEmpty(),
+                "Reported a change within the error as a regression");
+    }
+
+    private static JsonNode metric(String mode, double score, double low, double high) throws Exception {
+        return mapper.readTree(String.format("{\"mode\":\"%s\",\"primaryMetric\":{\"score\":%s,"
+                + "\"scoreConfidence\":[%s,%s],\"scoreUnit\":\"us/op\"}}", mode, score, low, high));
+    }
+
+    /**
+     * Print the change of each benchmark found in both results
+     *
+     * @return the benchmarks regressing by more than the threshold, with
+     *         confidence intervals which do not overlap
+     */
+    static List<String> compare(Map<String, JsonNode> baseline, Map<String, JsonNode> result, double threshold) {
+        List<String> regressions = new ArrayList<>();
+        System.out.println(String.format("%-90s %14s %14s %8s", "Benchmark", "Baseline", "Score", "Change"));
+        for (Map.Entry<String, JsonNode> benchmark : result.entrySet()) {
+            JsonNode previous = baseline.get(benchmark.getKey());
+            JsonNode metric = benchmark.getValue().path("primaryMetric");
+            if (previous == null) {
+                System.out.println(String.format("%-90s %14s %14.3f %8s", benchmark.getKey(), "-",
+                        metric.path("score").asDouble(), "new"));
+                continue;
+            }
+            double base = previous.path("primaryMetric").path("score").asDouble();
+            double score = metric.path("score").asDouble();
+            double[] baseInterval = interval(previous.path("primaryMetric"));
+            double[] interval = interval(metric);
+            // the throughput is better higher, the times are better lower
+            boolean throughput = "thrpt".equals(benchmark.getValue().path("mode").asText());
+            double change = throughput ? base / score - 1 : score / base - 1;
+            boolean apart = throughput ? interval[1] < baseInterval[0] : interval[0] > baseInterval[1];
+            String line = String.format("%-90s %14.3f %14.3f %+7.1f%% %s", benchmark.getKey(), base, score,
+                    change * 100, metric.path("scoreUnit").asText());
+            if (change > threshold && !apart) {
+                line += " (within the error)";
+            }
+            System.out.println(line);
+            if (change > threshold && apart) {
+                regressions.add(line);
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * @return the 99.9% confidence interval of a score, the score alone when jmh
+     *         could not estimate its error
+     */
+    private static double[] interval(JsonNode metric) {
+        double score = metric.path("score").asDouble();
+        JsonNode confidence = metric.path("scoreConfidence");
+        double low = confidence.path(0).asDouble(Double.NaN);
+        double high = confidence.path(1).asDouble(Double.NaN);
+        return Double.isNaN(low) || Double.isNaN(high) ? new double[] {score, score} : new double[] {low, high};
+    }
+
+    /**
+     * @return the results of a jmh json result file, by benchmark and parameters
+     */
+    static Map<String, JsonNode> scores(Path file) throws Exception {
+        Map<String, JsonNode> scores = new LinkedHashMap<>();
+        if (!Files.exists(file)) {
+            return scores;
+        }
+        for (JsonNode benchmark : mapper.readTree(file.toFile())) {
+            Map<String, String> params = new TreeMap<>();
+            benchmark.path("params").fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+            scores.put(benchmark.path("benchmark").asText() + (params.isEmpty() ? "" : " " + params), benchmark);
+        }
+        return scores;
+    }
+}
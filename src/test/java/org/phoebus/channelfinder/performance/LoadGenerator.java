@@ -0,0 +1,517 @@
+package org.phoebus.channelfinder.performance;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+import org.phoebus.channelfinder.XmlChannel;
+import org.phoebus.channelfinder.XmlProperty;
+import org.phoebus.channelfinder.XmlTag;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Drives a mixed read and write workload against a running channelfinder
+ * service populated with the demo data of the <code>--demo-data</code> option,
+ * and reports the throughput and the latency percentiles of each operation.
+ * <p>
+ * Each thread issues the operations of the mix one after the other, as fast as
+ * the service answers, or at <code>load.rate</code> requests per second in
+ * total. With a rate the latency is measured from the time the request was due,
+ * so that the time spent queued behind a slow response is part of the latency
+ * rather than omitted from it.
+ * <p>
+ * The writes only touch the <code>LT:*</code> channels created for the test,
+ * which are removed at the end with the <code>loadtest</code> tag and property.
+ * <p>
+ * The latencies are written, in the output directory, as an HdrHistogram
+ * interval log of every operation, <code>loadtest.hlog</code>, and as the
+ * percentile distribution of each operation, <code>&lt;operation&gt;.hgrm</code>,
+ * in milliseconds.
+ *
+ * <pre>
+ * load.url       the service, http://localhost:8080/ChannelFinder
+ * load.auth      the user:password of the writes, admin:adminPass
+ * load.threads   the concurrent clients, 8
+ * load.duration  the measured seconds, 60
+ * load.warmup    the seconds run before the measurement, 10
+ * load.rate      the total requests per second, 0 for as fast as possible
+ * load.mix       the weights of the operations, NAME_QUERY=30,TAG_QUERY=20,...
+ * load.cells     the number of cells of the demo data, 2
+ * load.bulk      the channels of each bulk write, 100
+ * load.pages     the maximum pages read by a scroll, 5
+ * load.seed      the seed of the random choices, 1
+ * load.output    the directory of the histograms, target/loadtest
+ * </pre>
+ */
+public class LoadGenerator {
+
+    /** The operations of the workload */
+    public enum Operation {
+        /** a name pattern of a device type within a cell */
+        NAME_QUERY,
+        /** one of the group tags of the demo data, from 0 to 500 channels */
+        TAG_QUERY,
+        /** the cell, element and signal type properties */
+        PROPERTY_QUERY,
+        /** one page of a scroll through a cell */
+        SCROLL_PAGE,
+        /** the replacement of the channels of a thread */
+        BULK_PUT,
+        /** the update of a property of the channels of a thread */
+        BULK_POST,
+        /** the addition of a tag to one channel */
+        TAG_ASSIGN
+    }
+
+    static final String DEFAULT_MIX = "NAME_QUERY=30,TAG_QUERY=20,PROPERTY_QUERY=20,SCROLL_PAGE=10,BULK_PUT=5,BULK_POST=5,TAG_ASSIGN=10";
+    static final String LOADTEST = "loadtest";
+    static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toMicros(10);
+
+    // the values found in the demo data, see PopulateService
+    private static final String[] PREFIXES = {"SR:C", "BR:C"};
+    private static final String[] DEVICES = {"MG:*", "PS:*", "VA:*", "BI:*", "PU:T*"};
+    private static final String[] ELEMENTS = {"dipole", "focusing quadrupole", "defocusing quadrupole", "sextupole",
+            "horizontal slow corrector", "vacuum", "temperature sensor", "small aperture BPM"};
+    private static final String[] TYPES = {"readback", "setpoint", "status", "switch", "command"};
+    private static final int[] BUCKETS = {0, 1, 2, 5, 10, 20, 50, 100, 200, 500};
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final String url;
+    private final String owner;
+    private final String authorization;
+    private final int threads;
+    private final Duration duration;
+    private final Duration warmup;
+    private final double rate;
+    private final Map<Operation, Integer> mix;
+    private final int cells;
+    private final int bulk;
+    private final int pages;
+    private final long seed;
+    private final Path output;
+
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final Map<Operation, String> firstErrors = new ConcurrentHashMap<>();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * @param url the channelfinder service, used when <code>load.url</code> is not set
+     * @param properties the <code>load.*</code> settings
+     */
+    public LoadGenerator(String url, Properties properties) {
+        this.url = properties.getProperty("load.url", url);
+        String auth = properties.getProperty("load.auth", "admin:adminPass");
+        this.owner = auth.substring(0, auth.indexOf(':'));
+        this.authorization = "Basic " + Base64.getEncoder().encodeToString(auth.getBytes(StandardCharsets.UTF_8));
+        this.threads = Integer.parseInt(properties.getProperty("load.threads", "8"));
+        this.duration = Duration.ofSeconds(Long.parseLong(properties.getProperty("load.duration", "60")));
+        this.warmup = Duration.ofSeconds(Long.parseLong(properties.getProperty("load.warmup", "10")));
+        this.rate = Double.parseDouble(properties.getProperty("load.rate", "0"));
+        this.mix = parseMix(properties.getProperty("load.mix", DEFAULT_MIX));
+        this.cells = Integer.parseInt(properties.getProperty("load.cells", "2"));
+        this.bulk = Integer.parseInt(properties.getProperty("load.bulk", "100"));
+        this.pages = Integer.parseInt(properties.getProperty("load.pages", "5"));
+        this.seed = Long.parseLong(properties.getProperty("load.seed", "1"));
+        this.output = Paths.get(properties.getProperty("load.output", "target/loadtest"));
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(HIGHEST_LATENCY, 3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String weight : mix.split(",")) {
+            String[] operation = weight.split("=");
+            weights.put(Operation.valueOf(operation[0].trim()), Integer.valueOf(operation[1].trim()));
+        }
+        return weights;
+    }
+
+    public Map<Operation, Integer> getMix() {
+        return mix;
+    }
+
+    /**
+     * Create the channels of the test, run the workload and remove the channels
+     *
+     * @return the results of each operation of the mix
+     */
+    public Map<Operation, Result> run() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            prepare(pool);
+            try {
+                return measure(pool);
+            } finally {
+                cleanup(pool);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void prepare(ExecutorService pool) throws Exception {
+        check(send(put("/resources/tags/" + LOADTEST, new XmlTag(LOADTEST, owner))), "create the tag " + LOADTEST);
+        check(send(put("/resources/properties/" + LOADTEST, new XmlProperty(LOADTEST, owner))), "create the property " + LOADTEST);
+        List<Callable<Void>> puts = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            int id = thread;
+            puts.add(() -> {
+                check(send(put("/resources/channels", channels(id, "0"))), "create the channels LT:T" + id + "-*");
+                return null;
+            });
+        }
+        for (Future<Void> put : pool.invokeAll(puts)) {
+            put.get();
+        }
+    }
+
+    private void cleanup(ExecutorService pool) throws Exception {
+        List<Callable<Void>> deletes = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            int id = thread;
+            deletes.add(() -> {
+                for (int i = 0; i < bulk; i++) {
+                    send(delete("/resources/channels/" + encode(channelName(id, i))));
+                }
+                return null;
+            });
+        }
+        pool.invokeAll(deletes);
+        send(delete("/resources/tags/" + LOADTEST));
+        send(delete("/resources/properties/" + LOADTEST));
+    }
+
+    private Map<Operation, Result> measure(ExecutorService pool) throws Exception {
+        running.set(true);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            workers.add(pool.submit(new Worker(thread)));
+        }
+        // the recordings of the warmup are dropped
+        Thread.sleep(warmup.toMillis());
+        long start = System.currentTimeMillis();
+        for (Operation operation : Operation.values()) {
+            recorders.get(operation).reset();
+            errors.get(operation).reset();
+        }
+        firstErrors.clear();
+
+        Map<Operation, Histogram> totals = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            totals.put(operation, new Histogram(HIGHEST_LATENCY, 3));
+        }
+        Files.createDirectories(output);
+        long end = start + duration.toMillis();
+        try (PrintStream log = new PrintStream(output.resolve("loadtest.hlog").toFile(), StandardCharsets.UTF_8)) {
+            HistogramLogWriter writer = new HistogramLogWriter(log);
+            writer.outputLogFormatVersion();
+            writer.outputStartTime(start);
+            writer.setBaseTime(start);
+            writer.outputLegend();
+            for (long now = start; now < end; now = System.currentTimeMillis()) {
+                Thread.sleep(Math.min(1000, end - now));
+                for (Operation operation : Operation.values()) {
+                    Histogram interval = recorders.get(operation).getIntervalHistogram();
+                    interval.setTag(operation.name());
+                    writer.outputIntervalHistogram(interval);
+                    totals.get(operation).add(interval);
+                }
+            }
+        } finally {
+            running.set(false);
+        }
+        double seconds = (System.currentTimeMillis() - start) / 1000.0;
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+
+        Map<Operation, Result> results = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            Result result = new Result(operation, totals.get(operation), errors.get(operation).sum(),
+                    firstErrors.get(operation), seconds);
+            try (PrintStream hgrm = new PrintStream(output.resolve(operation.name() + ".hgrm").toFile(), StandardCharsets.UTF_8)) {
+                result.getHistogram().outputPercentileDistribution(hgrm, 1000.0);
+            }
+            results.put(operation, result);
+        }
+        report(results, System.out);
+        return results;
+    }
+
+    /**
+     * Print the throughput and the latency percentiles of each operation
+     */
+    public void report(Map<Operation, Result> results, PrintStream out) {
+        out.println(String.format("%d threads, %s, %d cells, bulk of %d, histograms in %s", threads,
+                rate > 0 ? rate + " requests/s" : "closed loop", cells, bulk, output.toAbsolutePath()));
+        out.println(String.format("%-16s %10s %8s %12s %10s %10s %10s %10s", "Operation", "Count", "Errors",
+                "Requests/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (Result result : results.values()) {
+            out.println(String.format("%-16s %10d %8d %12.1f %10.2f %10.2f %10.2f %10.2f", result.getOperation(),
+                    result.getCount(), result.getErrors(), result.getThroughput(), result.getPercentile(50),
+                    result.getPercentile(99), result.getPercentile(99.9), result.getHistogram().getMaxValue() / 1000.0));
+        }
+        firstErrors.forEach((operation, error) -> out.println(operation + " failed with " + error));
+    }
+
+    /**
+     * One client issuing the operations of the mix, with its own channels
+     */
+    private class Worker implements Runnable {
+
+        private final int id;
+        private final Random random;
+        private final Operation[] choices;
+
+        Worker(int id) {
+            this.id = id;
+            this.random = new Random(seed + id);
+            List<Operation> weighted = new ArrayList<>();
+            mix.forEach((operation, weight) -> {
+                for (int i = 0; i < weight; i++) {
+                    weighted.add(operation);
+                }
+            });
+            this.choices = weighted.toArray(new Operation[0]);
+        }
+
+        @Override
+        public void run() {
+            long interval = rate > 0 ? (long) (threads * 1_000_000_000L / rate) : 0;
+            long due = System.nanoTime();
+            while (running.get()) {
+                long begin = System.nanoTime();
+                if (interval > 0) {
+                    LockSupport.parkNanos(due - begin);
+                    begin = due;
+                    due += interval;
+                }
+                Operation operation = choices[random.nextInt(choices.length)];
+                try {
+                    perform(operation, begin);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    errors.get(operation).increment();
+                    firstErrors.putIfAbsent(operation, e.toString());
+                }
+            }
+        }
+
+        private void perform(Operation operation, long begin) throws Exception {
+            String cell = String.format("%03d", 1 + random.nextInt(cells));
+            switch (operation) {
+            case NAME_QUERY:
+                exchange(operation, get("/resources/channels?~name="
+                        + encode(pick(PREFIXES) + cell + "-" + pick(DEVICES))), begin);
+                break;
+            case TAG_QUERY:
+                exchange(operation, get("/resources/channels?~tag="
+                        + encode("group" + random.nextInt(6) + "_" + BUCKETS[random.nextInt(BUCKETS.length)])), begin);
+                break;
+            case PROPERTY_QUERY:
+                exchange(operation, get("/resources/channels?cell=" + cell + "&element=" + encode(pick(ELEMENTS))
+                        + "&type=" + pick(TYPES)), begin);
+                break;
+            case SCROLL_PAGE:
+                String query = "?~name=" + encode(pick(PREFIXES) + cell + "-*") + "&~size=" + bulk;
+                JsonNode page = exchange(operation, get("/resources/scroll" + query), begin);
+                for (int i = 1; i < pages && running.get() && page != null && page.path("id").isTextual(); i++) {
+                    page = exchange(operation, get("/resources/scroll/" + encode(page.path("id").asText()) + query),
+                            System.nanoTime());
+                }
+                break;
+            case BULK_PUT:
+                exchange(operation, put("/resources/channels", channels(id, Integer.toString(random.nextInt(1000)))), begin);
+                break;
+            case BULK_POST:
+                XmlProperty property = new XmlProperty(LOADTEST, owner, Integer.toString(random.nextInt(1000)));
+                List<XmlChannel> channels = channels(id, null);
+                channels.forEach(channel -> channel.addProperty(property));
+                exchange(operation, post("/resources/channels", channels), begin);
+                break;
+            case TAG_ASSIGN:
+                exchange(operation, put("/resources/tags/" + LOADTEST + "/"
+                        + encode(channelName(id, random.nextInt(bulk))), new XmlTag(LOADTEST, owner)), begin);
+                break;
+            }
+        }
+
+        private <T> T pick(T[] values) {
+            return values[random.nextInt(values.length)];
+        }
+    }
+
+    /**
+     * Send a request of an operation and record its latency, from begin
+     *
+     * @return the response, or null when it failed
+     */
+    private JsonNode exchange(Operation operation, HttpRequest request, long begin) throws Exception {
+        HttpResponse<byte[]> response = send(request);
+        long latency = System.nanoTime() - begin;
+        if (response.statusCode() >= 300) {
+            errors.get(operation).increment();
+            firstErrors.putIfAbsent(operation, response.statusCode() + " " + request.method() + " " + request.uri());
+            return null;
+        }
+        recorders.get(operation).recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latency), HIGHEST_LATENCY));
+        return response.body().length > 0 ? mapper.readTree(response.body()) : null;
+    }
+
+    private List<XmlChannel> channels(int thread, String value) {
+        List<XmlChannel> channels = new ArrayList<>(bulk);
+        for (int i = 0; i < bulk; i++) {
+            XmlChannel channel = new XmlChannel(channelName(thread, i), owner);
+            if (value != null) {
+                channel.addProperty(new XmlProperty(LOADTEST, owner, value));
+            }
+            channels.add(channel);
+        }
+        return channels;
+    }
+
+    static String channelName(int thread, int i) {
+        return "LT:T" + thread + "-" + i;
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest request) throws Exception {
+        return client.send(request, BodyHandlers.ofByteArray());
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest put(String path, Object body) throws Exception {
+        return request(path).PUT(BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body))).build();
+    }
+
+    private HttpRequest post(String path, Object body) throws Exception {
+        return request(path).POST(BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body))).build();
+    }
+
+    private HttpRequest delete(String path) {
+        return request(path).DELETE().build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(url + path))
+                .timeout(Duration.ofMinutes(1))
+                .header("Authorization", authorization)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json");
+    }
+
+    private static void check(HttpResponse<byte[]> response, String action) {
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException("Failed to " + action + ": " + response.statusCode() + " "
+                    + new String(response.body(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    /**
+     * The latencies of an operation during the measurement, in microseconds
+     */
+    public static class Result {
+        private final Operation operation;
+        private final Histogram histogram;
+        private final long errors;
+        private final String firstError;
+        private final double seconds;
+
+        Result(Operation operation, Histogram histogram, long errors, String firstError, double seconds) {
+            this.operation = operation;
+            this.histogram = histogram;
+            this.errors = errors;
+            this.firstError = firstError;
+            this.seconds = seconds;
+        }
+
+        public Operation getOperation() {
+            return operation;
+        }
+
+        public Histogram getHistogram() {
+            return histogram;
+        }
+
+        public long getCount() {
+            return histogram.getTotalCount();
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public String getFirstError() {
+            return firstError;
+        }
+
+        /**
+         * @return the successful requests per second
+         */
+        public double getThroughput() {
+            return histogram.getTotalCount() / seconds;
+        }
+
+        /**
+         * @return the latency of the percentile, in milliseconds
+         */
+        public double getPercentile(double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+
+    /**
+     * Run the workload against a running service, configured with the
+     * <code>load.*</code> system properties
+     */
+    public static void main(String[] args) throws Exception {
+        new LoadGenerator("http://localhost:8080/ChannelFinder", System.getProperties()).run();
+    }
+}
@@ -0,0 +1,366 @@
+package org.phoebus.channelfinder.performance;
+
+import java.io.BufferedReader;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.phoebus.channelfinder.replay.QueryRecorder;
+import org.phoebus.channelfinder.replay.RecordedQuery;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Replays the queries recorded by the service, see
+ * <code>query.recording.enabled</code>, against a test instance at their
+ * recorded pace or faster, and compares the latency distribution of each
+ * endpoint during the replay with the recorded one.
+ * <p>
+ * The recorded latencies are the time the service took to handle the queries,
+ * so the test instance records the replayed queries as well, and the replayed
+ * latencies are read from its recording, <code>replay.recording</code>, once
+ * the replay is over: both distributions are measured the same way. The test
+ * instance should not receive other queries during the replay.
+ * <p>
+ * The latency seen by the replay is also measured, from the time the query
+ * was due, so that a test instance falling behind the recorded pace shows in
+ * the latencies rather than in a slower replay.
+ * <p>
+ * The distributions are written, in the output directory, as the percentile
+ * distributions <code>&lt;endpoint&gt;.recorded.hgrm</code>,
+ * <code>&lt;endpoint&gt;.replayed.hgrm</code> and
+ * <code>&lt;endpoint&gt;.client.hgrm</code>, in milliseconds.
+ *
+ * <pre>
+ * replay.file       the recording, with its rotated files, queries/queries.jsonl
+ * replay.url        the test instance, http://localhost:8080
+ * replay.recording  the recording of the test instance, readable by the replay, required
+ * replay.speed      1 for the recorded pace, N for N times faster, 0 for as fast as possible
+ * replay.threads    the concurrent queries, 16
+ * replay.auth       the user:password of the queries recorded with credentials, none
+ * replay.output     the directory of the histograms, target/replay
+ * </pre>
+ */
+public class QueryReplay {
+
+    static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toMicros(10);
+    /** the time the test instance takes to write its recording, it flushes it every second */
+    static final long RECORDING_DELAY = TimeUnit.SECONDS.toMillis(10);
+
+    // the recordings before the queries carried their credentials as a flag held the class of their principal
+    private final ObjectMapper mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final Path file;
+    private final String url;
+    private final Path recording;
+    private final double speed;
+    private final int threads;
+    private final Properties properties;
+    private final Path output;
+
+    /** the distributions by endpoint, sorted */
+    private final Map<String, Comparison> comparisons = new TreeMap<>();
+
+    /**
+     * @param properties the <code>replay.*</code> settings
+     */
+    public QueryReplay(Properties properties) {
+        this.file = Paths.get(properties.getProperty("replay.file", "queries/queries.jsonl"));
+        this.url = properties.getProperty("replay.url", "http://localhost:8080");
+        String recording = properties.getProperty("replay.recording");
+        if (recording == null || recording.isBlank()) {
+            throw new IllegalArgumentException("replay.recording, the recording of the test instance, is required");
+        }
+        this.recording = Paths.get(recording);
+        this.speed = Double.parseDouble(properties.getProperty("replay.speed", "1"));
+        this.threads = Integer.parseInt(properties.getProperty("replay.threads", "16"));
+        this.properties = properties;
+        this.output = Paths.get(properties.getProperty("replay.output", "target/replay"));
+    }
+
+    /**
+     * The recorded and replayed latencies of an endpoint, as recorded by the
+     * services, and the latencies seen by the replay, in microseconds, of the
+     * queries that succeeded
+     */
+    public static class Comparison {
+        private final String endpoint;
+        private final Histogram recorded = new ConcurrentHistogram(HIGHEST_LATENCY, 3);
+        private final Histogram replayed = new ConcurrentHistogram(HIGHEST_LATENCY, 3);
+        private final Histogram client = new ConcurrentHistogram(HIGHEST_LATENCY, 3);
+        private final LongAdder recordedErrors = new LongAdder();
+        private final LongAdder replayedErrors = new LongAdder();
+        private final LongAdder clientErrors = new LongAdder();
+
+        Comparison(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public Histogram getRecorded() {
+            return recorded;
+        }
+
+        public Histogram getReplayed() {
+            return replayed;
+        }
+
+        public Histogram getClient() {
+            return client;
+        }
+
+        public long getRecordedErrors() {
+            return recordedErrors.sum();
+        }
+
+        public long getReplayedErrors() {
+            return replayedErrors.sum();
+        }
+
+        /**
+         * @return the replayed queries which failed or were not answered
+         */
+        public long getClientErrors() {
+            return clientErrors.sum();
+        }
+    }
+
+    /**
+     * Replay the recorded queries, in the order they were recorded
+     *
+     * @return the comparisons by endpoint
+     */
+    public Map<String, Comparison> run() throws Exception {
+        List<Path> files = QueryRecorder.files(file);
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No recorded queries in " + file.toAbsolutePath());
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        Semaphore pending = new Semaphore(threads * 4);
+        long queries = 0;
+        long start = System.nanoTime();
+        // the queries recorded during the replay, when replaying against the recording instance, are not replayed
+        long end = System.currentTimeMillis();
+        long first = -1;
+        try {
+            replay: for (Path recording : files) {
+                try (BufferedReader reader = Files.newBufferedReader(recording, StandardCharsets.UTF_8)) {
+                    for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                        if (line.isBlank()) {
+                            continue;
+                        }
+                        RecordedQuery query = mapper.readValue(line, RecordedQuery.class);
+                        if (query.getTimestamp() >= end) {
+                            break replay;
+                        }
+                        if (first < 0) {
+                            first = query.getTimestamp();
+                        }
+                        long due = speed > 0
+                                ? start + (long) (TimeUnit.MILLISECONDS.toNanos(query.getTimestamp() - first) / speed)
+                                : System.nanoTime();
+                        LockSupport.parkNanos(due - System.nanoTime());
+                        Comparison comparison = comparisons.computeIfAbsent(query.getMethod() + " " + query.getEndpoint(), Comparison::new);
+                        if (query.getStatus() < 300) {
+                            comparison.recorded.recordValue(Math.min(query.getMicros(), HIGHEST_LATENCY));
+                        } else {
+                            comparison.recordedErrors.increment();
+                        }
+                        pending.acquire();
+                        pool.submit(() -> {
+                            try {
+                                replay(query, comparison, due);
+                            } finally {
+                                pending.release();
+                            }
+                        });
+                        queries++;
+                    }
+                }
+            }
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.HOURS);
+        } finally {
+            pool.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long replayed = collect(end, queries);
+        if (replayed < queries) {
+            System.err.println(String.format("The test instance recorded %d of the %d replayed queries in %s, "
+                    + "check its query.recording.* settings", replayed, queries, recording.toAbsolutePath()));
+        }
+
+        Files.createDirectories(output);
+        for (Comparison comparison : comparisons.values()) {
+            String name = comparison.endpoint.replaceAll("[^A-Za-z0-9]+", "_");
+            try (PrintStream hgrm = new PrintStream(output.resolve(name + ".recorded.hgrm").toFile(), StandardCharsets.UTF_8)) {
+                comparison.recorded.outputPercentileDistribution(hgrm, 1000.0);
+            }
+            try (PrintStream hgrm = new PrintStream(output.resolve(name + ".replayed.hgrm").toFile(), StandardCharsets.UTF_8)) {
+                comparison.replayed.outputPercentileDistribution(hgrm, 1000.0);
+            }
+            try (PrintStream hgrm = new PrintStream(output.resolve(name + ".client.hgrm").toFile(), StandardCharsets.UTF_8)) {
+                comparison.client.outputPercentileDistribution(hgrm, 1000.0);
+            }
+        }
+        System.out.println(String.format("Replayed %d queries of %s in %.1f s at %s against %s, histograms in %s", queries,
+                files, seconds, speed > 0 ? speed + "x" : "full speed", url, output.toAbsolutePath()));
+        report(System.out);
+        return comparisons;
+    }
+
+    private void replay(RecordedQuery query, Comparison comparison, long due) {
+        try {
+            HttpRequest.Builder request = HttpRequest.newBuilder(uri(query))
+                    .timeout(Duration.ofMinutes(1))
+                    .method(query.getMethod(), HttpRequest.BodyPublishers.noBody())
+                    .header("Accept", "application/json");
+            String auth = properties.getProperty("replay.auth");
+            if (query.isAuthorization() && auth != null) {
+                request.header("Authorization", "Basic " + Base64.getEncoder().encodeToString(auth.getBytes(StandardCharsets.UTF_8)));
+            }
+            HttpResponse<Void> response = client.send(request.build(), BodyHandlers.discarding());
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - due);
+            if (response.statusCode() < 300) {
+                comparison.client.recordValue(Math.min(micros, HIGHEST_LATENCY));
+            } else {
+                comparison.clientErrors.increment();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            comparison.clientErrors.increment();
+        }
+    }
+
+    /**
+     * Read the queries recorded by the test instance since the replay started,
+     * waiting for it to write them
+     *
+     * @param since the time the replay started, in milliseconds since the epoch
+     * @param expected the number of queries replayed
+     * @return the number of replayed queries recorded
+     */
+    private long collect(long since, long expected) throws Exception {
+        long deadline = System.currentTimeMillis() + RECORDING_DELAY;
+        List<RecordedQuery> replayed = read(since);
+        while (replayed.size() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(500);
+            replayed = read(since);
+        }
+        for (RecordedQuery query : replayed) {
+            Comparison comparison = comparisons.computeIfAbsent(query.getMethod() + " " + query.getEndpoint(), Comparison::new);
+            if (query.getStatus() < 300) {
+                comparison.replayed.recordValue(Math.min(query.getMicros(), HIGHEST_LATENCY));
+            } else {
+                comparison.replayedErrors.increment();
+            }
+        }
+        return replayed.size();
+    }
+
+    /**
+     * @return the queries of the recording of the test instance received since
+     *         a time
+     */
+    private List<RecordedQuery> read(long since) throws Exception {
+        List<RecordedQuery> queries = new ArrayList<>();
+        for (Path file : QueryRecorder.files(recording)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    RecordedQuery query = mapper.readValue(line, RecordedQuery.class);
+                    if (query.getTimestamp() >= since) {
+                        queries.add(query);
+                    }
+                }
+            }
+        }
+        return queries;
+    }
+
+    /**
+     * @return the uri of a recorded query on the test instance
+     */
+    URI uri(RecordedQuery query) {
+        String path = query.getEndpoint();
+        for (Map.Entry<String, String> variable : query.getVariables().entrySet()) {
+            path = path.replace("{" + variable.getKey() + "}", encode(variable.getValue()));
+        }
+        StringJoiner parameters = new StringJoiner("&", "?", "").setEmptyValue("");
+        for (Map.Entry<String, List<String>> parameter : query.getParameters().entrySet()) {
+            for (String value : parameter.getValue()) {
+                parameters.add(encode(parameter.getKey()) + "=" + encode(value));
+            }
+        }
+        return URI.create(url + path + parameters);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    /**
+     * Print the recorded and replayed percentiles of each endpoint, and the
+     * p99 seen by the replay
+     */
+    public void report(PrintStream out) {
+        out.println(String.format("%-50s %8s | %-38s | %-38s | %8s | %-18s", "", "", "recorded", "replayed", "", "client"));
+        out.println(String.format("%-50s %8s | %8s %9s %9s %9s | %8s %9s %9s %9s | %8s | %8s %9s", "Endpoint", "Queries",
+                "Errors", "p50 ms", "p99 ms", "p99.9 ms", "Errors", "p50 ms", "p99 ms", "p99.9 ms", "p99", "Errors", "p99 ms"));
+        for (Comparison c : comparisons.values()) {
+            double recorded = c.recorded.getValueAtPercentile(99);
+            double replayed = c.replayed.getValueAtPercentile(99);
+            out.println(String.format("%-50s %8d | %8d %9.2f %9.2f %9.2f | %8d %9.2f %9.2f %9.2f | %+7.0f%% | %8d %9.2f", c.endpoint,
+                    c.recorded.getTotalCount() + c.getRecordedErrors(),
+                    c.getRecordedErrors(), c.recorded.getValueAtPercentile(50) / 1000.0, recorded / 1000.0,
+                    c.recorded.getValueAtPercentile(99.9) / 1000.0,
+                    c.getReplayedErrors(), c.replayed.getValueAtPercentile(50) / 1000.0, replayed / 1000.0,
+                    c.replayed.getValueAtPercentile(99.9) / 1000.0,
+                    recorded > 0 ? (replayed / recorded - 1) * 100 : 0,
+                    c.getClientErrors(), c.client.getValueAtPercentile(99) / 1000.0));
+        }
+    }
+
+    /**
+     * Replay a recording, configured with the <code>replay.*</code> system
+     * properties
+     */
+    public static void main(String[] args) throws Exception {
+        new QueryReplay(System.getProperties()).run();
+    }
+}
@@ -0,0 +1,26 @@
+package org.phoebus.channelfinder.performance;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.phoebus.channelfinder.performance.QueryReplay.Comparison;
+
+/**
+ * Replays a recording of the queries against a test instance, see the
+ * <code>replay</code> profile and {@link QueryReplay}:
+ *
+ * <pre>
+ * mvn test -P replay -Dreplay.file=queries/queries.jsonl -Dreplay.url=http://localhost:8080 \
+ *     -Dreplay.recording=test/queries.jsonl [-Dreplay.speed=4]
+ * </pre>
+ */
+public class QueryReplayIT {
+
+    @Test
+    public void replay() throws Exception {
+        Map<String, Comparison> comparisons = new QueryReplay(System.getProperties()).run();
+        assertFalse(comparisons.isEmpty());
+    }
+}
@@ -0,0 +1,75 @@
+package org.phoebus.channelfinder.replay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class QueryRecorderIT {
+
+    private static RecordedQuery query(long timestamp) {
+        Map<String, List<String>> parameters = new LinkedHashMap<>();
+        parameters.put("~name", Arrays.asList("SR:C001-MG:1{QDP:D}*"));
+        return new RecordedQuery(timestamp, "GET", "/ChannelFinder/resources/channels", new LinkedHashMap<>(),
+                parameters, false, 200, 1500);
+    }
+
+    /**
+     * the queries are written in order, the files rotated beyond their size
+     * and the oldest dropped beyond the number of files
+     */
+    @Test
+    public void rotation() throws Exception {
+        Path directory = Files.createTempDirectory("queries");
+        Path file = directory.resolve("queries.jsonl");
+        QueryRecorder recorder = new QueryRecorder(file, 1000, 3, 10000);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(recorder.record(query(i)));
+        }
+        recorder.close();
+
+        List<Path> files = QueryRecorder.files(file);
+        assertEquals(Arrays.asList(directory.resolve("queries.jsonl.2"), directory.resolve("queries.jsonl.1"), file), files);
+        ObjectMapper mapper = new ObjectMapper();
+        List<Long> timestamps = new ArrayList<>();
+        for (Path recording : files) {
+            assertTrue(Files.size(recording) < 1000 + 200);
+            for (String line : Files.readAllLines(recording)) {
+                timestamps.add(mapper.readValue(line, RecordedQuery.class).getTimestamp());
+            }
+        }
+        // the most recent queries are kept, in order
+        assertEquals(99L, timestamps.get(timestamps.size() - 1).longValue());
+        for (int i = 1; i < timestamps.size(); i++) {
+            assertEquals(timestamps.get(i - 1) + 1, timestamps.get(i).longValue());
+        }
+        RecordedQuery read = mapper.readValue(Files.readAllLines(file).get(0), RecordedQuery.class);
+        assertEquals("SR:C001-MG:1{QDP:D}*", read.getParameters().get("~name").get(0));
+    }
+
+    /**
+     * the queries beyond the capacity of the queue are dropped
+     */
+    @Test
+    public void dropped() throws Exception {
+        Path file = Files.createTempDirectory("queries").resolve("queries.jsonl");
+        QueryRecorder recorder = new QueryRecorder(file, Long.MAX_VALUE, 1, 1);
+        int recorded = 0;
+        for (int i = 0; i < 10000; i++) {
+            recorded += recorder.record(query(i)) ? 1 : 0;
+        }
+        recorder.close();
+        assertEquals(10000, recorded + recorder.getDropped());
+        assertEquals(recorded, Files.readAllLines(file).size());
+    }
+}
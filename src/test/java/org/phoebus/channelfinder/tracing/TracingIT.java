@@ -0,0 +1,84 @@
+package org.phoebus.channelfinder.tracing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class TracingIT {
+
+    @After
+    public void reset() {
+        Tracing.configure(true, 10000);
+    }
+
+    /**
+     * the spans started while a span is current are its children
+     */
+    @Test
+    public void childSpans() {
+        Span server;
+        Span repository;
+        Span client;
+        try (Span span = Tracing.start("PUT", Span.Kind.SERVER, "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01")) {
+            server = span;
+            try (Span child = Tracing.start("TagRepository.index", Span.Kind.INTERNAL)) {
+                repository = child;
+                try (Span elastic = Tracing.start("elastic es/index", Span.Kind.CLIENT)) {
+                    client = elastic;
+                    assertSame(elastic, Tracing.current());
+                }
+                assertSame(child, Tracing.current());
+            }
+        }
+        assertNull(Tracing.current());
+
+        List<Span> spans = Tracing.spans("0af7651916cd43dd8448eb211c80319c");
+        assertEquals(List.of(client, repository, server), spans);
+        assertEquals("b7ad6b7169203331", server.toOtlp().get("parentSpanId"));
+        assertEquals(server.getSpanId(), repository.toOtlp().get("parentSpanId"));
+        assertEquals(repository.getSpanId(), client.toOtlp().get("parentSpanId"));
+        assertEquals("00-0af7651916cd43dd8448eb211c80319c-" + client.getSpanId() + "-01", client.traceparent());
+    }
+
+    /**
+     * a request without a valid traceparent starts a new trace
+     */
+    @Test
+    public void newTrace() {
+        Span span = Tracing.start("GET", Span.Kind.SERVER, "invalid");
+        span.setAttribute("http.status_code", 200L).setError(new IllegalStateException("failed"));
+        span.close();
+        assertEquals(32, span.getTraceId().length());
+        Map<String, Object> otlp = span.toOtlp();
+        assertFalse(otlp.containsKey("parentSpanId"));
+        assertEquals(Map.of("code", 2, "message", "java.lang.IllegalStateException: failed"), otlp.get("status"));
+        assertEquals(List.of(Map.of("key", "http.status_code", "value", Map.of("intValue", "200"))), otlp.get("attributes"));
+    }
+
+    /**
+     * only the last spans are kept, and none when tracing is disabled
+     */
+    @Test
+    public void bufferSize() {
+        Tracing.configure(true, 2);
+        for (int i = 0; i < 3; i++) {
+            Tracing.start("span" + i, Span.Kind.INTERNAL).close();
+        }
+        assertEquals(2, Tracing.spans(null).size());
+        assertEquals("span2", Tracing.spans(null).get(1).getName());
+
+        Tracing.configure(false, 2);
+        Span span = Tracing.start("disabled", Span.Kind.INTERNAL);
+        assertFalse(span.isRecording());
+        assertNull(Tracing.current());
+        span.close();
+        assertEquals("span2", Tracing.spans(null).get(1).getName());
+    }
+}
@@ -0,0 +1,127 @@
+package org.phoebus.channelfinder.usage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.phoebus.channelfinder.usage.UsageAccounting.Dimension;
+import org.phoebus.channelfinder.usage.UsageAccounting.Metric;
+
+public class SpaceSavingIT {
+
+    @After
+    public void reset() {
+        UsageAccounting.configure(true, 1000);
+    }
+
+    /**
+     * the exact counts are kept while the keys fit in the counters
+     */
+    @Test
+    public void exact() {
+        SpaceSaving<Long> summary = new SpaceSaving<>(3, Long::sum);
+        summary.add("a", 1, 1L);
+        summary.add("b", 5, 5L);
+        summary.add("a", 2, 2L);
+        summary.add("c", 0, 0L);
+
+        List<SpaceSaving.Counter<Long>> top = summary.top(10);
+        assertEquals(2, top.size());
+        assertEquals("b", top.get(0).getKey());
+        assertEquals(5, top.get(0).getCount());
+        assertEquals("a", top.get(1).getKey());
+        assertEquals(3, top.get(1).getCount());
+        assertEquals(0, top.get(1).getError());
+        assertEquals(Long.valueOf(3), top.get(1).getValue());
+        assertEquals(8, summary.getTotal());
+    }
+
+    /**
+     * the heavy keys of a stream with many more keys than counters are found,
+     * their counts overestimated by at most their error
+     */
+    @Test
+    public void heavyHitters() {
+        SpaceSaving<Long> summary = new SpaceSaving<>(20, Long::sum);
+        Random random = new Random(42);
+        long polling = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (random.nextInt(10) == 0) {
+                summary.add("polling", 1, 1L);
+                polling++;
+            } else {
+                summary.add("client" + random.nextInt(10000), 1, 1L);
+            }
+        }
+        SpaceSaving.Counter<Long> top = summary.top(1).get(0);
+        assertEquals("polling", top.getKey());
+        assertTrue(top.getCount() >= polling);
+        assertTrue(top.getCount() - top.getError() <= polling);
+        assertTrue(top.getError() <= summary.getTotal() / 20);
+    }
+
+    /**
+     * the usage of a request is accounted to its principal and client
+     */
+    @Test
+    public void accounting() {
+        UsageAccounting.configure(true, 10);
+        UsageAccounting.begin();
+        UsageAccounting.principal("admin");
+        UsageAccounting.rows(3);
+        UsageAccounting.elastic(2_000_000);
+        UsageAccounting.end("10.0.0.1", 200, 100);
+        UsageAccounting.begin();
+        UsageAccounting.end("10.0.0.2", 401, 50);
+
+        List<SpaceSaving.Counter<Usage>> principals = UsageAccounting.top(Dimension.PRINCIPAL, Metric.REQUESTS, 10);
+        assertEquals(2, principals.size());
+        SpaceSaving.Counter<Usage> bytes = UsageAccounting.top(Dimension.CLIENT, Metric.BYTES, 1).get(0);
+        assertEquals("10.0.0.1", bytes.getKey());
+        assertEquals(100, bytes.getCount());
+        assertEquals(3, bytes.getValue().getRows());
+        assertEquals(2_000_000, bytes.getValue().getElasticNanos());
+        SpaceSaving.Counter<Usage> errors = UsageAccounting.top(Dimension.PRINCIPAL, Metric.ERRORS, 10).get(0);
+        assertEquals(UsageAccounting.ANONYMOUS, errors.getKey());
+        assertEquals(1, UsageAccounting.top(Dimension.PRINCIPAL, Metric.ERRORS, 10).size());
+
+        UsageAccounting.reset();
+        assertTrue(UsageAccounting.top(Dimension.CLIENT, Metric.REQUESTS, 10).isEmpty());
+    }
+
+    /**
+     * the requests accounted concurrently, in batches, are all counted
+     */
+    @Test
+    public void concurrentAccounting() throws InterruptedException {
+        UsageAccounting.configure(true, 10);
+        int threads = 8;
+        int requests = 10 * UsageAccounting.BATCH + 1;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            String principal = "user" + t;
+            pool.execute(() -> {
+                for (int i = 0; i < requests; i++) {
+                    UsageAccounting.begin();
+                    UsageAccounting.principal(principal);
+                    UsageAccounting.end("10.0.0.1", 200, 10);
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+
+        assertEquals(threads * requests, UsageAccounting.total(Dimension.PRINCIPAL, Metric.REQUESTS));
+        List<SpaceSaving.Counter<Usage>> principals = UsageAccounting.top(Dimension.PRINCIPAL, Metric.REQUESTS, threads);
+        assertEquals(threads, principals.size());
+        principals.forEach(counter -> assertEquals(requests, counter.getCount()));
+        assertEquals(threads * requests * 10L, UsageAccounting.top(Dimension.CLIENT, Metric.BYTES, 1).get(0).getCount());
+    }
+}